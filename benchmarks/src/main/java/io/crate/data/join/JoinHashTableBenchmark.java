@@ -0,0 +1,106 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.data.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.crate.execution.engine.join.JoinHashTable;
+import io.netty.util.collection.IntObjectHashMap;
+
+/**
+ * Compares building and probing the {@link JoinHashTable} with the map of lists previously used by the hash join.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JoinHashTableBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int numRows;
+
+    // number of rows with the same key
+    @Param({"1", "5"})
+    public int duplicates;
+
+    private Object[][] rows;
+    private Object[][] keys;
+    private int[] hashes;
+
+    @Setup
+    public void setup() {
+        rows = new Object[numRows][];
+        keys = new Object[numRows][];
+        hashes = new int[numRows];
+        for (int i = 0; i < numRows; i++) {
+            int key = i / duplicates;
+            rows[i] = new Object[] { key, "value-" + i };
+            keys[i] = new Object[] { key };
+            hashes[i] = JoinHashTable.hash(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public void measureBuildAndProbeJoinHashTable(Blackhole blackhole) {
+        JoinHashTable table = new JoinHashTable();
+        for (int i = 0; i < numRows; i++) {
+            table.add(hashes[i], keys[i], rows[i]);
+        }
+        for (int i = 0; i < numRows; i += duplicates) {
+            for (int pos = table.first(hashes[i], keys[i]); pos != -1; pos = table.next(pos)) {
+                blackhole.consume(table.row(pos));
+            }
+        }
+    }
+
+    @Benchmark
+    public void measureBuildAndProbeMapOfLists(Blackhole blackhole) {
+        IntObjectHashMap<List<Object[]>> map = new IntObjectHashMap<>();
+        for (int i = 0; i < numRows; i++) {
+            List<Object[]> existingRows = map.get(hashes[i]);
+            if (existingRows == null) {
+                existingRows = new ArrayList<>();
+                map.put(hashes[i], existingRows);
+            }
+            existingRows.add(rows[i]);
+        }
+        for (int i = 0; i < numRows; i += duplicates) {
+            List<Object[]> matches = map.get(hashes[i]);
+            if (matches != null) {
+                for (Object[] row : matches) {
+                    blackhole.consume(row);
+                }
+            }
+        }
+    }
+}
@@ -159,8 +159,8 @@ public class RowsBatchIteratorBenchmark {
             rowAccounting,
             new CombinedRow(1, 1),
             row -> Objects.equals(row.get(0), row.get(1)),
-            row -> Objects.hash(row.get(0)),
-            row -> Objects.hash(row.get(0)),
+            row -> new Object[] { row.get(0) },
+            row -> new Object[] { row.get(0) },
             ignored -> 1000
         );
         while (leftJoin.moveNext()) {
@@ -180,9 +180,9 @@ public class RowsBatchIteratorBenchmark {
                 // For the 0-499 records no collisions
                 // For the 500-1000 records produce chains of length 5 but don't interfere with the 0-499
                 Integer value = (Integer) row.get(0);
-                return value < 500 ? value : (value % 100) + 500;
+                return new Object[] { value < 500 ? value : (value % 100) + 500 };
             },
-            row -> (Integer) row.get(0) % 500,
+            row -> new Object[] { (Integer) row.get(0) % 500 },
             ignored -> 1000
         );
         while (leftJoin.moveNext()) {
@@ -225,5 +225,10 @@ public class RowsBatchIteratorBenchmark {
         public void release() {
 
         }
+
+        @Override
+        public void release(long bytes) {
+
+        }
     }
 }
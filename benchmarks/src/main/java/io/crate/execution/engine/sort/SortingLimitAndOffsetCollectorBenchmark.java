@@ -79,6 +79,10 @@ public class SortingLimitAndOffsetCollectorBenchmark {
                 @Override
                 public void release() {
                 }
+
+                @Override
+                public void release(long bytes) {
+                }
             },
             INPUTS,
             COLLECT_EXPRESSIONS,
@@ -98,6 +102,10 @@ public class SortingLimitAndOffsetCollectorBenchmark {
                 @Override
                 public void release() {
                 }
+
+                @Override
+                public void release(long bytes) {
+                }
             },
             INPUTS,
             COLLECT_EXPRESSIONS,
@@ -0,0 +1,137 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Measures the rows/s of encoding DataRow messages with one buffer per row ({@link Messages#sendDataRow})
+ * compared to the {@link DataRowEncoder} which writes many rows into a shared buffer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class DataRowEncoderBenchmark {
+
+    private static final int NUM_ROWS = 100_000;
+
+    // narrow: 2 columns, wide: 20 columns
+    @Param({"2", "20"})
+    public int numColumns;
+
+    @Param({"TEXT", "BINARY"})
+    public FormatCodes.FormatCode formatCode;
+
+    private EmbeddedChannel channel;
+    private List<Row> rows;
+    private List<PGType<?>> columnTypes;
+    private FormatCodes.FormatCode[] formatCodes;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setSuccess();
+            }
+        });
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        List<DataType<?>> types = List.of(DataTypes.LONG, DataTypes.INTEGER, DataTypes.STRING, DataTypes.DOUBLE);
+        columnTypes = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            columnTypes.add(PGTypes.get(types.get(i % types.size())));
+        }
+        formatCodes = new FormatCodes.FormatCode[] { formatCode };
+        rows = new ArrayList<>(NUM_ROWS);
+        for (int r = 0; r < NUM_ROWS; r++) {
+            Object[] cells = new Object[numColumns];
+            for (int i = 0; i < numColumns; i++) {
+                cells[i] = switch (i % types.size()) {
+                    case 0 -> (long) r * 31;
+                    case 1 -> r;
+                    case 2 -> "value-" + r;
+                    default -> r / 7.0;
+                };
+            }
+            rows.add(new RowN(cells));
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void measureSendDataRowPerRow() {
+        int rowCount = 0;
+        for (Row row : rows) {
+            Messages.sendDataRow(channel, row, columnTypes, formatCodes);
+            rowCount++;
+            if (rowCount % 1000 == 0) {
+                channel.flush();
+            }
+        }
+        channel.flush();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void measureDataRowEncoder() {
+        DataRowEncoder encoder = new DataRowEncoder(channel, columnTypes, formatCodes);
+        for (Row row : rows) {
+            encoder.write(row);
+        }
+        encoder.writePending();
+        channel.flush();
+    }
+}
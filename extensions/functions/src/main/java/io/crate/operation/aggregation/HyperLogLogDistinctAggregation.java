@@ -29,7 +29,9 @@ import java.util.List;
 
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -37,8 +39,6 @@ import org.elasticsearch.common.hash.MurmurHash3;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
-import org.elasticsearch.index.fielddata.FieldData;
-import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.jetbrains.annotations.Nullable;
 
@@ -236,31 +236,21 @@ public class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLog
                 var precision = optionalParams.size() == 1 ? (Integer) optionalParams.get(0).value() : HyperLogLogPlusPlus.DEFAULT_PRECISION;
                 return new HllAggregator(reference.storageIdent(), dataType, precision) {
                     @Override
-                    public void apply(RamAccounting ramAccounting, int doc, HllState state) throws IOException {
-                        if (super.values.advanceExact(doc) && super.values.docValueCount() == 1) {
-                            BytesRef ref = super.values.nextValue();
-                            var hash = state.isAllOn4_1() ?
-                                MurmurHash3.hash64(ref.bytes, ref.offset, ref.length)
-                                : MurmurHash3.hash128(ref.bytes, ref.offset, ref.length, 0, super.hash128).h1;
-
-                            state.addHash(hash);
-                        }
+                    long hash(BytesRef ref, boolean allOn4_1) {
+                        return allOn4_1
+                            ? MurmurHash3.hash64(ref.bytes, ref.offset, ref.length)
+                            : MurmurHash3.hash128(ref.bytes, ref.offset, ref.length, 0, super.hash128).h1;
                     }
                 };
             case IpType.ID:
                 var ipPrecision = optionalParams.size() == 1 ? (Integer) optionalParams.get(0).value() : HyperLogLogPlusPlus.DEFAULT_PRECISION;
                 return new HllAggregator(reference.storageIdent(), dataType, ipPrecision) {
                     @Override
-                    public void apply(RamAccounting ramAccounting, int doc, HllState state) throws IOException {
-                        if (super.values.advanceExact(doc) && super.values.docValueCount() == 1) {
-                            BytesRef ref = super.values.nextValue();
-                            byte[] bytes = ((String) DocValueFormat.IP.format(ref)).getBytes(StandardCharsets.UTF_8);
-
-                            var hash = state.isAllOn4_1() ?
-                                MurmurHash3.hash64(bytes, 0, bytes.length)
-                                : MurmurHash3.hash128(bytes, 0, bytes.length, 0, super.hash128).h1;
-                            state.addHash(hash);
-                        }
+                    long hash(BytesRef ref, boolean allOn4_1) {
+                        byte[] bytes = ((String) DocValueFormat.IP.format(ref)).getBytes(StandardCharsets.UTF_8);
+                        return allOn4_1
+                            ? MurmurHash3.hash64(bytes, 0, bytes.length)
+                            : MurmurHash3.hash128(bytes, 0, bytes.length, 0, super.hash128).h1;
                     }
                 };
             default:
@@ -268,13 +258,25 @@ public class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLog
         }
     }
 
+    /**
+     * Aggregator for columns using {@link SortedSetDocValues}.
+     * Within a segment, the same value always has the same ordinal, so the hash of a value is computed
+     * only once per segment and cached by ordinal. The cache is limited to
+     * {@link #MAX_CACHED_ORDINALS}; hashes of ordinals above that limit are computed on every access.
+     */
     private abstract static class HllAggregator implements DocValueAggregator<HllState> {
 
+        private static final int MAX_CACHED_ORDINALS = 1 << 14;
+
         private final String columnName;
         private final DataType<?> dataType;
         private final Integer precision;
         private final MurmurHash3.Hash128 hash128 = new MurmurHash3.Hash128();
-        private SortedBinaryDocValues values;
+        private SortedSetDocValues values;
+
+        private long[] cachedHashes;
+        private FixedBitSet cachedOrdinals;
+        private boolean cachedAllOn4_1;
 
         public HllAggregator(String columnName, DataType<?> dataType, Integer precision) {
             this.columnName = columnName;
@@ -282,6 +284,8 @@ public class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLog
             this.precision = precision;
         }
 
+        abstract long hash(BytesRef ref, boolean allOn4_1);
+
         @Override
         public HllState initialState(RamAccounting ramAccounting, MemoryManager memoryManager, Version minNodeVersion) {
             var state = new HllState(dataType, minNodeVersion.onOrAfter(Version.V_4_1_0));
@@ -290,11 +294,36 @@ public class HyperLogLogDistinctAggregation extends AggregationFunction<HyperLog
 
         @Override
         public void loadDocValues(LeafReaderContext reader) throws IOException {
-            values = FieldData.toString(DocValues.getSortedSet(reader.reader(), columnName));
+            values = DocValues.getSortedSet(reader.reader(), columnName);
+            int numCachedOrdinals = (int) Math.min(values.getValueCount(), MAX_CACHED_ORDINALS);
+            if (cachedHashes == null || cachedHashes.length < numCachedOrdinals) {
+                cachedHashes = new long[numCachedOrdinals];
+                cachedOrdinals = new FixedBitSet(numCachedOrdinals);
+            } else {
+                cachedOrdinals.clear(0, cachedOrdinals.length());
+            }
         }
 
         @Override
-        public abstract void apply(RamAccounting ramAccounting, int doc, HllState state) throws IOException;
+        public void apply(RamAccounting ramAccounting, int doc, HllState state) throws IOException {
+            if (values.advanceExact(doc) && values.docValueCount() == 1) {
+                long ord = values.nextOrd();
+                boolean allOn4_1 = state.isAllOn4_1();
+                if (ord >= MAX_CACHED_ORDINALS) {
+                    state.addHash(hash(values.lookupOrd(ord), allOn4_1));
+                    return;
+                }
+                if (allOn4_1 != cachedAllOn4_1) {
+                    cachedOrdinals.clear(0, cachedOrdinals.length());
+                    cachedAllOn4_1 = allOn4_1;
+                }
+                int idx = (int) ord;
+                if (!cachedOrdinals.getAndSet(idx)) {
+                    cachedHashes[idx] = hash(values.lookupOrd(ord), allOn4_1);
+                }
+                state.addHash(cachedHashes[idx]);
+            }
+        }
 
         @Override
         public Object partialResult(RamAccounting ramAccounting, HllState state) {
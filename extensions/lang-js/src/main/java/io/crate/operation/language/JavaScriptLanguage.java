@@ -24,10 +24,15 @@ package io.crate.operation.language;
 import io.crate.expression.udf.UDFLanguage;
 import io.crate.expression.udf.UserDefinedFunctionMetadata;
 import io.crate.expression.udf.UserDefinedFunctionService;
+import io.crate.expression.udf.UserDefinedFunctionsMetadata;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
@@ -39,10 +44,17 @@ import org.graalvm.polyglot.Value;
 import org.jetbrains.annotations.Nullable;
 import javax.script.ScriptException;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
-public class JavaScriptLanguage implements UDFLanguage {
+public class JavaScriptLanguage extends AbstractLifecycleComponent implements UDFLanguage, ClusterStateListener {
 
     static final String NAME = "javascript";
 
@@ -57,21 +69,72 @@ public class JavaScriptLanguage implements UDFLanguage {
         .allowMapAccess(true)
         .build();
 
+    private final ClusterService clusterService;
+
+    /**
+     * Pools of the function definitions. Implementations are re-created on every metadata update, the pools
+     * outlive them and are only closed once their definition is replaced or dropped.
+     */
+    private final Map<UserDefinedFunctionMetadata, PolyglotFunctionPool> pools = new ConcurrentHashMap<>();
+
     @Inject
-    public JavaScriptLanguage(UserDefinedFunctionService udfService) {
+    public JavaScriptLanguage(UserDefinedFunctionService udfService, ClusterService clusterService) {
+        this.clusterService = clusterService;
         udfService.registerLanguage(this);
     }
 
     public Scalar<?, ?> createFunctionImplementation(UserDefinedFunctionMetadata meta,
                                                      Signature signature,
                                                      BoundSignature boundSignature) throws ScriptException {
-        return new JavaScriptUserDefinedFunction(signature, boundSignature, meta.definition());
+        PolyglotFunctionPool pool = pools.computeIfAbsent(
+            meta,
+            m -> new PolyglotFunctionPool(m.name(), m.definition())
+        );
+        return new JavaScriptUserDefinedFunction(signature, boundSignature, pool);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        UserDefinedFunctionsMetadata functions = event.state().metadata().custom(UserDefinedFunctionsMetadata.TYPE);
+        if (functions != event.previousState().metadata().custom(UserDefinedFunctionsMetadata.TYPE)) {
+            closeStalePools(functions == null ? List.of() : functions.functionsMetadata());
+        }
+    }
+
+    /**
+     * Closes the pools of all function definitions which aren't part of the given functions anymore.
+     */
+    void closeStalePools(Collection<UserDefinedFunctionMetadata> functions) {
+        Set<UserDefinedFunctionMetadata> currentFunctions = new HashSet<>(functions);
+        Iterator<Map.Entry<UserDefinedFunctionMetadata, PolyglotFunctionPool>> it = pools.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UserDefinedFunctionMetadata, PolyglotFunctionPool> entry = it.next();
+            if (!currentFunctions.contains(entry.getKey())) {
+                it.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+
+    @Override
+    protected void doStart() {
+        clusterService.addListener(this);
+    }
+
+    @Override
+    protected void doStop() {
+        clusterService.removeListener(this);
+    }
+
+    @Override
+    protected void doClose() {
+        closeStalePools(List.of());
     }
 
     @Nullable
     public String validate(UserDefinedFunctionMetadata meta) {
-        try {
-            resolvePolyglotFunctionValue(meta.name(), meta.definition());
+        try (Context context = newContext()) {
+            resolvePolyglotFunctionValue(context, meta.name(), meta.definition());
             return null;
         } catch (IllegalArgumentException | IOException | PolyglotException t) {
             return String.format(Locale.ENGLISH, "Invalid JavaScript in function '%s.%s(%s)' AS '%s': %s",
@@ -84,11 +147,18 @@ public class JavaScriptLanguage implements UDFLanguage {
         }
     }
 
-    static Value resolvePolyglotFunctionValue(String functionName, String script) throws IOException {
-        var context = Context.newBuilder("js")
+    static Context newContext() {
+        return Context.newBuilder("js")
             .engine(ENGINE)
             .allowHostAccess(HOST_ACCESS)
             .build();
+    }
+
+    /**
+     * Evaluates the script within the given context and returns the function value.
+     * The returned value is bound to the context and must only be used by the thread owning it.
+     */
+    static Value resolvePolyglotFunctionValue(Context context, String functionName, String script) throws IOException {
         var source = Source.newBuilder("js", script, functionName).build();
         context.eval(source);
         var polyglotFunctionValue = context.getBindings("js").getMember(functionName);
@@ -21,17 +21,15 @@
 
 package io.crate.operation.language;
 
-import static io.crate.operation.language.JavaScriptLanguage.resolvePolyglotFunctionValue;
-
 import java.io.IOException;
 import java.util.List;
 
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.Value;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Input;
-import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Scalar;
 import io.crate.metadata.TransactionContext;
@@ -39,47 +37,29 @@ import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 import io.crate.types.TypeSignature;
-import io.crate.user.UserLookup;
 
+/**
+ * A JavaScript user-defined function. The script is evaluated within contexts of a {@link PolyglotFunctionPool}
+ * which is shared by all implementations created for the same function definition.
+ */
 public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
 
-    private final String script;
+    private final PolyglotFunctionPool pool;
+    private final List<DataType<?>> argumentTypes;
+    private final DataType<?> returnType;
 
-    JavaScriptUserDefinedFunction(Signature signature, BoundSignature boundSignature, String script) {
+    JavaScriptUserDefinedFunction(Signature signature, BoundSignature boundSignature, PolyglotFunctionPool pool) {
         super(signature, boundSignature);
-        this.script = script;
-    }
-
-    @Override
-    public Scalar<Object, Object> compile(List<Symbol> arguments, String currentUser, UserLookup userLookup) {
-        try {
-            return new CompiledFunction(
-                signature,
-                boundSignature,
-                resolvePolyglotFunctionValue(
-                    signature.getName().name(),
-                    script));
-        } catch (PolyglotException | IOException e) {
-            // this should not happen if the script was validated upfront
-            throw new io.crate.exceptions.ScriptException(
-                "compile error",
-                e,
-                JavaScriptLanguage.NAME
-            );
-        }
+        this.pool = pool;
+        this.argumentTypes = Lists2.map(signature.getArgumentTypes(), TypeSignature::createType);
+        this.returnType = signature.getReturnType().createType();
     }
 
     @Override
     public Object evaluate(TransactionContext txnCtx, NodeContext nodeCtx, Input<Object>[] args) {
+        Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(args, argumentTypes);
         try {
-            var function = resolvePolyglotFunctionValue(signature.getName().name(), script);
-            Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(
-                args,
-                Lists2.map(signature.getArgumentTypes(), TypeSignature::createType)
-            );
-            return PolyglotValuesConverter.toCrateObject(
-                function.execute(polyglotValueArgs),
-                signature.getReturnType().createType());
+            return pool.execute(polyglotValueArgs, value -> toCrateObject(value, returnType));
         } catch (PolyglotException | IOException e) {
             throw new io.crate.exceptions.ScriptException(
                 e.getLocalizedMessage(),
@@ -89,36 +69,11 @@ public class JavaScriptUserDefinedFunction extends Scalar<Object, Object> {
         }
     }
 
-    private static class CompiledFunction extends Scalar<Object, Object> {
-
-        private final Value function;
-
-        private CompiledFunction(Signature signature, BoundSignature boundSignature, Value function) {
-            super(signature, boundSignature);
-            this.function = function;
-        }
-
-        @Override
-        public final Object evaluate(TransactionContext txnCtx, NodeContext nodeCtx, Input<Object>[] args) {
-            Object[] polyglotValueArgs = PolyglotValuesConverter.toPolyglotValues(
-                args,
-                Lists2.map(signature.getArgumentTypes(), TypeSignature::createType)
-            );
-            try {
-                return toCrateObject(
-                    function.execute(polyglotValueArgs),
-                    signature.getReturnType().createType());
-            } catch (PolyglotException e) {
-                throw new io.crate.exceptions.ScriptException(
-                    e.getLocalizedMessage(),
-                    e,
-                    JavaScriptLanguage.NAME
-                );
-            }
-        }
+    @VisibleForTesting
+    PolyglotFunctionPool pool() {
+        return pool;
     }
 
-
     private static Object toCrateObject(Value value, DataType<?> type) {
         if ("undefined".equalsIgnoreCase(value.getClass().getSimpleName())) {
             return null;
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.operation.language;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+
+/**
+ * A pool of polyglot contexts in which the script of a JavaScript user-defined function was evaluated.
+ *
+ * <p>
+ * Creating a context and evaluating the script is expensive. A context can't be used by multiple threads at the
+ * same time, so it is taken out of the pool for a single invocation and returned afterwards. The pool grows up to
+ * the number of threads which invoke the function concurrently.
+ * </p>
+ * <p>
+ * The script is evaluated within a function scope which is entered anew on each invocation. Variables declared
+ * by the script therefore don't keep their values between invocations, even if they use the same context.
+ * </p>
+ */
+final class PolyglotFunctionPool implements Closeable {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[\\p{L}_$][\\p{L}\\p{N}_$]*");
+
+    private final String functionName;
+    private final String script;
+    private final ConcurrentLinkedQueue<PooledFunction> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    PolyglotFunctionPool(String functionName, String script) {
+        this.functionName = functionName;
+        this.script = script;
+    }
+
+    /**
+     * Invokes the function with the given arguments.
+     *
+     * @param resultConverter converts the result of the invocation. The result is bound to the context used for
+     *                        the invocation and can't be accessed anymore once the context is returned to the pool.
+     */
+    <T> T execute(Object[] arguments, Function<Value, T> resultConverter) throws IOException {
+        PooledFunction function = idle.poll();
+        if (function == null) {
+            function = create();
+        }
+        boolean reusable = true;
+        try {
+            return resultConverter.apply(function.invoker.execute(arguments));
+        } catch (PolyglotException e) {
+            // The context may not be usable anymore after these errors
+            reusable = !(e.isCancelled() || e.isExit() || e.isInternalError() || e.isResourceExhausted());
+            throw e;
+        } finally {
+            if (reusable) {
+                release(function);
+            } else {
+                function.context.close(true);
+            }
+        }
+    }
+
+    int idleContexts() {
+        return idle.size();
+    }
+
+    private PooledFunction create() throws IOException {
+        String function = IDENTIFIER.matcher(functionName).matches()
+            ? functionName
+            : String.format(Locale.ENGLISH, "globalThis['%s']", functionName.replace("\\", "\\\\").replace("'", "\\'"));
+        // The wrapper starts on the first line of the script to keep line numbers of errors intact
+        String wrappedScript = "(function() {" + script + "\nreturn " + function + ".apply(undefined, arguments);\n})";
+        Context context = JavaScriptLanguage.newContext();
+        try {
+            Value invoker = context.eval(Source.newBuilder("js", wrappedScript, functionName).build());
+            return new PooledFunction(context, invoker);
+        } catch (IOException | RuntimeException e) {
+            context.close(true);
+            throw e;
+        }
+    }
+
+    private void release(PooledFunction function) {
+        idle.offer(function);
+        if (closed) {
+            closeIdle();
+        }
+    }
+
+    private void closeIdle() {
+        PooledFunction function;
+        while ((function = idle.poll()) != null) {
+            function.context.close();
+        }
+    }
+
+    /**
+     * Closes all idle contexts. Contexts which are currently in use are closed once the invocation finished.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdle();
+    }
+
+    private record PooledFunction(Context context, Value invoker) {
+    }
+}
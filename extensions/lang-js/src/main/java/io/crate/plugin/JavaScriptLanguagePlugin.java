@@ -22,6 +22,8 @@
 package io.crate.plugin;
 
 import io.crate.module.JavaScriptLanguageModule;
+import io.crate.operation.language.JavaScriptLanguage;
+import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -44,6 +46,11 @@ public class JavaScriptLanguagePlugin extends Plugin {
         return isEnabled ? Collections.singletonList(new JavaScriptLanguageModule()) : Collections.emptyList();
     }
 
+    @Override
+    public Collection<Class<? extends LifecycleComponent>> getGuiceServiceClasses() {
+        return isEnabled ? Collections.singletonList(JavaScriptLanguage.class) : Collections.emptyList();
+    }
+
     @Override
     public List<Setting<?>> getSettings() {
         return Collections.singletonList(JavaScriptLanguageModule.LANG_JS_ENABLED);
@@ -22,6 +22,7 @@
 package io.crate.operation.language;
 
 import io.crate.plugin.JavaScriptLanguagePlugin;
+import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -47,6 +48,11 @@ public class JavaScriptProxyTestPlugin extends Plugin {
         return plugin.createGuiceModules();
     }
 
+    @Override
+    public Collection<Class<? extends LifecycleComponent>> getGuiceServiceClasses() {
+        return plugin.getGuiceServiceClasses();
+    }
+
     @Override
     public List<Setting<?>> getSettings() {
         return plugin.getSettings();
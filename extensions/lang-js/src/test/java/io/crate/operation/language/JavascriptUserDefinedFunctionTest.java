@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.script.ScriptException;
@@ -43,14 +44,18 @@ import org.locationtech.spatial4j.context.jts.JtsSpatialContext;
 import org.locationtech.spatial4j.shape.impl.PointImpl;
 
 import io.crate.analyze.FunctionArgumentDefinition;
+import io.crate.data.Input;
 import io.crate.expression.scalar.ScalarTestCase;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.udf.UserDefinedFunctionMetadata;
 import io.crate.expression.udf.UserDefinedFunctionService;
 import io.crate.metadata.FunctionName;
 import io.crate.metadata.FunctionProvider;
+import io.crate.metadata.FunctionType;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.doc.DocTableInfoFactory;
+import io.crate.metadata.functions.BoundSignature;
+import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
@@ -58,8 +63,12 @@ public class JavascriptUserDefinedFunctionTest extends ScalarTestCase {
 
     private static final String JS = JavaScriptLanguage.NAME;
 
+    @SuppressWarnings("unchecked")
+    private static final Input<Object>[] NO_ARGS = new Input[0];
+
     private final Map<FunctionName, List<FunctionProvider>> functionImplementations = new HashMap<>();
     private UserDefinedFunctionService udfService;
+    private JavaScriptLanguage language;
 
     @Override
     @Before
@@ -70,7 +79,7 @@ public class JavascriptUserDefinedFunctionTest extends ScalarTestCase {
             new DocTableInfoFactory(sqlExpressions.nodeCtx),
             sqlExpressions.nodeCtx
         );
-        udfService.registerLanguage(new JavaScriptLanguage(udfService));
+        language = new JavaScriptLanguage(udfService, clusterService);
     }
 
     private void registerUserDefinedFunction(String name,
@@ -102,6 +111,7 @@ public class JavascriptUserDefinedFunctionTest extends ScalarTestCase {
     @After
     public void afterTest() {
         functionImplementations.clear();
+        language.close();
     }
 
     @Test
@@ -381,4 +391,72 @@ public class JavascriptUserDefinedFunctionTest extends ScalarTestCase {
             "function f(a) { return a.type; }");
         assertEvaluate("f('POINT(1 2)')", "Point");
     }
+
+    @Test
+    public void test_invocations_do_not_share_script_state() throws Exception {
+        var udf = udfMetadata("f", "var calls = 0; function f() { calls++; return calls; }");
+        var function = createFunction(udf);
+
+        assertThat(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+        assertThat(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+
+        AtomicReference<Object> otherThreadResult = new AtomicReference<>();
+        Thread thread = new Thread(() -> otherThreadResult.set(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)));
+        thread.start();
+        thread.join();
+        assertThat(otherThreadResult.get()).isEqualTo(1);
+        assertThat(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+
+        // all invocations ran one after another and re-used the same context
+        assertThat(function.pool().idleContexts()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_contexts_are_shared_by_implementations_of_a_definition_until_it_changes() throws Exception {
+        var udf = udfMetadata("f", "function f() { return 1; }");
+        var function = createFunction(udf);
+        var functionOfMetadataUpdate = createFunction(udf);
+        assertThat(functionOfMetadataUpdate.pool()).isSameAs(function.pool());
+
+        assertThat(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+        assertThat(functionOfMetadataUpdate.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+        assertThat(function.pool().idleContexts()).isEqualTo(1);
+
+        // unchanged definitions keep their contexts
+        language.closeStalePools(List.of(udf));
+        assertThat(function.pool().idleContexts()).isEqualTo(1);
+
+        var replacedUdf = udfMetadata("f", "function f() { return 2; }");
+        language.closeStalePools(List.of(replacedUdf));
+        assertThat(function.pool().idleContexts()).isEqualTo(0);
+        var replacedFunction = createFunction(replacedUdf);
+        assertThat(replacedFunction.pool()).isNotSameAs(function.pool());
+        assertThat(replacedFunction.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(2);
+
+        // implementations of the old definition still in use by a query keep working, but don't pool contexts
+        assertThat(function.evaluate(txnCtx, sqlExpressions.nodeCtx, NO_ARGS)).isEqualTo(1);
+        assertThat(function.pool().idleContexts()).isEqualTo(0);
+    }
+
+    private static UserDefinedFunctionMetadata udfMetadata(String name, String definition) {
+        return new UserDefinedFunctionMetadata(
+            Schemas.DOC_SCHEMA_NAME,
+            name,
+            List.of(),
+            DataTypes.INTEGER,
+            JS,
+            definition
+        );
+    }
+
+    private JavaScriptUserDefinedFunction createFunction(UserDefinedFunctionMetadata udf) throws ScriptException {
+        Signature signature = Signature.builder()
+            .name(new FunctionName(udf.schema(), udf.name()))
+            .kind(FunctionType.SCALAR)
+            .argumentTypes()
+            .returnType(udf.returnType().getTypeSignature())
+            .build();
+        BoundSignature boundSignature = new BoundSignature(List.of(), udf.returnType());
+        return (JavaScriptUserDefinedFunction) language.createFunctionImplementation(udf, signature, boundSignature);
+    }
 }
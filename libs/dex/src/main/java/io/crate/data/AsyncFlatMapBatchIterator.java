@@ -21,28 +21,53 @@
 
 package io.crate.data;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
+import org.jetbrains.annotations.Nullable;
+
 import io.crate.common.exceptions.Exceptions;
 
+/**
+ * BatchIterator which maps each item of the source into zero or more items using an asynchronous mapper.
+ *
+ * <p>
+ * If {@code prefetch} is enabled, the mapper is applied to the next source item
+ * while the consumer is still iterating over the mapped elements of the current one.
+ * This overlaps the asynchronous operation of the mapper with the consumption of its previous result.
+ * It is only done if the next source item is available without having to load another batch
+ * from the source, and at most one prefetched result is held at a time.
+ * The mapper must support concurrent in-flight {@link AsyncFlatMapper#apply(Object, boolean)} calls for this.
+ * </p>
+ */
 public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
 
     private final BatchIterator<I> source;
     private final AsyncFlatMapper<I, O> mapper;
+    private final boolean prefetch;
 
     private NextAction nextAction = NextAction.SOURCE;
     private O current = null;
     private CloseableIterator<O> mappedElements;
     private boolean sourceExhausted = false;
 
+    @Nullable
+    private CompletableFuture<? extends CloseableIterator<O>> prefetched = null;
+    private boolean prefetchAttempted = false;
+
     private enum NextAction {
         SOURCE,
         MAPPER,
     }
 
     public AsyncFlatMapBatchIterator(BatchIterator<I> source, AsyncFlatMapper<I, O> mapper) {
+        this(source, mapper, false);
+    }
+
+    public AsyncFlatMapBatchIterator(BatchIterator<I> source, AsyncFlatMapper<I, O> mapper, boolean prefetch) {
         this.source = source;
         this.mapper = mapper;
+        this.prefetch = prefetch;
     }
 
     @Override
@@ -60,6 +85,7 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
         source.moveToStart();
         sourceExhausted = false;
         mappedElements = null;
+        discardPrefetched();
         nextAction = NextAction.SOURCE;
         current = null;
     }
@@ -79,6 +105,12 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
                     // This is the case if a consumer didn't call loadNextBatch after a previous moveNext call returned false
                     return false;
                 }
+                if (prefetch && !prefetchAttempted) {
+                    prefetchAttempted = true;
+                    if (source.moveNext()) {
+                        prefetched = mapper.apply(source.currentElement(), false);
+                    }
+                }
                 if (mappedElements.hasNext()) {
                     current = mappedElements.next();
                     return true;
@@ -88,6 +120,10 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
                     mappedElements.close();
                     mappedElements = null;
 
+                    if (prefetched != null) {
+                        // loadNextBatch hands out the prefetched result
+                        return false;
+                    }
                     nextAction = NextAction.SOURCE;
                     continue;
                 }
@@ -102,6 +138,21 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
             mappedElements = null;
         }
         source.close();
+        if (prefetched == null) {
+            closeMapper();
+        } else {
+            // Close the mapper only after the in-flight operation finished, it may still use resources of the mapper
+            prefetched.whenComplete((rows, err) -> {
+                if (rows != null) {
+                    rows.close();
+                }
+                closeMapper();
+            });
+            prefetched = null;
+        }
+    }
+
+    private void closeMapper() {
         try {
             mapper.close();
         } catch (Exception e) {
@@ -109,12 +160,27 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
         }
     }
 
+    private void discardPrefetched() {
+        if (prefetched != null) {
+            prefetched.thenAccept(CloseableIterator::close);
+            prefetched = null;
+        }
+    }
+
     @Override
     public CompletionStage<?> loadNextBatch() throws Exception {
         if (nextAction == NextAction.SOURCE) {
             return source.loadNextBatch();
         } else {
-            return mapper.apply(source.currentElement(), sourceExhausted).thenAccept(rows -> {
+            CompletableFuture<? extends CloseableIterator<O>> result;
+            if (prefetched == null) {
+                result = mapper.apply(source.currentElement(), sourceExhausted);
+            } else {
+                result = prefetched;
+                prefetched = null;
+            }
+            prefetchAttempted = false;
+            return result.thenAccept(rows -> {
                 mappedElements = rows;
             });
         }
@@ -122,7 +188,7 @@ public final class AsyncFlatMapBatchIterator<I, O> implements BatchIterator<O> {
 
     @Override
     public boolean allLoaded() {
-        return source.allLoaded() && nextAction == NextAction.SOURCE;
+        return source.allLoaded() && nextAction == NextAction.SOURCE && prefetched == null;
     }
 
     @Override
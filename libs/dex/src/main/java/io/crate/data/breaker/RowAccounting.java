@@ -40,4 +40,10 @@ public interface RowAccounting<T> {
      * Stops accounting for previously accounted rows.
      */
     void release();
+
+    /**
+     * Stops accounting for the given number of bytes of previously accounted rows,
+     * e.g. because some of the rows were moved to disk.
+     */
+    void release(long bytes);
 }
@@ -23,6 +23,7 @@ package io.crate.data;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -189,4 +190,102 @@ class AsyncFlatMapBatchIteratorTest {
         assertThat(it.loadNextBatch()).succeedsWithin(1, TimeUnit.SECONDS);
         assertThat(wasLast).as("move to start needs to reset sourceExhausted").isFalse();
     }
+
+    @Test
+    void test_prefetching_flat_map_fulfills_contracts() throws Exception {
+        AsyncFlatMapper<Row, Row> duplicateRow = (row, isLast) ->
+            CompletableFuture.completedFuture(mkIter(
+                                                  new RowN(row.materialize()),
+                                                  new RowN(row.materialize())
+                                              )
+            );
+        var tester = BatchIteratorTester.forRows(() -> {
+            BatchIterator<Row> source = TestingBatchIterators.range(1, 4);
+            return new AsyncFlatMapBatchIterator<>(source, duplicateRow, true);
+        });
+        tester.verifyResultAndEdgeCaseBehaviour(
+            Arrays.asList(
+                new Object[] { 1 },
+                new Object[] { 1 },
+                new Object[] { 2 },
+                new Object[] { 2 },
+                new Object[] { 3 },
+                new Object[] { 3 }
+            )
+        );
+    }
+
+    @Test
+    void test_prefetch_applies_mapper_to_next_item_while_current_result_is_consumed() throws Exception {
+        List<Integer> mapped = new ArrayList<>();
+        List<CompletableFuture<CloseableIterator<Integer>>> results = new ArrayList<>();
+        AsyncFlatMapper<Integer, Integer> mapper = (x, isLast) -> {
+            mapped.add(x);
+            CompletableFuture<CloseableIterator<Integer>> result = new CompletableFuture<>();
+            results.add(result);
+            return result;
+        };
+        InMemoryBatchIterator<Integer> source = new InMemoryBatchIterator<>(Arrays.asList(1, 2, 3), null, false);
+        var it = new AsyncFlatMapBatchIterator<>(source, mapper, true);
+
+        assertThat(it.moveNext()).isFalse();
+        var firstBatch = it.loadNextBatch().toCompletableFuture();
+        assertThat(mapped).containsExactly(1);
+        results.get(0).complete(mkIter(10, 11));
+        assertThat(firstBatch).succeedsWithin(1, TimeUnit.SECONDS);
+
+        assertThat(it.moveNext()).isTrue();
+        assertThat(it.currentElement()).isEqualTo(10);
+        assertThat(mapped)
+            .as("mapper must be applied to the next item before the current result is consumed")
+            .containsExactly(1, 2);
+        assertThat(it.moveNext()).isTrue();
+        assertThat(it.currentElement()).isEqualTo(11);
+        assertThat(it.moveNext()).isFalse();
+        assertThat(it.allLoaded()).isFalse();
+
+        var secondBatch = it.loadNextBatch().toCompletableFuture();
+        assertThat(mapped).as("loadNextBatch must use the prefetched result").containsExactly(1, 2);
+        results.get(1).complete(mkIter(20));
+        assertThat(secondBatch).succeedsWithin(1, TimeUnit.SECONDS);
+        assertThat(it.moveNext()).isTrue();
+        assertThat(it.currentElement()).isEqualTo(20);
+        assertThat(mapped).containsExactly(1, 2, 3);
+        results.get(2).complete(mkIter());
+        assertThat(it.moveNext()).isFalse();
+        assertThat(it.loadNextBatch()).succeedsWithin(1, TimeUnit.SECONDS);
+        assertThat(it.moveNext()).isFalse();
+        assertThat(it.allLoaded()).isTrue();
+    }
+
+    @Test
+    void test_close_waits_for_prefetched_result_before_closing_mapper() throws Exception {
+        CompletableFuture<CloseableIterator<Integer>> prefetched = new CompletableFuture<>();
+        AtomicBoolean mapperClosed = new AtomicBoolean(false);
+        AsyncFlatMapper<Integer, Integer> mapper = new AsyncFlatMapper<>() {
+
+            @Override
+            public CompletableFuture<? extends CloseableIterator<Integer>> apply(Integer x, boolean isLastCall) {
+                if (x == 1) {
+                    return CompletableFuture.completedFuture(mkIter(10));
+                }
+                return prefetched;
+            }
+
+            @Override
+            public void close() {
+                mapperClosed.set(true);
+            }
+        };
+        InMemoryBatchIterator<Integer> source = new InMemoryBatchIterator<>(Arrays.asList(1, 2), null, false);
+        var it = new AsyncFlatMapBatchIterator<>(source, mapper, true);
+        assertThat(it.moveNext()).isFalse();
+        assertThat(it.loadNextBatch()).succeedsWithin(1, TimeUnit.SECONDS);
+        assertThat(it.moveNext()).isTrue();
+
+        it.close();
+        assertThat(mapperClosed).isFalse();
+        prefetched.complete(mkIter(20));
+        assertThat(mapperClosed).isTrue();
+    }
 }
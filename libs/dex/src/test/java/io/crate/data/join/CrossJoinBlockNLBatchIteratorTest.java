@@ -261,5 +261,9 @@ public class CrossJoinBlockNLBatchIteratorTest {
         public void release() {
             numReleaseCalled++;
         }
+
+        @Override
+        public void release(long bytes) {
+        }
     }
 }
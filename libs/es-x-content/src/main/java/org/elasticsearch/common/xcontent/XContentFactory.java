@@ -24,6 +24,7 @@ package org.elasticsearch.common.xcontent;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.common.xcontent.smile.SmileXContent;
 import org.elasticsearch.common.xcontent.yaml.YamlXContent;
@@ -62,6 +63,7 @@ public class XContentFactory {
             case JSON -> new XContentBuilder(JsonXContent.JSON_XCONTENT, outputStream);
             case SMILE -> new XContentBuilder(SmileXContent.SMILE_XCONTENT, outputStream);
             case YAML -> new XContentBuilder(YamlXContent.YAML_XCONTENT, outputStream);
+            case COMPACT -> new XContentBuilder(CompactXContent.COMPACT_XCONTENT, outputStream);
         };
     }
 }
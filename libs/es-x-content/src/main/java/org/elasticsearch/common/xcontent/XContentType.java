@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.xcontent;
 
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.common.xcontent.smile.SmileXContent;
 import org.elasticsearch.common.xcontent.yaml.YamlXContent;
@@ -84,6 +85,25 @@ public enum XContentType {
         public XContent xContent() {
             return YamlXContent.YAML_XCONTENT;
         }
+    },
+    /**
+     * A binary format used to store the source of documents, see {@link CompactXContent}.
+     */
+    COMPACT(3) {
+        @Override
+        public String mediaType() {
+            return "application/x-crate-compact";
+        }
+
+        @Override
+        public String shortName() {
+            return "compact";
+        }
+
+        @Override
+        public XContent xContent() {
+            return CompactXContent.COMPACT_XCONTENT;
+        }
     };
 
     private final int index;
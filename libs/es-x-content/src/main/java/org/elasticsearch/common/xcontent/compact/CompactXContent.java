@@ -0,0 +1,149 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.common.xcontent.compact;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentGenerator;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * A compact binary encoding of the JSON data model, used to store the {@code _source} of documents.
+ *
+ * <pre>
+ * content:   HEADER value
+ * value:     tag payload
+ *
+ *  NULL, TRUE, FALSE       no payload
+ *  LONG                    zig-zag encoded vlong
+ *  FLOAT, DOUBLE           4 / 8 bytes
+ *  STRING, BINARY, NUMBER  vint length + bytes (UTF-8 for STRING and the textual representation of NUMBER)
+ *  OBJECT                  4 byte length + (key value)*
+ *  ARRAY                   4 byte length + value*
+ *
+ * key:       vint (n &lt;&lt; 1) for keys which are non-negative integers like column OIDs,
+ *            vint (length &lt;&lt; 1 | 1) + UTF-8 bytes otherwise
+ * </pre>
+ *
+ * Because objects and arrays are length prefixed, {@link XContentParser#skipChildren()}
+ * skips them without reading their content.
+ *
+ * The parser exposes the values the same way the JSON parser would expose the JSON
+ * representation of the same content. For example, binary values are exposed as strings
+ * and floats as doubles.
+ */
+public final class CompactXContent implements XContent {
+
+    public static final CompactXContent COMPACT_XCONTENT = new CompactXContent();
+
+    /**
+     * The first byte is never the first byte of a JSON, SMILE, YAML or compressed document.
+     */
+    static final byte[] HEADER = new byte[] { 0x00, 'C', 'X', 0x01 };
+
+    static final byte NULL = 0;
+    static final byte TRUE = 1;
+    static final byte FALSE = 2;
+    static final byte LONG = 3;
+    static final byte FLOAT = 4;
+    static final byte DOUBLE = 5;
+    static final byte STRING = 6;
+    static final byte BINARY = 7;
+    static final byte NUMBER = 8;
+    static final byte OBJECT = 9;
+    static final byte ARRAY = 10;
+
+    public static XContentBuilder contentBuilder() throws IOException {
+        return XContentBuilder.builder(COMPACT_XCONTENT);
+    }
+
+    /**
+     * @return true if the bytes start with the header of the compact format
+     */
+    public static boolean isCompact(byte[] bytes, int offset, int length) {
+        if (length < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (bytes[offset + i] != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CompactXContent() {
+    }
+
+    @Override
+    public XContentType type() {
+        return XContentType.COMPACT;
+    }
+
+    @Override
+    public byte streamSeparator() {
+        throw new UnsupportedOperationException("compact format doesn't support stream parsing");
+    }
+
+    @Override
+    public XContentGenerator createGenerator(OutputStream os) throws IOException {
+        return new CompactXContentGenerator(os);
+    }
+
+    @Override
+    public XContentParser createParser(NamedXContentRegistry xContentRegistry,
+                                       DeprecationHandler deprecationHandler,
+                                       String content) throws IOException {
+        return createParser(xContentRegistry, deprecationHandler, content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    public XContentParser createParser(NamedXContentRegistry xContentRegistry,
+                                       DeprecationHandler deprecationHandler,
+                                       InputStream is) throws IOException {
+        return createParser(xContentRegistry, deprecationHandler, is.readAllBytes());
+    }
+
+    @Override
+    public XContentParser createParser(NamedXContentRegistry xContentRegistry,
+                                       DeprecationHandler deprecationHandler,
+                                       byte[] data) throws IOException {
+        return createParser(xContentRegistry, deprecationHandler, data, 0, data.length);
+    }
+
+    @Override
+    public XContentParser createParser(NamedXContentRegistry xContentRegistry,
+                                       DeprecationHandler deprecationHandler,
+                                       byte[] data,
+                                       int offset,
+                                       int length) throws IOException {
+        return new CompactXContentParser(xContentRegistry, deprecationHandler, data, offset, length);
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.common.xcontent.compact;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentGenerator;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the format described in {@link CompactXContent}.
+ *
+ * The content is buffered until the root value is complete,
+ * because the lengths of objects and arrays are only known once they are closed.
+ */
+public class CompactXContentGenerator implements XContentGenerator {
+
+    private static final int MAX_NUMERIC_KEY_LENGTH = 9;
+
+    private final OutputStream os;
+
+    private byte[] buffer = new byte[256];
+    private int pos = 0;
+
+    /**
+     * Positions of the length placeholders of the open objects and arrays
+     */
+    private int[] openContainers = new int[8];
+    private int depth = 0;
+    private boolean closed = false;
+
+    public CompactXContentGenerator(OutputStream os) {
+        this.os = os;
+    }
+
+    @Override
+    public XContentType contentType() {
+        return XContentType.COMPACT;
+    }
+
+    @Override
+    public void usePrettyPrint() {
+        // not supported by a binary format
+    }
+
+    @Override
+    public boolean isPrettyPrint() {
+        return false;
+    }
+
+    @Override
+    public void usePrintLineFeedAtEnd() {
+        // not supported by a binary format
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        startContainer(CompactXContent.OBJECT);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        endContainer();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        startContainer(CompactXContent.ARRAY);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        endContainer();
+    }
+
+    private void startContainer(byte tag) {
+        writeTag(tag);
+        if (depth == openContainers.length) {
+            openContainers = Arrays.copyOf(openContainers, depth * 2);
+        }
+        openContainers[depth++] = pos;
+        // placeholder for the length, set in endContainer
+        ensureCapacity(4);
+        pos += 4;
+    }
+
+    private void endContainer() throws IOException {
+        if (depth == 0) {
+            throw new IOException("No object or array to close");
+        }
+        int lengthPos = openContainers[--depth];
+        int length = pos - lengthPos - 4;
+        buffer[lengthPos] = (byte) (length >>> 24);
+        buffer[lengthPos + 1] = (byte) (length >>> 16);
+        buffer[lengthPos + 2] = (byte) (length >>> 8);
+        buffer[lengthPos + 3] = (byte) length;
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        int numericKey = numericKey(name);
+        if (numericKey >= 0) {
+            writeVInt(numericKey << 1);
+        } else {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVInt(bytes.length << 1 | 1);
+            writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * @return the key as integer if it is the canonical representation of a non-negative integer, otherwise -1
+     */
+    private static int numericKey(String name) {
+        int length = name.length();
+        if (length == 0 || length > MAX_NUMERIC_KEY_LENGTH || (name.charAt(0) == '0' && length > 1)) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        writeTag(CompactXContent.NULL);
+    }
+
+    @Override
+    public void writeNullField(String name) throws IOException {
+        writeFieldName(name);
+        writeNull();
+    }
+
+    @Override
+    public void writeBooleanField(String name, boolean value) throws IOException {
+        writeFieldName(name);
+        writeBoolean(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) throws IOException {
+        writeTag(value ? CompactXContent.TRUE : CompactXContent.FALSE);
+    }
+
+    @Override
+    public void writeNumberField(String name, double value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        writeTag(CompactXContent.DOUBLE);
+        long bits = Double.doubleToRawLongBits(value);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+    }
+
+    @Override
+    public void writeNumberField(String name, float value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        writeTag(CompactXContent.FLOAT);
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void writeNumberField(String name, int value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        writeNumber((long) value);
+    }
+
+    @Override
+    public void writeNumberField(String name, long value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        writeTag(CompactXContent.LONG);
+        writeVLong((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void writeNumber(short value) throws IOException {
+        writeNumber((long) value);
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        writeNumberText(value.toString());
+    }
+
+    @Override
+    public void writeNumberField(String name, BigInteger value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        writeNumberText(value.toString());
+    }
+
+    @Override
+    public void writeNumberField(String name, BigDecimal value) throws IOException {
+        writeFieldName(name);
+        writeNumber(value);
+    }
+
+    private void writeNumberText(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        writeTag(CompactXContent.NUMBER);
+        writeVInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeStringField(String name, String value) throws IOException {
+        writeFieldName(name);
+        writeString(value);
+    }
+
+    @Override
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUTF8String(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeUTF8String(byte[] value, int offset, int length) throws IOException {
+        writeTag(CompactXContent.STRING);
+        writeVInt(length);
+        writeBytes(value, offset, length);
+    }
+
+    @Override
+    public void writeBinaryField(String name, byte[] value) throws IOException {
+        writeFieldName(name);
+        writeBinary(value);
+    }
+
+    @Override
+    public void writeBinary(byte[] value) throws IOException {
+        writeBinary(value, 0, value.length);
+    }
+
+    @Override
+    public void writeBinary(byte[] value, int offset, int length) throws IOException {
+        writeTag(CompactXContent.BINARY);
+        writeVInt(length);
+        writeBytes(value, offset, length);
+    }
+
+    @Override
+    public void writeRawValue(InputStream value, XContentType xContentType) throws IOException {
+        try (XContentParser parser = xContentType.xContent()
+                .createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, value)) {
+            parser.nextToken();
+            copyCurrentStructure(parser);
+        }
+    }
+
+    @Override
+    public void copyCurrentStructure(XContentParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        XContentParser.Token token = parser.currentToken();
+        if (token == XContentParser.Token.FIELD_NAME) {
+            writeFieldName(parser.currentName());
+            token = parser.nextToken();
+        }
+        switch (token) {
+            case START_ARRAY:
+                writeStartArray();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    copyCurrentStructure(parser);
+                }
+                writeEndArray();
+                break;
+            case START_OBJECT:
+                writeStartObject();
+                while (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                    copyCurrentStructure(parser);
+                }
+                writeEndObject();
+                break;
+            default:
+                copyCurrentEvent(parser);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (depth == 0 && pos > 0) {
+            os.write(buffer, 0, pos);
+            pos = 0;
+        }
+        os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (depth > 0) {
+            throw new IOException("Unclosed object or array found");
+        }
+        flush();
+        closed = true;
+        os.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void configure(JsonGenerator.Feature f, boolean state) {
+    }
+
+    @Override
+    public boolean isEnabled(JsonGenerator.Feature f) {
+        return false;
+    }
+
+    private void ensureCapacity(int numBytes) {
+        if (pos + numBytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + numBytes));
+        }
+    }
+
+    private void writeTag(byte tag) {
+        if (depth == 0) {
+            writeBytes(CompactXContent.HEADER, 0, CompactXContent.HEADER.length);
+        }
+        writeByte(tag);
+    }
+
+    private void writeByte(byte b) {
+        ensureCapacity(1);
+        buffer[pos++] = b;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, pos, length);
+        pos += length;
+    }
+
+    private void writeInt(int i) {
+        ensureCapacity(4);
+        buffer[pos++] = (byte) (i >>> 24);
+        buffer[pos++] = (byte) (i >>> 16);
+        buffer[pos++] = (byte) (i >>> 8);
+        buffer[pos++] = (byte) i;
+    }
+
+    private void writeVInt(int i) {
+        ensureCapacity(5);
+        while ((i & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((i & 0x7F) | 0x80);
+            i >>>= 7;
+        }
+        buffer[pos++] = (byte) i;
+    }
+
+    private void writeVLong(long i) {
+        ensureCapacity(10);
+        while ((i & ~0x7FL) != 0L) {
+            buffer[pos++] = (byte) ((i & 0x7FL) | 0x80L);
+            i >>>= 7;
+        }
+        buffer[pos++] = (byte) i;
+    }
+}
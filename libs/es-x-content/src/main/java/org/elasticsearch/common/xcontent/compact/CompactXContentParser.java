@@ -0,0 +1,486 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.common.xcontent.compact;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentLocation;
+import org.elasticsearch.common.xcontent.XContentParseException;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.support.AbstractXContentParser;
+
+/**
+ * Reads the format described in {@link CompactXContent}.
+ *
+ * Values are only decoded if they're accessed and {@link #skipChildren()} jumps over
+ * objects and arrays using their length prefix.
+ */
+public class CompactXContentParser extends AbstractXContentParser {
+
+    private static final String[] NUMERIC_KEYS = new String[1024];
+
+    static {
+        for (int i = 0; i < NUMERIC_KEYS.length; i++) {
+            NUMERIC_KEYS[i] = Integer.toString(i);
+        }
+    }
+
+    private final byte[] data;
+    private final int start;
+    private final int end;
+
+    private int pos;
+    private int tokenPos;
+    private Token token;
+    private boolean closed = false;
+
+    /**
+     * End positions of the open objects and arrays, index 0 is the root level
+     */
+    private int[] containerEnds = new int[8];
+    private boolean[] isObject = new boolean[8];
+    /**
+     * The last field name per nesting level
+     */
+    private String[] names = new String[8];
+    private int depth = 0;
+    private boolean expectValue = false;
+
+    private byte valueTag;
+    private int valueOffset;
+    private int valueLength;
+    private long longValue;
+    private double doubleValue;
+    private float floatValue;
+    private String text;
+
+    public CompactXContentParser(NamedXContentRegistry xContentRegistry,
+                                 DeprecationHandler deprecationHandler,
+                                 byte[] data,
+                                 int offset,
+                                 int length) throws IOException {
+        super(xContentRegistry, deprecationHandler);
+        if (!CompactXContent.isCompact(data, offset, length)) {
+            throw new XContentParseException("Content is not in the compact format");
+        }
+        this.data = data;
+        this.start = offset;
+        this.end = offset + length;
+        this.pos = offset + CompactXContent.HEADER.length;
+        this.containerEnds[0] = end;
+    }
+
+    @Override
+    public XContentType contentType() {
+        return XContentType.COMPACT;
+    }
+
+    @Override
+    public Token nextToken() throws IOException {
+        text = null;
+        tokenPos = pos;
+        if (depth == 0) {
+            if (token != null) {
+                // root value is complete
+                return token = null;
+            }
+            return token = readValue();
+        }
+        if (expectValue) {
+            expectValue = false;
+            return token = readValue();
+        }
+        if (pos >= containerEnds[depth]) {
+            if (pos > containerEnds[depth]) {
+                throw new XContentParseException(getTokenLocation(), "Malformed compact content, value exceeds its container");
+            }
+            boolean object = isObject[depth];
+            depth--;
+            return token = object ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+        if (isObject[depth]) {
+            names[depth] = readKey();
+            expectValue = true;
+            return token = Token.FIELD_NAME;
+        }
+        return token = readValue();
+    }
+
+    private String readKey() {
+        int header = readVInt();
+        if ((header & 1) == 0) {
+            int key = header >>> 1;
+            return key < NUMERIC_KEYS.length ? NUMERIC_KEYS[key] : Integer.toString(key);
+        }
+        int length = header >>> 1;
+        checkAvailable(length);
+        String key = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return key;
+    }
+
+    private Token readValue() {
+        checkAvailable(1);
+        valueTag = data[pos++];
+        switch (valueTag) {
+            case CompactXContent.NULL:
+                return Token.VALUE_NULL;
+
+            case CompactXContent.TRUE:
+            case CompactXContent.FALSE:
+                return Token.VALUE_BOOLEAN;
+
+            case CompactXContent.LONG:
+                long zigZag = readVLong();
+                longValue = (zigZag >>> 1) ^ -(zigZag & 1);
+                return Token.VALUE_NUMBER;
+
+            case CompactXContent.FLOAT:
+                floatValue = Float.intBitsToFloat(readInt());
+                // Same value the JSON parser would return for the textual representation of the float
+                doubleValue = Double.parseDouble(Float.toString(floatValue));
+                return Token.VALUE_NUMBER;
+
+            case CompactXContent.DOUBLE:
+                long high = readInt() & 0xFFFFFFFFL;
+                long low = readInt() & 0xFFFFFFFFL;
+                doubleValue = Double.longBitsToDouble(high << 32 | low);
+                return Token.VALUE_NUMBER;
+
+            case CompactXContent.STRING:
+            case CompactXContent.BINARY:
+                readPayloadBounds();
+                return Token.VALUE_STRING;
+
+            case CompactXContent.NUMBER:
+                readPayloadBounds();
+                return Token.VALUE_NUMBER;
+
+            case CompactXContent.OBJECT:
+            case CompactXContent.ARRAY:
+                int length = readInt();
+                checkAvailable(length);
+                pushContainer(pos + length, valueTag == CompactXContent.OBJECT);
+                return valueTag == CompactXContent.OBJECT ? Token.START_OBJECT : Token.START_ARRAY;
+
+            default:
+                throw new XContentParseException(getTokenLocation(), "Malformed compact content, unknown tag: " + valueTag);
+        }
+    }
+
+    private void readPayloadBounds() {
+        valueLength = readVInt();
+        checkAvailable(valueLength);
+        valueOffset = pos;
+        pos += valueLength;
+    }
+
+    private void pushContainer(int containerEnd, boolean object) {
+        depth++;
+        if (depth == containerEnds.length) {
+            int newLength = depth * 2;
+            containerEnds = Arrays.copyOf(containerEnds, newLength);
+            isObject = Arrays.copyOf(isObject, newLength);
+            names = Arrays.copyOf(names, newLength);
+        }
+        containerEnds[depth] = containerEnd;
+        isObject[depth] = object;
+        names[depth] = null;
+    }
+
+    @Override
+    public void skipChildren() throws IOException {
+        if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+            pos = containerEnds[depth];
+            depth--;
+            token = token == Token.START_OBJECT ? Token.END_OBJECT : Token.END_ARRAY;
+        }
+    }
+
+    @Override
+    public Token currentToken() {
+        return token;
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+            // name of the field holding the object or array
+            return names[depth - 1];
+        }
+        return names[depth];
+    }
+
+    @Override
+    public NumberType numberType() throws IOException {
+        switch (valueTag) {
+            case CompactXContent.LONG:
+                return longValue == (int) longValue ? NumberType.INT : NumberType.LONG;
+            case CompactXContent.FLOAT:
+            case CompactXContent.DOUBLE:
+                return NumberType.DOUBLE;
+            case CompactXContent.NUMBER:
+                Number number = numberValue();
+                if (number instanceof Integer) {
+                    return NumberType.INT;
+                } else if (number instanceof Long) {
+                    return NumberType.LONG;
+                }
+                return NumberType.DOUBLE;
+            default:
+                throw new IllegalStateException("Current token " + token + " is not a number");
+        }
+    }
+
+    @Override
+    public Number numberValue() throws IOException {
+        switch (valueTag) {
+            case CompactXContent.LONG:
+                if (longValue == (int) longValue) {
+                    return (int) longValue;
+                }
+                return longValue;
+            case CompactXContent.FLOAT:
+            case CompactXContent.DOUBLE:
+                return doubleValue;
+            case CompactXContent.NUMBER:
+                String numberText = text();
+                if (isIntegral(numberText)) {
+                    BigInteger bigInteger = new BigInteger(numberText);
+                    if (bigInteger.bitLength() < 32) {
+                        return bigInteger.intValue();
+                    } else if (bigInteger.bitLength() < 64) {
+                        return bigInteger.longValue();
+                    }
+                    return bigInteger;
+                }
+                return Double.parseDouble(numberText);
+            default:
+                throw new IllegalStateException("Current token " + token + " is not a number");
+        }
+    }
+
+    private static boolean isIntegral(String numberText) {
+        for (int i = 0; i < numberText.length(); i++) {
+            char c = numberText.charAt(i);
+            if ((c < '0' || c > '9') && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean doBooleanValue() throws IOException {
+        if (valueTag == CompactXContent.TRUE) {
+            return true;
+        } else if (valueTag == CompactXContent.FALSE) {
+            return false;
+        }
+        throw new IllegalStateException("Current token " + token + " is not a boolean");
+    }
+
+    @Override
+    protected short doShortValue() throws IOException {
+        return (short) doLongValue();
+    }
+
+    @Override
+    protected int doIntValue() throws IOException {
+        return (int) doLongValue();
+    }
+
+    @Override
+    protected long doLongValue() throws IOException {
+        switch (valueTag) {
+            case CompactXContent.LONG:
+                return longValue;
+            case CompactXContent.FLOAT:
+            case CompactXContent.DOUBLE:
+                return (long) doubleValue;
+            case CompactXContent.NUMBER:
+                return new BigDecimal(text()).longValue();
+            default:
+                throw new IllegalStateException("Current token " + token + " is not a number");
+        }
+    }
+
+    @Override
+    protected float doFloatValue() throws IOException {
+        if (valueTag == CompactXContent.FLOAT) {
+            return floatValue;
+        }
+        return (float) doDoubleValue();
+    }
+
+    @Override
+    protected double doDoubleValue() throws IOException {
+        switch (valueTag) {
+            case CompactXContent.LONG:
+                return longValue;
+            case CompactXContent.FLOAT:
+            case CompactXContent.DOUBLE:
+                return doubleValue;
+            case CompactXContent.NUMBER:
+                return Double.parseDouble(text());
+            default:
+                throw new IllegalStateException("Current token " + token + " is not a number");
+        }
+    }
+
+    @Override
+    public String text() throws IOException {
+        if (token == null || !token.isValue()) {
+            throw new IllegalStateException("Can't get text on a " + token + " at " + getTokenLocation());
+        }
+        if (text == null) {
+            text = switch (valueTag) {
+                case CompactXContent.STRING, CompactXContent.NUMBER ->
+                    new String(data, valueOffset, valueLength, StandardCharsets.UTF_8);
+                case CompactXContent.BINARY -> Base64.getEncoder().encodeToString(binaryValue());
+                case CompactXContent.TRUE -> "true";
+                case CompactXContent.FALSE -> "false";
+                case CompactXContent.LONG -> Long.toString(longValue);
+                case CompactXContent.FLOAT -> Float.toString(floatValue);
+                case CompactXContent.DOUBLE -> Double.toString(doubleValue);
+                default -> throw new IllegalStateException("Can't get text on a " + token + " at " + getTokenLocation());
+            };
+        }
+        return text;
+    }
+
+    @Override
+    public CharBuffer charBuffer() throws IOException {
+        return CharBuffer.wrap(text());
+    }
+
+    @Override
+    public Object objectText() throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return text();
+            case VALUE_NUMBER:
+                return numberValue();
+            case VALUE_BOOLEAN:
+                return doBooleanValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                return text();
+        }
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return false;
+    }
+
+    @Override
+    public char[] textCharacters() throws IOException {
+        return text().toCharArray();
+    }
+
+    @Override
+    public int textLength() throws IOException {
+        return text().length();
+    }
+
+    @Override
+    public int textOffset() throws IOException {
+        return 0;
+    }
+
+    @Override
+    public byte[] binaryValue() throws IOException {
+        if (valueTag == CompactXContent.BINARY) {
+            return Arrays.copyOfRange(data, valueOffset, valueOffset + valueLength);
+        } else if (valueTag == CompactXContent.STRING) {
+            return Base64.getDecoder().decode(text());
+        }
+        throw new IllegalStateException("Current token " + token + " is not binary");
+    }
+
+    @Override
+    public XContentLocation getTokenLocation() {
+        return new XContentLocation(1, tokenPos - start);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void checkAvailable(int numBytes) {
+        if (numBytes < 0 || pos + numBytes > end) {
+            throw new XContentParseException(getTokenLocation(), "Malformed compact content, unexpected end of input");
+        }
+    }
+
+    private int readInt() {
+        checkAvailable(4);
+        int result = (data[pos] & 0xFF) << 24
+            | (data[pos + 1] & 0xFF) << 16
+            | (data[pos + 2] & 0xFF) << 8
+            | (data[pos + 3] & 0xFF);
+        pos += 4;
+        return result;
+    }
+
+    private int readVInt() {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            checkAvailable(1);
+            byte b = data[pos++];
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new XContentParseException(getTokenLocation(), "Malformed compact content, invalid vint");
+    }
+
+    private long readVLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            checkAvailable(1);
+            byte b = data[pos++];
+            result |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new XContentParseException(getTokenLocation(), "Malformed compact content, invalid vlong");
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.sql.parser;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+
+import io.crate.sql.parser.antlr.SqlBaseLexer;
+
+/**
+ * Normalizes SQL statements so that statements which only differ in their literal values,
+ * parameter placeholders, whitespace, comments or keyword casing map to the same text.
+ * <p>
+ * Example:
+ * <pre>
+ *     select name from  t where id = 10 -- comment
+ *     SELECT name FROM t WHERE id = $1
+ *
+ *     Both result in:
+ *
+ *     SELECT name FROM t WHERE id = ?
+ * </pre>
+ * </p>
+ * The normalization is purely lexical, the statement doesn't have to be valid.
+ */
+public final class StatementNormalizer {
+
+    private static final String PLACEHOLDER = "?";
+
+    private StatementNormalizer() {
+    }
+
+    public static String normalize(String statement) {
+        SqlBaseLexer lexer = new SqlBaseLexer(new CaseInsensitiveStream(CharStreams.fromString(statement)));
+        lexer.removeErrorListeners();
+        List<? extends Token> tokens = lexer.getAllTokens();
+        StringBuilder sb = new StringBuilder(statement.length());
+        int prevType = -1;
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                continue;
+            }
+            int type = token.getType();
+            String text;
+            switch (type) {
+                case SqlBaseLexer.STRING:
+                case SqlBaseLexer.ESCAPED_STRING:
+                case SqlBaseLexer.BIT_STRING:
+                case SqlBaseLexer.INTEGER_VALUE:
+                case SqlBaseLexer.DECIMAL_VALUE:
+                case SqlBaseLexer.QUESTION:
+                    text = PLACEHOLDER;
+                    break;
+
+                case SqlBaseLexer.DOLLAR:
+                    // $1 style parameter placeholder
+                    if (i + 1 < tokens.size() && tokens.get(i + 1).getType() == SqlBaseLexer.INTEGER_VALUE) {
+                        i++;
+                    }
+                    text = PLACEHOLDER;
+                    break;
+
+                case SqlBaseLexer.BEGIN_DOLLAR_QUOTED_STRING:
+                    while (i + 1 < tokens.size() && tokens.get(i).getType() != SqlBaseLexer.END_DOLLAR_QUOTED_STRING) {
+                        i++;
+                    }
+                    type = SqlBaseLexer.STRING;
+                    text = PLACEHOLDER;
+                    break;
+
+                case SqlBaseLexer.IDENTIFIER:
+                case SqlBaseLexer.DIGIT_IDENTIFIER:
+                    text = token.getText().toLowerCase(Locale.ENGLISH);
+                    break;
+
+                case SqlBaseLexer.SEMICOLON:
+                    continue;
+
+                default:
+                    text = token.getText();
+                    if (!text.isEmpty() && Character.isLetter(text.charAt(0))) {
+                        // keyword
+                        text = text.toUpperCase(Locale.ENGLISH);
+                    }
+                    break;
+            }
+            if (sb.length() > 0 && needsSpace(prevType, type)) {
+                sb.append(' ');
+            }
+            sb.append(text);
+            prevType = type;
+        }
+        return sb.toString();
+    }
+
+    private static boolean needsSpace(int prevType, int type) {
+        if (type == SqlBaseLexer.OPEN_ROUND_BRACKET && isIdentifier(prevType)) {
+            // function call
+            return false;
+        }
+        return switch (prevType) {
+            case SqlBaseLexer.OPEN_ROUND_BRACKET,
+                SqlBaseLexer.OPEN_SQUARE_BRACKET,
+                SqlBaseLexer.DOT,
+                SqlBaseLexer.CAST_OPERATOR -> false;
+            default -> switch (type) {
+                case SqlBaseLexer.CLOSE_ROUND_BRACKET,
+                    SqlBaseLexer.CLOSE_SQUARE_BRACKET,
+                    SqlBaseLexer.OPEN_SQUARE_BRACKET,
+                    SqlBaseLexer.COMMA,
+                    SqlBaseLexer.DOT,
+                    SqlBaseLexer.CAST_OPERATOR -> false;
+                default -> true;
+            };
+        };
+    }
+
+    private static boolean isIdentifier(int type) {
+        return type == SqlBaseLexer.IDENTIFIER
+            || type == SqlBaseLexer.DIGIT_IDENTIFIER
+            || type == SqlBaseLexer.QUOTED_IDENTIFIER
+            || type == SqlBaseLexer.BACKQUOTED_IDENTIFIER;
+    }
+}
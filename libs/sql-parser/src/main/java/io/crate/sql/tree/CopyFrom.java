@@ -24,22 +24,40 @@ package io.crate.sql.tree;
 import java.util.List;
 import java.util.Objects;
 
+import org.jetbrains.annotations.Nullable;
+
 public class CopyFrom<T> extends Statement {
 
     private final Table<T> table;
     private final List<String> columns;
+    @Nullable
     private final T path;
+    private final boolean stdin;
     private final GenericProperties<T> properties;
     private final boolean returnSummary;
 
     public CopyFrom(Table<T> table,
                     List<String> columns,
-                    T path,
+                    @Nullable T path,
+                    GenericProperties<T> properties,
+                    boolean returnSummary) {
+        this(table, columns, path, path == null, properties, returnSummary);
+    }
+
+    /**
+     * @param stdin true if the rows are read from the client (COPY FROM STDIN). The path is then either null
+     *              or the internal URI of the source registered for the connection.
+     */
+    public CopyFrom(Table<T> table,
+                    List<String> columns,
+                    @Nullable T path,
+                    boolean stdin,
                     GenericProperties<T> properties,
                     boolean returnSummary) {
         this.table = table;
         this.columns = columns;
         this.path = path;
+        this.stdin = stdin;
         this.properties = properties;
         this.returnSummary = returnSummary;
     }
@@ -52,10 +70,19 @@ public class CopyFrom<T> extends Statement {
         return columns;
     }
 
+    /**
+     * @return the URI(s) to read from or null if the rows are read from the client (COPY FROM STDIN)
+     *         and the source of the rows isn't registered yet.
+     */
+    @Nullable
     public T path() {
         return path;
     }
 
+    public boolean isStdin() {
+        return stdin;
+    }
+
     public GenericProperties<T> properties() {
         return properties;
     }
@@ -74,6 +101,7 @@ public class CopyFrom<T> extends Statement {
         }
         CopyFrom<?> copyFrom = (CopyFrom<?>) o;
         return returnSummary == copyFrom.returnSummary &&
+               stdin == copyFrom.stdin &&
                Objects.equals(table, copyFrom.table) &&
                Objects.equals(columns, copyFrom.columns) &&
                Objects.equals(path, copyFrom.path) &&
@@ -82,7 +110,7 @@ public class CopyFrom<T> extends Statement {
 
     @Override
     public int hashCode() {
-        return Objects.hash(table, columns, path, properties, returnSummary);
+        return Objects.hash(table, columns, path, stdin, properties, returnSummary);
     }
 
     @Override
@@ -91,6 +119,7 @@ public class CopyFrom<T> extends Statement {
                "table=" + table +
                ", columns=" + columns +
                ", path=" + path +
+               ", stdin=" + stdin +
                ", properties=" + properties +
                ", returnSummary=" + returnSummary +
                '}';
@@ -25,12 +25,15 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+import org.jetbrains.annotations.Nullable;
+
 public class CopyTo<T> extends Statement {
 
     private final Table<T> table;
     private final List<T> columns;
     private final Optional<T> whereClause;
     private final boolean directoryUri;
+    @Nullable
     private final T targetUri;
     private final GenericProperties<T> properties;
 
@@ -38,7 +41,7 @@ public class CopyTo<T> extends Statement {
                   List<T> columns,
                   Optional<T> whereClause,
                   boolean directoryUri,
-                  T targetUri,
+                  @Nullable T targetUri,
                   GenericProperties<T> properties) {
 
         this.table = table;
@@ -57,10 +60,18 @@ public class CopyTo<T> extends Statement {
         return directoryUri;
     }
 
+    /**
+     * @return the URI to write to or null if the rows are sent to the client (COPY TO STDOUT)
+     */
+    @Nullable
     public T targetUri() {
         return targetUri;
     }
 
+    public boolean isStdout() {
+        return targetUri == null;
+    }
+
     public List<T> columns() {
         return columns;
     }
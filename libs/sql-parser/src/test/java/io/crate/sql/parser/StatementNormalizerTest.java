@@ -0,0 +1,62 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.sql.parser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class StatementNormalizerTest {
+
+    @Test
+    public void test_literals_and_parameters_are_replaced_with_placeholder() {
+        String expected = "SELECT name FROM doc.t WHERE id = ? AND name = ?";
+        assertThat(StatementNormalizer.normalize("select name from doc.t where id = 10 and name = 'foo'"))
+            .isEqualTo(expected);
+        assertThat(StatementNormalizer.normalize("SELECT name FROM doc.t WHERE id = $1 AND name = $2"))
+            .isEqualTo(expected);
+        assertThat(StatementNormalizer.normalize("SELECT name FROM doc.t WHERE id = ? AND name = ?"))
+            .isEqualTo(expected);
+        assertThat(StatementNormalizer.normalize("SELECT name FROM doc.t WHERE id = 1.5 AND name = $$foo$$"))
+            .isEqualTo(expected);
+    }
+
+    @Test
+    public void test_whitespace_comments_and_casing_are_normalized() {
+        assertThat(StatementNormalizer.normalize(
+            "  Select\n  COUNT(*),   Max(x)   -- comment\n from  T /* block */ group by Y;"))
+            .isEqualTo("SELECT count(*), max(x) FROM t GROUP BY y");
+    }
+
+    @Test
+    public void test_quoted_identifiers_keep_their_case() {
+        assertThat(StatementNormalizer.normalize("select \"Name\" from t where x in (1, 2)"))
+            .isEqualTo("SELECT \"Name\" FROM t WHERE x IN (?, ?)");
+    }
+
+    @Test
+    public void test_subscripts_and_casts() {
+        assertThat(StatementNormalizer.normalize("select o['a'], x::int from t"))
+            .isEqualTo("SELECT o[?], x::INT FROM t");
+    }
+}
@@ -1257,6 +1257,8 @@ public class TestStatementBuilder {
         printStatement("copy schemah.foo from '/folder/file.extension'");
         printStatement("copy schemah.foo from '/folder/file.extension' return summary");
         printStatement("copy schemah.foo from '/folder/file.extension' with (some_property=1) return summary");
+        printStatement("copy foo from stdin");
+        printStatement("copy foo (a,b) from stdin with (format='csv') return summary");
 
         printStatement("copy foo (nae) to '/folder/file.extension'");
         printStatement("copy foo to '/folder/file.extension'");
@@ -1267,6 +1269,8 @@ public class TestStatementBuilder {
         printStatement("copy foo partition (a=?) to DIRECTORY '/folder' with (some_param=4)");
 
         printStatement("copy foo where a = 'x' to DIRECTORY '/folder'");
+        printStatement("copy foo (a, b) where a = 'x' to stdout");
+        printStatement("copy foo partition (a='x') to stdout with (format='json_object')");
     }
 
     @Test
@@ -0,0 +1,296 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.jetbrains.annotations.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.Relations;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.common.annotations.VisibleForTesting;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.settings.CoordinatorSessionSettings;
+import io.crate.metadata.settings.session.SessionSetting;
+import io.crate.metadata.settings.session.SessionSettingRegistry;
+import io.crate.planner.Plan;
+import io.crate.sql.tree.Delete;
+import io.crate.sql.tree.Insert;
+import io.crate.sql.tree.Query;
+import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.Update;
+import io.crate.statistics.TableStats;
+import io.crate.types.DataType;
+import io.crate.user.UserManager;
+
+/**
+ * Node level cache of parsed and analyzed statements and of the plans of queries.
+ *
+ * <p>
+ * Entries are shared by all sessions and keyed by the statement text, the parameter types,
+ * the users and the values of all session settings, and the version of the metadata the
+ * {@link Schemas} were updated to. A schema change therefore never returns a stale entry,
+ * all entries are discarded on metadata changes to release them early.
+ * </p>
+ *
+ * <p>
+ * Only {@code SELECT}, {@code INSERT}, {@code UPDATE} and {@code DELETE} statements without
+ * non-deterministic functions are cached. Plans are only cached for queries, as a query plan
+ * doesn't depend on the bound parameters. They are re-created once the table statistics change.
+ * </p>
+ */
+@Singleton
+public class PlanCache implements ClusterStateListener {
+
+    public static final Setting<Integer> PLAN_CACHE_SIZE = Setting.intSetting(
+        "plan_cache.size", 1000, 0, Property.NodeScope);
+
+    /**
+     * Statements are weighed by their length, each started block of this size counts as another entry
+     */
+    private static final int WEIGHT_BLOCK_SIZE = 1024;
+
+    record Key(String query,
+               List<DataType<?>> paramTypes,
+               String sessionUser,
+               String authenticatedUser,
+               List<String> sessionSettings,
+               long metadataVersion) {
+    }
+
+    record CachedPlan(Plan plan, long statsVersion) {
+    }
+
+    static final class CachedStatement {
+
+        private final Statement statement;
+        private final AnalyzedStatement analyzedStatement;
+        private final DataType<?>[] parameterTypes;
+        private final boolean cachePlan;
+
+        @Nullable
+        private volatile CachedPlan plan;
+
+        CachedStatement(Statement statement,
+                        AnalyzedStatement analyzedStatement,
+                        DataType<?>[] parameterTypes) {
+            this.statement = statement;
+            this.analyzedStatement = analyzedStatement;
+            this.parameterTypes = parameterTypes;
+            this.cachePlan = analyzedStatement instanceof AnalyzedRelation;
+        }
+
+        Statement statement() {
+            return statement;
+        }
+
+        AnalyzedStatement analyzedStatement() {
+            return analyzedStatement;
+        }
+
+        DataType<?>[] parameterTypes() {
+            return parameterTypes;
+        }
+    }
+
+    private final Schemas schemas;
+    private final SessionSettingRegistry sessionSettingRegistry;
+    private final UserManager userManager;
+    private final TableStats tableStats;
+
+    @Nullable
+    private final Cache<Key, CachedStatement> cache;
+
+    @Inject
+    public PlanCache(Settings settings,
+                     ClusterService clusterService,
+                     Schemas schemas,
+                     SessionSettingRegistry sessionSettingRegistry,
+                     UserManager userManager,
+                     TableStats tableStats) {
+        this.schemas = schemas;
+        this.sessionSettingRegistry = sessionSettingRegistry;
+        this.userManager = userManager;
+        this.tableStats = tableStats;
+        int size = PLAN_CACHE_SIZE.get(settings);
+        if (size == 0) {
+            cache = null;
+        } else {
+            cache = Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .maximumWeight(size)
+                .<Key, CachedStatement>weigher((key, value) -> 1 + key.query().length() / WEIGHT_BLOCK_SIZE)
+                .build();
+            clusterService.addListener(this);
+        }
+    }
+
+    /**
+     * @return the key for the statement or null if the cache is disabled
+     */
+    @Nullable
+    Key key(String query, List<DataType<?>> paramTypes, CoordinatorSessionSettings sessionSettings) {
+        if (cache == null) {
+            return null;
+        }
+        // Read the version before the statement is analyzed, the analysis can only see a newer state
+        long metadataVersion = schemas.metadataVersion();
+        ArrayList<String> settingValues = new ArrayList<>(sessionSettingRegistry.settings().size());
+        for (SessionSetting<?> setting : sessionSettingRegistry.settings().values()) {
+            settingValues.add(setting.getValue(sessionSettings));
+        }
+        return new Key(
+            query,
+            List.copyOf(paramTypes),
+            sessionSettings.sessionUser().name(),
+            sessionSettings.authenticatedUser().name(),
+            settingValues,
+            metadataVersion
+        );
+    }
+
+    /**
+     * Looks up a cached statement. The privileges of the session user are checked
+     * on every lookup as they might have changed since the statement was analyzed.
+     */
+    @Nullable
+    CachedStatement get(Key key, CoordinatorSessionSettings sessionSettings) {
+        assert cache != null : "Must only be called with a key created by the cache";
+        CachedStatement cachedStatement = cache.getIfPresent(key);
+        if (cachedStatement != null) {
+            userManager.getAccessControl(sessionSettings).ensureMayExecute(cachedStatement.analyzedStatement);
+        }
+        return cachedStatement;
+    }
+
+    /**
+     * Adds the statement to the cache if it is cacheable
+     *
+     * @return the cached statement or null if the statement can't be cached
+     */
+    @Nullable
+    CachedStatement put(Key key,
+                        Statement statement,
+                        AnalyzedStatement analyzedStatement,
+                        DataType<?>[] parameterTypes) {
+        assert cache != null : "Must only be called with a key created by the cache";
+        if (!isCacheable(statement, analyzedStatement)) {
+            return null;
+        }
+        CachedStatement cachedStatement = new CachedStatement(statement, analyzedStatement, parameterTypes);
+        cache.put(key, cachedStatement);
+        return cachedStatement;
+    }
+
+    /**
+     * Returns the cached plan of the statement or creates a new one using the planner.
+     */
+    Plan plan(@Nullable CachedStatement cachedStatement, Supplier<Plan> planner) {
+        if (cachedStatement == null || !cachedStatement.cachePlan) {
+            return planner.get();
+        }
+        long statsVersion = tableStats.version();
+        CachedPlan cachedPlan = cachedStatement.plan;
+        if (cachedPlan != null && cachedPlan.statsVersion == statsVersion) {
+            return cachedPlan.plan;
+        }
+        Plan plan = planner.get();
+        cachedStatement.plan = new CachedPlan(plan, statsVersion);
+        return plan;
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @VisibleForTesting
+    long size() {
+        if (cache == null) {
+            return 0L;
+        }
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        // The optimizer takes the minimum node version into account
+        if (event.metadataChanged() || event.nodesChanged()) {
+            invalidateAll();
+        }
+    }
+
+    @VisibleForTesting
+    static boolean isCacheable(Statement statement, AnalyzedStatement analyzedStatement) {
+        if (statement instanceof Query
+            || statement instanceof Insert
+            || statement instanceof Update
+            || statement instanceof Delete) {
+            return !containsNonDeterministicFunction(analyzedStatement);
+        }
+        return false;
+    }
+
+    /**
+     * Non-deterministic functions like {@code random()} or {@code now()} could be evaluated while planning.
+     */
+    private static boolean containsNonDeterministicFunction(AnalyzedStatement statement) {
+        boolean[] found = new boolean[] { false };
+        Relations.traverseDeepSymbols(statement, symbol -> {
+            if (!found[0] && SymbolVisitors.any(PlanCache::isNonDeterministic, symbol)) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    private static boolean isNonDeterministic(Symbol symbol) {
+        if (symbol instanceof Function function) {
+            return !function.signature().isDeterministic();
+        }
+        if (symbol instanceof SelectSymbol selectSymbol) {
+            return containsNonDeterministicFunction(selectSymbol.relation());
+        }
+        return false;
+    }
+}
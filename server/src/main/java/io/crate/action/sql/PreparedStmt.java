@@ -21,6 +21,8 @@
 
 package io.crate.action.sql;
 
+import org.jetbrains.annotations.Nullable;
+
 import io.crate.analyze.AnalyzedStatement;
 import io.crate.analyze.ParamTypeHints;
 import io.crate.sql.tree.Statement;
@@ -33,14 +35,36 @@ public class PreparedStmt {
     private final String rawStatement;
     private final DataType<?>[] describedParameterTypes;
 
+    @Nullable
+    private final PlanCache.CachedStatement cachedStatement;
+
     PreparedStmt(Statement parsedStatement,
                  AnalyzedStatement analyzedStatement,
                  String query,
                  DataType<?>[] parameterTypes) {
+        this(parsedStatement, analyzedStatement, query, parameterTypes, null);
+    }
+
+    PreparedStmt(PlanCache.CachedStatement cachedStatement, String query) {
+        this(
+            cachedStatement.statement(),
+            cachedStatement.analyzedStatement(),
+            query,
+            cachedStatement.parameterTypes(),
+            cachedStatement
+        );
+    }
+
+    private PreparedStmt(Statement parsedStatement,
+                         AnalyzedStatement analyzedStatement,
+                         String query,
+                         DataType<?>[] parameterTypes,
+                         @Nullable PlanCache.CachedStatement cachedStatement) {
         this.parsedStatement = parsedStatement;
         this.analyzedStatement = analyzedStatement;
         this.rawStatement = query;
         this.describedParameterTypes = parameterTypes;
+        this.cachedStatement = cachedStatement;
     }
 
     public AnalyzedStatement analyzedStatement() {
@@ -52,6 +76,14 @@ public class PreparedStmt {
         return parsedStatement;
     }
 
+    /**
+     * @return the entry of the {@link PlanCache} this statement is shared with, if any
+     */
+    @Nullable
+    PlanCache.CachedStatement cachedStatement() {
+        return cachedStatement;
+    }
+
     DataType<?>[] parameterTypes() {
         return describedParameterTypes;
     }
@@ -23,6 +23,7 @@ package io.crate.action.sql;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -36,18 +37,45 @@ public class RowConsumerToResultReceiver implements RowConsumer {
     private final CompletableFuture<?> completionFuture = new CompletableFuture<>();
     private ResultReceiver<?> resultReceiver;
     private int maxRows;
+    private final boolean rowCountResult;
 
     /**
      * Reset per suspend/execute
      */
     private int rowCount = 0;
+    private long totalRowCount = 0;
     private BatchIterator<Row> activeIt;
 
     public RowConsumerToResultReceiver(ResultReceiver<?> resultReceiver, int maxRows, Consumer<Throwable> onCompletion) {
+        this(resultReceiver, maxRows, (err, totalRows) -> onCompletion.accept(err));
+    }
+
+    /**
+     * @param onCompletion called with the failure (or null) and the total number of rows
+     *                     passed to the result receiver(s).
+     */
+    public RowConsumerToResultReceiver(ResultReceiver<?> resultReceiver,
+                                       int maxRows,
+                                       ObjLongConsumer<Throwable> onCompletion) {
+        this(resultReceiver, maxRows, false, onCompletion);
+    }
+
+    /**
+     * @param rowCountResult true if the rows contain the number of affected rows of a DML statement.
+     *                       {@code onCompletion} is then called with the sum of the affected rows
+     *                       instead of the number of rows.
+     * @param onCompletion called with the failure (or null) and the total number of rows
+     *                     passed to the result receiver(s).
+     */
+    public RowConsumerToResultReceiver(ResultReceiver<?> resultReceiver,
+                                       int maxRows,
+                                       boolean rowCountResult,
+                                       ObjLongConsumer<Throwable> onCompletion) {
         this.resultReceiver = resultReceiver;
         this.maxRows = maxRows;
+        this.rowCountResult = rowCountResult;
         completionFuture.whenComplete((res, err) -> {
-            onCompletion.accept(err);
+            onCompletion.accept(err, totalRowCount);
         });
     }
 
@@ -74,7 +102,9 @@ public class RowConsumerToResultReceiver implements RowConsumer {
             try {
                 while (iterator.moveNext()) {
                     rowCount++;
-                    resultReceiver.setNextRow(iterator.currentElement());
+                    Row row = iterator.currentElement();
+                    totalRowCount += rowCountResult ? affectedRows(row) : 1;
+                    resultReceiver.setNextRow(row);
 
                     if (maxRows > 0 && rowCount % maxRows == 0) {
                         activeIt = iterator;
@@ -161,4 +191,9 @@ public class RowConsumerToResultReceiver implements RowConsumer {
                ", activeIt=" + activeIt +
                '}';
     }
+
+    private static long affectedRows(Row row) {
+        // A failed row count (Row1.ERROR) is negative
+        return row.get(0) instanceof Long affectedRows && affectedRows > 0 ? affectedRows : 0;
+    }
 }
@@ -159,6 +159,7 @@ public class Session implements AutoCloseable {
     private final boolean isReadOnly;
     private final Runnable onClose;
     private final TableStats tableStats;
+    private final PlanCache planCache;
 
     private TransactionState currentTransactionState = TransactionState.IDLE;
 
@@ -172,6 +173,7 @@ public class Session implements AutoCloseable {
                    DependencyCarrier executor,
                    CoordinatorSessionSettings sessionSettings,
                    TableStats tableStats,
+                   PlanCache planCache,
                    Runnable onClose) {
         this.id = sessionId;
         this.secret = ThreadLocalRandom.current().nextInt();
@@ -183,6 +185,7 @@ public class Session implements AutoCloseable {
         this.executor = executor;
         this.sessionSettings = sessionSettings;
         this.tableStats = tableStats;
+        this.planCache = planCache;
         this.onClose = onClose;
     }
 
@@ -200,13 +203,29 @@ public class Session implements AutoCloseable {
      */
     public void quickExec(String statement, ResultReceiver<?> resultReceiver, Row params) {
         CoordinatorTxnCtx txnCtx = new CoordinatorTxnCtx(sessionSettings);
-        Statement parsedStmt = SqlParser.createStatement(statement);
-        AnalyzedStatement analyzedStatement = analyzer.analyze(
-            parsedStmt,
-            sessionSettings,
-            ParamTypeHints.EMPTY,
-            cursors
-        );
+        // Shares the cache entries with statements parsed without parameter types
+        PlanCache.Key cacheKey = planCache.key(statement, List.of(), sessionSettings);
+        PlanCache.CachedStatement cachedStatement = cacheKey == null ? null : planCache.get(cacheKey, sessionSettings);
+        AnalyzedStatement analyzedStatement;
+        if (cachedStatement == null) {
+            Statement parsedStmt = SqlParser.createStatement(statement);
+            analyzedStatement = analyzer.analyze(
+                parsedStmt,
+                sessionSettings,
+                ParamTypeHints.EMPTY,
+                cursors
+            );
+            if (cacheKey != null) {
+                cachedStatement = planCache.put(
+                    cacheKey,
+                    parsedStmt,
+                    analyzedStatement,
+                    ParameterTypes.extract(analyzedStatement).toArray(new DataType[0])
+                );
+            }
+        } else {
+            analyzedStatement = cachedStatement.analyzedStatement();
+        }
         RoutingProvider routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
         mostRecentJobID = UUIDs.dirtyUUID();
         ClusterState clusterState = planner.currentClusterState();
@@ -224,7 +243,7 @@ public class Session implements AutoCloseable {
         );
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            plan = planCache.plan(cachedStatement, () -> planner.plan(analyzedStatement, plannerContext));
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(mostRecentJobID, statement, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
             throw t;
@@ -253,7 +272,12 @@ public class Session implements AutoCloseable {
                 )
             );
         }
-        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(resultReceiver, 0, jobsLogsUpdateListener);
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
+            resultReceiver,
+            0,
+            analyzedStatement.outputs() == null,
+            jobsLogsUpdateListener
+        );
         plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
     }
 
@@ -297,24 +321,48 @@ public class Session implements AutoCloseable {
             LOGGER.debug("method=parse stmtName={} query={} paramTypes={}", statementName, query, paramTypes);
         }
 
+        PlanCache.Key cacheKey = planCache.key(query, paramTypes, sessionSettings);
+        if (cacheKey != null) {
+            PlanCache.CachedStatement cachedStatement;
+            try {
+                cachedStatement = planCache.get(cacheKey, sessionSettings);
+            } catch (Throwable t) {
+                jobsLogs.logPreExecutionFailure(UUIDs.dirtyUUID(), query, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
+                throw t;
+            }
+            if (cachedStatement != null) {
+                preparedStatements.put(statementName, new PreparedStmt(cachedStatement, query));
+                return;
+            }
+        }
+
         Statement statement;
         try {
             statement = SqlParser.createStatement(query);
         } catch (Throwable t) {
             if ("".equals(query)) {
                 statement = EMPTY_STMT;
+                cacheKey = null;
             } else {
                 jobsLogs.logPreExecutionFailure(UUIDs.dirtyUUID(), query, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
                 throw t;
             }
         }
-        analyze(statementName, statement, paramTypes, query);
+        analyze(statementName, statement, paramTypes, query, cacheKey);
     }
 
     public void analyze(String statementName,
                         Statement statement,
                         List<DataType<?>> paramTypes,
                         @Nullable String query) {
+        analyze(statementName, statement, paramTypes, query, null);
+    }
+
+    private void analyze(String statementName,
+                         Statement statement,
+                         List<DataType<?>> paramTypes,
+                         @Nullable String query,
+                         @Nullable PlanCache.Key cacheKey) {
         AnalyzedStatement analyzedStatement;
         DataType<?>[] parameterTypes;
         try {
@@ -334,9 +382,16 @@ public class Session implements AutoCloseable {
                 sessionSettings.sessionUser());
             throw t;
         }
-        preparedStatements.put(
-            statementName,
-            new PreparedStmt(statement, analyzedStatement, query, parameterTypes));
+        PlanCache.CachedStatement cachedStatement = cacheKey == null
+            ? null
+            : planCache.put(cacheKey, statement, analyzedStatement, parameterTypes);
+        if (cachedStatement == null) {
+            preparedStatements.put(
+                statementName,
+                new PreparedStmt(statement, analyzedStatement, query, parameterTypes));
+        } else {
+            preparedStatements.put(statementName, new PreparedStmt(cachedStatement, query));
+        }
     }
 
     public void bind(String portalName,
@@ -700,19 +755,23 @@ public class Session implements AutoCloseable {
                                                        List<CompletableFuture<Long>> completedRowCounts) {
         Object[] cells = new Object[1];
         RowN row = new RowN(cells);
+        long affectedRows = 0;
         for (int i = 0; i < completedRowCounts.size(); i++) {
             CompletableFuture<Long> completedRowCount = completedRowCounts.get(i);
             ResultReceiver<?> resultReceiver = executions.get(i).resultReceiver();
             try {
                 Long rowCount = completedRowCount.join();
                 cells[0] = rowCount == null ? Row1.ERROR : rowCount;
+                if (rowCount != null && rowCount > 0) {
+                    affectedRows += rowCount;
+                }
             } catch (Throwable t) {
                 cells[0] = Row1.ERROR;
             }
             resultReceiver.setNextRow(row);
             resultReceiver.allFinished();
         }
-        jobsLogs.logExecutionEnd(jobId, null);
+        jobsLogs.logExecutionEnd(jobId, null, affectedRows);
     }
 
     @VisibleForTesting
@@ -750,7 +809,10 @@ public class Session implements AutoCloseable {
         }
         Plan plan;
         try {
-            plan = planner.plan(analyzedStmt, plannerContext);
+            plan = planCache.plan(
+                portal.preparedStmt().cachedStatement(),
+                () -> planner.plan(analyzedStmt, plannerContext)
+            );
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(mostRecentJobID, rawStatement, SQLExceptions.messageOf(t), sessionSettings.sessionUser());
             throw t;
@@ -779,7 +841,11 @@ public class Session implements AutoCloseable {
         jobsLogs.logExecutionStart(
             mostRecentJobID, rawStatement, sessionSettings.sessionUser(), StatementClassifier.classify(plan));
         RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
-            resultReceiver, maxRows, new JobsLogsUpdateListener(mostRecentJobID, jobsLogs));
+            resultReceiver,
+            maxRows,
+            analyzedStmt.outputs() == null,
+            new JobsLogsUpdateListener(mostRecentJobID, jobsLogs)
+        );
         portal.setActiveConsumer(consumer);
         plan.execute(executor, plannerContext, consumer, params, SubQueryResults.EMPTY);
         CompletableFuture<?> result = resultReceiver.completionFuture();
@@ -799,6 +865,10 @@ public class Session implements AutoCloseable {
         return null;
     }
 
+    public AnalyzedStatement getAnalyzedStatement(String portalName) {
+        return getSafePortal(portalName).analyzedStatement();
+    }
+
     public String getQuery(String portalName) {
         return getSafePortal(portalName).preparedStmt().rawStatement();
     }
@@ -84,6 +84,7 @@ public class Sessions {
     private final JobsLogs jobsLogs;
     private final ClusterService clusterService;
     private final TableStats tableStats;
+    private final PlanCache planCache;
     private final boolean isReadOnly;
     private final AtomicInteger nextSessionId = new AtomicInteger();
     private final ConcurrentMap<Integer, Session> sessions = new ConcurrentHashMap<>();
@@ -101,7 +102,8 @@ public class Sessions {
                     JobsLogs jobsLogs,
                     Settings settings,
                     ClusterService clusterService,
-                    TableStats tableStats) {
+                    TableStats tableStats,
+                    PlanCache planCache) {
         this.nodeCtx = nodeCtx;
         this.analyzer = analyzer;
         this.planner = planner;
@@ -109,6 +111,7 @@ public class Sessions {
         this.jobsLogs = jobsLogs;
         this.clusterService = clusterService;
         this.tableStats = tableStats;
+        this.planCache = planCache;
         this.isReadOnly = NODE_READ_ONLY_SETTING.get(settings);
         this.defaultStatementTimeout = STATEMENT_TIMEOUT.get(settings);
         this.memoryLimit = MEMORY_LIMIT.get(settings);
@@ -136,6 +139,7 @@ public class Sessions {
             executorProvider.get(),
             sessionSettings,
             tableStats,
+            planCache,
             () -> sessions.remove(sessionId)
         );
         sessions.put(sessionId, session);
@@ -178,6 +182,10 @@ public class Sessions {
         return !disabled;
     }
 
+    PlanCache planCache() {
+        return planCache;
+    }
+
     /**
      * @return true if a session matches the keyData, false otherwise.
      */
@@ -37,17 +37,20 @@ public class AnalyzedCopyFrom implements AnalyzedStatement {
     private final Table<Symbol> table;
     private final GenericProperties<Symbol> properties;
     private final Symbol uri;
+    private final boolean stdin;
 
     AnalyzedCopyFrom(DocTableInfo tableInfo,
                      List<String> targetColumns,
                      Table<Symbol> table,
                      GenericProperties<Symbol> properties,
-                     Symbol uri) {
+                     Symbol uri,
+                     boolean stdin) {
         this.tableInfo = tableInfo;
         this.targetColumns = targetColumns;
         this.table = table;
         this.properties = properties;
         this.uri = uri;
+        this.stdin = stdin;
     }
 
     public DocTableInfo tableInfo() {
@@ -70,6 +73,14 @@ public class AnalyzedCopyFrom implements AnalyzedStatement {
         return uri;
     }
 
+    /**
+     * @return true if the rows are sent by the client (COPY FROM STDIN) and {@link #uri()} is the internal URI
+     *         of the source registered by the connection.
+     */
+    public boolean isStdin() {
+        return stdin;
+    }
+
     @Override
     public void visitSymbols(Consumer<? super Symbol> consumer) {
         for (var partitionProperty : table.partitionProperties()) {
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.analyze;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.expression.symbol.Symbol;
+
+/**
+ * {@code COPY ... TO STDOUT}: The rows of {@link #query()} are sent to the client, one JSON object or JSON array
+ * per line, like {@code COPY TO} writes them into files.
+ * <p>
+ * The statement is planned and executed like the query.
+ */
+public final class AnalyzedCopyToStdout implements AnalyzedStatement {
+
+    private final AnalyzedRelation query;
+    @Nullable
+    private final List<String> columnNames;
+    private final boolean asArray;
+
+    AnalyzedCopyToStdout(AnalyzedRelation query, @Nullable List<String> columnNames, boolean asArray) {
+        this.query = query;
+        this.columnNames = columnNames;
+        this.asArray = asArray;
+    }
+
+    public AnalyzedRelation query() {
+        return query;
+    }
+
+    /**
+     * @return the names of the selected columns or null if the whole documents are selected.
+     */
+    @Nullable
+    public List<String> columnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return true if rows are sent as JSON arrays instead of JSON objects
+     */
+    public boolean asArray() {
+        return asArray;
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> analyzedStatementVisitor, C context) {
+        return analyzedStatementVisitor.visitCopyToStdout(this, context);
+    }
+
+    @Override
+    public boolean isWriteOperation() {
+        return false;
+    }
+
+    @Override
+    public void visitSymbols(Consumer<? super Symbol> consumer) {
+        query.visitSymbols(consumer);
+    }
+
+    @Override
+    public List<Symbol> outputs() {
+        return query.outputs();
+    }
+}
@@ -43,6 +43,13 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitAnalyzedStatement(analysis, context);
     }
 
+    /**
+     * Visits the query of the COPY TO STDOUT, as the statement is planned, executed and privileged like the query.
+     */
+    protected R visitCopyToStdout(AnalyzedCopyToStdout analysis, C context) {
+        return visitSelectStatement(analysis.query(), context);
+    }
+
     protected R visitCreateRepositoryAnalyzedStatement(AnalyzedCreateRepository analysis, C context) {
         return visitDDLStatement(analysis, context);
     }
@@ -205,7 +205,7 @@ public class Analyzer {
         this.killAnalyzer = new KillAnalyzer(nodeCtx);
         this.alterTableRerouteAnalyzer = new AlterTableRerouteAnalyzer(nodeCtx, schemas);
         this.privilegesAnalyzer = new PrivilegesAnalyzer(schemas);
-        this.copyAnalyzer = new CopyAnalyzer(schemas, nodeCtx);
+        this.copyAnalyzer = new CopyAnalyzer(schemas, nodeCtx, relationAnalyzer);
         this.setStatementAnalyzer = new SetStatementAnalyzer(nodeCtx);
         this.resetStatementAnalyzer = new ResetStatementAnalyzer(nodeCtx);
         this.logicalReplicationAnalyzer = new LogicalReplicationAnalyzer(
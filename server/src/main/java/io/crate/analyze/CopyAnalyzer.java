@@ -21,41 +21,73 @@
 
 package io.crate.analyze;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
 import io.crate.analyze.expressions.ExpressionAnalysisContext;
 import io.crate.analyze.expressions.ExpressionAnalyzer;
+import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.analyze.relations.FieldProvider;
 import io.crate.analyze.relations.NameFieldProvider;
+import io.crate.analyze.relations.RelationAnalyzer;
 import io.crate.analyze.relations.TableRelation;
 import io.crate.common.collections.Lists2;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
 import io.crate.metadata.table.TableInfo;
+import io.crate.sql.tree.Assignment;
+import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CopyFrom;
 import io.crate.sql.tree.CopyTo;
 import io.crate.sql.tree.Expression;
 import io.crate.sql.tree.GenericProperties;
+import io.crate.sql.tree.LogicalBinaryExpression;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.sql.tree.QualifiedNameReference;
+import io.crate.sql.tree.Query;
+import io.crate.sql.tree.QuerySpecification;
+import io.crate.sql.tree.Select;
+import io.crate.sql.tree.SelectItem;
+import io.crate.sql.tree.SingleColumn;
+import io.crate.sql.tree.StringLiteral;
 import io.crate.sql.tree.Table;
 
 class CopyAnalyzer {
 
     private final Schemas schemas;
     private final NodeContext nodeCtx;
+    private final RelationAnalyzer relationAnalyzer;
 
-    CopyAnalyzer(Schemas schemas, NodeContext nodeCtx) {
+    CopyAnalyzer(Schemas schemas, NodeContext nodeCtx, RelationAnalyzer relationAnalyzer) {
         this.schemas = schemas;
         this.nodeCtx = nodeCtx;
+        this.relationAnalyzer = relationAnalyzer;
     }
 
     AnalyzedCopyFrom analyzeCopyFrom(CopyFrom<Expression> node,
                                      ParamTypeHints paramTypeHints,
                                      CoordinatorTxnCtx txnCtx) {
+        if (node.isStdin()) {
+            if (node.path() == null) {
+                // The connection registers the source of the rows and sets the path
+                throw new UnsupportedOperationException(
+                    "COPY FROM STDIN is only supported as a simple query via the PostgreSQL wire protocol");
+            }
+            if (node.isReturnSummary()) {
+                throw new UnsupportedOperationException("COPY FROM STDIN does not support RETURN SUMMARY");
+            }
+        }
         DocTableInfo tableInfo = (DocTableInfo) schemas.resolveTableInfo(
             node.table().getName(),
             Operation.INSERT,
@@ -93,13 +125,17 @@ class CopyAnalyzer {
                 node.columns(),
                 table,
                 properties,
-                normalizer.normalize(uri, txnCtx));
+                normalizer.normalize(uri, txnCtx),
+                node.isStdin());
         }
     }
 
-    AnalyzedCopyTo analyzeCopyTo(CopyTo<Expression> node,
-                                 ParamTypeHints paramTypeHints,
-                                 CoordinatorTxnCtx txnCtx) {
+    AnalyzedStatement analyzeCopyTo(CopyTo<Expression> node,
+                                    ParamTypeHints paramTypeHints,
+                                    CoordinatorTxnCtx txnCtx) {
+        if (node.isStdout()) {
+            return analyzeCopyToStdout(node, paramTypeHints, txnCtx);
+        }
         if (!node.directoryUri()) {
             throw new UnsupportedOperationException("Using COPY TO without specifying a DIRECTORY is not supported");
         }
@@ -149,4 +185,70 @@ class CopyAnalyzer {
             columns,
             whereClause);
     }
+
+    /**
+     * Analyzes the COPY TO STDOUT as a query selecting the columns (or the whole documents) of the rows matching
+     * the WHERE and PARTITION clauses.
+     */
+    private AnalyzedCopyToStdout analyzeCopyToStdout(CopyTo<Expression> node,
+                                                     ParamTypeHints paramTypeHints,
+                                                     CoordinatorTxnCtx txnCtx) {
+        String format = null;
+        for (var property : node.properties().properties().entrySet()) {
+            if (!property.getKey().equals("format") || !(property.getValue() instanceof StringLiteral literal)) {
+                throw new UnsupportedOperationException(
+                    "COPY TO STDOUT only supports the `format` option with a string literal value");
+            }
+            format = literal.getValue().toLowerCase(Locale.ENGLISH);
+        }
+        boolean columnsDefined = !node.columns().isEmpty();
+        boolean asArray;
+        if (format == null) {
+            asArray = columnsDefined;
+        } else if (format.equals("json_array") || format.equals("json_object")) {
+            asArray = format.equals("json_array");
+        } else {
+            throw new IllegalArgumentException("Invalid format for COPY TO STDOUT: " + format);
+        }
+        if (asArray && !columnsDefined) {
+            throw new UnsupportedOperationException("Output format not supported without specifying columns.");
+        }
+
+        List<SelectItem> selectItems = columnsDefined
+            ? Lists2.map(node.columns(), SingleColumn::new)
+            : List.of(new SingleColumn(new QualifiedNameReference(QualifiedName.of(DocSysColumns.DOC.name()))));
+        Expression where = node.whereClause().orElse(null);
+        for (Assignment<Expression> partitionProperty : node.table().partitionProperties()) {
+            Expression condition = new ComparisonExpression(
+                ComparisonExpression.Type.EQUAL,
+                partitionProperty.columnName(),
+                partitionProperty.expression()
+            );
+            where = where == null
+                ? condition
+                : new LogicalBinaryExpression(LogicalBinaryExpression.Type.AND, where, condition);
+        }
+        Query query = new Query(
+            Optional.empty(),
+            new QuerySpecification(
+                new Select(false, selectItems),
+                List.of(new Table<>(node.table().getName(), false)),
+                Optional.ofNullable(where),
+                List.of(),
+                Optional.empty(),
+                Map.of(),
+                List.of(),
+                Optional.empty(),
+                Optional.empty()
+            ),
+            List.of(),
+            Optional.empty(),
+            Optional.empty()
+        );
+        AnalyzedRelation relation = relationAnalyzer.analyze(query, txnCtx, paramTypeHints);
+        List<String> columnNames = columnsDefined
+            ? Lists2.map(relation.outputs(), x -> Symbols.pathFromSymbol(x).sqlFqn())
+            : null;
+        return new AnalyzedCopyToStdout(relation, columnNames, asArray);
+    }
 }
@@ -49,7 +49,7 @@ public final class CopyStatementSettings {
         "format",
         "json",
         (s) -> s,
-        Validators.stringValidator("format", "json", "csv"),
+        Validators.stringValidator("format", "json", "csv", "parquet"),
         DataTypes.STRING,
         Setting.Property.Dynamic);
 
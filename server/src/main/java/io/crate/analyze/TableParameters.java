@@ -107,6 +107,7 @@ public class TableParameters {
             IndexMetadata.INDEX_ROUTING_INCLUDE_GROUP_SETTING,
             IndexMetadata.INDEX_ROUTING_EXCLUDE_GROUP_SETTING,
             EngineConfig.INDEX_CODEC_SETTING,
+            IndexSettings.INDEX_SOURCE_FORMAT_SETTING,
             IndexModule.INDEX_STORE_TYPE_SETTING,
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_SETTING,
@@ -140,7 +141,8 @@ public class TableParameters {
         IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
 
         IndexSettings.FILE_BASED_RECOVERY_THRESHOLD_SETTING,
-        Store.INDEX_STORE_STATS_REFRESH_INTERVAL_SETTING
+        Store.INDEX_STORE_STATS_REFRESH_INTERVAL_SETTING,
+        IndexSettings.INDEX_SOURCE_FORMAT_SETTING
     );
 
     private static final Map<String, Setting<?>> SUPPORTED_SETTINGS_DEFAULT
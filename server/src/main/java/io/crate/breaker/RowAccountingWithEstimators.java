@@ -75,4 +75,9 @@ public class RowAccountingWithEstimators implements RowAccounting<Row> {
     public void release() {
         ramAccounting.release();
     }
+
+    @Override
+    public void release(long bytes) {
+        ramAccounting.addBytes(-bytes);
+    }
 }
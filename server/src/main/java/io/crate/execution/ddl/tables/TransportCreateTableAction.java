@@ -25,6 +25,7 @@ import static org.elasticsearch.action.support.master.AcknowledgedRequest.DEFAUL
 import static org.elasticsearch.cluster.metadata.MetadataCreateIndexService.setIndexVersionCreatedSetting;
 import static org.elasticsearch.cluster.metadata.MetadataCreateIndexService.validateSoftDeletesSetting;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.exceptions.RelationAlreadyExists;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.PartitionName;
@@ -52,6 +53,7 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
@@ -242,10 +244,12 @@ public class TransportCreateTableAction extends TransportMasterNodeAction<Create
         return views != null && views.contains(relationName);
     }
 
-    private static void validateSettings(Settings settings, ClusterState state) {
+    @VisibleForTesting
+    static void validateSettings(Settings settings, ClusterState state) {
         var indexSettingsBuilder = Settings.builder();
         indexSettingsBuilder.put(settings);
         setIndexVersionCreatedSetting(indexSettingsBuilder, state);
         validateSoftDeletesSetting(indexSettingsBuilder.build());
+        IndexSettings.validateSourceFormat(settings, state.nodes().getMinNodeVersion());
     }
 }
@@ -21,6 +21,7 @@
 
 package io.crate.execution.dsl.projection;
 
+import io.crate.expression.symbol.AggregateMode;
 import io.crate.metadata.RowGranularity;
 
 import java.util.ArrayList;
@@ -56,4 +57,31 @@ public class Projections {
         }
         return false;
     }
+
+    /**
+     * @return true if the shard projections only compute partial aggregations.
+     *         In that case the rows of a single shard can be collected in multiple independent slices
+     *         because the partial results are merged by a later projection anyway.
+     */
+    public static boolean supportsSlicedShardCollect(Iterable<? extends Projection> projections) {
+        boolean hasShardProjection = false;
+        for (Projection projection : projections) {
+            if (projection.requiredGranularity() != RowGranularity.SHARD) {
+                continue;
+            }
+            hasShardProjection = true;
+            AggregateMode mode;
+            if (projection instanceof AggregationProjection aggregation) {
+                mode = aggregation.mode();
+            } else if (projection instanceof GroupProjection group) {
+                mode = group.mode();
+            } else {
+                return false;
+            }
+            if (mode != AggregateMode.ITER_PARTIAL) {
+                return false;
+            }
+        }
+        return hasShardProjection;
+    }
 }
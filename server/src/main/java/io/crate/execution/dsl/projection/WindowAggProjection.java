@@ -45,10 +45,23 @@ public class WindowAggProjection extends Projection {
     private final List<Symbol> standaloneWithInputs;
     private final ArrayList<Symbol> outputs;
     private final List<WindowFunction> windowFunctions;
+    private final boolean sortedInput;
 
     public WindowAggProjection(WindowDefinition windowDefinition,
                                List<WindowFunction> windowFunctions,
                                List<Symbol> standaloneWithInputs) {
+        this(windowDefinition, windowFunctions, standaloneWithInputs, false);
+    }
+
+    /**
+     * @param sortedInput true if the input rows are already sorted by the PARTITION BY and ORDER BY of the window
+     *                    definition, which allows to compute the window functions one partition at a time.
+     */
+    public WindowAggProjection(WindowDefinition windowDefinition,
+                               List<WindowFunction> windowFunctions,
+                               List<Symbol> standaloneWithInputs,
+                               boolean sortedInput) {
+        this.sortedInput = sortedInput;
         this.windowFunctions = windowFunctions;
         assert windowFunctions.stream().noneMatch(Symbols.IS_COLUMN)
             : "Cannot operate on Reference or Field: " + windowFunctions;
@@ -83,6 +96,11 @@ public class WindowAggProjection extends Projection {
                 windowFunctions.add(function);
             }
         }
+        if (version.onOrAfter(Version.V_5_6_0)) {
+            sortedInput = in.readBoolean();
+        } else {
+            sortedInput = false;
+        }
         outputs = new ArrayList<>(standaloneWithInputs);
         outputs.addAll(windowFunctions);
     }
@@ -99,6 +117,10 @@ public class WindowAggProjection extends Projection {
         return standaloneWithInputs;
     }
 
+    public boolean sortedInput() {
+        return sortedInput;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -108,13 +130,14 @@ public class WindowAggProjection extends Projection {
             return false;
         }
         WindowAggProjection that = (WindowAggProjection) o;
-        return Objects.equals(windowDefinition, that.windowDefinition) &&
+        return sortedInput == that.sortedInput &&
+               Objects.equals(windowDefinition, that.windowDefinition) &&
                Objects.equals(windowFunctions, that.windowFunctions);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), windowDefinition, windowFunctions);
+        return Objects.hash(super.hashCode(), windowDefinition, windowFunctions, sortedInput);
     }
 
     @Override
@@ -158,6 +181,9 @@ public class WindowAggProjection extends Projection {
                 Symbols.toStream(windowFunction.arguments(), out);
             }
         }
+        if (version.onOrAfter(Version.V_5_6_0)) {
+            out.writeBoolean(sortedInput);
+        }
     }
 
     @Override
@@ -110,6 +110,16 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
         return false;
     }
 
+    /**
+     * Indicates if {@link #reduce(RamAccounting, Object, Object)} always returns one of the two given states
+     * without modifying either of them, like {@code max} or {@code min} do.
+     * Partial states of such an aggregation can be combined in any grouping and re-used, which allows to
+     * evaluate sliding window frames of non removable cumulative aggregations with a segment tree.
+     */
+    public boolean isReduceSelective() {
+        return false;
+    }
+
     public TPartial removeFromAggregatedState(RamAccounting ramAccounting,
                                               TPartial previousAggState,
                                               Input<?>[] stateToRemove) {
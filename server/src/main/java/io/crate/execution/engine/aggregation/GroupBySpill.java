@@ -0,0 +1,269 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.types.DataType;
+
+/**
+ * Offloads the groups of a {@link GroupingCollector} to disk once the memory it holds gets close to the limit.
+ * <p>
+ * The keys and the partial aggregation states of all groups are hash partitioned into {@link SpillFile}s, written
+ * using the streamers of the key types and the {@link AggregationFunction#partialType()}s, and the in-memory groups
+ * are discarded. Once all rows are consumed, the partitions are merged one by one using
+ * {@link AggregationFunction#reduce}, so only the groups of a single partition have to fit into memory.
+ * If a partition still doesn't fit, it is partitioned again using a different hash function.
+ * <p>
+ * Requires a {@link RamAccounting} which is exclusively used by the grouping operation and its aggregations,
+ * as it's released whenever the groups are spilled.
+ */
+final class GroupBySpill implements Closeable {
+
+    static final int NUM_PARTITIONS = 32;
+
+    /**
+     * Spilled partitions which exceed the memory limit are re-partitioned up to this level.
+     * Beyond that, a partition must fit into memory.
+     */
+    private static final int MAX_LEVEL = 3;
+
+    private record Partition(SpillFile file, int level) {
+    }
+
+    private final AggregationFunction[] aggregations;
+    private final AggregateMode mode;
+    private final RamAccounting ramAccounting;
+    private final LongPredicate memoryPressure;
+    private final Supplier<SpillFile> newSpillFile;
+    private final BiConsumer<Map<List<Object>, Object[]>, List<Object>> accountForMergedEntry;
+    private final int numKeyColumns;
+    private final List<SpillFile> spillFiles = new ArrayList<>();
+    private final ArrayDeque<Partition> pending = new ArrayDeque<>();
+
+    @Nullable
+    private SpillFile[] partitions;
+
+    /**
+     * @param memoryPressure tells if the grouping operation holding the given number of bytes should spill
+     * @param newSpillFile creates spill files for rows of the key types followed by the partial types of the
+     *                     aggregations.
+     */
+    @SuppressWarnings("rawtypes")
+    GroupBySpill(List<? extends DataType> keyTypes,
+                 AggregationFunction[] aggregations,
+                 AggregateMode mode,
+                 RamAccounting ramAccounting,
+                 LongPredicate memoryPressure,
+                 Supplier<SpillFile> newSpillFile) {
+        this.numKeyColumns = keyTypes.size();
+        this.aggregations = aggregations;
+        this.mode = mode;
+        this.ramAccounting = ramAccounting;
+        this.memoryPressure = memoryPressure;
+        this.newSpillFile = newSpillFile;
+        this.accountForMergedEntry = GroupByMaps.accountForNewEntry(ramAccounting, keyTypes);
+    }
+
+    boolean hasSpilled() {
+        return partitions != null;
+    }
+
+    /**
+     * Spills all groups and clears the map if the memory held by the grouping operation is getting too large.
+     */
+    <K> void maybeSpill(Map<K, Object[]> statesByKey, BiConsumer<K, Object[]> applyKeyToCells) {
+        if (memoryPressure.test(ramAccounting.totalBytes())) {
+            partitions = spill(statesByKey, applyKeyToCells, partitions, 0);
+        }
+    }
+
+    /**
+     * Spills the remaining groups and returns the rows of all groups, merging the spilled partitions lazily.
+     * Must only be called if {@link #hasSpilled()} is true.
+     */
+    <K> Iterable<Row> finish(Map<K, Object[]> statesByKey, BiConsumer<K, Object[]> applyKeyToCells) {
+        assert partitions != null : "finish must only be called if groups were spilled";
+        spill(statesByKey, applyKeyToCells, partitions, 0);
+        for (SpillFile partition : partitions) {
+            if (partition != null) {
+                pending.add(new Partition(partition, 0));
+            }
+        }
+        return this::rows;
+    }
+
+    private <K> SpillFile[] spill(Map<K, Object[]> statesByKey,
+                                  BiConsumer<K, Object[]> applyKeyToCells,
+                                  @Nullable SpillFile[] target,
+                                  int level) {
+        if (target == null) {
+            target = new SpillFile[NUM_PARTITIONS];
+        }
+        Object[] cells = new Object[numKeyColumns + aggregations.length];
+        for (Map.Entry<K, Object[]> entry : statesByKey.entrySet()) {
+            applyKeyToCells.accept(entry.getKey(), cells);
+            Object[] states = entry.getValue();
+            System.arraycopy(states, 0, cells, numKeyColumns, states.length);
+            int partition = partitionOf(cells, level);
+            SpillFile spillFile = target[partition];
+            if (spillFile == null) {
+                spillFile = newSpillFile.get();
+                spillFiles.add(spillFile);
+                target[partition] = spillFile;
+            }
+            spillFile.write(cells);
+        }
+        statesByKey.clear();
+        ramAccounting.release();
+        return target;
+    }
+
+    private int partitionOf(Object[] cells, int level) {
+        int hash = level;
+        for (int i = 0; i < numKeyColumns; i++) {
+            hash = 31 * hash + Objects.hashCode(cells[i]);
+        }
+        return (BitMixer.mix32(hash) & Integer.MAX_VALUE) % NUM_PARTITIONS;
+    }
+
+    /**
+     * Merges the groups of a spilled partition.
+     *
+     * @return the merged groups or an empty map if the partition had to be spilled again.
+     */
+    private Map<List<Object>, Object[]> merge(Partition partition) {
+        Map<List<Object>, Object[]> statesByKey = new HashMap<>();
+        SpillFile[] subPartitions = null;
+        int nextLevel = partition.level + 1;
+        try (CloseableIterator<Object[]> it = partition.file.rows()) {
+            while (it.hasNext()) {
+                Object[] cells = it.next();
+                List<Object> key = Arrays.asList(Arrays.copyOf(cells, numKeyColumns));
+                Object[] states = statesByKey.get(key);
+                if (states == null) {
+                    accountForMergedEntry.accept(statesByKey, key);
+                    statesByKey.put(key, Arrays.copyOfRange(cells, numKeyColumns, cells.length));
+                    if (partition.level < MAX_LEVEL && memoryPressure.test(ramAccounting.totalBytes())) {
+                        subPartitions = spill(statesByKey, GroupBySpill::applyKeysToCells, subPartitions, nextLevel);
+                    }
+                } else {
+                    for (int i = 0; i < aggregations.length; i++) {
+                        //noinspection unchecked
+                        states[i] = aggregations[i].reduce(ramAccounting, states[i], cells[numKeyColumns + i]);
+                    }
+                }
+            }
+        }
+        partition.file.close();
+        if (subPartitions == null) {
+            return statesByKey;
+        }
+        spill(statesByKey, GroupBySpill::applyKeysToCells, subPartitions, nextLevel);
+        for (SpillFile subPartition : subPartitions) {
+            if (subPartition != null) {
+                pending.push(new Partition(subPartition, nextLevel));
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    private static void applyKeysToCells(List<Object> key, Object[] cells) {
+        for (int i = 0; i < key.size(); i++) {
+            cells[i] = key.get(i);
+        }
+    }
+
+    private Iterator<Row> rows() {
+        return new Iterator<>() {
+
+            final Object[] cells = new Object[numKeyColumns + aggregations.length];
+            final RowN row = new RowN(cells);
+            Iterator<Map.Entry<List<Object>, Object[]>> groups = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!groups.hasNext()) {
+                    Partition partition = pending.poll();
+                    if (partition == null) {
+                        return false;
+                    }
+                    groups = Collections.emptyIterator();
+                    ramAccounting.release();
+                    groups = merge(partition).entrySet().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more groups");
+                }
+                Map.Entry<List<Object>, Object[]> group = groups.next();
+                applyKeysToCells(group.getKey(), cells);
+                Object[] states = group.getValue();
+                for (int i = 0; i < states.length; i++) {
+                    //noinspection unchecked
+                    cells[numKeyColumns + i] = mode.finishCollect(ramAccounting, aggregations[i], states[i]);
+                }
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Deletes all spill files
+     */
+    @Override
+    public void close() {
+        for (SpillFile spillFile : spillFiles) {
+            spillFile.close();
+        }
+        spillFiles.clear();
+        pending.clear();
+        partitions = null;
+    }
+}
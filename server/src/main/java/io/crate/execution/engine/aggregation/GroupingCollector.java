@@ -31,6 +31,7 @@ import io.crate.expression.symbol.AggregateMode;
 import io.crate.memory.MemoryManager;
 import io.crate.types.DataType;
 import org.elasticsearch.Version;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -68,6 +69,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     private final BiConsumer<Map<K, Object[]>, Row> accumulator;
     private final Supplier<Map<K, Object[]>> supplier;
     private final Version minNodeVersion;
+    @Nullable
+    private final GroupBySpill spill;
 
     static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
                                                AggregateMode mode,
@@ -79,7 +82,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                Version minNodeVersion,
                                                Input<?> keyInput,
                                                DataType keyType,
-                                               Version indexVersionCreated) {
+                                               Version indexVersionCreated,
+                                               @Nullable GroupBySpill spill) {
         return new GroupingCollector<>(
             expressions,
             aggregations,
@@ -94,7 +98,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             GroupByMaps.accountForNewEntry(ramAccounting, keyType),
             row -> keyInput.value(),
             indexVersionCreated,
-            GroupByMaps.mapForType(keyType)
+            GroupByMaps.mapForType(keyType),
+            spill
         );
     }
 
@@ -108,7 +113,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                     Version minNodeVersion,
                                                     List<Input<?>> keyInputs,
                                                     List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated) {
+                                                    Version indexVersionCreated,
+                                                    @Nullable GroupBySpill spill) {
         return new GroupingCollector<>(
             expressions,
             aggregations,
@@ -123,7 +129,67 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
             GroupByMaps.accountForNewEntry(ramAccountingContext, keyTypes),
             row -> evalKeyInputs(keyInputs),
             indexVersionCreated,
-            HashMap::new
+            HashMap::new,
+            spill
+        );
+    }
+
+    /**
+     * Like {@link #manyKeys} but packs the keys into longs using the given {@link KeyPacker} to avoid allocating a
+     * list per row. Keys containing null values can't be packed and fall back to lists.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static GroupingCollector<Object> packedKeys(CollectExpression<Row, ?>[] expressions,
+                                                AggregateMode mode,
+                                                AggregationFunction[] aggregations,
+                                                Input[][] inputs,
+                                                Input<Boolean>[] filters,
+                                                RamAccounting ramAccountingContext,
+                                                MemoryManager memoryManager,
+                                                Version minNodeVersion,
+                                                List<Input<?>> keyInputs,
+                                                List<? extends DataType> keyTypes,
+                                                KeyPacker keyPacker,
+                                                Version indexVersionCreated,
+                                                @Nullable GroupBySpill spill) {
+        int numLongs = keyPacker.numLongs();
+        // The map copies the longs on put, so the same key instance can be re-used for every row
+        PackedKeyMap.Key scratchKey = new PackedKeyMap.Key(numLongs);
+        long bytesPerPackedKey = PackedKeyMap.bytesPerEntry(numLongs);
+        BiConsumer<Map<Object, Object[]>, Object> accountForListKey = GroupByMaps.accountForNewEntry(
+            ramAccountingContext,
+            keyTypes
+        );
+        return new GroupingCollector<>(
+            expressions,
+            aggregations,
+            mode,
+            inputs,
+            filters,
+            ramAccountingContext,
+            memoryManager,
+            minNodeVersion,
+            (key, cells) -> {
+                if (key instanceof PackedKeyMap.Key packedKey) {
+                    for (int i = 0; i < keyInputs.size(); i++) {
+                        cells[i] = keyPacker.unpack(packedKey.longs, i);
+                    }
+                } else {
+                    applyKeysToCells((List<Object>) key, cells);
+                }
+            },
+            keyInputs.size(),
+            (map, key) -> {
+                if (key instanceof PackedKeyMap.Key) {
+                    ramAccountingContext.addBytes(bytesPerPackedKey);
+                } else {
+                    accountForListKey.accept(map, key);
+                }
+            },
+            row -> keyPacker.pack(keyInputs, scratchKey.longs) ? scratchKey : evalKeyInputs(keyInputs),
+            indexVersionCreated,
+            () -> (Map) new PackedKeyMap<Object[]>(numLongs),
+            spill
         );
     }
 
@@ -154,7 +220,8 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               BiConsumer<Map<K, Object[]>, K> accountForNewEntry,
                               Function<Row, K> keyExtractor,
                               Version indexVersionCreated,
-                              Supplier<Map<K, Object[]>> supplier) {
+                              Supplier<Map<K, Object[]>> supplier,
+                              @Nullable GroupBySpill spill) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
@@ -170,6 +237,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
         this.supplier = supplier;
         this.minNodeVersion = minNodeVersion;
+        this.spill = spill;
     }
 
     @Override
@@ -191,7 +259,24 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
 
     @Override
     public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
-        return this::mapToRows;
+        return this::finish;
+    }
+
+    private Iterable<Row> finish(Map<K, Object[]> statesByKey) {
+        if (spill != null && spill.hasSpilled()) {
+            return spill.finish(statesByKey, applyKeyToCells);
+        }
+        return mapToRows(statesByKey);
+    }
+
+    /**
+     * Deletes spill files, if any.
+     * Must be called once the rows returned by the {@link #finisher()} are consumed.
+     */
+    public void close() {
+        if (spill != null) {
+            spill.close();
+        }
     }
 
     @Override
@@ -211,6 +296,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                 states[i] = inputs[i][0].value();
             }
             addWithAccounting(statesByKey, key, states);
+            maybeSpill(statesByKey);
         } else {
             for (int i = 0; i < aggregations.length; i++) {
                 states[i] = aggregations[i].reduce(ramAccounting, states[i], inputs[i][0].value());
@@ -231,6 +317,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         Object[] states = statesByKey.get(key);
         if (states == null) {
             addNewEntry(statesByKey, key);
+            maybeSpill(statesByKey);
         } else {
             for (int i = 0; i < aggregations.length; i++) {
                 if (InputCondition.matches(filters[i])) {
@@ -241,6 +328,12 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         }
     }
 
+    private void maybeSpill(Map<K, Object[]> statesByKey) {
+        if (spill != null) {
+            spill.maybeSpill(statesByKey, applyKeyToCells);
+        }
+    }
+
     private void addNewEntry(Map<K, Object[]> statesByKey, K key) {
         Object[] states;
         states = new Object[aggregations.length];
@@ -21,6 +21,8 @@
 
 package io.crate.execution.engine.aggregation;
 
+import io.crate.Streamer;
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
@@ -28,20 +30,22 @@ import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbol;
 import io.crate.memory.MemoryManager;
+import io.crate.types.DataType;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
-import java.util.stream.Collector;
 
 import static io.crate.expression.symbol.Symbols.typeView;
 
 public class GroupingProjector implements Projector {
 
-    private final Collector<Row, ?, Iterable<Row>> collector;
-
+    private final GroupingCollector<Object> collector;
 
     public GroupingProjector(List<? extends Symbol> keys,
                              List<Input<?>> keyInputs,
@@ -51,7 +55,10 @@ public class GroupingProjector implements Projector {
                              RamAccounting ramAccounting,
                              MemoryManager memoryManager,
                              Version minNodeVersion,
-                             Version indexVersionCreated) {
+                             Version indexVersionCreated,
+                             @Nullable SpillService spillService,
+                             CircuitBreaker breaker,
+                             long operationMemoryLimitInBytes) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
 
         AggregationFunction[] functions = new AggregationFunction[aggregations.length];
@@ -63,6 +70,34 @@ public class GroupingProjector implements Projector {
             inputs[i] = aggregation.inputs();
             filters[i] = aggregation.filter();
         }
+        GroupBySpill spill = null;
+        if (spillService != null && spillService.isEnabled()) {
+            // The spill releases the accounted memory whenever it writes the groups to disk,
+            // so the grouping must account on its own instead of sharing the accounting of the operation.
+            RamAccounting operationRamAccounting = ramAccounting;
+            ramAccounting = new ConcurrentRamAccounting(
+                operationRamAccounting::addBytes,
+                bytes -> operationRamAccounting.addBytes(-bytes),
+                "group-by",
+                0
+            );
+            List<DataType<?>> keyTypes = typeView(keys);
+            Streamer<?>[] streamers = new Streamer<?>[keys.size() + functions.length];
+            for (int i = 0; i < keyTypes.size(); i++) {
+                streamers[i] = keyTypes.get(i).streamer();
+            }
+            for (int i = 0; i < functions.length; i++) {
+                streamers[keyTypes.size() + i] = functions[i].partialType().streamer();
+            }
+            spill = new GroupBySpill(
+                keyTypes,
+                functions,
+                mode,
+                ramAccounting,
+                spillService.memoryPressure(breaker, operationMemoryLimitInBytes),
+                () -> spillService.newFile(streamers)
+            );
+        }
         if (keys.size() == 1) {
             Symbol key = keys.get(0);
             collector = GroupingCollector.singleKey(
@@ -76,7 +111,24 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs.get(0),
                 key.valueType(),
-                indexVersionCreated
+                indexVersionCreated,
+                spill
+            );
+        } else if (KeyPacker.of(typeView(keys)) instanceof KeyPacker keyPacker) {
+            collector = GroupingCollector.packedKeys(
+                collectExpressions,
+                mode,
+                functions,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                minNodeVersion,
+                keyInputs,
+                typeView(keys),
+                keyPacker,
+                indexVersionCreated,
+                spill
             );
         } else {
             //noinspection unchecked
@@ -91,17 +143,29 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs,
                 typeView(keys),
-                indexVersionCreated
+                indexVersionCreated,
+                spill
             );
         }
     }
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                batchIterator.close();
+                collector.close();
+            },
+            batchIterator::kill,
+            () -> batchIterator.collect(collector),
+            batchIterator.hasLazyResultSet()
+        );
     }
 
-    public Collector<Row, ?, Iterable<Row>> getCollector() {
+    /**
+     * The returned collector must be {@link GroupingCollector#close() closed} once its result is consumed.
+     */
+    public GroupingCollector<Object> getCollector() {
         return collector;
     }
 
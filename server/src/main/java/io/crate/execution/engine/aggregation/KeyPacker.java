@@ -0,0 +1,139 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.Input;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+
+/**
+ * Packs the values of multiple fixed-width integral GROUP BY keys into one or two longs.
+ * <p>
+ * Columns are laid out ordered by descending width. As all widths are powers of two a column never spans
+ * two longs, e.g. {@code (int, long, short)} is packed as {@code [long], [int | short << 32]}.
+ */
+final class KeyPacker {
+
+    static final int MAX_LONGS = 2;
+
+    private final int[] typeIds;
+    private final int[] longIdx;
+    private final int[] shifts;
+    private final long[] masks;
+    private final int numLongs;
+
+    /**
+     * @return a packer for the given key types or null if the keys can't be packed into {@link #MAX_LONGS} longs.
+     */
+    @Nullable
+    @SuppressWarnings("rawtypes")
+    static KeyPacker of(List<? extends DataType> types) {
+        int totalBits = 0;
+        for (DataType type : types) {
+            int bits = bits(type.id());
+            if (bits == -1) {
+                return null;
+            }
+            totalBits += bits;
+        }
+        if (totalBits > MAX_LONGS * Long.SIZE) {
+            return null;
+        }
+        return new KeyPacker(types);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private KeyPacker(List<? extends DataType> types) {
+        int numColumns = types.size();
+        typeIds = new int[numColumns];
+        longIdx = new int[numColumns];
+        shifts = new int[numColumns];
+        masks = new long[numColumns];
+        List<Integer> columnsByWidth = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            typeIds[i] = types.get(i).id();
+            columnsByWidth.add(i);
+        }
+        columnsByWidth.sort((a, b) -> Integer.compare(bits(typeIds[b]), bits(typeIds[a])));
+        int offset = 0;
+        for (int column : columnsByWidth) {
+            int bits = bits(typeIds[column]);
+            longIdx[column] = offset / Long.SIZE;
+            shifts[column] = offset % Long.SIZE;
+            masks[column] = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+            offset += bits;
+        }
+        numLongs = (offset + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private static int bits(int typeId) {
+        return switch (typeId) {
+            case ByteType.ID -> Byte.SIZE;
+            case ShortType.ID -> Short.SIZE;
+            case IntegerType.ID -> Integer.SIZE;
+            case LongType.ID, TimestampType.ID_WITH_TZ, TimestampType.ID_WITHOUT_TZ -> Long.SIZE;
+            default -> -1;
+        };
+    }
+
+    int numLongs() {
+        return numLongs;
+    }
+
+    /**
+     * Packs the values of the inputs into target.
+     *
+     * @return false if a value is null and the key can't be packed.
+     */
+    boolean pack(List<Input<?>> inputs, long[] target) {
+        for (int i = 0; i < numLongs; i++) {
+            target[i] = 0L;
+        }
+        for (int i = 0; i < typeIds.length; i++) {
+            Object value = inputs.get(i).value();
+            if (value == null) {
+                return false;
+            }
+            target[longIdx[i]] |= (((Number) value).longValue() & masks[i]) << shifts[i];
+        }
+        return true;
+    }
+
+    Object unpack(long[] packed, int column) {
+        long value = (packed[longIdx[column]] >>> shifts[column]) & masks[column];
+        return switch (typeIds[column]) {
+            case ByteType.ID -> (byte) value;
+            case ShortType.ID -> (short) value;
+            case IntegerType.ID -> (int) value;
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.lucene.util.RamUsageEstimator;
+
+import com.carrotsearch.hppc.BitMixer;
+
+/**
+ * Open addressing map for GROUP BY keys packed into one or more longs by a {@link KeyPacker}.
+ * <p>
+ * Packed keys are stored in a single {@code long[]}, so there are no per entry objects apart from the value.
+ * {@link Key} instances passed to {@link #get(Object)} and {@link #put(Object, Object)} can be re-used by the caller,
+ * the map copies the longs.
+ * <p>
+ * Keys which can't be packed (e.g. because they contain null values) are stored in a regular {@link HashMap}.
+ * Null values are not supported.
+ */
+final class PackedKeyMap<V> extends AbstractMap<Object, V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    static final class Key {
+
+        final long[] longs;
+
+        Key(int numLongs) {
+            this.longs = new long[numLongs];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Arrays.equals(longs, other.longs);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(longs);
+        }
+    }
+
+    private final int keyLongs;
+    private final HashMap<Object, V> unpackedKeys = new HashMap<>();
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int resizeAt;
+    private int size;
+
+    PackedKeyMap(int keyLongs) {
+        this.keyLongs = keyLongs;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return estimated number of bytes used by the map per packed key, including the slack of the load factor and
+     *         the growth of the arrays.
+     */
+    static long bytesPerEntry(int keyLongs) {
+        return 2L * (keyLongs * Long.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * keyLongs];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public int size() {
+        return size + unpackedKeys.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key instanceof Key packed) {
+            return (V) values[slot(packed.longs)];
+        }
+        return unpackedKeys.get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(Object key, V value) {
+        assert value != null : "PackedKeyMap doesn't support null values";
+        if (key instanceof Key packed) {
+            int slot = slot(packed.longs);
+            V previous = (V) values[slot];
+            if (previous == null) {
+                System.arraycopy(packed.longs, 0, keys, slot * keyLongs, keyLongs);
+                size++;
+            }
+            values[slot] = value;
+            if (size > resizeAt) {
+                rehash();
+            }
+            return previous;
+        }
+        return unpackedKeys.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException("remove is not supported on PackedKeyMap");
+    }
+
+    @Override
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        unpackedKeys.clear();
+    }
+
+    /**
+     * @return the slot containing the key or the empty slot where the key should be inserted
+     */
+    private int slot(long[] key) {
+        int slot = hash(key, 0) & mask;
+        while (values[slot] != null && keyEquals(slot, key) == false) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int hash(long[] longs, int offset) {
+        long h = 0;
+        for (int i = 0; i < keyLongs; i++) {
+            h = h * 31 + longs[offset + i];
+        }
+        return (int) BitMixer.mix64(h);
+    }
+
+    private boolean keyEquals(int slot, long[] key) {
+        int offset = slot * keyLongs;
+        for (int i = 0; i < keyLongs; i++) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            Object value = oldValues[oldSlot];
+            if (value == null) {
+                continue;
+            }
+            int slot = hash(oldKeys, oldSlot * keyLongs) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, oldSlot * keyLongs, keys, slot * keyLongs, keyLongs);
+            values[slot] = value;
+        }
+    }
+
+    @Override
+    public Set<Entry<Object, V>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public int size() {
+                return PackedKeyMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<Object, V>> iterator() {
+                Iterator<Entry<Object, V>> unpackedIt = unpackedKeys.entrySet().iterator();
+                return new Iterator<>() {
+
+                    int slot = nextSlot(0);
+
+                    private int nextSlot(int from) {
+                        for (int i = from; i < values.length; i++) {
+                            if (values[i] != null) {
+                                return i;
+                            }
+                        }
+                        return values.length;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < values.length || unpackedIt.hasNext();
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<Object, V> next() {
+                        if (slot < values.length) {
+                            Key key = new Key(keyLongs);
+                            System.arraycopy(keys, slot * keyLongs, key.longs, 0, keyLongs);
+                            Entry<Object, V> entry = new SimpleImmutableEntry<>(key, (V) values[slot]);
+                            slot = nextSlot(slot + 1);
+                            return entry;
+                        }
+                        if (unpackedIt.hasNext()) {
+                            return unpackedIt.next();
+                        }
+                        throw new NoSuchElementException();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -28,11 +28,18 @@ import java.util.List;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.jetbrains.annotations.Nullable;
 
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.templates.ObjectDocValueAggregator;
+import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
@@ -87,10 +94,27 @@ public final class ArrayAgg extends AggregationFunction<List<Object>, List<Objec
                                 MemoryManager memoryManager,
                                 List<Object> state,
                                 Input<?>... args) throws CircuitBreakingException {
-        var value = args[0].value();
+        addValue(ramAccounting, state, args[0].value());
+        return state;
+    }
+
+    private void addValue(RamAccounting ramAccounting, List<Object> state, Object value) {
         ramAccounting.addBytes(elementType.valueBytes(value));
         state.add(value);
-        return state;
+    }
+
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(LuceneReferenceResolver referenceResolver,
+                                                       List<Reference> aggregationReferences,
+                                                       DocTableInfo table,
+                                                       List<Literal<?>> optionalParams) {
+        return ObjectDocValueAggregator.<List<Object>>of(
+            aggregationReferences.get(0),
+            (ramAccounting, memoryManager, minNodeVersion) -> new ArrayList<>(),
+            this::addValue,
+            true
+        );
     }
 
     @Override
@@ -24,7 +24,13 @@ package io.crate.execution.engine.aggregation.impl;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.templates.ObjectDocValueAggregator;
+import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.ArrayType;
@@ -98,9 +104,13 @@ public class CollectSetAggregation extends AggregationFunction<Map<Object, Objec
                                        MemoryManager memoryManager,
                                        Map<Object, Object> state,
                                        Input<?>... args) throws CircuitBreakingException {
-        Object value = args[0].value();
+        addValue(ramAccounting, state, args[0].value());
+        return state;
+    }
+
+    private void addValue(RamAccounting ramAccounting, Map<Object, Object> state, @Nullable Object value) {
         if (value == null) {
-            return state;
+            return;
         }
         if (state.put(value, PRESENT) == null) {
             ramAccounting.addBytes(
@@ -108,7 +118,6 @@ public class CollectSetAggregation extends AggregationFunction<Map<Object, Objec
                 RamUsageEstimator.alignObjectSize(elementType.valueBytes(value) + 36L)
             );
         }
-        return state;
     }
 
     @Nullable
@@ -117,10 +126,28 @@ public class CollectSetAggregation extends AggregationFunction<Map<Object, Objec
                                         Version indexVersionCreated,
                                         Version minNodeInCluster,
                                         MemoryManager memoryManager) {
+        return newState(ramAccounting);
+    }
+
+    private static Map<Object, Object> newState(RamAccounting ramAccounting) {
         ramAccounting.addBytes(RamUsageEstimator.alignObjectSize(64L)); // overhead for HashMap: 32 * 0 + 16 * 4 bytes
         return new HashMap<>();
     }
 
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(LuceneReferenceResolver referenceResolver,
+                                                       List<Reference> aggregationReferences,
+                                                       DocTableInfo table,
+                                                       List<Literal<?>> optionalParams) {
+        return ObjectDocValueAggregator.of(
+            aggregationReferences.get(0),
+            (ramAccounting, memoryManager, minNodeVersion) -> newState(ramAccounting),
+            this::addValue,
+            false
+        );
+    }
+
     @Override
     public DataType<?> partialType() {
         return partialReturnType;
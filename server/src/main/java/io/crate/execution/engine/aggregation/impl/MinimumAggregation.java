@@ -332,6 +332,11 @@ public abstract class MinimumAggregation extends AggregationFunction<Object, Obj
         return state;
     }
 
+    @Override
+    public boolean isReduceSelective() {
+        return true;
+    }
+
     @Override
     public Object iterate(RamAccounting ramAccounting,
                           MemoryManager memoryManager,
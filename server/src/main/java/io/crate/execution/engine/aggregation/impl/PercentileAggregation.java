@@ -24,7 +24,13 @@ package io.crate.execution.engine.aggregation.impl;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.templates.ObjectDocValueAggregator;
+import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.ArrayType;
@@ -102,11 +108,18 @@ class PercentileAggregation extends AggregationFunction<TDigestState, Object> {
                                 MemoryManager memoryManager,
                                 TDigestState state,
                                 Input<?>... args) throws CircuitBreakingException {
+        addValue(ramAccounting, state, args[0].value(), args[1].value());
+        return state;
+    }
+
+    private void addValue(RamAccounting ramAccounting,
+                          TDigestState state,
+                          @Nullable Object argValue,
+                          @Nullable Object fractionValue) {
         if (state.isEmpty()) {
-            Object fractionValue = args[1].value();
             initState(state, fractionValue, ramAccounting);
         }
-        Double value = DataTypes.DOUBLE.sanitizeValue(args[0].value());
+        Double value = DataTypes.DOUBLE.sanitizeValue(argValue);
         if (value != null) {
             int sizeBefore = state.byteSize();
             state.add(value);
@@ -115,7 +128,6 @@ class PercentileAggregation extends AggregationFunction<TDigestState, Object> {
                 ramAccounting.addBytes(sizeDelta);
             }
         }
-        return state;
     }
 
     private void initState(TDigestState state, Object argValue, RamAccounting ramAccounting) {
@@ -184,4 +196,25 @@ class PercentileAggregation extends AggregationFunction<TDigestState, Object> {
     public DataType<?> partialType() {
         return TDigestStateType.INSTANCE;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(LuceneReferenceResolver referenceResolver,
+                                                       List<Reference> aggregationReferences,
+                                                       DocTableInfo table,
+                                                       List<Literal<?>> optionalParams) {
+        if (optionalParams.size() != 1) {
+            return null;
+        }
+        Object fractionValue = optionalParams.get(0).value();
+        return ObjectDocValueAggregator.of(
+            aggregationReferences.get(0),
+            (ramAccounting, memoryManager, minNodeVersion) -> {
+                ramAccounting.addBytes(TDigestState.SHALLOW_SIZE);
+                return TDigestState.createEmptyState();
+            },
+            (ramAccounting, state, value) -> addValue(ramAccounting, state, value, fractionValue),
+            true
+        );
+    }
 }
@@ -25,7 +25,13 @@ import io.crate.Streamer;
 import io.crate.data.Input;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.impl.templates.ObjectDocValueAggregator;
+import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
+import io.crate.expression.symbol.Literal;
 import io.crate.memory.MemoryManager;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataType;
@@ -37,10 +43,12 @@ import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * string_agg :: text -> text -> text
@@ -90,6 +98,23 @@ public final class StringAgg extends AggregationFunction<StringAgg.StringAggStat
             out.writeStringCollection(values);
             out.writeOptionalString(firstDelimiter);
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StringAggState that = (StringAggState) o;
+            return values.equals(that.values) && Objects.equals(firstDelimiter, that.firstDelimiter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(values, firstDelimiter);
+        }
     }
 
     static class StringAggStateType extends DataType<StringAggState> implements Streamer<StringAggState> {
@@ -163,12 +188,18 @@ public final class StringAgg extends AggregationFunction<StringAgg.StringAggStat
                                   MemoryManager memoryManager,
                                   StringAggState state,
                                   Input<?>... args) throws CircuitBreakingException {
-        String expression = (String) args[0].value();
+        addValue(ramAccounting, state, (String) args[0].value(), (String) args[1].value());
+        return state;
+    }
+
+    private static void addValue(RamAccounting ramAccounting,
+                                 StringAggState state,
+                                 @Nullable String expression,
+                                 @Nullable String delimiter) {
         if (expression == null) {
-            return state;
+            return;
         }
         ramAccounting.addBytes(LIST_ENTRY_OVERHEAD + RamUsageEstimator.sizeOf(expression));
-        String delimiter = (String) args[1].value();
         if (delimiter != null) {
             if (state.firstDelimiter == null && state.values.isEmpty()) {
                 state.firstDelimiter = delimiter;
@@ -178,7 +209,28 @@ public final class StringAgg extends AggregationFunction<StringAgg.StringAggStat
             }
         }
         state.values.add(expression);
-        return state;
+    }
+
+    /**
+     * Only supported if the delimiter is a literal, otherwise it would have to be read
+     * from the doc values of a second column for every document.
+     */
+    @Nullable
+    @Override
+    public DocValueAggregator<?> getDocValueAggregator(LuceneReferenceResolver referenceResolver,
+                                                       List<Reference> aggregationReferences,
+                                                       DocTableInfo table,
+                                                       List<Literal<?>> optionalParams) {
+        if (optionalParams.size() != 1) {
+            return null;
+        }
+        String delimiter = DataTypes.STRING.sanitizeValue(optionalParams.get(0).value());
+        return ObjectDocValueAggregator.<StringAggState>of(
+            aggregationReferences.get(0),
+            (ramAccounting, memoryManager, minNodeVersion) -> new StringAggState(),
+            (ramAccounting, state, value) -> addValue(ramAccounting, state, (String) value, delimiter),
+            false
+        );
     }
 
     @Override
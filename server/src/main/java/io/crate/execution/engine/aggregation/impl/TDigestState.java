@@ -29,6 +29,8 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
 
 class TDigestState extends AVLTreeDigest {
 
@@ -65,6 +67,41 @@ class TDigestState extends AVLTreeDigest {
         this.fractions = fractions;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TDigestState that = (TDigestState) o;
+        if (compression != that.compression
+            || !Arrays.equals(fractions, that.fractions)
+            || centroidCount() != that.centroidCount()) {
+            return false;
+        }
+        Iterator<Centroid> it = that.centroids().iterator();
+        for (Centroid centroid : centroids()) {
+            Centroid other = it.next();
+            if (centroid.mean() != other.mean() || centroid.count() != other.count()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(compression);
+        result = 31 * result + Arrays.hashCode(fractions);
+        for (Centroid centroid : centroids()) {
+            result = 31 * result + Double.hashCode(centroid.mean());
+            result = 31 * result + centroid.count();
+        }
+        return result;
+    }
+
     public static void write(TDigestState state, StreamOutput out) throws IOException {
         out.writeDouble(state.compression);
         out.writeDoubleArray(state.fractions);
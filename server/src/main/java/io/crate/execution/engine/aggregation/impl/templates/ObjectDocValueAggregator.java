@@ -0,0 +1,171 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation.impl.templates;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.TriFunction;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.exceptions.ArrayViaDocValuesUnsupportedException;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.expression.reference.doc.lucene.DocValueDecoder;
+import io.crate.memory.MemoryManager;
+import io.crate.metadata.Reference;
+import io.crate.types.DataType;
+
+/**
+ * Template for aggregations which consume the values of a column as objects of its {@link DataType},
+ * e.g. to collect them. The values are decoded from the {@link SortedNumericDocValues}
+ * or {@link SortedSetDocValues} of the column.
+ * Documents with multiple values fail with an {@link ArrayViaDocValuesUnsupportedException}
+ * instead of being skipped, like the doc value based GROUP BY does.
+ */
+public abstract class ObjectDocValueAggregator<T> implements DocValueAggregator<T> {
+
+    @FunctionalInterface
+    public interface ValueConsumer<T> {
+
+        void accept(RamAccounting ramAccounting, T state, @Nullable Object value);
+    }
+
+    private final String columnName;
+    private final TriFunction<RamAccounting, MemoryManager, Version, T> stateInitializer;
+    private final ValueConsumer<T> valueConsumer;
+    private final boolean consumeNulls;
+
+    /**
+     * @param consumeNulls if true, documents without a value are passed to the consumer as null.
+     *                     Otherwise they're skipped.
+     * @return an aggregator or null if the type of the reference isn't supported.
+     */
+    @Nullable
+    public static <T> ObjectDocValueAggregator<T> of(Reference reference,
+                                                     TriFunction<RamAccounting, MemoryManager, Version, T> stateInitializer,
+                                                     ValueConsumer<T> valueConsumer,
+                                                     boolean consumeNulls) {
+        if (!reference.hasDocValues()) {
+            return null;
+        }
+        String columnName = reference.storageIdent();
+        DocValueDecoder decoder = DocValueDecoder.of(reference.valueType());
+        if (decoder instanceof DocValueDecoder.Numeric numeric) {
+            return new Numeric<>(columnName, stateInitializer, valueConsumer, consumeNulls, numeric);
+        } else if (decoder instanceof DocValueDecoder.Binary binary) {
+            return new Binary<>(columnName, stateInitializer, valueConsumer, consumeNulls, binary);
+        }
+        return null;
+    }
+
+    private ObjectDocValueAggregator(String columnName,
+                                     TriFunction<RamAccounting, MemoryManager, Version, T> stateInitializer,
+                                     ValueConsumer<T> valueConsumer,
+                                     boolean consumeNulls) {
+        this.columnName = columnName;
+        this.stateInitializer = stateInitializer;
+        this.valueConsumer = valueConsumer;
+        this.consumeNulls = consumeNulls;
+    }
+
+    @Override
+    public T initialState(RamAccounting ramAccounting, MemoryManager memoryManager, Version minNodeVersion) {
+        return stateInitializer.apply(ramAccounting, memoryManager, minNodeVersion);
+    }
+
+    @Nullable
+    @Override
+    public Object partialResult(RamAccounting ramAccounting, T state) {
+        return state;
+    }
+
+    private static class Numeric<T> extends ObjectDocValueAggregator<T> {
+
+        private final DocValueDecoder.Numeric decoder;
+        private SortedNumericDocValues values;
+
+        Numeric(String columnName,
+                TriFunction<RamAccounting, MemoryManager, Version, T> stateInitializer,
+                ValueConsumer<T> valueConsumer,
+                boolean consumeNulls,
+                DocValueDecoder.Numeric decoder) {
+            super(columnName, stateInitializer, valueConsumer, consumeNulls);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void loadDocValues(LeafReaderContext reader) throws IOException {
+            values = decoder.docValues(reader.reader(), super.columnName);
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, int doc, T state) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() == 1) {
+                    super.valueConsumer.accept(ramAccounting, state, decoder.decode(values.nextValue()));
+                } else {
+                    throw new ArrayViaDocValuesUnsupportedException(super.columnName);
+                }
+            } else if (super.consumeNulls) {
+                super.valueConsumer.accept(ramAccounting, state, null);
+            }
+        }
+    }
+
+    private static class Binary<T> extends ObjectDocValueAggregator<T> {
+
+        private final DocValueDecoder.Binary decoder;
+        private SortedSetDocValues values;
+
+        Binary(String columnName,
+               TriFunction<RamAccounting, MemoryManager, Version, T> stateInitializer,
+               ValueConsumer<T> valueConsumer,
+               boolean consumeNulls,
+               DocValueDecoder.Binary decoder) {
+            super(columnName, stateInitializer, valueConsumer, consumeNulls);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void loadDocValues(LeafReaderContext reader) throws IOException {
+            values = decoder.docValues(reader.reader(), super.columnName);
+        }
+
+        @Override
+        public void apply(RamAccounting ramAccounting, int doc, T state) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() == 1) {
+                    Object value = decoder.decode(values.lookupOrd(values.nextOrd()));
+                    super.valueConsumer.accept(ramAccounting, state, value);
+                } else {
+                    throw new ArrayViaDocValuesUnsupportedException(super.columnName);
+                }
+            } else if (super.consumeNulls) {
+                super.valueConsumer.accept(ramAccounting, state, null);
+            }
+        }
+    }
+}
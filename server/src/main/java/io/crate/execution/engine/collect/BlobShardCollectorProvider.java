@@ -47,6 +47,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import org.jetbrains.annotations.Nullable;
 import java.io.File;
+import java.util.List;
 import java.util.Map;
 
 public class BlobShardCollectorProvider extends ShardCollectorProvider {
@@ -75,7 +76,8 @@ public class BlobShardCollectorProvider extends ShardCollectorProvider {
             elasticsearchClient,
             blobShard.indexShard(),
             new ShardRowContext(blobShard, clusterService),
-            fileOutputFactoryMap
+            fileOutputFactoryMap,
+            null
         );
         inputFactory = new InputFactory(nodeCtx);
         this.blobShard = blobShard;
@@ -83,7 +85,9 @@ public class BlobShardCollectorProvider extends ShardCollectorProvider {
 
     @Nullable
     @Override
-    protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
+    protected List<BatchIterator<Row>> getProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                   CollectTask collectTask,
+                                                                   int maxSlices) {
         return null;
     }
 
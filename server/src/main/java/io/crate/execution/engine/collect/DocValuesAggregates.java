@@ -42,6 +42,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.jetbrains.annotations.Nullable;
 
+import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.exceptions.Exceptions;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
@@ -54,6 +55,7 @@ import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.aggregation.AggregationFunction;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.scalar.cast.ExplicitCastFunction;
@@ -83,6 +85,37 @@ public final class DocValuesAggregates {
                                                  LuceneQueryBuilder luceneQueryBuilder,
                                                  RoutedCollectPhase phase,
                                                  CollectTask collectTask) {
+        List<BatchIterator<Row>> iterators = tryOptimize(
+            functions,
+            referenceResolver,
+            indexShard,
+            table,
+            luceneQueryBuilder,
+            phase,
+            collectTask,
+            1
+        );
+        if (iterators == null) {
+            return null;
+        }
+        assert iterators.size() == 1 : "Must return a single iterator if maxSlices is 1";
+        return iterators.get(0);
+    }
+
+    /**
+     * Like {@link #tryOptimize(Functions, LuceneReferenceResolver, IndexShard, DocTableInfo, LuceneQueryBuilder, RoutedCollectPhase, CollectTask)}
+     * but splits the shard into up to {@code maxSlices} {@link LeafDocRange} slices.
+     * Each iterator emits the partial aggregation states of its slice.
+     */
+    @Nullable
+    public static List<BatchIterator<Row>> tryOptimize(Functions functions,
+                                                       LuceneReferenceResolver referenceResolver,
+                                                       IndexShard indexShard,
+                                                       DocTableInfo table,
+                                                       LuceneQueryBuilder luceneQueryBuilder,
+                                                       RoutedCollectPhase phase,
+                                                       CollectTask collectTask,
+                                                       int maxSlices) {
         var shardProjections = Projections.shardProjections(phase.projections());
         AggregationProjection aggregateProjection = aggregateProjection(shardProjections);
         if (aggregateProjection == null) {
@@ -103,16 +136,50 @@ public final class DocValuesAggregates {
         var searcher = shardContext.acquireSearcher("doc-value-aggregates: " + LuceneShardCollectorProvider.formatSource(phase));
         collectTask.addSearcher(shardContext.readerId(), searcher);
         QueryShardContext queryShardContext = shardContext.indexService().newQueryShardContext();
-        LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
-            phase.where(),
-            collectTask.txnCtx(),
-            indexShard.mapperService(),
-            indexShard.shardId().getIndexName(),
-            queryShardContext,
-            table,
-            shardContext.indexService().cache()
-        );
+        var slices = LeafDocRange.slices(searcher.item().getTopReaderContext().leaves(), maxSlices);
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+        for (List<LeafDocRange> slice : slices) {
+            // Aggregators and queries hold per-reader state, each slice needs its own instances
+            var sliceAggregators = iterators.isEmpty()
+                ? aggregators
+                : createAggregators(
+                    functions,
+                    referenceResolver,
+                    aggregateProjection.aggregations(),
+                    phase.toCollect(),
+                    table
+                );
+            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                phase.where(),
+                collectTask.txnCtx(),
+                indexShard.mapperService(),
+                indexShard.shardId().getIndexName(),
+                queryShardContext,
+                table,
+                shardContext.indexService().cache()
+            );
+            iterators.add(getIterator(
+                collectTask.getRamAccounting(),
+                collectTask.memoryManager(),
+                collectTask.minNodeVersion(),
+                searcher.item(),
+                slice,
+                queryContext.query(),
+                sliceAggregators
+            ));
+        }
+        return iterators;
+    }
 
+    @SuppressWarnings("rawtypes")
+    @VisibleForTesting
+    static BatchIterator<Row> getIterator(RamAccounting ramAccounting,
+                                          MemoryManager memoryManager,
+                                          Version minNodeVersion,
+                                          IndexSearcher searcher,
+                                          List<LeafDocRange> ranges,
+                                          Query query,
+                                          List<DocValueAggregator> aggregators) {
         AtomicReference<Throwable> killed = new AtomicReference<>();
         return CollectingBatchIterator.newInstance(
             () -> killed.set(BatchIterator.CLOSED),
@@ -120,12 +187,13 @@ public final class DocValuesAggregates {
             () -> {
                 try {
                     return CompletableFuture.completedFuture(getRow(
-                        collectTask.getRamAccounting(),
-                        collectTask.memoryManager(),
-                        collectTask.minNodeVersion(),
+                        ramAccounting,
+                        memoryManager,
+                        minNodeVersion,
                         killed,
-                        searcher.item(),
-                        queryContext.query(),
+                        searcher,
+                        ranges,
+                        query,
                         aggregators
                     ));
                 } catch (Throwable t) {
@@ -230,15 +298,16 @@ public final class DocValuesAggregates {
                                         Version minNodeVersion,
                                         AtomicReference<Throwable> killed,
                                         IndexSearcher searcher,
+                                        List<LeafDocRange> ranges,
                                         Query query,
                                         List<DocValueAggregator> aggregators) throws IOException {
         Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
-        List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
         Object[] cells = new Object[aggregators.size()];
         for (int i = 0; i < aggregators.size(); i++) {
             cells[i] = aggregators.get(i).initialState(ramAccounting, memoryManager, minNodeVersion);
         }
-        for (var leaf : leaves) {
+        for (LeafDocRange range : ranges) {
+            LeafReaderContext leaf = range.leaf();
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
@@ -248,7 +317,7 @@ public final class DocValuesAggregates {
             }
             DocIdSetIterator docs = scorer.iterator();
             Bits liveDocs = leaf.reader().getLiveDocs();
-            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+            for (int doc = range.firstDoc(docs); doc < range.maxDoc(); doc = docs.nextDoc()) {
                 if (liveDocs != null && !liveDocs.get(doc)) {
                     continue;
                 }
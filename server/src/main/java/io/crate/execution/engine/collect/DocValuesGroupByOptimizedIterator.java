@@ -26,6 +26,7 @@ import static io.crate.execution.engine.collect.LuceneShardCollectorProvider.for
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -43,12 +44,15 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.Version;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.jetbrains.annotations.Nullable;
 
+import com.carrotsearch.hppc.LongObjectHashMap;
+
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
 import io.crate.common.exceptions.Exceptions;
@@ -62,6 +66,7 @@ import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.aggregation.DocValueAggregator;
 import io.crate.execution.engine.aggregation.GroupByMaps;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.engine.fetch.ReaderContext;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
@@ -84,16 +89,21 @@ import io.crate.types.DataType;
 
 final class DocValuesGroupByOptimizedIterator {
 
+    /**
+     * @param maxSlices upper bound for the number of returned iterators, see {@link LeafDocRange#slices(List, int)}.
+     *                  Each iterator emits the partial group states of its slice.
+     */
     @Nullable
-    static BatchIterator<Row> tryOptimize(Functions functions,
-                                          LuceneReferenceResolver referenceResolver,
-                                          IndexShard indexShard,
-                                          DocTableInfo table,
-                                          LuceneQueryBuilder luceneQueryBuilder,
-                                          FieldTypeLookup fieldTypeLookup,
-                                          DocInputFactory docInputFactory,
-                                          RoutedCollectPhase collectPhase,
-                                          CollectTask collectTask) {
+    static List<BatchIterator<Row>> tryOptimize(Functions functions,
+                                                LuceneReferenceResolver referenceResolver,
+                                                IndexShard indexShard,
+                                                DocTableInfo table,
+                                                LuceneQueryBuilder luceneQueryBuilder,
+                                                FieldTypeLookup fieldTypeLookup,
+                                                DocInputFactory docInputFactory,
+                                                RoutedCollectPhase collectPhase,
+                                                CollectTask collectTask,
+                                                int maxSlices) {
         if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE)
             || Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
             return null;
@@ -137,6 +147,50 @@ final class DocValuesGroupByOptimizedIterator {
         collectTask.addSearcher(sharedShardContext.readerId(), searcher);
         QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
 
+        var slices = LeafDocRange.slices(searcher.item().getTopReaderContext().leaves(), maxSlices);
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+        for (List<LeafDocRange> slice : slices) {
+            // Aggregators, key expressions and queries hold per-reader state, each slice needs its own instances
+            List<DocValueAggregator> sliceAggregators = iterators.isEmpty()
+                ? aggregators
+                : DocValuesAggregates.createAggregators(
+                    functions,
+                    referenceResolver,
+                    groupProjection.values(),
+                    collectPhase.toCollect(),
+                    table
+                );
+            iterators.add(getIterator(
+                sliceAggregators,
+                indexShard,
+                table,
+                luceneQueryBuilder,
+                docInputFactory,
+                collectPhase,
+                collectTask,
+                sharedShardContext,
+                queryShardContext,
+                searcher.item(),
+                slice,
+                columnKeyRefs
+            ));
+        }
+        return iterators;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static BatchIterator<Row> getIterator(List<DocValueAggregator> aggregators,
+                                                  IndexShard indexShard,
+                                                  DocTableInfo table,
+                                                  LuceneQueryBuilder luceneQueryBuilder,
+                                                  DocInputFactory docInputFactory,
+                                                  RoutedCollectPhase collectPhase,
+                                                  CollectTask collectTask,
+                                                  SharedShardContext sharedShardContext,
+                                                  QueryShardContext queryShardContext,
+                                                  IndexSearcher indexSearcher,
+                                                  List<LeafDocRange> ranges,
+                                                  List<Reference> columnKeyRefs) {
         InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx
             = docInputFactory.getCtx(collectTask.txnCtx());
         List<LuceneCollectorExpression<?>> keyExpressions = new ArrayList<>();
@@ -156,7 +210,8 @@ final class DocValuesGroupByOptimizedIterator {
         if (columnKeyRefs.size() == 1) {
             return GroupByIterator.forSingleKey(
                 aggregators,
-                searcher.item(),
+                indexSearcher,
+                ranges,
                 columnKeyRefs.get(0),
                 keyExpressions,
                 collectTask.getRamAccounting(),
@@ -165,10 +220,25 @@ final class DocValuesGroupByOptimizedIterator {
                 queryContext.query(),
                 new CollectorContext(sharedShardContext.readerId(), table.droppedColumns(), table.lookupNameBySourceKey())
             );
+        }
+        List<GroupKeyDocValues> keyDocValues = getKeyDocValues(columnKeyRefs);
+        if (keyDocValues != null) {
+            return GroupByIterator.forManyKeysUsingCodes(
+                aggregators,
+                indexSearcher,
+                ranges,
+                columnKeyRefs,
+                keyDocValues,
+                collectTask.getRamAccounting(),
+                collectTask.memoryManager(),
+                collectTask.minNodeVersion(),
+                queryContext.query()
+            );
         } else {
             return GroupByIterator.forManyKeys(
                 aggregators,
-                searcher.item(),
+                indexSearcher,
+                ranges,
                 columnKeyRefs,
                 keyExpressions,
                 collectTask.getRamAccounting(),
@@ -182,12 +252,49 @@ final class DocValuesGroupByOptimizedIterator {
 
     static final class GroupByIterator {
 
+        private static final long PACKED_CODES_ENTRY_BYTES = 2L * (Long.BYTES + RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        private static final long CODES_ENTRY_SHALLOW_BYTES = 32L + RamUsageEstimator.shallowSizeOfInstance(Codes.class);
+
         private GroupByIterator() {}
 
+        /**
+         * The codes of the group keys of a document; the instance used for lookups is re-used for every document.
+         */
+        private static final class Codes {
+
+            private final long[] codes;
+            private int hash;
+
+            Codes(long[] codes) {
+                this.codes = codes;
+            }
+
+            void updateHash() {
+                hash = Arrays.hashCode(codes);
+            }
+
+            Codes copy() {
+                Codes copy = new Codes(codes.clone());
+                copy.hash = hash;
+                return copy;
+            }
+
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return o instanceof Codes other && Arrays.equals(codes, other.codes);
+            }
+        }
+
         @SuppressWarnings("rawtypes")
         @VisibleForTesting
         static BatchIterator<Row> forSingleKey(List<DocValueAggregator> aggregators,
                                                IndexSearcher indexSearcher,
+                                               List<LeafDocRange> ranges,
                                                Reference keyReference,
                                                List<? extends LuceneCollectorExpression<?>> keyExpressions,
                                                RamAccounting ramAccounting,
@@ -200,6 +307,7 @@ final class DocValuesGroupByOptimizedIterator {
             return GroupByIterator.getIterator(
                 aggregators,
                 indexSearcher,
+                ranges,
                 keyExpressions,
                 ramAccounting,
                 memoryManager,
@@ -216,6 +324,7 @@ final class DocValuesGroupByOptimizedIterator {
         @VisibleForTesting
         static BatchIterator<Row> forManyKeys(List<DocValueAggregator> aggregators,
                                               IndexSearcher indexSearcher,
+                                              List<LeafDocRange> ranges,
                                               List<Reference> keyColumnRefs,
                                               List<? extends LuceneCollectorExpression<?>> keyExpressions,
                                               RamAccounting ramAccounting,
@@ -226,6 +335,7 @@ final class DocValuesGroupByOptimizedIterator {
             return GroupByIterator.getIterator(
                 aggregators,
                 indexSearcher,
+                ranges,
                 keyExpressions,
                 ramAccounting,
                 memoryManager,
@@ -255,6 +365,7 @@ final class DocValuesGroupByOptimizedIterator {
         @VisibleForTesting
         static <K> BatchIterator<Row> getIterator(List<DocValueAggregator> aggregators,
                                                   IndexSearcher indexSearcher,
+                                                  List<LeafDocRange> ranges,
                                                   List<? extends LuceneCollectorExpression<?>> keyExpressions,
                                                   RamAccounting ramAccounting,
                                                   MemoryManager memoryManager,
@@ -268,6 +379,84 @@ final class DocValuesGroupByOptimizedIterator {
                 keyExpressions.get(i).startCollect(collectorContext);
             }
 
+            return collectGroups(
+                killed -> applyAggregatesGroupedByKey(
+                    aggregators,
+                    indexSearcher,
+                    ranges,
+                    keyExpressions,
+                    accountForNewKeyEntry,
+                    keyExtractor,
+                    ramAccounting,
+                    memoryManager,
+                    minNodeVersion,
+                    query,
+                    killed
+                ),
+                keyExpressions.size(),
+                applyKeyToCells,
+                aggregators,
+                ramAccounting
+            );
+        }
+
+        /**
+         * Like {@link #forManyKeys} but instead of materializing the key values of every document
+         * the keys are read as primitive codes (ordinals for text columns) via {@link GroupKeyDocValues}.
+         * Within a segment, documents are grouped by these codes; the codes are converted to the
+         * actual key values only once for every group of the segment.
+         */
+        @SuppressWarnings("rawtypes")
+        @VisibleForTesting
+        static BatchIterator<Row> forManyKeysUsingCodes(List<DocValueAggregator> aggregators,
+                                                        IndexSearcher indexSearcher,
+                                                        List<LeafDocRange> ranges,
+                                                        List<Reference> keyColumnRefs,
+                                                        List<GroupKeyDocValues> keyDocValues,
+                                                        RamAccounting ramAccounting,
+                                                        MemoryManager memoryManager,
+                                                        Version minNodeVersion,
+                                                        Query query) {
+            BiConsumer<Map<List<Object>, Object[]>, List<Object>> accountForNewKeyEntry = GroupByMaps.accountForNewEntry(
+                ramAccounting,
+                Lists2.map(keyColumnRefs, Reference::valueType)
+            );
+            return collectGroups(
+                killed -> applyAggregatesGroupedByCodes(
+                    aggregators,
+                    indexSearcher,
+                    ranges,
+                    keyDocValues,
+                    accountForNewKeyEntry,
+                    ramAccounting,
+                    memoryManager,
+                    minNodeVersion,
+                    query,
+                    killed
+                ),
+                keyDocValues.size(),
+                (List<Object> keys, Object[] cells) -> {
+                    for (int i = 0; i < keys.size(); i++) {
+                        cells[i] = keys.get(i);
+                    }
+                },
+                aggregators,
+                ramAccounting
+            );
+        }
+
+        @FunctionalInterface
+        private interface Grouping<K> {
+
+            Map<K, Object[]> apply(AtomicReference<Throwable> killed) throws IOException;
+        }
+
+        @SuppressWarnings("rawtypes")
+        private static <K> BatchIterator<Row> collectGroups(Grouping<K> grouping,
+                                                            int numberOfKeys,
+                                                            BiConsumer<K, Object[]> applyKeyToCells,
+                                                            List<DocValueAggregator> aggregators,
+                                                            RamAccounting ramAccounting) {
             AtomicReference<Throwable> killed = new AtomicReference<>();
             return CollectingBatchIterator.newInstance(
                 () -> killed.set(BatchIterator.CLOSED),
@@ -276,19 +465,8 @@ final class DocValuesGroupByOptimizedIterator {
                     try {
                         return CompletableFuture.completedFuture(
                             getRows(
-                                applyAggregatesGroupedByKey(
-                                    aggregators,
-                                    indexSearcher,
-                                    keyExpressions,
-                                    accountForNewKeyEntry,
-                                    keyExtractor,
-                                    ramAccounting,
-                                    memoryManager,
-                                    minNodeVersion,
-                                    query,
-                                    killed
-                                ),
-                                keyExpressions.size(),
+                                grouping.apply(killed),
+                                numberOfKeys,
                                 applyKeyToCells,
                                 aggregators,
                                 ramAccounting
@@ -332,6 +510,7 @@ final class DocValuesGroupByOptimizedIterator {
         private static <K> Map<K, Object[]> applyAggregatesGroupedByKey(
             List<DocValueAggregator> aggregators,
             IndexSearcher indexSearcher,
+            List<LeafDocRange> ranges,
             List<? extends LuceneCollectorExpression<?>> keyExpressions,
             BiConsumer<Map<K, Object[]>, K> accountForNewKeyEntry,
             Function<List<? extends LuceneCollectorExpression<?>>, K> keyExtractor,
@@ -348,9 +527,9 @@ final class DocValuesGroupByOptimizedIterator {
                 ScoreMode.COMPLETE_NO_SCORES,
                 1f
             );
-            List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
-            for (var leaf : leaves) {
+            for (LeafDocRange range : ranges) {
                 raiseIfClosedOrKilled(killed);
+                LeafReaderContext leaf = range.leaf();
                 Scorer scorer = weight.scorer(leaf);
                 if (scorer == null) {
                     continue;
@@ -364,7 +543,7 @@ final class DocValuesGroupByOptimizedIterator {
 
                 DocIdSetIterator docs = scorer.iterator();
                 Bits liveDocs = leaf.reader().getLiveDocs();
-                for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                for (int doc = range.firstDoc(docs); doc < range.maxDoc(); doc = docs.nextDoc()) {
                     raiseIfClosedOrKilled(killed);
                     if (docDeleted(liveDocs, doc)) {
                         continue;
@@ -397,6 +576,141 @@ final class DocValuesGroupByOptimizedIterator {
             return statesByKey;
         }
 
+        @SuppressWarnings("rawtypes")
+        private static Map<List<Object>, Object[]> applyAggregatesGroupedByCodes(
+            List<DocValueAggregator> aggregators,
+            IndexSearcher indexSearcher,
+            List<LeafDocRange> ranges,
+            List<GroupKeyDocValues> keyDocValues,
+            BiConsumer<Map<List<Object>, Object[]>, List<Object>> accountForNewKeyEntry,
+            RamAccounting ramAccounting,
+            MemoryManager memoryManager,
+            Version minNodeVersion,
+            Query query,
+            AtomicReference<Throwable> killed
+        ) throws IOException {
+
+            HashMap<List<Object>, Object[]> statesByKey = new HashMap<>();
+            Weight weight = indexSearcher.createWeight(
+                indexSearcher.rewrite(query),
+                ScoreMode.COMPLETE_NO_SCORES,
+                1f
+            );
+            int numKeys = keyDocValues.size();
+            // codes of all keys followed by a bitmask of the keys which are null but have no null code
+            long[] codes = new long[numKeys + 1];
+            int[] bitsRequired = new int[numKeys];
+            for (LeafDocRange range : ranges) {
+                raiseIfClosedOrKilled(killed);
+                LeafReaderContext leaf = range.leaf();
+                Scorer scorer = weight.scorer(leaf);
+                if (scorer == null) {
+                    continue;
+                }
+                int totalBits = 0;
+                for (int i = 0; i < numKeys; i++) {
+                    GroupKeyDocValues keyValues = keyDocValues.get(i);
+                    keyValues.loadDocValues(leaf);
+                    int bits = keyValues.bitsRequired();
+                    bitsRequired[i] = bits;
+                    totalBits = bits < 0 || totalBits < 0 ? -1 : totalBits + bits;
+                }
+                for (int i = 0; i < aggregators.size(); i++) {
+                    aggregators.get(i).loadDocValues(leaf);
+                }
+                // All codes fit into a single long, e.g. for 2-3 text columns with a moderate number of distinct values
+                boolean packCodes = totalBits >= 0 && totalBits < Long.SIZE;
+                LongObjectHashMap<Object[]> statesByPackedCodes = packCodes ? new LongObjectHashMap<>() : null;
+                HashMap<Codes, Object[]> statesByCodes = packCodes ? null : new HashMap<>();
+                Codes probe = new Codes(codes);
+                codes[numKeys] = 0;
+                long segmentBytes = 0;
+
+                DocIdSetIterator docs = scorer.iterator();
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int doc = range.firstDoc(docs); doc < range.maxDoc(); doc = docs.nextDoc()) {
+                    raiseIfClosedOrKilled(killed);
+                    if (docDeleted(liveDocs, doc)) {
+                        continue;
+                    }
+                    Object[] states;
+                    if (packCodes) {
+                        long packed = 0;
+                        for (int i = 0; i < numKeys; i++) {
+                            long code = keyDocValues.get(i).read(doc);
+                            codes[i] = code;
+                            packed = (packed << bitsRequired[i]) | code;
+                        }
+                        states = statesByPackedCodes.get(packed);
+                        if (states == null) {
+                            states = getOrCreateStates(
+                                statesByKey, keyDocValues, codes, accountForNewKeyEntry,
+                                aggregators, ramAccounting, memoryManager, minNodeVersion);
+                            statesByPackedCodes.put(packed, states);
+                            segmentBytes += PACKED_CODES_ENTRY_BYTES;
+                            ramAccounting.addBytes(PACKED_CODES_ENTRY_BYTES);
+                        }
+                    } else {
+                        long nulls = 0;
+                        for (int i = 0; i < numKeys; i++) {
+                            GroupKeyDocValues keyValues = keyDocValues.get(i);
+                            codes[i] = keyValues.read(doc);
+                            if (keyValues.missing()) {
+                                nulls |= 1L << i;
+                            }
+                        }
+                        codes[numKeys] = nulls;
+                        probe.updateHash();
+                        states = statesByCodes.get(probe);
+                        if (states == null) {
+                            states = getOrCreateStates(
+                                statesByKey, keyDocValues, codes, accountForNewKeyEntry,
+                                aggregators, ramAccounting, memoryManager, minNodeVersion);
+                            statesByCodes.put(probe.copy(), states);
+                            long entryBytes = CODES_ENTRY_SHALLOW_BYTES + RamUsageEstimator.sizeOf(codes);
+                            segmentBytes += entryBytes;
+                            ramAccounting.addBytes(entryBytes);
+                        }
+                    }
+                    for (int i = 0; i < aggregators.size(); i++) {
+                        //noinspection unchecked
+                        aggregators.get(i).apply(ramAccounting, doc, states[i]);
+                    }
+                }
+                // The segment local mappings are discarded, only the states by key remain
+                ramAccounting.addBytes(-segmentBytes);
+            }
+            return statesByKey;
+        }
+
+        @SuppressWarnings("rawtypes")
+        private static Object[] getOrCreateStates(Map<List<Object>, Object[]> statesByKey,
+                                                  List<GroupKeyDocValues> keyDocValues,
+                                                  long[] codes,
+                                                  BiConsumer<Map<List<Object>, Object[]>, List<Object>> accountForNewKeyEntry,
+                                                  List<DocValueAggregator> aggregators,
+                                                  RamAccounting ramAccounting,
+                                                  MemoryManager memoryManager,
+                                                  Version minNodeVersion) throws IOException {
+            int numKeys = keyDocValues.size();
+            long nulls = codes[numKeys];
+            ArrayList<Object> key = new ArrayList<>(numKeys);
+            for (int i = 0; i < numKeys; i++) {
+                GroupKeyDocValues keyValues = keyDocValues.get(i);
+                key.add(keyValues.value(codes[i], (nulls & (1L << i)) != 0));
+            }
+            Object[] states = statesByKey.get(key);
+            if (states == null) {
+                states = new Object[aggregators.size()];
+                for (int i = 0; i < aggregators.size(); i++) {
+                    states[i] = aggregators.get(i).initialState(ramAccounting, memoryManager, minNodeVersion);
+                }
+                accountForNewKeyEntry.accept(statesByKey, key);
+                statesByKey.put(key, states);
+            }
+            return states;
+        }
+
         private static boolean docDeleted(@Nullable Bits liveDocs, int doc) {
             return liveDocs != null && !liveDocs.get(doc);
         }
@@ -409,6 +723,22 @@ final class DocValuesGroupByOptimizedIterator {
         }
     }
 
+    @Nullable
+    private static List<GroupKeyDocValues> getKeyDocValues(List<Reference> keyRefs) {
+        if (keyRefs.size() >= Long.SIZE) {
+            return null; // nulls of the keys are tracked in a bitmask
+        }
+        List<GroupKeyDocValues> keyDocValues = new ArrayList<>(keyRefs.size());
+        for (var keyRef : keyRefs) {
+            GroupKeyDocValues keyValues = GroupKeyDocValues.of(keyRef);
+            if (keyValues == null) {
+                return null;
+            }
+            keyDocValues.add(keyValues);
+        }
+        return keyDocValues;
+    }
+
     @Nullable
     private static Reference getKeyRef(List<Symbol> toCollect, Symbol key) {
         if (key instanceof InputColumn inputCol) {
@@ -25,6 +25,7 @@ import static io.crate.execution.dsl.projection.Projections.shardProjections;
 import static io.crate.execution.engine.collect.LuceneShardCollectorProvider.formatSource;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -70,6 +71,7 @@ import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.engine.fetch.ReaderContext;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputCondition;
@@ -111,8 +113,12 @@ final class GroupByOptimizedIterator {
     private static final double CARDINALITY_RATIO_THRESHOLD = 0.5;
     private static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
 
+    /**
+     * @param maxSlices upper bound for the number of returned iterators, see {@link LeafDocRange#slices(List, int)}.
+     *                  Each iterator emits the grouped states of its slice.
+     */
     @Nullable
-    static BatchIterator<Row> tryOptimizeSingleStringKey(IndexShard indexShard,
+    static List<BatchIterator<Row>> tryOptimizeSingleStringKey(IndexShard indexShard,
                                                          DocTableInfo table,
                                                          LuceneQueryBuilder luceneQueryBuilder,
                                                          FieldTypeLookup fieldTypeLookup,
@@ -120,7 +126,8 @@ final class GroupByOptimizedIterator {
                                                          InputFactory inputFactory,
                                                          DocInputFactory docInputFactory,
                                                          RoutedCollectPhase collectPhase,
-                                                         CollectTask collectTask) {
+                                                         CollectTask collectTask,
+                                                         int maxSlices) {
         Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
         GroupProjection groupProjection = getSingleStringKeyGroupProjection(shardProjections);
         if (groupProjection == null) {
@@ -152,50 +159,56 @@ final class GroupByOptimizedIterator {
         collectTask.addSearcher(sharedShardContext.readerId(), searcher);
 
         final QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
-
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx = docInputFactory.getCtx(collectTask.txnCtx());
-        docCtx.add(collectPhase.toCollect().stream()::iterator);
-
-        InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations = inputFactory.ctxForAggregations(collectTask.txnCtx());
-        ctxForAggregations.add(groupProjection.values());
-        final List<CollectExpression<Row, ?>> aggExpressions = ctxForAggregations.expressions();
-
-        List<AggregationContext> aggregations = ctxForAggregations.aggregations();
-        List<? extends LuceneCollectorExpression<?>> expressions = docCtx.expressions();
-
         RamAccounting ramAccounting = collectTask.getRamAccounting();
-
-        CollectorContext collectorContext = new CollectorContext(sharedShardContext.readerId(), table.droppedColumns(), table.lookupNameBySourceKey());
-        InputRow inputRow = new InputRow(docCtx.topLevelInputs());
-
-        LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
-            collectPhase.where(),
-            collectTask.txnCtx(),
-            indexShard.mapperService(),
-            indexShard.shardId().getIndexName(),
-            queryShardContext,
-            table,
-            sharedShardContext.indexService().cache()
-        );
-
-        return getIterator(
-            bigArrays,
-            searcher.item(),
-            keyRef.column().fqn(),
-            aggregations,
-            expressions,
-            aggExpressions,
-            ramAccounting,
-            collectTask.memoryManager(),
-            collectTask.minNodeVersion(),
-            inputRow,
-            queryContext.query(),
-            collectorContext,
-            groupProjection.mode());
+        var slices = LeafDocRange.slices(searcher.item().getTopReaderContext().leaves(), maxSlices);
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+        for (List<LeafDocRange> slice : slices) {
+            // Expressions, aggregation states and queries are stateful, each slice needs its own instances
+            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx = docInputFactory.getCtx(collectTask.txnCtx());
+            docCtx.add(collectPhase.toCollect().stream()::iterator);
+
+            InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations = inputFactory.ctxForAggregations(collectTask.txnCtx());
+            ctxForAggregations.add(groupProjection.values());
+            final List<CollectExpression<Row, ?>> aggExpressions = ctxForAggregations.expressions();
+
+            List<AggregationContext> aggregations = ctxForAggregations.aggregations();
+            List<? extends LuceneCollectorExpression<?>> expressions = docCtx.expressions();
+
+            CollectorContext collectorContext = new CollectorContext(sharedShardContext.readerId(), table.droppedColumns(), table.lookupNameBySourceKey());
+            InputRow inputRow = new InputRow(docCtx.topLevelInputs());
+
+            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                collectPhase.where(),
+                collectTask.txnCtx(),
+                indexShard.mapperService(),
+                indexShard.shardId().getIndexName(),
+                queryShardContext,
+                table,
+                sharedShardContext.indexService().cache()
+            );
+
+            iterators.add(getIterator(
+                bigArrays,
+                searcher.item(),
+                slice,
+                keyRef.column().fqn(),
+                aggregations,
+                expressions,
+                aggExpressions,
+                ramAccounting,
+                collectTask.memoryManager(),
+                collectTask.minNodeVersion(),
+                inputRow,
+                queryContext.query(),
+                collectorContext,
+                groupProjection.mode()));
+        }
+        return iterators;
     }
 
     static BatchIterator<Row> getIterator(BigArrays bigArrays,
                                           IndexSearcher indexSearcher,
+                                          List<LeafDocRange> ranges,
                                           String keyColumnName,
                                           List<AggregationContext> aggregations,
                                           List<? extends LuceneCollectorExpression<?>> expressions,
@@ -222,6 +235,7 @@ final class GroupByOptimizedIterator {
                             applyAggregatesGroupedByKey(
                                 bigArrays,
                                 indexSearcher,
+                                ranges,
                                 keyColumnName,
                                 aggregations,
                                 expressions,
@@ -273,6 +287,7 @@ final class GroupByOptimizedIterator {
 
     private static Map<BytesRef, Object[]> applyAggregatesGroupedByKey(BigArrays bigArrays,
                                                                        IndexSearcher indexSearcher,
+                                                                       List<LeafDocRange> ranges,
                                                                        String keyColumnName,
                                                                        List<AggregationContext> aggregations,
                                                                        List<? extends LuceneCollectorExpression<?>> expressions,
@@ -285,11 +300,11 @@ final class GroupByOptimizedIterator {
                                                                        AtomicReference<Throwable> killed) throws IOException {
         final HashMap<BytesRef, Object[]> statesByKey = new HashMap<>();
         final Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
-        final List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
         Object[] nullStates = null;
 
-        for (LeafReaderContext leaf: leaves) {
+        for (LeafDocRange range : ranges) {
             raiseIfClosedOrKilled(killed);
+            LeafReaderContext leaf = range.leaf();
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
@@ -302,7 +317,7 @@ final class GroupByOptimizedIterator {
             try (ObjectArray<Object[]> statesByOrd = bigArrays.newObjectArray(values.getValueCount())) {
                 DocIdSetIterator docs = scorer.iterator();
                 Bits liveDocs = leaf.reader().getLiveDocs();
-                for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                for (int doc = range.firstDoc(docs); doc < range.maxDoc(); doc = docs.nextDoc()) {
                     raiseIfClosedOrKilled(killed);
                     if (docDeleted(liveDocs, doc)) {
                         continue;
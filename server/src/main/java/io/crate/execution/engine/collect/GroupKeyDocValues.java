@@ -0,0 +1,179 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.exceptions.ArrayViaDocValuesUnsupportedException;
+import io.crate.expression.reference.doc.lucene.DocValueDecoder;
+import io.crate.metadata.Reference;
+
+/**
+ * Reads the values of a GROUP BY key column from the doc values of a segment as primitive codes.
+ *
+ * <p>
+ * For columns using {@link SortedSetDocValues} the code is the segment local ordinal + 1, and 0 for null.
+ * For columns using {@link SortedNumericDocValues} the code is the raw doc value and nulls are signaled
+ * using {@link #missing()}.
+ * Codes are only converted to the actual value via {@link #value(long, boolean)} once per group and segment.
+ * </p>
+ */
+abstract class GroupKeyDocValues {
+
+    protected final String columnName;
+
+    /**
+     * @return the key column reader or null if the type of the column isn't supported.
+     */
+    @Nullable
+    static GroupKeyDocValues of(Reference reference) {
+        String columnName = reference.storageIdent();
+        DocValueDecoder decoder = DocValueDecoder.of(reference.valueType());
+        if (decoder instanceof DocValueDecoder.Binary binary) {
+            return new Ordinals(columnName, binary);
+        } else if (decoder instanceof DocValueDecoder.Numeric numeric) {
+            return new Numbers(columnName, numeric);
+        }
+        return null;
+    }
+
+    private GroupKeyDocValues(String columnName) {
+        this.columnName = columnName;
+    }
+
+    abstract void loadDocValues(LeafReaderContext leaf) throws IOException;
+
+    /**
+     * @return the code of the value of the given document.
+     */
+    abstract long read(int doc) throws IOException;
+
+    /**
+     * @return true if the document of the last {@link #read(int)} call has no value and
+     *         null can't be expressed by the code itself.
+     */
+    abstract boolean missing();
+
+    /**
+     * @return the number of bits required to encode all codes of the current segment
+     *         or -1 if the codes can't be packed.
+     */
+    abstract int bitsRequired();
+
+    @Nullable
+    abstract Object value(long code, boolean missing) throws IOException;
+
+    private static final class Ordinals extends GroupKeyDocValues {
+
+        private final DocValueDecoder.Binary decoder;
+        private SortedSetDocValues values;
+
+        private Ordinals(String columnName, DocValueDecoder.Binary decoder) {
+            super(columnName);
+            this.decoder = decoder;
+        }
+
+        @Override
+        void loadDocValues(LeafReaderContext leaf) throws IOException {
+            values = decoder.docValues(leaf.reader(), columnName);
+        }
+
+        @Override
+        long read(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() == 1) {
+                    return values.nextOrd() + 1;
+                }
+                throw new ArrayViaDocValuesUnsupportedException(columnName);
+            }
+            return 0;
+        }
+
+        @Override
+        boolean missing() {
+            return false;
+        }
+
+        @Override
+        int bitsRequired() {
+            return Long.SIZE - Long.numberOfLeadingZeros(values.getValueCount());
+        }
+
+        @Override
+        Object value(long code, boolean missing) throws IOException {
+            if (code == 0) {
+                return null;
+            }
+            return decoder.decode(values.lookupOrd(code - 1));
+        }
+    }
+
+    private static final class Numbers extends GroupKeyDocValues {
+
+        private final DocValueDecoder.Numeric decoder;
+        private SortedNumericDocValues values;
+        private boolean missing;
+
+        private Numbers(String columnName, DocValueDecoder.Numeric decoder) {
+            super(columnName);
+            this.decoder = decoder;
+        }
+
+        @Override
+        void loadDocValues(LeafReaderContext leaf) throws IOException {
+            values = decoder.docValues(leaf.reader(), columnName);
+        }
+
+        @Override
+        long read(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() == 1) {
+                    missing = false;
+                    return values.nextValue();
+                }
+                throw new ArrayViaDocValuesUnsupportedException(columnName);
+            }
+            missing = true;
+            return 0;
+        }
+
+        @Override
+        boolean missing() {
+            return missing;
+        }
+
+        @Override
+        int bitsRequired() {
+            return -1;
+        }
+
+        @Override
+        Object value(long code, boolean missing) {
+            return missing ? null : decoder.decode(code);
+        }
+    }
+}
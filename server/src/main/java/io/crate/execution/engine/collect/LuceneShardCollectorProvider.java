@@ -21,6 +21,8 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -43,12 +45,14 @@ import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.SentinelRow;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.engine.collect.collectors.LuceneBatchIterator;
 import io.crate.execution.engine.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OptimizeQueryForSearchAfter;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.export.FileOutputFactory;
 import io.crate.execution.engine.sort.LuceneSortGenerator;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
@@ -90,7 +94,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         ElasticsearchClient elasticsearchClient,
                                         IndexShard indexShard,
                                         BigArrays bigArrays,
-                                        Map<String, FileOutputFactory> fileOutputFactoryMap) {
+                                        Map<String, FileOutputFactory> fileOutputFactoryMap,
+                                        @Nullable SpillService spillService) {
         super(
             clusterService,
             circuitBreakerService,
@@ -102,7 +107,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             elasticsearchClient,
             indexShard,
             new ShardRowContext(indexShard, clusterService),
-            fileOutputFactoryMap
+            fileOutputFactoryMap,
+            spillService
         );
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.nodeCtx = nodeCtx;
@@ -128,6 +134,14 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     protected BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                       boolean requiresScroll,
                                                       CollectTask collectTask) {
+        return getUnorderedIterators(collectPhase, requiresScroll, collectTask, 1).get(0);
+    }
+
+    @Override
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
         ShardId shardId = indexShard.shardId();
         SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
         var searcher = sharedShardContext.acquireSearcher("unordered-iterator: " + formatSource(collectPhase));
@@ -137,38 +151,51 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         // therefore skip it
         boolean isClosed = sharedShardContextShard.mapperService() == null;
         if (isClosed) {
-            return InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            return List.of(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
         }
         QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
         DocTableInfo table = schemas.getTableInfo(relationName);
-        LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
-            collectPhase.where(),
-            collectTask.txnCtx(),
-            sharedShardContextShard.mapperService(),
-            sharedShardContextShard.shardId().getIndexName(),
-            queryShardContext,
-            table,
-            sharedShardContext.indexService().cache()
-        );
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
-            docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
-
-        return new LuceneBatchIterator(
-            searcher.item(),
-            queryContext.query(),
-            queryContext.minScore(),
-            Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-            new CollectorContext(sharedShardContext.readerId(), table.droppedColumns(), table.lookupNameBySourceKey()),
-            docCtx.topLevelInputs(),
-            docCtx.expressions()
-        );
+        boolean doScores = Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE);
+        var indexSearcher = searcher.item();
+        var slices = LeafDocRange.slices(indexSearcher.getTopReaderContext().leaves(), maxSlices);
+        if (LOGGER.isTraceEnabled() && slices.size() > 1) {
+            LOGGER.trace("[{}] collecting shard in {} slices", shardId, slices.size());
+        }
+        List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+        for (List<LeafDocRange> slice : slices) {
+            // Queries and expressions can be stateful, each slice needs its own instances
+            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                collectPhase.where(),
+                collectTask.txnCtx(),
+                sharedShardContextShard.mapperService(),
+                sharedShardContextShard.shardId().getIndexName(),
+                queryShardContext,
+                table,
+                sharedShardContext.indexService().cache()
+            );
+            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
+                docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
+            iterators.add(new LuceneBatchIterator(
+                indexSearcher,
+                slice,
+                queryContext.query(),
+                queryContext.minScore(),
+                doScores,
+                new CollectorContext(sharedShardContext.readerId(), table.droppedColumns(), table.lookupNameBySourceKey()),
+                docCtx.topLevelInputs(),
+                docCtx.expressions()
+            ));
+        }
+        return iterators;
     }
 
     @Nullable
     @Override
-    protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
+    protected List<BatchIterator<Row>> getProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                   CollectTask collectTask,
+                                                                   int maxSlices) {
         DocTableInfo table = schemas.getTableInfo(relationName);
-        var it = GroupByOptimizedIterator.tryOptimizeSingleStringKey(
+        var iterators = GroupByOptimizedIterator.tryOptimizeSingleStringKey(
             indexShard,
             table,
             luceneQueryBuilder,
@@ -177,12 +204,13 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             new InputFactory(nodeCtx),
             docInputFactory,
             normalizedPhase,
-            collectTask
+            collectTask,
+            maxSlices
         );
-        if (it != null) {
-            return it;
+        if (iterators != null) {
+            return iterators;
         }
-        it = DocValuesGroupByOptimizedIterator.tryOptimize(
+        iterators = DocValuesGroupByOptimizedIterator.tryOptimize(
             nodeCtx.functions(),
             referenceResolver,
             indexShard,
@@ -191,10 +219,11 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             fieldTypeLookup,
             docInputFactory,
             normalizedPhase,
-            collectTask
+            collectTask,
+            maxSlices
         );
-        if (it != null) {
-            return it;
+        if (iterators != null) {
+            return iterators;
         }
         return DocValuesAggregates.tryOptimize(
             nodeCtx.functions(),
@@ -203,7 +232,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             table,
             luceneQueryBuilder,
             normalizedPhase,
-            collectTask
+            collectTask,
+            maxSlices
         );
     }
 
@@ -21,6 +21,8 @@
 
 package io.crate.execution.engine.collect;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -45,6 +47,7 @@ import io.crate.execution.engine.export.FileOutputFactory;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
 import io.crate.execution.engine.pipeline.Projectors;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
@@ -74,7 +77,8 @@ public abstract class ShardCollectorProvider {
                            ElasticsearchClient elasticsearchClient,
                            IndexShard indexShard,
                            ShardRowContext shardRowContext,
-                           Map<String, FileOutputFactory> fileOutputFactoryMap) {
+                           Map<String, FileOutputFactory> fileOutputFactoryMap,
+                           @Nullable SpillService spillService) {
         this.schemas = schemas;
         this.indexShard = indexShard;
         this.shardRowContext = shardRowContext;
@@ -99,7 +103,8 @@ public abstract class ShardCollectorProvider {
             t -> null,
             indexShard.indexSettings().getIndexVersionCreated(),
             indexShard.shardId(),
-            fileOutputFactoryMap
+            fileOutputFactoryMap,
+            spillService
         );
         this.batchIteratorFactory = new BatchIteratorFactory();
     }
@@ -109,6 +114,20 @@ public abstract class ShardCollectorProvider {
         public BatchIterator<Row> getIterator(RoutedCollectPhase collectPhase,
                                               boolean requiresScroll,
                                               CollectTask collectTask) {
+            List<BatchIterator<Row>> iterators = getIterators(collectPhase, requiresScroll, collectTask, 1);
+            assert iterators.size() == 1 : "Must return a single iterator if maxSlices is 1";
+            return iterators.get(0);
+        }
+
+        /**
+         * Like {@link #getIterator(RoutedCollectPhase, boolean, CollectTask)} but may split the shard into up to
+         * {@code maxSlices} iterators which can be consumed concurrently.
+         * Slicing is only done if the shard projections produce partial results that are merged later on.
+         */
+        public List<BatchIterator<Row>> getIterators(RoutedCollectPhase collectPhase,
+                                                     boolean requiresScroll,
+                                                     CollectTask collectTask,
+                                                     int maxSlices) {
             assert collectPhase.orderBy() == null
                 : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
             assert collectPhase.maxRowGranularity() == RowGranularity.DOC :
@@ -116,27 +135,35 @@ public abstract class ShardCollectorProvider {
 
             boolean isOpenIndex = indexShard.mapperService() != null;
             RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, collectTask.txnCtx());
+            int slices = maxSlices > 1 && Projections.supportsSlicedShardCollect(collectPhase.projections())
+                ? maxSlices
+                : 1;
             if (isOpenIndex) {
-                BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
-                if (fusedIterator != null) {
-                    return fusedIterator;
+                List<BatchIterator<Row>> fusedIterators = getProjectionFusedIterators(normalizedCollectNode, collectTask, slices);
+                if (fusedIterators != null) {
+                    return fusedIterators;
                 }
             }
-            final BatchIterator<Row> iterator;
+            final List<BatchIterator<Row>> iterators;
             if (isOpenIndex && WhereClause.canMatch(normalizedCollectNode.where())) {
-                iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
+                iterators = getUnorderedIterators(normalizedCollectNode, requiresScroll, collectTask, slices);
             } else {
-                iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+                iterators = List.of(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
             }
-            return Projectors.wrap(
-                Projections.shardProjections(collectPhase.projections()),
-                collectPhase.jobId(),
-                collectTask.txnCtx(),
-                collectTask.getRamAccounting(),
-                collectTask.memoryManager(),
-                projectorFactory,
-                iterator
-            );
+            var shardProjections = Projections.shardProjections(collectPhase.projections());
+            List<BatchIterator<Row>> result = new ArrayList<>(iterators.size());
+            for (BatchIterator<Row> iterator : iterators) {
+                result.add(Projectors.wrap(
+                    shardProjections,
+                    collectPhase.jobId(),
+                    collectTask.txnCtx(),
+                    collectTask.getRamAccounting(),
+                    collectTask.memoryManager(),
+                    projectorFactory,
+                    iterator
+                ));
+            }
+            return result;
         }
 
         public OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
@@ -161,18 +188,33 @@ public abstract class ShardCollectorProvider {
 
 
     /**
-     * @return A BatchIterator which already applies the transformation described in the shardProjections of the collectPhase.
-     *         This can be used to return a specialized BatchIterator for certain projections. If this returns null
-     *         a fallback/default BatchIterator will be created and projections will be applied using the projectorFactory
+     * @param maxSlices upper bound for the number of returned iterators, only greater than 1 if the
+     *                  shard projections produce partial results that are merged later on.
+     * @return BatchIterators which already apply the transformation described in the shardProjections of the collectPhase.
+     *         This can be used to return specialized BatchIterators for certain projections. If this returns null
+     *         fallback/default BatchIterators will be created and projections will be applied using the projectorFactory
      */
     @Nullable
-    protected abstract BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase,
-                                                                     CollectTask collectTask);
+    protected abstract List<BatchIterator<Row>> getProjectionFusedIterators(RoutedCollectPhase normalizedPhase,
+                                                                            CollectTask collectTask,
+                                                                            int maxSlices);
 
     protected abstract BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                                boolean requiresScroll,
                                                                CollectTask collectTask);
 
+    /**
+     * @param maxSlices upper bound for the number of returned iterators.
+     *                  Implementations may return fewer, by default a single iterator is returned.
+     * @return iterators which together expose all rows of the shard. They can be consumed concurrently.
+     */
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
+        return List.of(getUnorderedIterator(collectPhase, requiresScroll, collectTask));
+    }
+
     protected abstract OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
                                                                SharedShardContext sharedShardContext,
                                                                CollectTask collectTask,
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.collectors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * A range of document ids [minDoc, maxDoc) within a single segment.
+ * <p>
+ * Used to split the segments of a shard into slices which can be collected concurrently.
+ * </p>
+ */
+public record LeafDocRange(LeafReaderContext leaf, int minDoc, int maxDoc) {
+
+    /**
+     * Slices are only created if each of them gets at least this many documents,
+     * otherwise the overhead of the concurrent collection outweighs the gain.
+     */
+    static final int MIN_DOCS_PER_SLICE = 250_000;
+
+    public LeafDocRange {
+        assert minDoc >= 0 && minDoc <= maxDoc : "minDoc must be >= 0 and <= maxDoc";
+    }
+
+    public static LeafDocRange of(LeafReaderContext leaf) {
+        return new LeafDocRange(leaf, 0, leaf.reader().maxDoc());
+    }
+
+    public static List<LeafDocRange> of(List<LeafReaderContext> leaves) {
+        ArrayList<LeafDocRange> ranges = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            ranges.add(of(leaf));
+        }
+        return ranges;
+    }
+
+    public int numDocs() {
+        return maxDoc - minDoc;
+    }
+
+    /**
+     * Positions the unpositioned iterator of this segment on the first matching document of the range.
+     * Iterate while {@code doc < maxDoc()}, {@link DocIdSetIterator#NO_MORE_DOCS} is greater than any maxDoc.
+     */
+    public int firstDoc(DocIdSetIterator docs) throws IOException {
+        return docs.advance(minDoc);
+    }
+
+    /**
+     * Splits the leaves into at most {@code maxSlices} slices of roughly equal size.
+     * Large segments are split into multiple doc-id ranges if necessary.
+     *
+     * @return the slices, each consisting of one or more ranges. Contains a single slice covering all leaves
+     *         if there are not enough documents to justify more.
+     */
+    public static List<List<LeafDocRange>> slices(List<LeafReaderContext> leaves, int maxSlices) {
+        return slices(leaves, maxSlices, MIN_DOCS_PER_SLICE);
+    }
+
+    static List<List<LeafDocRange>> slices(List<LeafReaderContext> leaves, int maxSlices, int minDocsPerSlice) {
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        int numSlices = (int) Math.min(maxSlices, totalDocs / Math.max(1, minDocsPerSlice));
+        if (numSlices <= 1) {
+            return List.of(of(leaves));
+        }
+        long docsPerSlice = (totalDocs + numSlices - 1) / numSlices;
+        List<List<LeafDocRange>> slices = new ArrayList<>(numSlices);
+        List<LeafDocRange> current = new ArrayList<>();
+        long currentDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            int maxDoc = leaf.reader().maxDoc();
+            int minDoc = 0;
+            while (minDoc < maxDoc) {
+                int end = (int) Math.min(maxDoc, minDoc + (docsPerSlice - currentDocs));
+                current.add(new LeafDocRange(leaf, minDoc, end));
+                currentDocs += end - minDoc;
+                minDoc = end;
+                if (currentDocs >= docsPerSlice) {
+                    slices.add(current);
+                    current = new ArrayList<>();
+                    currentDocs = 0;
+                }
+            }
+        }
+        if (current.isEmpty() == false) {
+            slices.add(current);
+        }
+        return slices;
+    }
+}
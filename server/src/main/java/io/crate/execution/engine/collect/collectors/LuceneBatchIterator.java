@@ -30,7 +30,6 @@ import io.crate.expression.InputRow;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import org.apache.lucene.index.LeafReader;
-import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -52,6 +51,9 @@ import java.util.concurrent.CompletionStage;
  * It supports filtering the data using a lucene {@link Query} or via {@code minScore}.
  * <p>
  * Row data depends on {@code inputs} and {@code expressions}. The data is unordered.
+ * <p>
+ * The iterator can be restricted to a subset of the documents via {@link LeafDocRange}s.
+ * This is used to collect a single shard concurrently using multiple iterators.
  */
 public class LuceneBatchIterator implements BatchIterator<Row> {
 
@@ -60,13 +62,13 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     private final CollectorContext collectorContext;
     private final boolean doScores;
     private final LuceneCollectorExpression[] expressions;
-    private final List<LeafReaderContext> leaves;
+    private final List<LeafDocRange> ranges;
     private final InputRow row;
     private Weight weight;
     private final Float minScore;
 
-    private Iterator<LeafReaderContext> leavesIt;
-    private LeafReaderContext currentLeaf;
+    private Iterator<LeafDocRange> rangesIt;
+    private LeafDocRange currentRange;
     private Scorer currentScorer;
     private DocIdSetIterator currentDocIdSetIt;
     private volatile Throwable killed;
@@ -78,6 +80,26 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                                CollectorContext collectorContext,
                                List<? extends Input<?>> inputs,
                                Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(
+            indexSearcher,
+            LeafDocRange.of(indexSearcher.getTopReaderContext().leaves()),
+            query,
+            minScore,
+            doScores,
+            collectorContext,
+            inputs,
+            expressions
+        );
+    }
+
+    public LuceneBatchIterator(IndexSearcher indexSearcher,
+                               List<LeafDocRange> ranges,
+                               Query query,
+                               @Nullable Float minScore,
+                               boolean doScores,
+                               CollectorContext collectorContext,
+                               List<? extends Input<?>> inputs,
+                               Collection<? extends LuceneCollectorExpression<?>> expressions) {
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.doScores = doScores || minScore != null;
@@ -85,8 +107,8 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         this.collectorContext = collectorContext;
         this.row = new InputRow(inputs);
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
-        leaves = indexSearcher.getTopReaderContext().leaves();
-        leavesIt = leaves.iterator();
+        this.ranges = ranges;
+        this.rangesIt = ranges.iterator();
     }
 
     @Override
@@ -97,7 +119,7 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     @Override
     public void moveToStart() {
         raiseIfKilled();
-        leavesIt = leaves.iterator();
+        rangesIt = ranges.iterator();
     }
 
     @Override
@@ -120,10 +142,10 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
 
     private boolean innerMoveNext() throws IOException {
         while (tryAdvanceDocIdSetIterator()) {
-            LeafReader reader = currentLeaf.reader();
+            LeafReader reader = currentRange.leaf().reader();
             Bits liveDocs = reader.getLiveDocs();
             int doc;
-            while ((doc = currentDocIdSetIt.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+            while ((doc = nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
                 if (docDeleted(liveDocs, doc) || belowMinScore(currentScorer)) {
                     continue;
                 }
@@ -136,6 +158,14 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         return false;
     }
 
+    private int nextDoc() throws IOException {
+        int minDoc = currentRange.minDoc();
+        int doc = currentDocIdSetIt.docID() < minDoc
+            ? currentDocIdSetIt.advance(minDoc)
+            : currentDocIdSetIt.nextDoc();
+        return doc < currentRange.maxDoc() ? doc : DocIdSetIterator.NO_MORE_DOCS;
+    }
+
     private boolean belowMinScore(Scorer currentScorer) throws IOException {
         return minScore != null && currentScorer.score() < minScore;
     }
@@ -144,16 +174,19 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         if (currentDocIdSetIt != null) {
             return true;
         }
-        while (leavesIt.hasNext()) {
-            LeafReaderContext leaf = leavesIt.next();
-            Scorer scorer = weight.scorer(leaf);
+        while (rangesIt.hasNext()) {
+            LeafDocRange range = rangesIt.next();
+            if (range.numDocs() == 0) {
+                continue;
+            }
+            Scorer scorer = weight.scorer(range.leaf());
             if (scorer == null) {
                 continue;
             }
             currentScorer = scorer;
-            currentLeaf = leaf;
+            currentRange = range;
             currentDocIdSetIt = scorer.iterator();
-            var readerContext = new ReaderContext(currentLeaf);
+            var readerContext = new ReaderContext(range.leaf());
             for (LuceneCollectorExpression<?> expression : expressions) {
                 expression.setScorer(currentScorer);
                 expression.setNextReader(readerContext);
@@ -166,7 +199,7 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
     private void clearState() {
         currentDocIdSetIt = null;
         currentScorer = null;
-        currentLeaf = null;
+        currentRange = null;
     }
 
     @Override
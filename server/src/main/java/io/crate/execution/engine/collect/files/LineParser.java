@@ -0,0 +1,97 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import io.crate.analyze.CopyFromParserProperties;
+import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
+import io.crate.operation.collect.files.CSVLineParser;
+
+/**
+ * Converts the lines read by COPY FROM into JSON.
+ * <p>
+ * The first line determines the input format and for CSV files with a header it is consumed as header.
+ * Once the first line has been read {@link #parse(String, long)} can be called concurrently.
+ */
+final class LineParser {
+
+    private final CopyFromParserProperties parserProperties;
+    private final List<String> targetColumns;
+
+    private InputFormat inputFormat;
+    private CSVLineParser csvLineParser;
+    private boolean firstLine = true;
+
+    LineParser(InputFormat inputFormat, CopyFromParserProperties parserProperties, List<String> targetColumns) {
+        this.inputFormat = inputFormat;
+        this.parserProperties = parserProperties;
+        this.targetColumns = targetColumns;
+    }
+
+    /**
+     * Must be called for every line before it is parsed.
+     *
+     * @return true if the line is a header and must be skipped.
+     */
+    boolean readHeader(URI currentUri, String line) throws IOException {
+        if (firstLine) {
+            firstLine = false;
+            return readFirstLine(currentUri, line);
+        }
+        return false;
+    }
+
+    private boolean readFirstLine(URI currentUri, String line) throws IOException {
+        if (isCSV(inputFormat, currentUri)) {
+            csvLineParser = new CSVLineParser(parserProperties, targetColumns);
+            inputFormat = InputFormat.CSV;
+            if (parserProperties.fileHeader()) {
+                csvLineParser.parseHeader(line);
+                return true;
+            }
+        } else {
+            inputFormat = InputFormat.JSON;
+        }
+        return false;
+    }
+
+    byte[] parse(String line, long rowNumber) throws IOException {
+        if (inputFormat == InputFormat.CSV) {
+            return parserProperties.fileHeader() ?
+                csvLineParser.parse(line, rowNumber) : csvLineParser.parseWithoutHeader(line, rowNumber);
+        } else {
+            return line.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    void reset() {
+        firstLine = true;
+    }
+
+    private static boolean isCSV(InputFormat inputFormat, URI currentUri) {
+        return (inputFormat == InputFormat.CSV) || currentUri.toString().endsWith(".csv");
+    }
+}
@@ -23,8 +23,6 @@ package io.crate.execution.engine.collect.files;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import io.crate.analyze.CopyFromParserProperties;
@@ -33,24 +31,17 @@ import io.crate.data.Input;
 import io.crate.data.MappedForwardingBatchIterator;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
-import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.file.LineContext;
-import io.crate.operation.collect.files.CSVLineParser;
 
 public final class LineProcessor extends MappedForwardingBatchIterator<LineCursor, Row> {
 
     private final BatchIterator<LineCursor> source;
     private final LineContext lineContext;
-    private final CopyFromParserProperties parserProperties;
-    private final List<String> targetColumns;
+    private final LineParser lineParser;
     private final InputRow row;
 
-    private InputFormat inputFormat;
-    private CSVLineParser csvLineParser;
-    private boolean firstLine = true;
-
     public LineProcessor(BatchIterator<LineCursor> source,
                          List<Input<?>> inputs,
                          List<LineCollectorExpression<?>> expressions,
@@ -58,10 +49,8 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
                          CopyFromParserProperties parserProperties,
                          List<String> targetColumns) {
         this.source = source;
-        this.inputFormat = inputFormat;
         this.row = new InputRow(inputs);
-        this.parserProperties = parserProperties;
-        this.targetColumns = targetColumns;
+        this.lineParser = new LineParser(inputFormat, parserProperties, targetColumns);
         this.lineContext = new LineContext(source.currentElement());
         for (LineCollectorExpression<?> collectorExpression : expressions) {
             collectorExpression.startCollect(lineContext);
@@ -71,34 +60,7 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
     @Override
     public void moveToStart() {
         source.moveToStart();
-        firstLine = true;
-    }
-
-    private boolean readFirstLine(URI currentUri, String line) throws IOException {
-        if (isCSV(inputFormat, currentUri)) {
-            csvLineParser = new CSVLineParser(parserProperties, targetColumns);
-            inputFormat = InputFormat.CSV;
-            if (parserProperties.fileHeader()) {
-                csvLineParser.parseHeader(line);
-                return true;
-            }
-        } else {
-            inputFormat = InputFormat.JSON;
-        }
-        return false;
-    }
-
-    private byte[] getByteArray(String line, long rowNumber) throws IOException {
-        if (inputFormat == InputFormat.CSV) {
-            return parserProperties.fileHeader() ?
-                csvLineParser.parse(line, rowNumber) : csvLineParser.parseWithoutHeader(line, rowNumber);
-        } else {
-            return line.getBytes(StandardCharsets.UTF_8);
-        }
-    }
-
-    private static boolean isCSV(FileUriCollectPhase.InputFormat inputFormat, URI currentUri) {
-        return (inputFormat == FileUriCollectPhase.InputFormat.CSV) || currentUri.toString().endsWith(".csv");
+        lineParser.reset();
     }
 
     @Override
@@ -111,14 +73,11 @@ public final class LineProcessor extends MappedForwardingBatchIterator<LineCurso
                     assert cursor.failure() != null : "If the line is null, there must be a failure";
                     return true;
                 }
-                if (firstLine) {
-                    firstLine = false;
-                    if (readFirstLine(cursor.uri(), line)) {
-                        continue;
-                    }
+                if (lineParser.readHeader(cursor.uri(), line)) {
+                    continue;
                 }
                 try {
-                    byte[] json = getByteArray(line, cursor.lineNumber());
+                    byte[] json = lineParser.parse(line, cursor.lineNumber());
                     lineContext.resetCurrentParsingFailure();
                     lineContext.rawSource(json);
                 } catch (Throwable parseError) {
@@ -0,0 +1,289 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.analyze.CopyFromParserProperties;
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.BatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.execution.dsl.phases.FileUriCollectPhase;
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+import io.crate.execution.support.ThreadPools;
+import io.crate.expression.InputRow;
+import io.crate.expression.reference.file.ColumnExtractingLineExpression;
+import io.crate.expression.reference.file.LineContext;
+import io.crate.expression.reference.file.SourceAsMapLineExpression;
+
+/**
+ * Like {@link LineProcessor}, but parses the lines in parallel.
+ * <p>
+ * Lines are read from the source in chunks of up to {@link #CHUNK_MAX_LINES} lines or
+ * {@link #CHUNK_MAX_CHARS} characters. Each chunk is converted to JSON - and if any expression
+ * needs the parsed source, parsed into a map - on the executor, while the next chunks are read.
+ * Up to {@code maxChunksInFlight} chunks are parsed concurrently and rows are emitted in the
+ * order of the lines.
+ * <p>
+ * Instead of blocking on a chunk which is still being parsed, {@link #moveNext()} returns false and
+ * {@link #loadNextBatch()} returns a future which completes once the chunk is parsed.
+ */
+public final class ParallelLineProcessor implements BatchIterator<Row> {
+
+    static final int CHUNK_MAX_LINES = 1000;
+    static final int CHUNK_MAX_CHARS = 1024 * 1024;
+
+    private final BatchIterator<LineCursor> source;
+    private final LineContext lineContext;
+    private final LineParser lineParser;
+    private final InputRow row;
+    private final Executor executor;
+    private final int maxChunksInFlight;
+    private final boolean parseSource;
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+
+    @Nullable
+    private Chunk currentChunk;
+    private int idxInChunk;
+    private volatile Throwable killed;
+
+    public ParallelLineProcessor(BatchIterator<LineCursor> source,
+                                 List<Input<?>> inputs,
+                                 List<LineCollectorExpression<?>> expressions,
+                                 FileUriCollectPhase.InputFormat inputFormat,
+                                 CopyFromParserProperties parserProperties,
+                                 List<String> targetColumns,
+                                 Executor executor,
+                                 int maxChunksInFlight) {
+        assert maxChunksInFlight > 0 : "maxChunksInFlight must be greater than 0";
+        this.source = source;
+        this.row = new InputRow(inputs);
+        this.lineParser = new LineParser(inputFormat, parserProperties, targetColumns);
+        this.executor = executor;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.lineContext = new LineContext(source.currentElement());
+        boolean parseSource = false;
+        for (LineCollectorExpression<?> collectorExpression : expressions) {
+            collectorExpression.startCollect(lineContext);
+            parseSource |= collectorExpression instanceof ColumnExtractingLineExpression
+                || collectorExpression instanceof SourceAsMapLineExpression;
+        }
+        this.parseSource = parseSource;
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfKilled();
+        source.moveToStart();
+        lineParser.reset();
+        chunks.clear();
+        currentChunk = null;
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        while (true) {
+            if (currentChunk != null) {
+                if (idxInChunk < currentChunk.size()) {
+                    currentChunk.apply(idxInChunk, lineContext);
+                    idxInChunk++;
+                    return true;
+                }
+                currentChunk = null;
+            }
+            readChunks();
+            Chunk head = chunks.peek();
+            if (head == null || !head.parsed.isDone()) {
+                return false;
+            }
+            chunks.poll();
+            try {
+                head.parsed.join();
+            } catch (CompletionException e) {
+                Exceptions.rethrowUnchecked(e.getCause());
+            }
+            currentChunk = head;
+            idxInChunk = 0;
+        }
+    }
+
+    /**
+     * Reads chunks from the source until either {@code maxChunksInFlight} chunks are pending
+     * or the source has no more lines available without loading the next batch.
+     */
+    private void readChunks() {
+        try {
+            boolean sourceHasLines = true;
+            while (sourceHasLines && chunks.size() < maxChunksInFlight) {
+                Chunk chunk = new Chunk();
+                int numChars = 0;
+                while (chunk.size() < CHUNK_MAX_LINES && numChars < CHUNK_MAX_CHARS) {
+                    if (!source.moveNext()) {
+                        sourceHasLines = false;
+                        break;
+                    }
+                    LineCursor cursor = source.currentElement();
+                    String line = cursor.line();
+                    if (line == null) {
+                        assert cursor.failure() != null : "If the line is null, there must be a failure";
+                    } else if (lineParser.readHeader(cursor.uri(), line)) {
+                        continue;
+                    } else {
+                        numChars += line.length();
+                    }
+                    chunk.cursors.add(cursor.copy());
+                }
+                if (chunk.size() > 0) {
+                    chunks.add(chunk);
+                    ThreadPools.forceExecute(executor, () -> chunk.parse(lineParser, parseSource));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        chunks.clear();
+        currentChunk = null;
+        source.close();
+        killed = BatchIterator.CLOSED;
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        raiseIfKilled();
+        Chunk head = chunks.peek();
+        if (head != null) {
+            return head.parsed;
+        }
+        return source.loadNextBatch();
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return chunks.isEmpty() && source.allLoaded();
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return true;
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        killed = throwable;
+        source.kill(throwable);
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+
+    private static class Chunk {
+
+        private final List<LineCursor> cursors = new ArrayList<>();
+        private final CompletableFuture<Void> parsed = new CompletableFuture<>();
+
+        private byte[][] sources;
+        private LinkedHashMap<String, Object>[] parsedSources;
+        private String[] parsingFailures;
+
+        int size() {
+            return cursors.size();
+        }
+
+        @SuppressWarnings("unchecked")
+        void parse(LineParser lineParser, boolean parseSource) {
+            try {
+                int size = cursors.size();
+                byte[][] sources = new byte[size][];
+                LinkedHashMap<String, Object>[] parsedSources = new LinkedHashMap[size];
+                String[] parsingFailures = new String[size];
+                for (int i = 0; i < size; i++) {
+                    LineCursor cursor = cursors.get(i);
+                    String line = cursor.line();
+                    if (line == null) {
+                        continue;
+                    }
+                    try {
+                        sources[i] = lineParser.parse(line, cursor.lineNumber());
+                    } catch (Throwable parseError) {
+                        parsingFailures[i] = parseError.getMessage();
+                        continue;
+                    }
+                    if (parseSource) {
+                        try {
+                            parsedSources[i] = LineContext.parseSource(sources[i]);
+                        } catch (RuntimeException e) {
+                            // The line context parses the source again and raises the error where the
+                            // source is accessed, same as it does for sources which haven't been parsed upfront
+                        }
+                    }
+                }
+                this.sources = sources;
+                this.parsedSources = parsedSources;
+                this.parsingFailures = parsingFailures;
+                parsed.complete(null);
+            } catch (Throwable t) {
+                parsed.completeExceptionally(t);
+            }
+        }
+
+        void apply(int idx, LineContext lineContext) {
+            LineCursor cursor = cursors.get(idx);
+            lineContext.cursor(cursor);
+            if (cursor.line() == null) {
+                return;
+            }
+            String parsingFailure = parsingFailures[idx];
+            if (parsingFailure == null) {
+                lineContext.resetCurrentParsingFailure();
+                lineContext.rawSource(sources[idx], parsedSources[idx]);
+            } else {
+                lineContext.setCurrentParsingFailure(parsingFailure);
+            }
+        }
+    }
+}
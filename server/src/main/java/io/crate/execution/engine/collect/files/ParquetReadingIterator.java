@@ -0,0 +1,307 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.settings.Settings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.BatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+import io.crate.execution.engine.collect.files.parquet.ParquetReader;
+import io.crate.expression.InputRow;
+import io.crate.expression.reference.file.LineContext;
+
+/**
+ * BatchIterator to read the rows of Parquet files.
+ * <p>
+ * Each row is exposed through the same {@link LineContext} as the lines of JSON or CSV files, so the
+ * {@link LineCollectorExpression}s work the same for all input formats. The values of a row are decoded
+ * straight into the parsed source map. The JSON source is only generated from that map if {@code _raw} is
+ * collected.
+ * <p>
+ * Only the target columns of the COPY FROM, or all columns if there are none, are decoded.
+ * If the files are on shared storage, the row groups of each file are distributed across the readers
+ * instead of whole files. The line number of a row is its position in the file, starting at 1.
+ * <p>
+ * Parquet files need random access, so only local files are supported.
+ */
+public final class ParquetReadingIterator implements BatchIterator<Row> {
+
+    private static final Logger LOGGER = LogManager.getLogger(ParquetReadingIterator.class);
+
+    private final List<String> fileUris;
+    private final Map<String, FileInputFactory> fileInputFactories;
+    @Nullable
+    private final Boolean shared;
+    private final int numReaders;
+    private final int readerNumber;
+    private final Settings withClauseOptions;
+    private final List<String> targetColumns;
+    private final LineContext lineContext;
+    private final InputRow row;
+
+    private Iterator<String> fileUrisIterator;
+    @Nullable
+    private Iterator<URI> currentUris;
+    private boolean sharedStorage;
+
+    @Nullable
+    private ParquetReader reader;
+    private URI currentUri;
+    private String[] columnNames;
+    private int[] columns;
+    private int rowGroup;
+    private long nextRowGroupStart;
+
+    @Nullable
+    private Object[][] values;
+    private long rowGroupStart;
+    private int numRowsInGroup;
+    private int idxInGroup;
+
+    private volatile Throwable killed;
+
+    public ParquetReadingIterator(Collection<String> fileUris,
+                                  Map<String, FileInputFactory> fileInputFactories,
+                                  @Nullable Boolean shared,
+                                  int numReaders,
+                                  int readerNumber,
+                                  Settings withClauseOptions,
+                                  List<Input<?>> inputs,
+                                  List<LineCollectorExpression<?>> expressions,
+                                  List<String> targetColumns) {
+        this.fileUris = List.copyOf(fileUris);
+        this.fileInputFactories = fileInputFactories;
+        this.shared = shared;
+        this.numReaders = numReaders;
+        this.readerNumber = readerNumber;
+        this.withClauseOptions = withClauseOptions;
+        this.targetColumns = targetColumns;
+        this.row = new InputRow(inputs);
+        this.lineContext = new LineContext(new LineCursor());
+        for (LineCollectorExpression<?> collectorExpression : expressions) {
+            collectorExpression.startCollect(lineContext);
+        }
+        this.fileUrisIterator = this.fileUris.iterator();
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfKilled();
+        closeReader();
+        currentUris = null;
+        fileUrisIterator = fileUris.iterator();
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        while (true) {
+            if (values != null) {
+                if (idxInGroup < numRowsInGroup) {
+                    setCurrentRow();
+                    idxInGroup++;
+                    return true;
+                }
+                values = null;
+            }
+            if (reader != null) {
+                try {
+                    if (readNextRowGroup()) {
+                        continue;
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Error during COPY FROM '" + currentUri + "'", e);
+                    setFailure(currentUri, rowGroupStart + 1, e);
+                    closeReader();
+                    return true;
+                }
+                closeReader();
+            }
+            if (currentUris != null && currentUris.hasNext()) {
+                URI uri = currentUris.next();
+                try {
+                    openReader(uri);
+                } catch (IOException e) {
+                    setFailure(uri, 0, e);
+                    return true;
+                }
+            } else if (fileUrisIterator.hasNext()) {
+                String fileUri = fileUrisIterator.next();
+                try {
+                    expandUri(fileUri);
+                } catch (IOException e) {
+                    setFailure(FileReadingIterator.toURI(fileUri), 0, e);
+                    return true;
+                }
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private void expandUri(String fileUri) throws IOException {
+        URI uri = FileReadingIterator.toURI(fileUri);
+        FileInputFactory fileInputFactory = fileInputFactories.get(uri.getScheme());
+        if (!LocalFsFileInputFactory.NAME.equals(uri.getScheme()) || fileInputFactory == null) {
+            throw new IOException("Parquet files can only be read from the local file system, got: " + uri);
+        }
+        FileInput fileInput = fileInputFactory.create(uri, withClauseOptions);
+        sharedStorage = Objects.requireNonNullElse(shared, fileInput.sharedStorageDefault());
+        List<URI> uris = fileInput.expandUri();
+        if (uris.isEmpty() && fileInput.isGlobbed()) {
+            throw new IOException("Cannot find any URI matching: " + uri);
+        }
+        currentUris = uris.iterator();
+    }
+
+    private void openReader(URI uri) throws IOException {
+        currentUri = uri;
+        reader = ParquetReader.open(Paths.get(uri));
+        List<String> fileColumns = reader.columnNames();
+        if (targetColumns.isEmpty()) {
+            columnNames = fileColumns.toArray(new String[0]);
+            columns = new int[columnNames.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = i;
+            }
+        } else {
+            columnNames = targetColumns.stream().filter(fileColumns::contains).toArray(String[]::new);
+            columns = new int[columnNames.length];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = fileColumns.indexOf(columnNames[i]);
+            }
+        }
+        rowGroup = -1;
+        nextRowGroupStart = 0;
+    }
+
+    /**
+     * Reads the next row group of the current file which is assigned to this reader.
+     *
+     * @return false if there are no more row groups.
+     */
+    private boolean readNextRowGroup() throws IOException {
+        assert reader != null : "reader must be open to read a row group";
+        while (++rowGroup < reader.numRowGroups()) {
+            int numRows = reader.numRows(rowGroup);
+            rowGroupStart = nextRowGroupStart;
+            nextRowGroupStart += numRows;
+            if (sharedStorage && !isReadByCurrentNode(currentUri, rowGroup)) {
+                continue;
+            }
+            values = reader.readRowGroup(rowGroup, columns);
+            numRowsInGroup = numRows;
+            idxInGroup = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isReadByCurrentNode(URI uri, int rowGroup) {
+        return Math.floorMod(31 * uri.hashCode() + rowGroup, numReaders) == readerNumber;
+    }
+
+    private void setCurrentRow() {
+        LinkedHashMap<String, Object> source = new LinkedHashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            Object value = values[i][idxInGroup];
+            // Skip nulls, so that default expressions apply to them like to missing JSON keys
+            if (value != null) {
+                source.put(columnNames[i], value);
+            }
+        }
+        lineContext.cursor(new LineCursor(currentUri, rowGroupStart + idxInGroup + 1, null, null));
+        lineContext.resetCurrentParsingFailure();
+        lineContext.parsedSource(source);
+    }
+
+    private void setFailure(URI uri, long lineNumber, IOException failure) {
+        lineContext.cursor(new LineCursor(uri, lineNumber, null, failure));
+    }
+
+    private void closeReader() {
+        values = null;
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                LOGGER.error("Unable to close reader for " + currentUri, e);
+            }
+            reader = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        closeReader();
+        killed = BatchIterator.CLOSED;
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        throw new IllegalStateException("All batches already loaded");
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return true;
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return true;
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        killed = throwable;
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
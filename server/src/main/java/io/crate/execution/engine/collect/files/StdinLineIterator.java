@@ -0,0 +1,265 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.BatchIterator;
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+import io.crate.execution.support.ThreadPools;
+
+/**
+ * Provides the lines of a {@code COPY FROM STDIN}.
+ * <p>
+ * The data is pushed by the client connection via {@link #feed(byte[], int, int)} and split into lines.
+ * Instead of blocking until more data arrives, {@link #moveNext()} returns false and
+ * {@link #loadNextBatch()} returns a future which completes once more lines are available or the
+ * client finished sending data.
+ * <p>
+ * If more than {@link #MAX_BUFFERED_BYTES} are buffered, {@link #feed(byte[], int, int)} requests the
+ * connection to stop reading; once the consumer catches up {@code resumeReading} is called.
+ */
+public final class StdinLineIterator implements BatchIterator<LineCursor> {
+
+    static final int MAX_BUFFERED_BYTES = 4 * 1024 * 1024;
+
+    private final URI uri;
+    private final Executor executor;
+    private final Runnable resumeReading;
+    private final ArrayDeque<LineCursor> lines = new ArrayDeque<>();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+
+    private LineCursor cursor = new LineCursor();
+    private long lineNumber;
+    private long bufferedBytes;
+    private boolean finished;
+    private boolean paused;
+
+    @Nullable
+    private CompletableFuture<Void> nextBatch;
+    private volatile Throwable killed;
+
+    StdinLineIterator(URI uri, Executor executor, Runnable resumeReading) {
+        this.uri = uri;
+        this.executor = executor;
+        this.resumeReading = resumeReading;
+    }
+
+    public URI uri() {
+        return uri;
+    }
+
+    /**
+     * Adds the data sent by the client. Lines may span several calls.
+     *
+     * @return true if the connection should stop reading until {@code resumeReading} is called.
+     */
+    public boolean feed(byte[] data, int offset, int length) {
+        CompletableFuture<Void> toComplete;
+        boolean pause;
+        synchronized (this) {
+            if (killed != null || finished) {
+                return false;
+            }
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (data[i] == '\n') {
+                    addLine(data, start, i);
+                    start = i + 1;
+                }
+            }
+            partialLine.write(data, start, end - start);
+            paused = bufferedBytes >= MAX_BUFFERED_BYTES;
+            pause = paused;
+            toComplete = takeNextBatch();
+        }
+        completeAsync(toComplete);
+        return pause;
+    }
+
+    /**
+     * Signals that the client sent all data.
+     */
+    public void finish() {
+        CompletableFuture<Void> toComplete;
+        synchronized (this) {
+            if (killed != null || finished) {
+                return;
+            }
+            if (partialLine.size() > 0) {
+                addLine(new byte[0], 0, 0);
+            }
+            finished = true;
+            toComplete = takeNextBatch();
+        }
+        completeAsync(toComplete);
+    }
+
+    private void addLine(byte[] data, int from, int to) {
+        byte[] bytes = data;
+        if (partialLine.size() > 0) {
+            partialLine.write(data, from, to - from);
+            bytes = partialLine.toByteArray();
+            partialLine.reset();
+            from = 0;
+            to = bytes.length;
+        }
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        lineNumber++;
+        // `\.` is the end-of-data marker of the text format, some clients still send it
+        if (to == from || (to - from == 2 && bytes[from] == '\\' && bytes[from + 1] == '.')) {
+            return;
+        }
+        String line = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        bufferedBytes += line.length();
+        lines.add(new LineCursor(uri, lineNumber, line, null));
+    }
+
+    @Nullable
+    private CompletableFuture<Void> takeNextBatch() {
+        CompletableFuture<Void> future = nextBatch;
+        nextBatch = null;
+        return future;
+    }
+
+    private void completeAsync(@Nullable CompletableFuture<Void> future) {
+        // The data is fed by a network thread, the consumer must not continue on it
+        if (future != null) {
+            ThreadPools.forceExecute(executor, () -> future.complete(null));
+        }
+    }
+
+    @Override
+    public LineCursor currentElement() {
+        return cursor;
+    }
+
+    @Override
+    public void moveToStart() {
+        throw new UnsupportedOperationException("Cannot move to start, the lines sent by the client are not retained");
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        boolean resume;
+        synchronized (this) {
+            LineCursor next = lines.poll();
+            if (next == null) {
+                return false;
+            }
+            cursor = next;
+            bufferedBytes -= next.line().length();
+            resume = paused && bufferedBytes < MAX_BUFFERED_BYTES / 2;
+            if (resume) {
+                paused = false;
+            }
+        }
+        if (resume) {
+            resumeReading.run();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (killed == null) {
+            killed = BatchIterator.CLOSED;
+        }
+        release(killed);
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        raiseIfKilled();
+        synchronized (this) {
+            if (finished) {
+                throw new IllegalStateException("All batches already loaded");
+            }
+            if (!lines.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            if (nextBatch == null) {
+                nextBatch = new CompletableFuture<>();
+            }
+            return nextBatch;
+        }
+    }
+
+    @Override
+    public synchronized boolean allLoaded() {
+        return finished;
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return true;
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        killed = throwable;
+        release(throwable);
+    }
+
+    /**
+     * Discards the buffered lines and any data sent afterwards, e.g. because the client aborted the copy.
+     */
+    private void release(Throwable reason) {
+        CompletableFuture<Void> toComplete;
+        boolean resume;
+        synchronized (this) {
+            lines.clear();
+            partialLine.reset();
+            bufferedBytes = 0;
+            resume = paused;
+            paused = false;
+            toComplete = takeNextBatch();
+        }
+        if (toComplete != null) {
+            toComplete.completeExceptionally(reason);
+        }
+        if (resume) {
+            resumeReading.run();
+        }
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
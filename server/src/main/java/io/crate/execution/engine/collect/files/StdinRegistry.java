@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.files;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps track of the {@code COPY FROM STDIN} statements running on this node.
+ * <p>
+ * The connection receiving the data registers a {@link StdinLineIterator} and uses its URI as
+ * source of the {@code COPY FROM}, the {@link io.crate.execution.engine.collect.sources.FileCollectSource}
+ * then looks the iterator up by that URI. As the data is only available on the node handling the
+ * connection, the copy is executed there.
+ */
+@Singleton
+public class StdinRegistry {
+
+    public static final String SCHEME = "stdin";
+
+    private final Executor executor;
+    private final Map<URI, StdinLineIterator> iterators = new ConcurrentHashMap<>();
+
+    @Inject
+    public StdinRegistry(ThreadPool threadPool) {
+        this(threadPool.executor(ThreadPool.Names.SEARCH));
+    }
+
+    public StdinRegistry(Executor executor) {
+        this.executor = executor;
+    }
+
+    public static boolean isStdin(String uri) {
+        return uri.regionMatches(true, 0, SCHEME + ":", 0, SCHEME.length() + 1);
+    }
+
+    /**
+     * @param resumeReading called once the connection can continue reading after
+     *                      {@link StdinLineIterator#feed(byte[], int, int)} requested to stop.
+     */
+    public StdinLineIterator register(Runnable resumeReading) {
+        URI uri = URI.create(SCHEME + ":///" + UUID.randomUUID());
+        StdinLineIterator iterator = new StdinLineIterator(uri, executor, resumeReading);
+        iterators.put(uri, iterator);
+        return iterator;
+    }
+
+    @Nullable
+    public StdinLineIterator get(String uri) {
+        return iterators.get(URI.create(uri));
+    }
+
+    public void unregister(StdinLineIterator iterator) {
+        iterators.remove(iterator.uri());
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.Column;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.ColumnChunk;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.PageHeader;
+
+/**
+ * Decodes the pages of a column chunk into CrateDB values.
+ * <p>
+ * Values are converted from their physical Parquet representation straight into the values CrateDB uses for the
+ * corresponding type: strings for {@code STRING}, epoch milliseconds for {@code DATE} and {@code TIMESTAMP},
+ * {@link BigDecimal} for {@code DECIMAL} and the boxed primitive for all other numeric types.
+ */
+final class ColumnChunkDecoder {
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final long JULIAN_DAY_OF_EPOCH = 2_440_588L;
+
+    private interface ValuesReader {
+        Object next() throws IOException;
+    }
+
+    private ColumnChunkDecoder() {
+    }
+
+    static Object[] decode(FileChannel channel, Column column, ColumnChunk chunk, int numRows) throws IOException {
+        long totalSize = chunk.totalCompressedSize();
+        if (totalSize < 0 || totalSize > Integer.MAX_VALUE) {
+            throw new IOException("Invalid size of Parquet column chunk " + chunk.path() + ": " + totalSize);
+        }
+        int length = (int) totalSize;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = chunk.startOffset();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file while reading Parquet column chunk " + chunk.path());
+            }
+        }
+        byte[] data = buffer.array();
+
+        Object[] values = new Object[numRows];
+        Object[] dictionary = null;
+        int numRead = 0;
+        int pos = 0;
+        while (numRead < numRows && pos < length) {
+            ByteBuffer headerBuffer = ByteBuffer.wrap(data, pos, length - pos);
+            PageHeader header = ParquetMetadata.readPageHeader(headerBuffer);
+            pos = headerBuffer.position();
+            int pageEnd = pos + header.compressedSize();
+            if (header.compressedSize() < 0 || pageEnd > length) {
+                throw new IOException("Parquet page exceeds its column chunk " + chunk.path());
+            }
+            switch (header.type()) {
+                case ParquetMetadata.DICTIONARY_PAGE -> {
+                    byte[] page = decompress(chunk.codec(), data, pos, header.compressedSize(), header.uncompressedSize());
+                    ValuesReader reader = plainReader(column, page, 0, page.length);
+                    dictionary = new Object[header.numValues()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = reader.next();
+                    }
+                }
+                case ParquetMetadata.DATA_PAGE -> {
+                    byte[] page = decompress(chunk.codec(), data, pos, header.compressedSize(), header.uncompressedSize());
+                    int valuesStart = 0;
+                    RleBitPackedDecoder definitionLevels = null;
+                    if (column.optional()) {
+                        if (page.length < 4) {
+                            throw new IOException("Missing definition levels in Parquet page of " + chunk.path());
+                        }
+                        int levelsLength = ByteBuffer.wrap(page, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+                        valuesStart = 4 + levelsLength;
+                        definitionLevels = new RleBitPackedDecoder(page, 4, valuesStart, 1);
+                    }
+                    ValuesReader reader = valuesReader(column, header.encoding(), dictionary, page, valuesStart, page.length);
+                    numRead = readValues(values, numRead, header.numValues(), definitionLevels, reader);
+                }
+                case ParquetMetadata.DATA_PAGE_V2 -> {
+                    int levelsLength = header.repetitionLevelsByteLength() + header.definitionLevelsByteLength();
+                    int definitionLevelsStart = pos + header.repetitionLevelsByteLength();
+                    RleBitPackedDecoder definitionLevels = column.optional()
+                        ? new RleBitPackedDecoder(data, definitionLevelsStart, pos + levelsLength, 1)
+                        : null;
+                    int valuesStart = pos + levelsLength;
+                    byte[] page;
+                    if (header.compressed()) {
+                        page = decompress(
+                            chunk.codec(),
+                            data,
+                            valuesStart,
+                            pageEnd - valuesStart,
+                            header.uncompressedSize() - levelsLength
+                        );
+                    } else {
+                        page = Arrays.copyOfRange(data, valuesStart, pageEnd);
+                    }
+                    ValuesReader reader = valuesReader(column, header.encoding(), dictionary, page, 0, page.length);
+                    numRead = readValues(values, numRead, header.numValues(), definitionLevels, reader);
+                }
+                default -> {
+                    // index pages don't contain values
+                }
+            }
+            pos = pageEnd;
+        }
+        if (numRead != numRows) {
+            throw new IOException(
+                "Parquet column chunk " + chunk.path() + " contains " + numRead + " values, expected " + numRows);
+        }
+        return values;
+    }
+
+    private static int readValues(Object[] values,
+                                  int offset,
+                                  int numValues,
+                                  RleBitPackedDecoder definitionLevels,
+                                  ValuesReader reader) throws IOException {
+        if (offset + numValues > values.length) {
+            throw new IOException("Parquet column chunk contains more values than its row group has rows");
+        }
+        for (int i = 0; i < numValues; i++) {
+            if (definitionLevels == null || definitionLevels.next() == 1) {
+                values[offset + i] = reader.next();
+            }
+        }
+        return offset + numValues;
+    }
+
+    private static ValuesReader valuesReader(Column column,
+                                             int encoding,
+                                             Object[] dictionary,
+                                             byte[] page,
+                                             int start,
+                                             int end) throws IOException {
+        switch (encoding) {
+            case ParquetMetadata.PLAIN:
+                return plainReader(column, page, start, end);
+
+            case ParquetMetadata.PLAIN_DICTIONARY:
+            case ParquetMetadata.RLE_DICTIONARY:
+                if (dictionary == null) {
+                    throw new IOException("Dictionary encoded Parquet page without dictionary in column " + column.name());
+                }
+                if (start >= end) {
+                    return () -> {
+                        throw new IOException("Unexpected end of Parquet page in column " + column.name());
+                    };
+                }
+                RleBitPackedDecoder indices = new RleBitPackedDecoder(page, start + 1, end, page[start]);
+                return () -> {
+                    int idx = indices.next();
+                    if (idx < 0 || idx >= dictionary.length) {
+                        throw new IOException("Invalid dictionary index in Parquet column " + column.name());
+                    }
+                    return dictionary[idx];
+                };
+
+            default:
+                throw new IOException("Unsupported Parquet encoding " + encoding + " in column " + column.name());
+        }
+    }
+
+    private static ValuesReader plainReader(Column column, byte[] page, int start, int end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(page, start, end - start).order(ByteOrder.LITTLE_ENDIAN);
+        switch (column.physicalType()) {
+            case ParquetMetadata.BOOLEAN: {
+                int[] bitIndex = new int[1];
+                return () -> {
+                    int idx = bitIndex[0]++;
+                    int bytePos = start + (idx >>> 3);
+                    if (bytePos >= end) {
+                        throw new IOException("Unexpected end of Parquet page in column " + column.name());
+                    }
+                    return ((page[bytePos] >>> (idx & 7)) & 1) == 1;
+                };
+            }
+            case ParquetMetadata.INT32:
+                return () -> convertInt(column, ensureAvailable(buffer, 4, column).getInt());
+
+            case ParquetMetadata.INT64:
+                return () -> convertLong(column, ensureAvailable(buffer, 8, column).getLong());
+
+            case ParquetMetadata.INT96:
+                return () -> {
+                    ensureAvailable(buffer, 12, column);
+                    long nanosOfDay = buffer.getLong();
+                    long julianDay = Integer.toUnsignedLong(buffer.getInt());
+                    return (julianDay - JULIAN_DAY_OF_EPOCH) * MILLIS_PER_DAY + Math.floorDiv(nanosOfDay, 1_000_000L);
+                };
+
+            case ParquetMetadata.FLOAT:
+                return () -> ensureAvailable(buffer, 4, column).getFloat();
+
+            case ParquetMetadata.DOUBLE:
+                return () -> ensureAvailable(buffer, 8, column).getDouble();
+
+            case ParquetMetadata.BYTE_ARRAY:
+                return () -> {
+                    int length = ensureAvailable(buffer, 4, column).getInt();
+                    if (length < 0) {
+                        throw new IOException("Invalid length of Parquet value in column " + column.name());
+                    }
+                    byte[] bytes = new byte[length];
+                    ensureAvailable(buffer, length, column).get(bytes);
+                    return convertBytes(column, bytes);
+                };
+
+            case ParquetMetadata.FIXED_LEN_BYTE_ARRAY:
+                return () -> {
+                    byte[] bytes = new byte[column.typeLength()];
+                    ensureAvailable(buffer, bytes.length, column).get(bytes);
+                    return convertBytes(column, bytes);
+                };
+
+            default:
+                throw new IOException("Unsupported Parquet type " + column.physicalType() + " of column " + column.name());
+        }
+    }
+
+    private static ByteBuffer ensureAvailable(ByteBuffer buffer, int numBytes, Column column) throws IOException {
+        if (buffer.remaining() < numBytes) {
+            throw new IOException("Unexpected end of Parquet page in column " + column.name());
+        }
+        return buffer;
+    }
+
+    private static Object convertInt(Column column, int value) {
+        return switch (column.logicalType()) {
+            case DATE -> value * MILLIS_PER_DAY;
+            case DECIMAL -> BigDecimal.valueOf(value, column.scale());
+            case UINT32 -> Integer.toUnsignedLong(value);
+            default -> value;
+        };
+    }
+
+    private static Object convertLong(Column column, long value) {
+        return switch (column.logicalType()) {
+            case TIMESTAMP_MICROS -> Math.floorDiv(value, 1_000L);
+            case TIMESTAMP_NANOS -> Math.floorDiv(value, 1_000_000L);
+            case DECIMAL -> BigDecimal.valueOf(value, column.scale());
+            default -> value;
+        };
+    }
+
+    private static Object convertBytes(Column column, byte[] bytes) {
+        return switch (column.logicalType()) {
+            case STRING -> new String(bytes, StandardCharsets.UTF_8);
+            case DECIMAL -> new BigDecimal(new BigInteger(bytes), column.scale());
+            default -> bytes;
+        };
+    }
+
+    private static byte[] decompress(int codec,
+                                     byte[] data,
+                                     int offset,
+                                     int length,
+                                     int uncompressedSize) throws IOException {
+        switch (codec) {
+            case ParquetMetadata.UNCOMPRESSED:
+                return Arrays.copyOfRange(data, offset, offset + length);
+
+            case ParquetMetadata.SNAPPY:
+                return Snappy.uncompress(data, offset, length);
+
+            case ParquetMetadata.GZIP:
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data, offset, length))) {
+                    byte[] page = in.readAllBytes();
+                    if (page.length != uncompressedSize) {
+                        throw new IOException("Parquet page size doesn't match its uncompressed size");
+                    }
+                    return page;
+                }
+
+            default:
+                throw new IOException(
+                    "Unsupported Parquet compression codec " + codec + ", only uncompressed, snappy and gzip are supported");
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of the Parquet file and page metadata which are needed to read flat schemas.
+ * See <a href="https://github.com/apache/parquet-format/blob/master/src/main/thrift/parquet.thrift">parquet.thrift</a>
+ * for the field ids.
+ */
+final class ParquetMetadata {
+
+    // Physical types
+    static final int BOOLEAN = 0;
+    static final int INT32 = 1;
+    static final int INT64 = 2;
+    static final int INT96 = 3;
+    static final int FLOAT = 4;
+    static final int DOUBLE = 5;
+    static final int BYTE_ARRAY = 6;
+    static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+    // Compression codecs
+    static final int UNCOMPRESSED = 0;
+    static final int SNAPPY = 1;
+    static final int GZIP = 2;
+
+    // Page types
+    static final int DATA_PAGE = 0;
+    static final int DICTIONARY_PAGE = 2;
+    static final int DATA_PAGE_V2 = 3;
+
+    // Encodings
+    static final int PLAIN = 0;
+    static final int PLAIN_DICTIONARY = 2;
+    static final int RLE_DICTIONARY = 8;
+
+    // Repetition types
+    private static final int OPTIONAL = 1;
+    private static final int REPEATED = 2;
+
+    // Converted types, the legacy annotation of logical types
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int CONVERTED_ENUM = 4;
+    private static final int CONVERTED_DECIMAL = 5;
+    private static final int CONVERTED_DATE = 6;
+    private static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+    private static final int CONVERTED_TIMESTAMP_MICROS = 10;
+    private static final int CONVERTED_UINT_32 = 13;
+    private static final int CONVERTED_JSON = 19;
+
+    private ParquetMetadata() {
+    }
+
+    /**
+     * Logical types which need a conversion of the physical value to get the CrateDB value.
+     */
+    enum LogicalType {
+        NONE,
+        STRING,
+        DATE,
+        TIMESTAMP_MILLIS,
+        TIMESTAMP_MICROS,
+        TIMESTAMP_NANOS,
+        DECIMAL,
+        UINT32
+    }
+
+    record Column(String name, int physicalType, int typeLength, boolean optional, LogicalType logicalType, int scale) {
+    }
+
+    record ColumnChunk(String path,
+                       int codec,
+                       long numValues,
+                       long dataPageOffset,
+                       long dictionaryPageOffset,
+                       long totalCompressedSize) {
+
+        long startOffset() {
+            if (dictionaryPageOffset > 0 && dictionaryPageOffset < dataPageOffset) {
+                return dictionaryPageOffset;
+            }
+            return dataPageOffset;
+        }
+    }
+
+    record RowGroup(long numRows, List<ColumnChunk> columns) {
+    }
+
+    record FileMetadata(List<Column> columns, List<RowGroup> rowGroups) {
+    }
+
+    record PageHeader(int type,
+                      int uncompressedSize,
+                      int compressedSize,
+                      int numValues,
+                      int encoding,
+                      int definitionLevelsByteLength,
+                      int repetitionLevelsByteLength,
+                      boolean compressed) {
+    }
+
+    static FileMetadata readFileMetadata(ByteBuffer buffer) throws IOException {
+        ThriftCompactReader reader = new ThriftCompactReader(buffer);
+        List<Column> columns = List.of();
+        List<RowGroup> rowGroups = new ArrayList<>();
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                case 2 -> columns = readSchema(reader);
+                case 4 -> {
+                    int size = reader.readListBegin();
+                    for (int i = 0; i < size; i++) {
+                        rowGroups.add(readRowGroup(reader));
+                    }
+                }
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        return new FileMetadata(columns, rowGroups);
+    }
+
+    static PageHeader readPageHeader(ByteBuffer buffer) throws IOException {
+        ThriftCompactReader reader = new ThriftCompactReader(buffer);
+        int type = -1;
+        int uncompressedSize = 0;
+        int compressedSize = 0;
+        int numValues = 0;
+        int encoding = PLAIN;
+        int definitionLevelsByteLength = 0;
+        int repetitionLevelsByteLength = 0;
+        boolean compressed = true;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                case 1 -> type = reader.readI32();
+                case 2 -> uncompressedSize = reader.readI32();
+                case 3 -> compressedSize = reader.readI32();
+                // data_page_header and dictionary_page_header both start with num_values and encoding
+                case 5, 7 -> {
+                    reader.readStructBegin();
+                    int headerFieldId;
+                    while ((headerFieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+                        switch (headerFieldId) {
+                            case 1 -> numValues = reader.readI32();
+                            case 2 -> encoding = reader.readI32();
+                            default -> reader.skipField();
+                        }
+                    }
+                    reader.readStructEnd();
+                }
+                case 8 -> {
+                    reader.readStructBegin();
+                    int headerFieldId;
+                    while ((headerFieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+                        switch (headerFieldId) {
+                            case 1 -> numValues = reader.readI32();
+                            case 4 -> encoding = reader.readI32();
+                            case 5 -> definitionLevelsByteLength = reader.readI32();
+                            case 6 -> repetitionLevelsByteLength = reader.readI32();
+                            case 7 -> compressed = reader.readBool();
+                            default -> reader.skipField();
+                        }
+                    }
+                    reader.readStructEnd();
+                }
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        if (type == -1) {
+            throw new IOException("Parquet page header without page type");
+        }
+        return new PageHeader(
+            type,
+            uncompressedSize,
+            compressedSize,
+            numValues,
+            encoding,
+            definitionLevelsByteLength,
+            repetitionLevelsByteLength,
+            compressed
+        );
+    }
+
+    private static List<Column> readSchema(ThriftCompactReader reader) throws IOException {
+        int size = reader.readListBegin();
+        List<Column> columns = new ArrayList<>(Math.max(size - 1, 0));
+        for (int i = 0; i < size; i++) {
+            int physicalType = -1;
+            int typeLength = 0;
+            int repetition = 0;
+            String name = null;
+            int numChildren = 0;
+            int convertedType = -1;
+            int scale = 0;
+            LogicalType logicalType = null;
+            reader.readStructBegin();
+            int fieldId;
+            while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+                switch (fieldId) {
+                    case 1 -> physicalType = reader.readI32();
+                    case 2 -> typeLength = reader.readI32();
+                    case 3 -> repetition = reader.readI32();
+                    case 4 -> name = reader.readString();
+                    case 5 -> numChildren = reader.readI32();
+                    case 6 -> convertedType = reader.readI32();
+                    case 7 -> scale = reader.readI32();
+                    case 10 -> logicalType = readLogicalType(reader);
+                    default -> reader.skipField();
+                }
+            }
+            reader.readStructEnd();
+            if (i == 0) {
+                // root of the schema
+                continue;
+            }
+            if (numChildren > 0 || repetition == REPEATED) {
+                throw new IOException("Nested or repeated Parquet columns are not supported: " + name);
+            }
+            if (logicalType == null) {
+                logicalType = fromConvertedType(convertedType);
+            }
+            columns.add(new Column(name, physicalType, typeLength, repetition == OPTIONAL, logicalType, scale));
+        }
+        return columns;
+    }
+
+    private static LogicalType readLogicalType(ThriftCompactReader reader) throws IOException {
+        LogicalType logicalType = LogicalType.NONE;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                // STRING, ENUM, JSON
+                case 1, 4, 12 -> {
+                    logicalType = LogicalType.STRING;
+                    reader.skipField();
+                }
+                case 5 -> {
+                    logicalType = LogicalType.DECIMAL;
+                    reader.skipField();
+                }
+                case 6 -> {
+                    logicalType = LogicalType.DATE;
+                    reader.skipField();
+                }
+                case 8 -> logicalType = readTimestampType(reader);
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        return logicalType;
+    }
+
+    private static LogicalType readTimestampType(ThriftCompactReader reader) throws IOException {
+        LogicalType logicalType = LogicalType.NONE;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            if (fieldId == 2) {
+                reader.readStructBegin();
+                int unitFieldId;
+                while ((unitFieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+                    logicalType = switch (unitFieldId) {
+                        case 1 -> LogicalType.TIMESTAMP_MILLIS;
+                        case 2 -> LogicalType.TIMESTAMP_MICROS;
+                        case 3 -> LogicalType.TIMESTAMP_NANOS;
+                        default -> LogicalType.NONE;
+                    };
+                    reader.skipField();
+                }
+                reader.readStructEnd();
+            } else {
+                reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        return logicalType;
+    }
+
+    private static LogicalType fromConvertedType(int convertedType) {
+        return switch (convertedType) {
+            case CONVERTED_UTF8, CONVERTED_ENUM, CONVERTED_JSON -> LogicalType.STRING;
+            case CONVERTED_DECIMAL -> LogicalType.DECIMAL;
+            case CONVERTED_DATE -> LogicalType.DATE;
+            case CONVERTED_TIMESTAMP_MILLIS -> LogicalType.TIMESTAMP_MILLIS;
+            case CONVERTED_TIMESTAMP_MICROS -> LogicalType.TIMESTAMP_MICROS;
+            case CONVERTED_UINT_32 -> LogicalType.UINT32;
+            default -> LogicalType.NONE;
+        };
+    }
+
+    private static RowGroup readRowGroup(ThriftCompactReader reader) throws IOException {
+        List<ColumnChunk> columns = new ArrayList<>();
+        long numRows = 0;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                case 1 -> {
+                    int size = reader.readListBegin();
+                    for (int i = 0; i < size; i++) {
+                        columns.add(readColumnChunk(reader));
+                    }
+                }
+                case 3 -> numRows = reader.readI64();
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        return new RowGroup(numRows, columns);
+    }
+
+    private static ColumnChunk readColumnChunk(ThriftCompactReader reader) throws IOException {
+        ColumnChunk columnChunk = null;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                case 1 -> throw new IOException("Parquet column chunks stored in external files are not supported");
+                case 3 -> columnChunk = readColumnMetadata(reader);
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        if (columnChunk == null) {
+            throw new IOException("Parquet column chunk without metadata");
+        }
+        return columnChunk;
+    }
+
+    private static ColumnChunk readColumnMetadata(ThriftCompactReader reader) throws IOException {
+        StringBuilder path = new StringBuilder();
+        int codec = UNCOMPRESSED;
+        long numValues = 0;
+        long totalCompressedSize = 0;
+        long dataPageOffset = 0;
+        long dictionaryPageOffset = 0;
+        reader.readStructBegin();
+        int fieldId;
+        while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+            switch (fieldId) {
+                case 3 -> {
+                    int size = reader.readListBegin();
+                    for (int i = 0; i < size; i++) {
+                        if (i > 0) {
+                            path.append('.');
+                        }
+                        path.append(reader.readString());
+                    }
+                }
+                case 4 -> codec = reader.readI32();
+                case 5 -> numValues = reader.readI64();
+                case 7 -> totalCompressedSize = reader.readI64();
+                case 9 -> dataPageOffset = reader.readI64();
+                case 11 -> dictionaryPageOffset = reader.readI64();
+                default -> reader.skipField();
+            }
+        }
+        reader.readStructEnd();
+        return new ColumnChunk(
+            path.toString(),
+            codec,
+            numValues,
+            dataPageOffset,
+            dictionaryPageOffset,
+            totalCompressedSize
+        );
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import io.crate.common.collections.Lists2;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.Column;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.ColumnChunk;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.FileMetadata;
+import io.crate.execution.engine.collect.files.parquet.ParquetMetadata.RowGroup;
+
+/**
+ * Reads Parquet files with a flat schema one row group at a time.
+ * <p>
+ * Only the requested columns of a row group are read and decoded. Supported are the physical types, the
+ * {@code PLAIN} and dictionary encodings, data pages of version 1 and 2 and uncompressed, snappy or gzip
+ * compressed pages.
+ */
+public final class ParquetReader implements Closeable {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FOOTER_LENGTH_SIZE = 4;
+
+    private final FileChannel channel;
+    private final FileMetadata metadata;
+    private final List<String> columnNames;
+
+    private ParquetReader(FileChannel channel, FileMetadata metadata) {
+        this.channel = channel;
+        this.metadata = metadata;
+        this.columnNames = Lists2.map(metadata.columns(), Column::name);
+    }
+
+    public static ParquetReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ParquetReader(channel, readFooter(channel));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static FileMetadata readFooter(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < 2L * MAGIC.length + FOOTER_LENGTH_SIZE) {
+            throw new IOException("File is too small to be a Parquet file");
+        }
+        ByteBuffer tail = ByteBuffer.allocate(FOOTER_LENGTH_SIZE + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, fileSize - tail.capacity());
+        byte[] magic = new byte[MAGIC.length];
+        tail.position(FOOTER_LENGTH_SIZE);
+        tail.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("File is not a Parquet file, the magic number at its end is missing");
+        }
+        int footerLength = tail.getInt(0);
+        long footerStart = fileSize - tail.capacity() - footerLength;
+        if (footerLength <= 0 || footerStart < MAGIC.length) {
+            throw new IOException("Invalid Parquet footer length: " + footerLength);
+        }
+        ByteBuffer footer = ByteBuffer.allocate(footerLength);
+        readFully(channel, footer, footerStart);
+        footer.flip();
+        return ParquetMetadata.readFileMetadata(footer);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of Parquet file");
+            }
+        }
+    }
+
+    /**
+     * Names of the columns of the file, in the order of the schema.
+     */
+    public List<String> columnNames() {
+        return columnNames;
+    }
+
+    public int numRowGroups() {
+        return metadata.rowGroups().size();
+    }
+
+    public int numRows(int rowGroup) throws IOException {
+        long numRows = metadata.rowGroups().get(rowGroup).numRows();
+        if (numRows < 0 || numRows > Integer.MAX_VALUE) {
+            throw new IOException("Invalid number of rows in Parquet row group: " + numRows);
+        }
+        return (int) numRows;
+    }
+
+    /**
+     * Reads the values of the given columns of a row group.
+     *
+     * @param columns indices of the columns in {@link #columnNames()}
+     * @return the values per column, in the order of {@code columns}. A value is null if it's null in the file.
+     */
+    public Object[][] readRowGroup(int rowGroup, int[] columns) throws IOException {
+        RowGroup group = metadata.rowGroups().get(rowGroup);
+        int numRows = numRows(rowGroup);
+        Object[][] values = new Object[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            Column column = metadata.columns().get(columns[i]);
+            ColumnChunk chunk = findColumnChunk(group, column, columns[i]);
+            values[i] = ColumnChunkDecoder.decode(channel, column, chunk, numRows);
+        }
+        return values;
+    }
+
+    private static ColumnChunk findColumnChunk(RowGroup group, Column column, int columnIdx) throws IOException {
+        List<ColumnChunk> chunks = group.columns();
+        if (columnIdx < chunks.size() && chunks.get(columnIdx).path().equals(column.name())) {
+            return chunks.get(columnIdx);
+        }
+        for (ColumnChunk chunk : chunks) {
+            if (chunk.path().equals(column.name())) {
+                return chunk;
+            }
+        }
+        throw new IOException("Parquet row group is missing column " + column.name());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
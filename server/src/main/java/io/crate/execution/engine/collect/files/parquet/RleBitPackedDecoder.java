@@ -0,0 +1,114 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.IOException;
+
+/**
+ * Decoder for the RLE/bit-packing hybrid encoding used by Parquet for definition levels and dictionary indices.
+ */
+final class RleBitPackedDecoder {
+
+    private final byte[] data;
+    private final int end;
+    private final int bitWidth;
+    private final int bytesPerRleValue;
+    private final int mask;
+
+    private int pos;
+    private int rleRemaining;
+    private int rleValue;
+    private int packedStart;
+    private int packedIndex;
+    private int packedCount;
+
+    RleBitPackedDecoder(byte[] data, int offset, int end, int bitWidth) throws IOException {
+        if (bitWidth < 0 || bitWidth > 32) {
+            throw new IOException("Invalid bit width for RLE/bit-packed data: " + bitWidth);
+        }
+        this.data = data;
+        this.pos = offset;
+        this.end = end;
+        this.bitWidth = bitWidth;
+        this.bytesPerRleValue = (bitWidth + 7) >>> 3;
+        this.mask = bitWidth == 32 ? -1 : (1 << bitWidth) - 1;
+    }
+
+    int next() throws IOException {
+        if (bitWidth == 0) {
+            return 0;
+        }
+        while (true) {
+            if (rleRemaining > 0) {
+                rleRemaining--;
+                return rleValue;
+            }
+            if (packedIndex < packedCount) {
+                return readPacked(packedIndex++);
+            }
+            readRunHeader();
+        }
+    }
+
+    private void readRunHeader() throws IOException {
+        int header = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= end || shift > 28) {
+                throw new IOException("Unexpected end of RLE/bit-packed data");
+            }
+            int b = data[pos++] & 0xFF;
+            header |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if ((header & 1) == 0) {
+            rleRemaining = header >>> 1;
+            if (pos + bytesPerRleValue > end) {
+                throw new IOException("Unexpected end of RLE/bit-packed data");
+            }
+            int value = 0;
+            for (int i = 0; i < bytesPerRleValue; i++) {
+                value |= (data[pos++] & 0xFF) << (8 * i);
+            }
+            rleValue = value;
+        } else {
+            int numGroups = header >>> 1;
+            packedStart = pos;
+            packedIndex = 0;
+            packedCount = numGroups * 8;
+            pos = Math.min(end, pos + numGroups * bitWidth);
+        }
+    }
+
+    private int readPacked(int index) {
+        long bitOffset = (long) index * bitWidth;
+        int bytePos = packedStart + (int) (bitOffset >>> 3);
+        int shift = (int) (bitOffset & 7);
+        int numBytes = (shift + bitWidth + 7) >>> 3;
+        long bits = 0;
+        for (int i = 0; i < numBytes && bytePos + i < end; i++) {
+            bits |= (long) (data[bytePos + i] & 0xFF) << (8 * i);
+        }
+        return (int) (bits >>> shift) & mask;
+    }
+}
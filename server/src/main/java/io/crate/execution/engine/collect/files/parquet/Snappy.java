@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.IOException;
+
+/**
+ * Decompressor for the raw Snappy format, which Parquet uses to compress pages.
+ * See <a href="https://github.com/google/snappy/blob/main/format_description.txt">format_description.txt</a>.
+ */
+final class Snappy {
+
+    private static final int LITERAL = 0;
+    private static final int COPY_1_BYTE_OFFSET = 1;
+    private static final int COPY_2_BYTE_OFFSET = 2;
+
+    private Snappy() {
+    }
+
+    static byte[] uncompress(byte[] input, int offset, int length) throws IOException {
+        int end = offset + length;
+        int pos = offset;
+
+        // The uncompressed length is stored as varint in front of the compressed data
+        int uncompressedLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= end || shift > 28) {
+                throw new IOException("Invalid snappy length header");
+            }
+            int b = input[pos++] & 0xFF;
+            uncompressedLength |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (uncompressedLength < 0) {
+            throw new IOException("Invalid snappy length header");
+        }
+        byte[] output = new byte[uncompressedLength];
+        int outPos = 0;
+        while (pos < end) {
+            int tag = input[pos++] & 0xFF;
+            int copyLength;
+            int copyOffset;
+            switch (tag & 0x03) {
+                case LITERAL -> {
+                    int literalLength = tag >>> 2;
+                    if (literalLength >= 60) {
+                        int numBytes = literalLength - 59;
+                        if (pos + numBytes > end) {
+                            throw new IOException("Corrupt snappy literal");
+                        }
+                        literalLength = 0;
+                        for (int i = 0; i < numBytes; i++) {
+                            literalLength |= (input[pos++] & 0xFF) << (8 * i);
+                        }
+                    }
+                    literalLength++;
+                    if (literalLength <= 0 || pos + literalLength > end || outPos + literalLength > output.length) {
+                        throw new IOException("Corrupt snappy literal");
+                    }
+                    System.arraycopy(input, pos, output, outPos, literalLength);
+                    pos += literalLength;
+                    outPos += literalLength;
+                    continue;
+                }
+                case COPY_1_BYTE_OFFSET -> {
+                    if (pos + 1 > end) {
+                        throw new IOException("Corrupt snappy copy");
+                    }
+                    copyLength = 4 + ((tag >>> 2) & 0x07);
+                    copyOffset = ((tag >>> 5) << 8) | (input[pos++] & 0xFF);
+                }
+                case COPY_2_BYTE_OFFSET -> {
+                    if (pos + 2 > end) {
+                        throw new IOException("Corrupt snappy copy");
+                    }
+                    copyLength = 1 + (tag >>> 2);
+                    copyOffset = (input[pos] & 0xFF) | ((input[pos + 1] & 0xFF) << 8);
+                    pos += 2;
+                }
+                default -> {
+                    if (pos + 4 > end) {
+                        throw new IOException("Corrupt snappy copy");
+                    }
+                    copyLength = 1 + (tag >>> 2);
+                    copyOffset = (input[pos] & 0xFF)
+                        | ((input[pos + 1] & 0xFF) << 8)
+                        | ((input[pos + 2] & 0xFF) << 16)
+                        | ((input[pos + 3] & 0xFF) << 24);
+                    pos += 4;
+                }
+            }
+            if (copyOffset <= 0 || copyOffset > outPos || outPos + copyLength > output.length) {
+                throw new IOException("Corrupt snappy copy");
+            }
+            // The source and target ranges may overlap, which repeats the copied bytes
+            for (int i = 0; i < copyLength; i++) {
+                output[outPos] = output[outPos - copyOffset];
+                outPos++;
+            }
+        }
+        if (outPos != uncompressedLength) {
+            throw new IOException("Snappy data is shorter than its declared length");
+        }
+        return output;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader for the Thrift compact protocol, which is used to encode the metadata of Parquet files.
+ * <p>
+ * Structs are read field by field:
+ *
+ * <pre>
+ *     reader.readStructBegin();
+ *     int fieldId;
+ *     while ((fieldId = reader.readFieldBegin()) != ThriftCompactReader.STOP) {
+ *         switch (fieldId) {
+ *             case 1 -> value = reader.readI32();
+ *             default -> reader.skipField();
+ *         }
+ *     }
+ *     reader.readStructEnd();
+ * </pre>
+ */
+final class ThriftCompactReader {
+
+    static final int STOP = -1;
+
+    private static final int TYPE_STOP = 0;
+    private static final int TYPE_BOOLEAN_TRUE = 1;
+    private static final int TYPE_BOOLEAN_FALSE = 2;
+    private static final int TYPE_BYTE = 3;
+    private static final int TYPE_I16 = 4;
+    private static final int TYPE_I32 = 5;
+    private static final int TYPE_I64 = 6;
+    private static final int TYPE_DOUBLE = 7;
+    private static final int TYPE_BINARY = 8;
+    private static final int TYPE_LIST = 9;
+    private static final int TYPE_SET = 10;
+    private static final int TYPE_MAP = 11;
+    private static final int TYPE_STRUCT = 12;
+
+    private static final int MAX_NESTING = 64;
+
+    private final ByteBuffer buffer;
+    private final short[] lastFieldIds = new short[MAX_NESTING];
+    private int depth = 0;
+    private short lastFieldId = 0;
+    private int fieldType;
+    private int listElementType;
+
+    /**
+     * @param buffer the encoded data, starting at the current position of the buffer. The position of the buffer
+     *               is advanced while reading.
+     */
+    ThriftCompactReader(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void readStructBegin() throws IOException {
+        if (depth == MAX_NESTING) {
+            throw new IOException("Thrift structure is nested too deeply");
+        }
+        lastFieldIds[depth++] = lastFieldId;
+        lastFieldId = 0;
+    }
+
+    void readStructEnd() {
+        lastFieldId = lastFieldIds[--depth];
+    }
+
+    /**
+     * Reads the header of the next field of the current struct.
+     *
+     * @return the id of the field or {@link #STOP} if there are no more fields.
+     */
+    int readFieldBegin() throws IOException {
+        int header = readUnsignedByte();
+        int type = header & 0x0F;
+        if (type == TYPE_STOP) {
+            return STOP;
+        }
+        int delta = header >>> 4;
+        if (delta == 0) {
+            lastFieldId = (short) zigzagToInt(readVarint());
+        } else {
+            lastFieldId = (short) (lastFieldId + delta);
+        }
+        fieldType = type;
+        return lastFieldId;
+    }
+
+    boolean readBool() throws IOException {
+        if (fieldType == TYPE_BOOLEAN_TRUE) {
+            return true;
+        } else if (fieldType == TYPE_BOOLEAN_FALSE) {
+            return false;
+        }
+        throw new IOException("Expected a boolean field but got type " + fieldType);
+    }
+
+    byte readByte() throws IOException {
+        ensureAvailable(1);
+        return buffer.get();
+    }
+
+    int readI32() throws IOException {
+        return zigzagToInt(readVarint());
+    }
+
+    long readI64() throws IOException {
+        return zigzagToLong(readVarint());
+    }
+
+    double readDouble() throws IOException {
+        ensureAvailable(8);
+        return buffer.getDouble();
+    }
+
+    byte[] readBinary() throws IOException {
+        int length = (int) readVarint();
+        if (length < 0) {
+            throw new IOException("Invalid thrift binary length: " + length);
+        }
+        ensureAvailable(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    String readString() throws IOException {
+        return new String(readBinary(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the header of a list.
+     *
+     * @return the number of elements of the list.
+     */
+    int readListBegin() throws IOException {
+        int header = readUnsignedByte();
+        int size = header >>> 4;
+        listElementType = header & 0x0F;
+        if (size == 15) {
+            size = (int) readVarint();
+        }
+        if (size < 0) {
+            throw new IOException("Invalid thrift list size: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Skips the value of the field whose header was read last.
+     */
+    void skipField() throws IOException {
+        skip(fieldType, false);
+    }
+
+    /**
+     * Skips the remaining elements of a list whose header was read last.
+     */
+    void skipListElements(int numElements) throws IOException {
+        int elementType = listElementType;
+        for (int i = 0; i < numElements; i++) {
+            skip(elementType, true);
+        }
+    }
+
+    private void skip(int type, boolean inContainer) throws IOException {
+        switch (type) {
+            case TYPE_BOOLEAN_TRUE, TYPE_BOOLEAN_FALSE -> {
+                if (inContainer) {
+                    readByte();
+                }
+            }
+            case TYPE_BYTE -> readByte();
+            case TYPE_I16, TYPE_I32, TYPE_I64 -> readVarint();
+            case TYPE_DOUBLE -> readDouble();
+            case TYPE_BINARY -> readBinary();
+            case TYPE_LIST, TYPE_SET -> skipListElements(readListBegin());
+            case TYPE_MAP -> {
+                int size = (int) readVarint();
+                if (size > 0) {
+                    int types = readUnsignedByte();
+                    for (int i = 0; i < size; i++) {
+                        skip(types >>> 4, true);
+                        skip(types & 0x0F, true);
+                    }
+                }
+            }
+            case TYPE_STRUCT -> {
+                readStructBegin();
+                while (readFieldBegin() != STOP) {
+                    skipField();
+                }
+                readStructEnd();
+            }
+            default -> throw new IOException("Unknown thrift type: " + type);
+        }
+    }
+
+    private int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    private long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Invalid thrift varint");
+    }
+
+    private void ensureAvailable(int numBytes) throws IOException {
+        if (buffer.remaining() < numBytes) {
+            throw new IOException("Unexpected end of thrift data");
+        }
+    }
+
+    private static int zigzagToInt(long n) {
+        return (int) (n >>> 1) ^ -(int) (n & 1);
+    }
+
+    private static long zigzagToLong(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+}
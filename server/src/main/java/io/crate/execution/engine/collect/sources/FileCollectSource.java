@@ -27,10 +27,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
 
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import io.crate.analyze.AnalyzedCopyFrom;
@@ -45,8 +48,12 @@ import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.files.FileInputFactory;
 import io.crate.execution.engine.collect.files.FileReadingIterator;
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
 import io.crate.execution.engine.collect.files.LineCollectorExpression;
-import io.crate.execution.engine.collect.files.LineProcessor;
+import io.crate.execution.engine.collect.files.ParallelLineProcessor;
+import io.crate.execution.engine.collect.files.ParquetReadingIterator;
+import io.crate.execution.engine.collect.files.StdinRegistry;
+import io.crate.execution.support.ThreadPools;
 import io.crate.expression.InputFactory;
 import io.crate.expression.reference.file.FileLineReferenceResolver;
 import io.crate.expression.symbol.Symbol;
@@ -64,17 +71,27 @@ public class FileCollectSource implements CollectSource {
     private final InputFactory inputFactory;
     private final NodeContext nodeCtx;
     private final ThreadPool threadPool;
+    private final ThreadPoolExecutor parseExecutor;
+    private final IntSupplier availableThreads;
+    private final StdinRegistry stdinRegistry;
 
     @Inject
     public FileCollectSource(NodeContext nodeCtx,
                              ClusterService clusterService,
                              Map<String, FileInputFactory> fileInputFactoryMap,
-                             ThreadPool threadPool) {
+                             ThreadPool threadPool,
+                             StdinRegistry stdinRegistry) {
         this.fileInputFactoryMap = fileInputFactoryMap;
+        this.stdinRegistry = stdinRegistry;
         this.nodeCtx = nodeCtx;
         this.inputFactory = new InputFactory(nodeCtx);
         this.clusterService = clusterService;
         this.threadPool = threadPool;
+        this.parseExecutor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
+        this.availableThreads = ThreadPools.numIdleThreads(
+            parseExecutor,
+            EsExecutors.numberOfProcessors(clusterService.getSettings())
+        );
     }
 
     @Override
@@ -88,26 +105,49 @@ public class FileCollectSource implements CollectSource {
         ctx.add(collectPhase.toCollect());
 
         List<String> fileUris = targetUriToStringList(txnCtx, nodeCtx, fileUriCollectPhase.targetUri());
-        FileReadingIterator fileReadingIterator = new FileReadingIterator(
-            fileUris,
-            fileUriCollectPhase.compression(),
-            fileInputFactoryMap,
-            fileUriCollectPhase.sharedStorage(),
-            fileUriCollectPhase.nodeIds().size(),
-            getReaderNumber(fileUriCollectPhase.nodeIds(), clusterService.state().nodes().getLocalNodeId()),
-            fileUriCollectPhase.withClauseOptions(),
-            threadPool.scheduler()
-        );
+        if (fileUriCollectPhase.inputFormat() == FileUriCollectPhase.InputFormat.PARQUET) {
+            return CompletableFuture.completedFuture(new ParquetReadingIterator(
+                fileUris,
+                fileInputFactoryMap,
+                fileUriCollectPhase.sharedStorage(),
+                fileUriCollectPhase.nodeIds().size(),
+                getReaderNumber(fileUriCollectPhase.nodeIds(), clusterService.state().nodes().getLocalNodeId()),
+                fileUriCollectPhase.withClauseOptions(),
+                ctx.topLevelInputs(),
+                ctx.expressions(),
+                fileUriCollectPhase.targetColumns()
+            ));
+        }
+        BatchIterator<LineCursor> lines;
+        if (fileUris.size() == 1 && StdinRegistry.isStdin(fileUris.get(0))) {
+            lines = stdinRegistry.get(fileUris.get(0));
+            if (lines == null) {
+                throw new IllegalStateException("No COPY FROM STDIN in progress for " + fileUris.get(0));
+            }
+        } else {
+            lines = new FileReadingIterator(
+                fileUris,
+                fileUriCollectPhase.compression(),
+                fileInputFactoryMap,
+                fileUriCollectPhase.sharedStorage(),
+                fileUriCollectPhase.nodeIds().size(),
+                getReaderNumber(fileUriCollectPhase.nodeIds(), clusterService.state().nodes().getLocalNodeId()),
+                fileUriCollectPhase.withClauseOptions(),
+                threadPool.scheduler()
+            );
+        }
         CopyFromParserProperties parserProperties = fileUriCollectPhase.parserProperties();
-        LineProcessor lineProcessor = new LineProcessor(
+        ParallelLineProcessor lineProcessor = new ParallelLineProcessor(
             parserProperties.skipNumLines() > 0
-                ? new SkippingBatchIterator<>(fileReadingIterator, (int) parserProperties.skipNumLines())
-                : fileReadingIterator,
+                ? new SkippingBatchIterator<>(lines, (int) parserProperties.skipNumLines())
+                : lines,
             ctx.topLevelInputs(),
             ctx.expressions(),
             fileUriCollectPhase.inputFormat(),
             parserProperties,
-            fileUriCollectPhase.targetColumns()
+            fileUriCollectPhase.targetColumns(),
+            parseExecutor,
+            availableThreads.getAsInt()
         );
         return CompletableFuture.completedFuture(lineProcessor);
     }
@@ -86,6 +86,7 @@ import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
 import io.crate.execution.engine.pipeline.Projectors;
 import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.execution.jobs.SharedShardContexts;
@@ -135,6 +136,13 @@ import io.crate.types.DataType;
  *                     (with concurrent/ loadNextBatch of sources)
  * </pre>
  *
+ * <p>
+ *     If the shard projections only compute partial aggregations, large shards are additionally split into
+ *     slices of segments or doc-id ranges (See {@link io.crate.execution.engine.collect.collectors.LeafDocRange}).
+ *     Each slice gets its own LuceneBatchIterator and CollectingBatchIterator, or its own doc-values based
+ *     aggregating iterator, so that nodes with fewer shards than processors can still make use of all of them.
+ * </p>
+ *
  * In other cases multiple shards are simply processed sequentially by concatenating the BatchIterators
  */
 @Singleton
@@ -154,6 +162,7 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
     private final StaticTableReferenceResolver<UnassignedShard> unassignedShardReferenceResolver;
     private final StaticTableReferenceResolver<ShardRowContext> shardReferenceResolver;
     private final IntSupplier availableThreads;
+    private final int numProcessors;
 
     @Inject
     public ShardCollectSource(Settings settings,
@@ -167,7 +176,8 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
                               RemoteCollectorFactory remoteCollectorFactory,
                               SystemCollectSource systemCollectSource,
                               CircuitBreakerService circuitBreakerService,
-                              ShardCollectorProviderFactory shardCollectorProviderFactory) {
+                              ShardCollectorProviderFactory shardCollectorProviderFactory,
+                              SpillService spillService) {
         this.unassignedShardReferenceResolver = new StaticTableReferenceResolver<>(
             SysShardsTableInfo.unassignedShardsExpressions());
         this.shardReferenceResolver = new StaticTableReferenceResolver<>(SysShardsTableInfo.create().expressions());
@@ -175,7 +185,8 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
         this.clusterService = clusterService;
         this.remoteCollectorFactory = remoteCollectorFactory;
         ThreadPoolExecutor executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
-        this.availableThreads = numIdleThreads(executor, EsExecutors.numberOfProcessors(settings));
+        this.numProcessors = EsExecutors.numberOfProcessors(settings);
+        this.availableThreads = numIdleThreads(executor, numProcessors);
         this.executor = executor;
         this.inputFactory = new InputFactory(nodeCtx);
         this.shardCollectorProviderFactory = shardCollectorProviderFactory;
@@ -197,7 +208,8 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
             inputFactory,
             nodeNormalizer,
             systemCollectSource::getRowUpdater,
-            systemCollectSource::tableDefinition
+            systemCollectSource::tableDefinition,
+            spillService
         );
     }
 
@@ -269,35 +281,39 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
 
         boolean hasShardProjections = Projections.hasAnyShardProjections(collectPhase.projections());
         Map<String, IntIndexedContainer> indexShards = collectPhase.routing().locations().get(localNodeId);
-        List<CompletableFuture<BatchIterator<Row>>> iterators = indexShards == null
+        final int maxSlices;
+        if (hasShardProjections && indexShards != null) {
+            int numShards = 0;
+            for (IntIndexedContainer shardIds : indexShards.values()) {
+                numShards += shardIds.size();
+            }
+            maxSlices = Math.max(1, numProcessors / Math.max(1, numShards));
+        } else {
+            maxSlices = 1;
+        }
+        List<CompletableFuture<List<BatchIterator<Row>>>> iterators = indexShards == null
             ? Collections.emptyList()
-            : getIterators(collectTask, collectPhase, requireMoveToStartSupport, indexShards);
+            : getIterators(collectTask, collectPhase, requireMoveToStartSupport, indexShards, maxSlices);
 
         final CompletableFuture<BatchIterator<Row>> result;
-        switch (iterators.size()) {
-            case 0:
-                result = CompletableFuture.completedFuture(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
-                break;
-
-            case 1:
-                result = iterators.get(0);
-                break;
-
-            default:
+        if (iterators.isEmpty()) {
+            result = CompletableFuture.completedFuture(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
+        } else {
+            result = CompletableFutures.allAsList(iterators).thenApply(shardIterators -> {
+                List<BatchIterator<Row>> its = new ArrayList<>();
+                for (List<BatchIterator<Row>> slices : shardIterators) {
+                    its.addAll(slices);
+                }
+                if (its.size() == 1) {
+                    return its.get(0);
+                }
                 if (hasShardProjections) {
                     // use AsyncCompositeBatchIterator for multi-threaded loadNextBatch
                     // in order to process shard-based projections concurrently
-
-                    result = CompletableFutures.allAsList(iterators)
-                        .thenApply(its -> CompositeBatchIterator.asyncComposite(
-                            executor,
-                            availableThreads,
-                            its
-                        ));
-                } else {
-                    result = CompletableFutures.allAsList(iterators)
-                        .thenApply(CompositeBatchIterator::seqComposite);
+                    return CompositeBatchIterator.asyncComposite(executor, availableThreads, its);
                 }
+                return CompositeBatchIterator.seqComposite(its);
+            });
         }
         return result.thenApply(it -> projectors.wrap(it));
     }
@@ -411,13 +427,14 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
         throw Exceptions.toRuntimeException(err);
     }
 
-    private List<CompletableFuture<BatchIterator<Row>>> getIterators(CollectTask collectTask,
-                                                                     RoutedCollectPhase collectPhase,
-                                                                     boolean requiresScroll,
-                                                                     Map<String, IntIndexedContainer> indexShards) {
+    private List<CompletableFuture<List<BatchIterator<Row>>>> getIterators(CollectTask collectTask,
+                                                                           RoutedCollectPhase collectPhase,
+                                                                           boolean requiresScroll,
+                                                                           Map<String, IntIndexedContainer> indexShards,
+                                                                           int maxSlices) {
 
         Metadata metadata = clusterService.state().metadata();
-        List<CompletableFuture<BatchIterator<Row>>> iterators = new ArrayList<>();
+        List<CompletableFuture<List<BatchIterator<Row>>>> iterators = new ArrayList<>();
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             IndexMetadata indexMD = metadata.index(indexName);
@@ -432,17 +449,20 @@ public class ShardCollectSource implements CollectSource, IndexEventListener {
                 ShardId shardId = new ShardId(index, shardCursor.value);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    CompletableFuture<BatchIterator<Row>> iterator = shardCollectorProvider
+                    CompletableFuture<List<BatchIterator<Row>>> iterator = shardCollectorProvider
                         .awaitShardSearchActive()
-                        .thenApply(batchIteratorFactory -> batchIteratorFactory.getIterator(
+                        .thenApply(batchIteratorFactory -> batchIteratorFactory.getIterators(
                             collectPhase,
                             requiresScroll,
-                            collectTask
+                            collectTask,
+                            maxSlices
                         ))
-                        .exceptionallyCompose(err -> shardFailureFallbackOrRaise(err, shardId, collectPhase, collectTask, requiresScroll));
+                        .exceptionallyCompose(err -> shardFailureFallbackOrRaise(err, shardId, collectPhase, collectTask, requiresScroll)
+                            .thenApply(it -> List.of(it)));
                     iterators.add(iterator);
                 } catch (Throwable e) {
-                    iterators.add(shardFailureFallbackOrRaise(e, shardId, collectPhase, collectTask, requiresScroll));
+                    iterators.add(shardFailureFallbackOrRaise(e, shardId, collectPhase, collectTask, requiresScroll)
+                        .thenApply(it -> List.of(it)));
                 }
             }
         }
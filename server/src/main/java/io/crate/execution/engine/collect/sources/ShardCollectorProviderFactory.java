@@ -27,6 +27,7 @@ import io.crate.execution.engine.collect.BlobShardCollectorProvider;
 import io.crate.execution.engine.collect.LuceneShardCollectorProvider;
 import io.crate.execution.engine.collect.ShardCollectorProvider;
 import io.crate.execution.engine.export.FileOutputFactory;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.NodeContext;
@@ -64,6 +65,7 @@ public class ShardCollectorProviderFactory {
     private final Settings settings;
     private final CircuitBreakerService circuitBreakerService;
     private final Map<String, FileOutputFactory> fileOutputFactoryMap;
+    private final SpillService spillService;
 
     @Inject
     public ShardCollectorProviderFactory(ClusterService clusterService,
@@ -77,7 +79,8 @@ public class ShardCollectorProviderFactory {
                                          LuceneQueryBuilder luceneQueryBuilder,
                                          NodeLimits nodeJobsCounter,
                                          PageCacheRecycler pageCacheRecycler,
-                                         Map<String, FileOutputFactory> fileOutputFactoryMap) {
+                                         Map<String, FileOutputFactory> fileOutputFactoryMap,
+                                         SpillService spillService) {
         this.settings = settings;
         this.circuitBreakerService = circuitBreakerService;
         this.schemas = schemas;
@@ -90,6 +93,7 @@ public class ShardCollectorProviderFactory {
         this.nodeJobsCounter = nodeJobsCounter;
         this.bigArrays = new BigArrays(pageCacheRecycler, circuitBreakerService, HierarchyCircuitBreakerService.QUERY, true);
         this.fileOutputFactoryMap = fileOutputFactoryMap;
+        this.spillService = spillService;
     }
 
     public ShardCollectorProvider create(IndexShard indexShard) {
@@ -120,7 +124,8 @@ public class ShardCollectorProviderFactory {
                 elasticsearchClient,
                 indexShard,
                 bigArrays,
-                fileOutputFactoryMap);
+                fileOutputFactoryMap,
+                spillService);
         }
     }
 }
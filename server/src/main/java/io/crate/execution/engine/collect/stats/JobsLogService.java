@@ -119,6 +119,9 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
     public static final Setting<TimeValue> STATS_OPERATIONS_LOG_EXPIRATION_SETTING = Setting.timeSetting(
         "stats.operations_log_expiration", TimeValue.timeValueSeconds(0L), Property.NodeScope, Property.Dynamic, Property.Exposed);
 
+    public static final Setting<Integer> STATS_STATEMENT_METRICS_SIZE_SETTING = Setting.intSetting(
+        "stats.statement_metrics_size", 500, 0, Property.NodeScope, Property.Dynamic, Property.Exposed);
+
     private final ScheduledExecutorService scheduler;
     private final CircuitBreakerService breakerService;
     private final InputFactory inputFactory;
@@ -190,6 +193,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
         );
         setOperationsLogSink(
             STATS_OPERATIONS_LOG_SIZE_SETTING.get(settings), STATS_OPERATIONS_LOG_EXPIRATION_SETTING.get(settings));
+        jobsLogs.updateStatementMetrics(STATS_STATEMENT_METRICS_SIZE_SETTING.get(settings));
 
         clusterSettings.addSettingsUpdateConsumer(STATS_JOBS_LOG_FILTER, filter -> {
             JobsLogService.this.memoryFilter = createFilter(filter, STATS_JOBS_LOG_FILTER.getKey());
@@ -206,6 +210,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
             this::setJobsLogSink);
         clusterSettings.addSettingsUpdateConsumer(
             STATS_OPERATIONS_LOG_SIZE_SETTING, STATS_OPERATIONS_LOG_EXPIRATION_SETTING, this::setOperationsLogSink);
+        clusterSettings.addSettingsUpdateConsumer(STATS_STATEMENT_METRICS_SIZE_SETTING, jobsLogs::updateStatementMetrics);
     }
 
     private Symbol asSymbol(String expression) {
@@ -28,6 +28,8 @@ import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
 import io.crate.metadata.sys.ClassifiedMetrics;
 import io.crate.metadata.sys.MetricsView;
+import io.crate.metadata.sys.StatementMetrics;
+import io.crate.metadata.sys.StatementMetricsView;
 import io.crate.planner.operators.StatementClassifier;
 
 import org.jetbrains.annotations.Nullable;
@@ -46,7 +48,7 @@ import static io.crate.planner.Plan.StatementType.UNDEFINED;
 /**
  * JobsLogs is responsible for adding jobs and operations of that node.
  * It also provides the functionality to expose that data for system tables,
- * such as sys.jobs, sys.jobs_log, sys.operations and sys.operations_log;
+ * such as sys.jobs, sys.jobs_log, sys.operations, sys.operations_log, sys.jobs_metrics and sys.statement_metrics;
  * <p>
  * The data is exposed via the properties
  *
@@ -77,6 +79,8 @@ public class JobsLogs {
     private final LongAdder activeRequests = new LongAdder();
     private final BooleanSupplier enabled;
     private final ClassifiedMetrics classifiedMetrics = new ClassifiedMetrics();
+    private volatile int statementMetricsSize = 0;
+    private volatile StatementMetrics statementMetrics = new StatementMetrics(0);
 
     public JobsLogs(BooleanSupplier enabled) {
         this.enabled = enabled;
@@ -110,13 +114,22 @@ public class JobsLogs {
      * If {@link #isEnabled()} is false this method won't do anything.
      */
     public void logExecutionEnd(UUID jobId, @Nullable String errorMessage) {
+        logExecutionEnd(jobId, errorMessage, 0L);
+    }
+
+    /**
+     * Like {@link #logExecutionEnd(UUID, String)}
+     *
+     * @param rows number of rows returned or affected by the job
+     */
+    public void logExecutionEnd(UUID jobId, @Nullable String errorMessage, long rows) {
         activeRequests.decrement();
         JobContext jobContext = jobsTable.remove(jobId);
         if (!isEnabled() || jobContext == null) {
             return;
         }
         JobContextLog jobContextLog = new JobContextLog(jobContext, errorMessage);
-        recordMetrics(jobContextLog);
+        recordMetrics(jobContextLog, rows, jobContext.usedBytes());
         long stamp = jobsLogLock.readLock();
         try {
             jobsLog.add(jobContextLog);
@@ -125,13 +138,18 @@ public class JobsLogs {
         }
     }
 
-    private void recordMetrics(JobContextLog log) {
+    private void recordMetrics(JobContextLog log, long rows, long usedBytes) {
         StatementClassifier.Classification classification = log.classification();
         assert classification != null : "A job must have a classification";
+        long duration = log.ended() - log.started();
         if (log.errorMessage() == null) {
-            classifiedMetrics.recordValue(classification, log.ended() - log.started());
+            classifiedMetrics.recordValue(classification, duration);
         } else {
-            classifiedMetrics.recordFailedExecution(classification, log.ended() - log.started());
+            classifiedMetrics.recordFailedExecution(classification, duration);
+        }
+        StatementMetrics stmtMetrics = statementMetrics;
+        if (stmtMetrics.isEnabled() && log.statement() != null) {
+            stmtMetrics.recordValue(log.statement(), duration, log.errorMessage() != null, rows, usedBytes);
         }
     }
 
@@ -151,7 +169,7 @@ public class JobsLogs {
         } finally {
             jobsLogLock.unlockRead(stamp);
         }
-        recordMetrics(jobContextLog);
+        recordMetrics(jobContextLog, 0L, 0L);
     }
 
     public void operationStarted(int operationId, UUID jobId, String name, LongSupplier bytesUsed) {
@@ -166,6 +184,10 @@ public class JobsLogs {
         return classifiedMetrics;
     }
 
+    public Iterable<StatementMetricsView> statementMetrics() {
+        return statementMetrics;
+    }
+
     public void operationFinished(int operationId, UUID jobId, @Nullable String errorMessage) {
         if (!isEnabled()) {
             return;
@@ -177,6 +199,10 @@ public class JobsLogs {
             return;
         }
         OperationContextLog operationContextLog = new OperationContextLog(operationContext, errorMessage);
+        JobContext jobContext = jobsTable.get(jobId);
+        if (jobContext != null) {
+            jobContext.addUsedBytes(operationContextLog.usedBytes());
+        }
         long stamp = operationsLogRWLock.readLock();
         try {
             operationsLog.add(operationContextLog);
@@ -239,6 +265,12 @@ public class JobsLogs {
 
     void resetMetrics() {
         classifiedMetrics.reset();
+        statementMetrics = new StatementMetrics(statementMetricsSize);
+    }
+
+    void updateStatementMetrics(int size) {
+        statementMetricsSize = size;
+        statementMetrics = new StatementMetrics(size);
     }
 
     public void close() {
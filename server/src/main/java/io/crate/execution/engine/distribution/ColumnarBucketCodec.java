@@ -0,0 +1,521 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.distribution;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+
+/**
+ * Column oriented encoding of the rows of a {@link StreamBucket}.
+ *
+ * <p>
+ * Each column is written separately, prefixed with its encoding and its length in bytes:
+ * </p>
+ * <ul>
+ *  <li>{@code bigint}, {@code timestamp} and {@code integer} columns are bit-packed,
+ *  either relative to the minimum value or as zig-zag encoded deltas, whichever needs fewer bits.</li>
+ *  <li>{@code text} columns with few distinct values are dictionary encoded, the ids are bit-packed.</li>
+ *  <li>Other columns are written value by value using their {@link Streamer}.</li>
+ * </ul>
+ * Nulls of bit-packed and dictionary encoded columns are stored in a bitmap.
+ */
+final class ColumnarBucketCodec {
+
+    private static final byte PLAIN = 0;
+    private static final byte LONGS = 1;
+    private static final byte INTS = 2;
+    private static final byte DICTIONARY = 3;
+
+    private static final byte FRAME_OF_REFERENCE = 0;
+    private static final byte DELTA = 1;
+
+    private ColumnarBucketCodec() {
+    }
+
+    /**
+     * @return true if at least one of the columns can be encoded more compactly than value by value.
+     */
+    static boolean supportsEncoding(Streamer<?>[] streamers) {
+        for (Streamer<?> streamer : streamers) {
+            if (encodingOf(streamer) != PLAIN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte encodingOf(Streamer<?> streamer) {
+        if (streamer instanceof DataType<?> type) {
+            switch (type.id()) {
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                    return LONGS;
+
+                case IntegerType.ID:
+                    return INTS;
+
+                case StringType.ID:
+                    return DICTIONARY;
+
+                default:
+                    return PLAIN;
+            }
+        }
+        return PLAIN;
+    }
+
+    /**
+     * Writes the rows of the bucket column by column
+     *
+     * @param rows the bucket rows in the row oriented format
+     */
+    static void write(StreamOutput out, Streamer<?>[] streamers, Iterator<Row> rows, int size) throws IOException {
+        ColumnWriter[] writers = new ColumnWriter[streamers.length];
+        for (int i = 0; i < streamers.length; i++) {
+            writers[i] = switch (encodingOf(streamers[i])) {
+                case LONGS, INTS -> new NumericColumnWriter(size);
+                case DICTIONARY -> new StringColumnWriter(streamers[i], size);
+                default -> new PlainColumnWriter(streamers[i]);
+            };
+        }
+        while (rows.hasNext()) {
+            Row row = rows.next();
+            for (int i = 0; i < writers.length; i++) {
+                writers[i].add(row.get(i));
+            }
+        }
+        BytesStreamOutput column = new BytesStreamOutput();
+        for (int i = 0; i < writers.length; i++) {
+            column.reset();
+            byte encoding = writers[i].writeTo(column, encodingOf(streamers[i]));
+            out.writeByte(encoding);
+            out.writeBytesReference(column.bytes());
+        }
+    }
+
+    static Iterator<Row> iterator(BytesReference bytes, Streamer<?>[] streamers, int size) {
+        try {
+            StreamInput in = bytes.streamInput();
+            ColumnReader[] readers = new ColumnReader[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                byte encoding = in.readByte();
+                StreamInput column = in.readBytesReference().streamInput();
+                readers[i] = switch (encoding) {
+                    case LONGS -> new NumericColumnReader(column, size, false);
+                    case INTS -> new NumericColumnReader(column, size, true);
+                    case DICTIONARY -> new DictionaryColumnReader(column, size);
+                    case PLAIN -> new PlainColumnReader(column, streamers[i]);
+                    default -> throw new IllegalStateException("Unknown column encoding: " + encoding);
+                };
+            }
+            return new RowIterator(readers, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface ColumnWriter {
+
+        void add(Object value) throws IOException;
+
+        /**
+         * @param encoding the preferred encoding
+         * @return the encoding that has been used
+         */
+        byte writeTo(StreamOutput out, byte encoding) throws IOException;
+    }
+
+    private interface ColumnReader {
+
+        Object get(int row) throws IOException;
+    }
+
+    private static class PlainColumnWriter implements ColumnWriter {
+
+        private final Streamer<Object> streamer;
+        private final BytesStreamOutput values = new BytesStreamOutput();
+
+        @SuppressWarnings("unchecked")
+        PlainColumnWriter(Streamer<?> streamer) {
+            this.streamer = (Streamer<Object>) streamer;
+        }
+
+        @Override
+        public void add(Object value) throws IOException {
+            streamer.writeValueTo(values, value);
+        }
+
+        @Override
+        public byte writeTo(StreamOutput out, byte encoding) throws IOException {
+            values.bytes().writeTo(out);
+            return PLAIN;
+        }
+    }
+
+    private static class PlainColumnReader implements ColumnReader {
+
+        private final StreamInput in;
+        private final Streamer<?> streamer;
+
+        PlainColumnReader(StreamInput in, Streamer<?> streamer) {
+            this.in = in;
+            this.streamer = streamer;
+        }
+
+        @Override
+        public Object get(int row) throws IOException {
+            // rows are read in order
+            return streamer.readValueFrom(in);
+        }
+    }
+
+    private static class NumericColumnWriter implements ColumnWriter {
+
+        private final long[] values;
+        private final FixedBitSet nulls;
+        private int numRows = 0;
+        private int numValues = 0;
+
+        NumericColumnWriter(int size) {
+            this.values = new long[size];
+            this.nulls = new FixedBitSet(size);
+        }
+
+        @Override
+        public void add(Object value) {
+            if (value == null) {
+                nulls.set(numRows);
+            } else {
+                values[numValues] = ((Number) value).longValue();
+                numValues++;
+            }
+            numRows++;
+        }
+
+        @Override
+        public byte writeTo(StreamOutput out, byte encoding) throws IOException {
+            writeNulls(out, nulls, numValues < numRows);
+            writePacked(out, values, numValues);
+            return encoding;
+        }
+    }
+
+    private static class NumericColumnReader implements ColumnReader {
+
+        private final FixedBitSet nulls;
+        private final long[] values;
+        private final boolean ints;
+        private int valueIdx = 0;
+
+        NumericColumnReader(StreamInput in, int size, boolean ints) throws IOException {
+            this.nulls = readNulls(in, size);
+            this.values = readPacked(in);
+            this.ints = ints;
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls != null && nulls.get(row)) {
+                return null;
+            }
+            long value = values[valueIdx++];
+            return ints ? (Object) (int) value : (Object) value;
+        }
+    }
+
+    private static class StringColumnWriter implements ColumnWriter {
+
+        private final Streamer<?> streamer;
+        private final String[] values;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> distinctValues = new ArrayList<>();
+        private final int maxDistinctValues;
+        private boolean useDictionary = true;
+        private int numRows = 0;
+
+        StringColumnWriter(Streamer<?> streamer, int size) {
+            this.streamer = streamer;
+            this.values = new String[size];
+            this.maxDistinctValues = size / 2;
+        }
+
+        @Override
+        public void add(Object value) {
+            String str = (String) value;
+            values[numRows] = str;
+            numRows++;
+            if (str != null && useDictionary && !dictionary.containsKey(str)) {
+                // Only worth it if the values repeat; this also bounds the size of the dictionary
+                if (distinctValues.size() >= maxDistinctValues) {
+                    useDictionary = false;
+                    dictionary.clear();
+                    distinctValues.clear();
+                } else {
+                    dictionary.put(str, distinctValues.size());
+                    distinctValues.add(str);
+                }
+            }
+        }
+
+        @Override
+        public byte writeTo(StreamOutput out, byte encoding) throws IOException {
+            if (useDictionary == false) {
+                PlainColumnWriter plain = new PlainColumnWriter(streamer);
+                for (int i = 0; i < numRows; i++) {
+                    plain.add(values[i]);
+                }
+                return plain.writeTo(out, PLAIN);
+            }
+            FixedBitSet nulls = new FixedBitSet(numRows);
+            long[] ids = new long[numRows];
+            int numValues = 0;
+            for (int i = 0; i < numRows; i++) {
+                String value = values[i];
+                if (value == null) {
+                    nulls.set(i);
+                } else {
+                    ids[numValues++] = dictionary.get(value);
+                }
+            }
+            writeNulls(out, nulls, numValues < numRows);
+            out.writeVInt(distinctValues.size());
+            for (String value : distinctValues) {
+                out.writeString(value);
+            }
+            writePacked(out, ids, numValues);
+            return DICTIONARY;
+        }
+    }
+
+    private static class DictionaryColumnReader implements ColumnReader {
+
+        private final FixedBitSet nulls;
+        private final String[] dictionary;
+        private final long[] ids;
+        private int valueIdx = 0;
+
+        DictionaryColumnReader(StreamInput in, int size) throws IOException {
+            this.nulls = readNulls(in, size);
+            this.dictionary = new String[in.readVInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.readString();
+            }
+            this.ids = readPacked(in);
+        }
+
+        @Override
+        public Object get(int row) {
+            if (nulls != null && nulls.get(row)) {
+                return null;
+            }
+            return dictionary[(int) ids[valueIdx++]];
+        }
+    }
+
+    private static void writeNulls(StreamOutput out, FixedBitSet nulls, boolean hasNulls) throws IOException {
+        out.writeBoolean(hasNulls);
+        if (hasNulls) {
+            long[] words = nulls.getBits();
+            int numWords = FixedBitSet.bits2words(nulls.length());
+            for (int i = 0; i < numWords; i++) {
+                out.writeLong(words[i]);
+            }
+        }
+    }
+
+    private static FixedBitSet readNulls(StreamInput in, int size) throws IOException {
+        if (in.readBoolean() == false) {
+            return null;
+        }
+        long[] words = new long[FixedBitSet.bits2words(size)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new FixedBitSet(words, size);
+    }
+
+    /**
+     * Writes the values bit-packed, either relative to the minimum value or as deltas to the previous value.
+     * Deltas are chosen if they need fewer bits, which is the case for (mostly) sorted values like timestamps.
+     */
+    private static void writePacked(StreamOutput out, long[] values, int numValues) throws IOException {
+        out.writeVInt(numValues);
+        if (numValues == 0) {
+            return;
+        }
+        long min = values[0];
+        long max = values[0];
+        long maxZigZagDelta = 0;
+        for (int i = 1; i < numValues; i++) {
+            long value = values[i];
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            maxZigZagDelta |= zigZagEncode(value - values[i - 1]);
+        }
+        int frameOfReferenceBits = PackedInts.unsignedBitsRequired(max - min);
+        int deltaBits = PackedInts.unsignedBitsRequired(maxZigZagDelta);
+        long[] packed;
+        if (deltaBits < frameOfReferenceBits) {
+            out.writeByte(DELTA);
+            out.writeZLong(values[0]);
+            out.writeByte((byte) deltaBits);
+            packed = new long[numWords(numValues - 1, deltaBits)];
+            for (int i = 1; i < numValues; i++) {
+                pack(packed, i - 1, deltaBits, zigZagEncode(values[i] - values[i - 1]));
+            }
+        } else {
+            out.writeByte(FRAME_OF_REFERENCE);
+            out.writeZLong(min);
+            out.writeByte((byte) frameOfReferenceBits);
+            packed = new long[numWords(numValues, frameOfReferenceBits)];
+            for (int i = 0; i < numValues; i++) {
+                pack(packed, i, frameOfReferenceBits, values[i] - min);
+            }
+        }
+        for (long word : packed) {
+            out.writeLong(word);
+        }
+    }
+
+    private static long[] readPacked(StreamInput in) throws IOException {
+        int numValues = in.readVInt();
+        long[] values = new long[numValues];
+        if (numValues == 0) {
+            return values;
+        }
+        byte mode = in.readByte();
+        long base = in.readZLong();
+        int bits = in.readByte();
+        int numPacked = mode == DELTA ? numValues - 1 : numValues;
+        long[] packed = new long[numWords(numPacked, bits)];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = in.readLong();
+        }
+        if (mode == DELTA) {
+            values[0] = base;
+            for (int i = 1; i < numValues; i++) {
+                values[i] = values[i - 1] + zigZagDecode(unpack(packed, i - 1, bits));
+            }
+        } else {
+            for (int i = 0; i < numValues; i++) {
+                values[i] = base + unpack(packed, i, bits);
+            }
+        }
+        return values;
+    }
+
+    private static int numWords(int numValues, int bits) {
+        return (int) (((long) numValues * bits + 63) >>> 6);
+    }
+
+    private static void pack(long[] packed, int idx, int bits, long value) {
+        if (bits == 0) {
+            return;
+        }
+        long bitPos = (long) idx * bits;
+        int word = (int) (bitPos >>> 6);
+        int shift = (int) (bitPos & 63);
+        packed[word] |= value << shift;
+        if (shift + bits > 64) {
+            packed[word + 1] |= value >>> (64 - shift);
+        }
+    }
+
+    private static long unpack(long[] packed, int idx, int bits) {
+        if (bits == 0) {
+            return 0L;
+        }
+        long bitPos = (long) idx * bits;
+        int word = (int) (bitPos >>> 6);
+        int shift = (int) (bitPos & 63);
+        long value = packed[word] >>> shift;
+        if (shift + bits > 64) {
+            value |= packed[word + 1] << (64 - shift);
+        }
+        return bits == 64 ? value : value & ((1L << bits) - 1);
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class RowIterator implements Iterator<Row> {
+
+        private final ColumnReader[] readers;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        RowIterator(ColumnReader[] readers, int size) {
+            this.readers = readers;
+            this.size = size;
+            this.current = new Object[readers.length];
+            this.row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            try {
+                for (int c = 0; c < readers.length; c++) {
+                    current[c] = readers[c].get(pos);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pos++;
+            return row;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import io.crate.data.RowN;
 import io.crate.data.breaker.RamAccounting;
 
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -45,9 +46,15 @@ import static java.util.Objects.requireNonNull;
 
 public class StreamBucket implements Bucket, Writeable {
 
+    /**
+     * Minimum number of rows for a bucket to be sent in the column oriented format, see {@link ColumnarBucketCodec}
+     */
+    static final int COLUMNAR_MIN_ROWS = 128;
+
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
+    private boolean columnar = false;
 
     public static class Builder implements Accountable {
 
@@ -178,6 +185,9 @@ public class StreamBucket implements Bucket, Writeable {
             return Collections.emptyIterator();
         }
         assert streamers != null : "streamers must not be null";
+        if (columnar) {
+            return ColumnarBucketCodec.iterator(bytes, streamers, size);
+        }
         try {
             return new RowIterator(bytes.streamInput(), streamers, size);
         } catch (IOException e) {
@@ -201,6 +211,9 @@ public class StreamBucket implements Bucket, Writeable {
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
+            if (in.getVersion().onOrAfter(Version.V_5_6_0)) {
+                columnar = in.readBoolean();
+            }
             bytes = in.readBytesReference();
         }
     }
@@ -216,8 +229,40 @@ public class StreamBucket implements Bucket, Writeable {
     public void writeTo(StreamOutput out) throws IOException {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
-        if (size > 0) {
+        if (size == 0) {
+            return;
+        }
+        if (out.getVersion().before(Version.V_5_6_0)) {
+            if (columnar) {
+                out.writeBytesReference(rowOrientedBytes());
+            } else {
+                out.writeBytesReference(bytes);
+            }
+            return;
+        }
+        boolean writeColumnar = columnar || (
+            size >= COLUMNAR_MIN_ROWS
+            && streamers != null
+            && ColumnarBucketCodec.supportsEncoding(streamers));
+        out.writeBoolean(writeColumnar);
+        if (writeColumnar && !columnar) {
+            BytesStreamOutput columns = new BytesStreamOutput(bytes.length());
+            ColumnarBucketCodec.write(columns, streamers, iterator(), size);
+            out.writeBytesReference(columns.bytes());
+        } else {
             out.writeBytesReference(bytes);
         }
     }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private BytesReference rowOrientedBytes() throws IOException {
+        assert streamers != null : "streamers must be set to convert a columnar bucket";
+        BytesStreamOutput out = new BytesStreamOutput(bytes.length());
+        for (Row row : this) {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+            }
+        }
+        return out.bytes();
+    }
 }
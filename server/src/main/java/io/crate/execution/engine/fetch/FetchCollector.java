@@ -38,7 +38,6 @@ import io.crate.execution.engine.distribution.StreamBucket;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
-import io.netty.util.collection.IntObjectHashMap;
 
 class FetchCollector {
 
@@ -69,48 +68,65 @@ class FetchCollector {
 
     }
 
-    private void setNextDocId(ReaderContext readerContext, int doc) throws IOException {
-        for (LuceneCollectorExpression<?> e : collectorExpressions) {
-            e.setNextReader(readerContext);
-            e.setNextDocId(doc);
-        }
-    }
-
+    /**
+     * Collects the rows for the given docIds.
+     * The docIds must be sorted; The rows in the returned bucket are in the same order.
+     *
+     * <p>
+     * The docIds are processed segment by segment, so that the collector expressions only
+     * need to switch the reader once per segment and can access doc-values and stored fields
+     * in ascending order within a segment.
+     * </p>
+     */
     public StreamBucket collect(IntArrayList docIds) {
-        boolean collectSequential = isSequential(docIds);
+        assert isSorted(docIds) : "docIds must be sorted";
         StreamBucket.Builder builder = new StreamBucket.Builder(streamers, ramAccounting);
+        final int[] docs = docIds.buffer;
+        final int numDocs = docIds.size();
         try (var borrowed = fetchTask.searcher(readerId)) {
             var searcher = borrowed.item();
             List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
-            var readerContexts = new IntObjectHashMap<ReaderContext>(leaves.size());
-            for (var cursor : docIds) {
-                int docId = cursor.value;
-                int readerIndex = readerIndex(docId, leaves);
-                LeafReaderContext subReaderContext = leaves.get(readerIndex);
+            int start = 0;
+            while (start < numDocs) {
+                LeafReaderContext subReaderContext = leaves.get(readerIndex(docs[start], leaves));
+                int docBase = subReaderContext.docBase;
+                int maxDoc = docBase + subReaderContext.reader().maxDoc();
+                int end = start + 1;
+                while (end < numDocs && docs[end] < maxDoc) {
+                    end++;
+                }
                 try {
-                    var readerContext = readerContexts.get(readerIndex);
-                    if (readerContext == null) {
-                        // If the document access is sequential, the field reader from the merge instance can be used
-                        // to provide a significant speed up. However, accessing the merge CompressingStoredFieldsReader is expensive
-                        // because the underlying inputData is cloned.
-                        if (collectSequential && subReaderContext.reader() instanceof SequentialStoredFieldsLeafReader storedFieldsLeafReader) {
-                            StoredFieldsReader sequentialStoredFieldsReader = storedFieldsLeafReader.getSequentialStoredFieldsReader();
-                            readerContext = new ReaderContext(subReaderContext, sequentialStoredFieldsReader::document);
-                        } else {
-                            readerContext = new ReaderContext(subReaderContext);
+                    ReaderContext readerContext = createReaderContext(subReaderContext, isSequential(docs, start, end));
+                    for (LuceneCollectorExpression<?> e : collectorExpressions) {
+                        e.setNextReader(readerContext);
+                    }
+                    for (int i = start; i < end; i++) {
+                        for (LuceneCollectorExpression<?> e : collectorExpressions) {
+                            e.setNextDocId(docs[i] - docBase);
                         }
-                        readerContexts.put(readerIndex, readerContext);
+                        builder.add(row);
                     }
-                    setNextDocId(readerContext, docId - subReaderContext.docBase);
                 } catch (IOException e) {
                     Exceptions.rethrowRuntimeException(e);
                 }
-                builder.add(row);
+                start = end;
             }
         }
         return builder.build();
     }
 
+    private static ReaderContext createReaderContext(LeafReaderContext subReaderContext,
+                                                     boolean collectSequential) throws IOException {
+        // If the document access is sequential, the field reader from the merge instance can be used
+        // to provide a significant speed up. However, accessing the merge CompressingStoredFieldsReader is expensive
+        // because the underlying inputData is cloned.
+        if (collectSequential && subReaderContext.reader() instanceof SequentialStoredFieldsLeafReader storedFieldsLeafReader) {
+            StoredFieldsReader sequentialStoredFieldsReader = storedFieldsLeafReader.getSequentialStoredFieldsReader();
+            return new ReaderContext(subReaderContext, sequentialStoredFieldsReader::document);
+        }
+        return new ReaderContext(subReaderContext);
+    }
+
     private int readerIndex(int docId, List<LeafReaderContext> leaves) {
         int readerIndex = ReaderUtil.subIndex(docId, leaves);
         if (readerIndex == -1) {
@@ -120,14 +136,31 @@ class FetchCollector {
     }
 
     static boolean isSequential(IntArrayList docIds) {
-        if (docIds.size() < 2) {
+        return isSequential(docIds.buffer, 0, docIds.size());
+    }
+
+    /**
+     * @param from index of the first docId, inclusive
+     * @param to index of the last docId, exclusive
+     */
+    static boolean isSequential(int[] docIds, int from, int to) {
+        if (to - from < 2) {
             return false;
         }
         // checks if doc ids are in sequential order using the following conditions:
         // (last element - first element) = (number of elements in between first and last)
         // [3,4,5,6,7] -> 7 - 3 == 4
-        int last = docIds.get(docIds.size() - 1);
-        int first = docIds.get(0);
-        return last - first == docIds.size() - 1;
+        int last = docIds[to - 1];
+        int first = docIds[from];
+        return last - first == to - from - 1;
+    }
+
+    private static boolean isSorted(IntArrayList docIds) {
+        for (int i = 1; i < docIds.size(); i++) {
+            if (docIds.get(i - 1) >= docIds.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
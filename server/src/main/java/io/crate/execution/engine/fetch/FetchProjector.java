@@ -66,7 +66,9 @@ public final class FetchProjector {
         );
         EstimateCellsSize estimateRowSize = new EstimateCellsSize(projection.inputTypes());
         return (BatchIterator<Row> source) -> {
-            final long maxBucketsSizeInBytes = getBucketsBytesThreshold.getAsLong();
+            // The next batch is fetched while the rows of the current one are consumed,
+            // so up to two ReaderBuckets are alive at the same time.
+            final long maxBucketsSizeInBytes = getBucketsBytesThreshold.getAsLong() / 2;
             BatchIterator<ReaderBuckets> buckets = BatchIterators.chunks(
                 source,
                 projection.getFetchSize(),
@@ -76,7 +78,8 @@ public final class FetchProjector {
             );
             return new AsyncFlatMapBatchIterator<>(
                 buckets,
-                new FetchMapper(fetchOperation, projection.nodeReaders())
+                new FetchMapper(fetchOperation, projection.nodeReaders()),
+                true
             );
         };
     }
@@ -92,7 +92,9 @@ class ReaderBucket {
 
     private long accountMemory(Object[] cells) {
         long bytes = estimateCellsSize.applyAsLong(cells);
-        ramAccounting.addBytes(bytes);
+        synchronized (ramAccounting) {
+            ramAccounting.addBytes(bytes);
+        }
         return bytes;
     }
 
@@ -55,6 +55,9 @@ import io.crate.planner.node.fetch.FetchSource;
  *  listOfFetchRowsByReader = fetchOperation(docIdsByReader)
  *  result = readerBuckets.getOutputRows(listOfBucketByReader)
  * </pre>
+ *
+ * The fetch of one ReaderBuckets instance can overlap with the consumption of the output rows of another,
+ * so the memory accounting is synchronized on the shared {@link RamAccounting} instance.
  */
 public class ReaderBuckets implements Accountable {
 
@@ -80,7 +83,9 @@ public class ReaderBuckets implements Accountable {
     public void add(Row row) {
         Object[] cells = row.materialize();
         long size = estimateRow.applyAsLong(cells);
-        ramAccounting.addBytes(size);
+        synchronized (ramAccounting) {
+            ramAccounting.addBytes(size);
+        }
         usedMemoryEstimateInBytes += size;
         rows.add(cells);
         for (int i : fetchRows.fetchIdPositions()) {
@@ -139,7 +144,9 @@ public class ReaderBuckets implements Accountable {
             public void close() throws RuntimeException {
                 rows.clear();
                 readerBuckets.release();
-                ramAccounting.addBytes(- usedMemoryEstimateInBytes);
+                synchronized (ramAccounting) {
+                    ramAccounting.addBytes(- usedMemoryEstimateInBytes);
+                }
                 usedMemoryEstimateInBytes = 0;
             }
         };
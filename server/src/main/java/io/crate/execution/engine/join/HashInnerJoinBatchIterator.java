@@ -21,13 +21,10 @@
 
 package io.crate.execution.engine.join;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 import java.util.function.LongToIntFunction;
 import java.util.function.Predicate;
-import java.util.function.ToIntFunction;
 
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
@@ -36,25 +33,24 @@ import io.crate.data.UnsafeArrayRow;
 import io.crate.data.breaker.RowAccounting;
 import io.crate.data.join.CombinedRow;
 import io.crate.data.join.JoinBatchIterator;
-import io.netty.util.collection.IntObjectHashMap;
 
 /**
  * <pre>
  *     Build Phase:
  *     for (leftRow in left) {
- *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *         calculate join keys and put in Buffer ({@link JoinHashTable}) until the blockSize is reached
  *     }
  *
  *     Probe Phase:
  *     // We iterate on the right until we find a matching row or the right side needs to be loaded a next batch of data
  *     for (rightRow in right) {
- *         if (hash(rightRow) found in Buffer {
- *            for (row in matchedInBuffer) { // Handle duplicate values from left and hash collisions
+ *         if (keys(rightRow) found in Buffer {
+ *            for (row in matchedInBuffer) { // Handle duplicate values from left
  *                if (joinCondition matches) {
- *                    // We need to check that the joinCondition matches as we can have a hash collision
- *                    // or the join condition can contain more operators.
+ *                    // We need to check that the joinCondition matches as the join condition can contain
+ *                    // more operators.
  *                    //
- *                    // Row-lookup-by-hash-code can only work by the EQ operators of a join condition,
+ *                    // Row-lookup-by-keys can only work by the EQ operators of a join condition,
  *                    // all other possible operators must be checked afterwards.
  *                    emmit(combinedRow)
  *                }
@@ -69,12 +65,12 @@ import io.netty.util.collection.IntObjectHashMap;
  *     Repeat until both sides are all loaded and processed.
  * </pre>
  * <p>
- * The caller of the constructor needs to pass two functions {@link #hashBuilderForLeft} and {@link #hashBuilderForRight}.
- * Those functions are called on each row of the left and right side respectively and they return the hash value of
+ * The caller of the constructor needs to pass two functions {@link #joinKeysForLeft} and {@link #joinKeysForRight}.
+ * Those functions are called on each row of the left and right side respectively and they return the values of
  * the relevant columns of the row.
  * <p>
  * This information is not available for the {@link HashInnerJoinBatchIterator}, so it's the responsibility of the
- * caller to provide those two functions that operate on the left and right rows accordingly and return the hash values.
+ * caller to provide those two functions that operate on the left and right rows accordingly and return the key values.
  */
 public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
 
@@ -85,37 +81,35 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
      * Used to avoid instantiating multiple times RowN in {@link #findMatchingRows()}
      */
     private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
-    private final ToIntFunction<Row> hashBuilderForLeft;
-    private final ToIntFunction<Row> hashBuilderForRight;
+    private final Function<Row, Object[]> joinKeysForLeft;
+    private final Function<Row, Object[]> joinKeysForRight;
     private final LongToIntFunction calculateBlockSize;
-    private final IntObjectHashMap<List<Object[]>> buffer;
+    private final JoinHashTable buffer;
 
     private final UnsafeArrayRow unsafeArrayRow = new UnsafeArrayRow();
 
     private int leftAverageRowSize = -1;
     private int blockSize;
-    private int numberOfRowsInBuffer = 0;
     private boolean leftBatchHasItems = false;
     private int numberOfLeftBatchesForBlock;
     private int numberOfLeftBatchesLoadedForBlock;
-    private Iterator<Object[]> leftMatchingRowsIterator;
+    private int leftMatchingRowPos = -1;
 
     public HashInnerJoinBatchIterator(BatchIterator<Row> left,
                                       BatchIterator<Row> right,
                                       RowAccounting<Object[]> leftRowAccounting,
                                       CombinedRow combiner,
                                       Predicate<Row> joinCondition,
-                                      ToIntFunction<Row> hashBuilderForLeft,
-                                      ToIntFunction<Row> hashBuilderForRight,
+                                      Function<Row, Object[]> joinKeysForLeft,
+                                      Function<Row, Object[]> joinKeysForRight,
                                       LongToIntFunction calculateBlockSize) {
         super(left, right, combiner);
         this.leftRowAccounting = leftRowAccounting;
         this.joinCondition = joinCondition;
-        this.hashBuilderForLeft = hashBuilderForLeft;
-        this.hashBuilderForRight = hashBuilderForRight;
+        this.joinKeysForLeft = joinKeysForLeft;
+        this.joinKeysForRight = joinKeysForRight;
         this.calculateBlockSize = calculateBlockSize;
-        // resized upon block size calculation
-        this.buffer = new IntObjectHashMap<>();
+        this.buffer = new JoinHashTable();
         resetBuffer();
         numberOfLeftBatchesLoadedForBlock = 0;
         this.activeIt = left;
@@ -132,7 +126,7 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         right.moveToStart();
         activeIt = left;
         resetBuffer();
-        leftMatchingRowsIterator = null;
+        leftMatchingRowPos = -1;
     }
 
     @Override
@@ -168,7 +162,6 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
     private void resetBuffer() {
         blockSize = calculateBlockSize.applyAsInt(leftAverageRowSize);
         buffer.clear();
-        numberOfRowsInBuffer = 0;
         leftRowAccounting.release();
 
         // A batch is not guaranteed to deliver PAGE_SIZE number of rows. It could be more or less.
@@ -187,9 +180,9 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
                 long leftRowSize = leftRowAccounting.accountForAndMaybeBreak(leftRow);
                 sum += leftRowSize;
                 numItems++;
-                int hash = hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(leftRow));
-                addToBuffer(leftRow, hash);
-                if (numberOfRowsInBuffer == blockSize) {
+                Object[] keys = joinKeysForLeft.apply(unsafeArrayRow.cells(leftRow));
+                buffer.add(JoinHashTable.hash(keys), keys, leftRow);
+                if (buffer.size() == blockSize) {
                     break;
                 }
             }
@@ -205,16 +198,14 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
             }
         }
 
-        // In case of multiple matches on the left side (duplicate values or hash collisions)
-        if (leftMatchingRowsIterator != null && findMatchingRows()) {
+        // In case of multiple matches on the left side (duplicate values)
+        if (findMatchingRows()) {
             return true;
         }
-        leftMatchingRowsIterator = null;
         while (right.moveNext()) {
-            int rightHash = hashBuilderForRight.applyAsInt(right.currentElement());
-            List<Object[]> leftMatchingRows = buffer.get(rightHash);
-            if (leftMatchingRows != null) {
-                leftMatchingRowsIterator = leftMatchingRows.iterator();
+            Object[] rightKeys = joinKeysForRight.apply(right.currentElement());
+            leftMatchingRowPos = buffer.first(JoinHashTable.hash(rightKeys), rightKeys);
+            if (leftMatchingRowPos != -1) {
                 combiner.setRight(right.currentElement());
                 if (findMatchingRows()) {
                     return true;
@@ -226,19 +217,10 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         return false;
     }
 
-    private void addToBuffer(Object[] currentRow, int hash) {
-        List<Object[]> existingRows = buffer.get(hash);
-        if (existingRows == null) {
-            existingRows = new ArrayList<>();
-            buffer.put(hash, existingRows);
-        }
-        existingRows.add(currentRow);
-        numberOfRowsInBuffer++;
-    }
-
     private boolean findMatchingRows() {
-        while (leftMatchingRowsIterator.hasNext()) {
-            leftRow.cells(leftMatchingRowsIterator.next());
+        while (leftMatchingRowPos != -1) {
+            leftRow.cells(buffer.row(leftMatchingRowPos));
+            leftMatchingRowPos = buffer.next(leftMatchingRowPos);
             combiner.setLeft(leftRow);
             if (joinCondition.test(combiner.currentElement())) {
                 return true;
@@ -249,14 +231,14 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
 
     private boolean mustSwitchToRight() {
         return left.allLoaded()
-               || numberOfRowsInBuffer == blockSize
+               || buffer.size() == blockSize
                || (leftBatchHasItems == false && numberOfLeftBatchesLoadedForBlock == numberOfLeftBatchesForBlock);
     }
 
     private boolean mustLoadLeftNextBatch() {
         return leftBatchHasItems == false
                && left.allLoaded() == false
-               && numberOfRowsInBuffer < blockSize
+               && buffer.size() < blockSize
                && numberOfLeftBatchesLoadedForBlock < numberOfLeftBatchesForBlock;
     }
 }
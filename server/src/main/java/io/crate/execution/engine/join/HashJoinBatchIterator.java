@@ -0,0 +1,296 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import java.util.BitSet;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.LongToIntFunction;
+import java.util.function.Predicate;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Paging;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.crate.sql.tree.JoinType;
+
+/**
+ * Block based hash join for the outer join types which, unlike an inner join, must keep track of which rows had a
+ * match: {@link JoinType#LEFT}, {@link JoinType#RIGHT} and {@link JoinType#FULL}.
+ *
+ * <pre>
+ *     for (block in left) {
+ *         build: add rows of the block into the buffer by their join keys
+ *
+ *         probe:
+ *         for (rightRow in right) {
+ *             for (leftRow in buffer[keys(rightRow)] where joinCondition matches) {
+ *                 mark leftRow and rightRow as matched
+ *                 emit(leftRow, rightRow)
+ *             }
+ *             RIGHT/FULL and last block: emit(null, rightRow) if rightRow never matched
+ *         }
+ *
+ *         LEFT/FULL: emit(leftRow, null) for each unmatched leftRow of the block
+ *     }
+ * </pre>
+ * <p>
+ * Matched right rows are tracked by their position within the right side, so the right side must return its rows in
+ * the same order after {@link BatchIterator#moveToStart()}. The positions are only recorded if the left side does
+ * not fit into a single block.
+ * <p>
+ * The switching between the left and the right side follows {@link HashInnerJoinBatchIterator} to avoid
+ * deadlocks between distributed upstreams.
+ */
+public class HashJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    private enum State {
+        BUILD,
+        PROBE,
+        UNMATCHED_LEFT,
+        DONE
+    }
+
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final Function<Row, Object[]> joinKeysForLeft;
+    private final Function<Row, Object[]> joinKeysForRight;
+    private final LongToIntFunction calculateBlockSize;
+    private final boolean emitUnmatchedLeft;
+    private final boolean emitUnmatchedRight;
+
+    private final JoinHashTable buffer = new JoinHashTable();
+    private final BitSet matchedLeft = new BitSet();
+    private final BitSet matchedRight = new BitSet();
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+
+    private State state = State.BUILD;
+    private Row current;
+    private int leftAverageRowSize = -1;
+    private int blockSize;
+    private boolean leftBatchHasItems = false;
+    private int numberOfLeftBatchesForBlock;
+    private int numberOfLeftBatchesLoadedForBlock;
+    private boolean lastBlock;
+
+    private int rightPosition;
+    private boolean rightRowMatched;
+    private boolean probingRightRow;
+    private int leftMatchingRowPos;
+    private int unmatchedLeftIdx;
+
+    public HashJoinBatchIterator(BatchIterator<Row> left,
+                                 BatchIterator<Row> right,
+                                 RowAccounting<Object[]> leftRowAccounting,
+                                 CombinedRow combiner,
+                                 JoinType joinType,
+                                 Predicate<Row> joinCondition,
+                                 Function<Row, Object[]> joinKeysForLeft,
+                                 Function<Row, Object[]> joinKeysForRight,
+                                 LongToIntFunction calculateBlockSize) {
+        super(left, right, combiner);
+        assert joinType == JoinType.INNER || joinType == JoinType.LEFT || joinType == JoinType.RIGHT || joinType == JoinType.FULL
+            : "HashJoinBatchIterator doesn't support join type " + joinType;
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.joinKeysForLeft = joinKeysForLeft;
+        this.joinKeysForRight = joinKeysForRight;
+        this.calculateBlockSize = calculateBlockSize;
+        this.emitUnmatchedLeft = joinType == JoinType.LEFT || joinType == JoinType.FULL;
+        this.emitUnmatchedRight = joinType == JoinType.RIGHT || joinType == JoinType.FULL;
+        this.current = combiner.currentElement();
+        resetBlock();
+    }
+
+    @Override
+    public Row currentElement() {
+        return current;
+    }
+
+    @Override
+    public void moveToStart() {
+        left.moveToStart();
+        right.moveToStart();
+        activeIt = left;
+        leftBatchHasItems = false;
+        matchedRight.clear();
+        probingRightRow = false;
+        state = State.BUILD;
+        resetBlock();
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        if (activeIt == left) {
+            numberOfLeftBatchesLoadedForBlock++;
+        }
+        return super.loadNextBatch();
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            switch (state) {
+                case BUILD:
+                    if (buildBlock() == false) {
+                        // left needs the next batch loaded
+                        return false;
+                    }
+                    lastBlock = leftBatchHasItems == false && left.allLoaded();
+                    if (buffer.isEmpty() && lastBlock && emitUnmatchedRight == false) {
+                        state = State.DONE;
+                        return false;
+                    }
+                    activeIt = right;
+                    rightPosition = -1;
+                    state = State.PROBE;
+                    // fall through
+
+                case PROBE:
+                    if (probe()) {
+                        return true;
+                    }
+                    if (right.allLoaded() == false) {
+                        return false;
+                    }
+                    unmatchedLeftIdx = 0;
+                    state = State.UNMATCHED_LEFT;
+                    // fall through
+
+                case UNMATCHED_LEFT:
+                    if (emitUnmatchedLeft && nextUnmatchedLeft()) {
+                        return true;
+                    }
+                    if (lastBlock) {
+                        state = State.DONE;
+                        return false;
+                    }
+                    right.moveToStart();
+                    activeIt = left;
+                    resetBlock();
+                    state = State.BUILD;
+                    break;
+
+                case DONE:
+                    return false;
+
+                default:
+                    throw new AssertionError("Unexpected state: " + state);
+            }
+        }
+    }
+
+    private void resetBlock() {
+        blockSize = calculateBlockSize.applyAsInt(leftAverageRowSize);
+        buffer.clear();
+        matchedLeft.clear();
+        leftRowAccounting.release();
+
+        // See HashInnerJoinBatchIterator#resetBuffer
+        numberOfLeftBatchesForBlock = Math.max(1, (int) Math.ceil((double) blockSize / Paging.PAGE_SIZE));
+        numberOfLeftBatchesLoadedForBlock = leftBatchHasItems ? 1 : 0;
+    }
+
+    /**
+     * @return false if the next batch of the left side must be loaded before the block is complete
+     */
+    private boolean buildBlock() {
+        long numItems = 0;
+        long sum = 0;
+        while (leftBatchHasItems = left.moveNext()) {
+            Object[] row = left.currentElement().materialize();
+            sum += leftRowAccounting.accountForAndMaybeBreak(row);
+            numItems++;
+            Object[] keys = joinKeysForLeft.apply(leftRow.cells(row));
+            buffer.add(JoinHashTable.hash(keys), keys, row);
+            if (buffer.size() == blockSize) {
+                break;
+            }
+        }
+        if (numItems > 0) {
+            leftAverageRowSize = (int) (sum / numItems);
+        }
+        return leftBatchHasItems
+               || left.allLoaded()
+               || buffer.size() >= blockSize
+               || numberOfLeftBatchesLoadedForBlock >= numberOfLeftBatchesForBlock;
+    }
+
+    /**
+     * @return true if a row was found, false if the right side must be loaded or is exhausted
+     */
+    private boolean probe() {
+        while (true) {
+            if (probingRightRow) {
+                while (leftMatchingRowPos != -1) {
+                    int pos = leftMatchingRowPos;
+                    leftMatchingRowPos = buffer.next(pos);
+                    leftRow.cells(buffer.row(pos));
+                    combiner.setLeft(leftRow);
+                    if (joinCondition.test(combiner.currentElement())) {
+                        matchedLeft.set(pos);
+                        rightRowMatched = true;
+                        current = combiner.currentElement();
+                        return true;
+                    }
+                }
+                probingRightRow = false;
+                if (emitUnmatchedRight && rightRowMatched == false && matchedRight.get(rightPosition) == false) {
+                    if (lastBlock) {
+                        combiner.nullLeft();
+                        current = combiner.currentElement();
+                        return true;
+                    }
+                } else if (emitUnmatchedRight && lastBlock == false) {
+                    matchedRight.set(rightPosition);
+                }
+            }
+            if (right.moveNext() == false) {
+                return false;
+            }
+            rightPosition++;
+            Row rightRow = right.currentElement();
+            combiner.setRight(rightRow);
+            rightRowMatched = false;
+            Object[] rightKeys = joinKeysForRight.apply(rightRow);
+            leftMatchingRowPos = buffer.first(JoinHashTable.hash(rightKeys), rightKeys);
+            probingRightRow = true;
+        }
+    }
+
+    private boolean nextUnmatchedLeft() {
+        while (unmatchedLeftIdx < buffer.size()) {
+            int pos = unmatchedLeftIdx++;
+            if (matchedLeft.get(pos) == false) {
+                leftRow.cells(buffer.row(pos));
+                combiner.setLeft(leftRow);
+                combiner.nullRight();
+                current = combiner.currentElement();
+                return true;
+            }
+        }
+        return false;
+    }
+}
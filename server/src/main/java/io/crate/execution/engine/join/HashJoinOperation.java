@@ -23,11 +23,13 @@ package io.crate.execution.engine.join;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.ToIntFunction;
 
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.jetbrains.annotations.Nullable;
 
+import io.crate.Streamer;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
 import io.crate.data.CapturingRowConsumer;
@@ -37,12 +39,19 @@ import io.crate.data.RowConsumer;
 import io.crate.data.breaker.RowAccounting;
 import io.crate.data.join.CombinedRow;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
+import io.crate.sql.tree.JoinType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 
 public class HashJoinOperation implements CompletionListenable {
 
+    static final int MIN_SPILL_PARTITIONS = 8;
+    static final int MAX_SPILL_PARTITIONS = 256;
+
     private final CapturingRowConsumer leftConsumer;
     private final CapturingRowConsumer rightConsumer;
     private final RowConsumer resultConsumer;
@@ -50,6 +59,7 @@ public class HashJoinOperation implements CompletionListenable {
     public HashJoinOperation(int numLeftCols,
                              int numRightCols,
                              RowConsumer nlResultConsumer,
+                             JoinType joinType,
                              Predicate<Row> joinPredicate,
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
@@ -57,7 +67,12 @@ public class HashJoinOperation implements CompletionListenable {
                              TransactionContext txnCtx,
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
-                             long estimatedRowSizeForLeft) {
+                             long estimatedRowSizeForLeft,
+                             long numberOfRowsForLeft,
+                             List<DataType<?>> leftOutputTypes,
+                             @Nullable List<DataType<?>> rightOutputTypes,
+                             @Nullable SpillService spillService,
+                             long operationMemoryLimitInBytes) {
 
         this.resultConsumer = nlResultConsumer;
         this.leftConsumer = new CapturingRowConsumer(nlResultConsumer.requiresScroll(), nlResultConsumer.completionFuture());
@@ -67,21 +82,60 @@ public class HashJoinOperation implements CompletionListenable {
                 if (failure == null) {
                     BatchIterator<Row> joinIterator;
                     try {
-                        joinIterator = createHashJoinIterator(
-                            leftConsumer.capturedBatchIterator().join(),
-                            numLeftCols,
-                            rightConsumer.capturedBatchIterator().join(),
-                            numRightCols,
-                            joinPredicate,
-                            getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
-                            getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
-                            rowAccounting,
-                            new RamBlockSizeCalculator(
-                                Paging.PAGE_SIZE,
+                        BatchIterator<Row> left = leftConsumer.capturedBatchIterator().join();
+                        BatchIterator<Row> right = rightConsumer.capturedBatchIterator().join();
+                        Function<Row, Object[]> joinKeysForLeft = getJoinKeysFromSymbols(txnCtx, inputFactory, joinLeftInputs);
+                        Function<Row, Object[]> joinKeysForRight = getJoinKeysFromSymbols(txnCtx, inputFactory, joinRightInputs);
+                        if (joinType != JoinType.INNER) {
+                            joinIterator = new HashJoinBatchIterator(
+                                left,
+                                right,
+                                rowAccounting,
+                                new CombinedRow(numLeftCols, numRightCols),
+                                joinType,
+                                joinPredicate,
+                                joinKeysForLeft,
+                                joinKeysForRight,
+                                new RamBlockSizeCalculator(
+                                    Paging.PAGE_SIZE,
+                                    circuitBreaker,
+                                    estimatedRowSizeForLeft
+                                )
+                            );
+                        } else if (spillService != null && spillService.isEnabled() && rightOutputTypes != null) {
+                            joinIterator = createHybridHashJoinIterator(
+                                left,
+                                numLeftCols,
+                                right,
+                                numRightCols,
+                                joinPredicate,
+                                joinKeysForLeft,
+                                joinKeysForRight,
+                                rowAccounting,
+                                spillService,
                                 circuitBreaker,
-                                estimatedRowSizeForLeft
-                            )
-                        );
+                                operationMemoryLimitInBytes,
+                                estimatedRowSizeForLeft * numberOfRowsForLeft,
+                                DataTypes.getStreamers(leftOutputTypes),
+                                DataTypes.getStreamers(rightOutputTypes)
+                            );
+                        } else {
+                            joinIterator = createHashJoinIterator(
+                                left,
+                                numLeftCols,
+                                right,
+                                numRightCols,
+                                joinPredicate,
+                                joinKeysForLeft,
+                                joinKeysForRight,
+                                rowAccounting,
+                                new RamBlockSizeCalculator(
+                                    Paging.PAGE_SIZE,
+                                    circuitBreaker,
+                                    estimatedRowSizeForLeft
+                                )
+                            );
+                        }
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
                         nlResultConsumer.accept(null, e);
@@ -105,9 +159,9 @@ public class HashJoinOperation implements CompletionListenable {
         return rightConsumer;
     }
 
-    private static ToIntFunction<Row> getHashBuilderFromSymbols(TransactionContext txnCtx,
-                                                                InputFactory inputFactory,
-                                                                List<Symbol> inputs) {
+    private static Function<Row, Object[]> getJoinKeysFromSymbols(TransactionContext txnCtx,
+                                                                  InputFactory inputFactory,
+                                                                  List<Symbol> inputs) {
         InputFactory.Context<? extends CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(txnCtx, inputs);
         var topLevelInputs = ctx.topLevelInputs();
         var expressions = ctx.expressions();
@@ -115,12 +169,11 @@ public class HashJoinOperation implements CompletionListenable {
             for (int i = 0; i < expressions.size(); i++) {
                 expressions.get(i).setNextRow(row);
             }
-            int hash = 0;
-            for (int i = 0; i < topLevelInputs.size(); i++) {
-                Object value = topLevelInputs.get(i).value();
-                hash = 31 * hash + (value == null ? 0 : value.hashCode());
+            Object[] keys = new Object[topLevelInputs.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = topLevelInputs.get(i).value();
             }
-            return hash;
+            return keys;
         };
     }
 
@@ -129,8 +182,8 @@ public class HashJoinOperation implements CompletionListenable {
                                                              BatchIterator<Row> right,
                                                              int rightNumCols,
                                                              Predicate<Row> joinCondition,
-                                                             ToIntFunction<Row> hashBuilderForLeft,
-                                                             ToIntFunction<Row> hashBuilderForRight,
+                                                             Function<Row, Object[]> joinKeysForLeft,
+                                                             Function<Row, Object[]> joinKeysForRight,
                                                              RowAccounting<Object[]> rowAccounting,
                                                              RamBlockSizeCalculator blockSizeCalculator) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
@@ -140,8 +193,61 @@ public class HashJoinOperation implements CompletionListenable {
             rowAccounting,
             combiner,
             joinCondition,
-            hashBuilderForLeft,
-            hashBuilderForRight,
+            joinKeysForLeft,
+            joinKeysForRight,
             blockSizeCalculator);
     }
+
+    private static BatchIterator<Row> createHybridHashJoinIterator(BatchIterator<Row> left,
+                                                                   int leftNumCols,
+                                                                   BatchIterator<Row> right,
+                                                                   int rightNumCols,
+                                                                   Predicate<Row> joinCondition,
+                                                                   Function<Row, Object[]> joinKeysForLeft,
+                                                                   Function<Row, Object[]> joinKeysForRight,
+                                                                   RowAccounting<Object[]> rowAccounting,
+                                                                   SpillService spillService,
+                                                                   CircuitBreaker circuitBreaker,
+                                                                   long operationMemoryLimitInBytes,
+                                                                   long estimatedSizeOfLeft,
+                                                                   Streamer<?>[] leftStreamers,
+                                                                   Streamer<?>[] rightStreamers) {
+        CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
+        return new HybridHashInnerJoinBatchIterator(
+            left,
+            right,
+            rowAccounting,
+            combiner,
+            joinCondition,
+            joinKeysForLeft,
+            joinKeysForRight,
+            numSpillPartitions(estimatedSizeOfLeft, circuitBreaker, operationMemoryLimitInBytes),
+            spillService.memoryPressure(circuitBreaker, operationMemoryLimitInBytes),
+            () -> spillService.newFile(leftStreamers),
+            () -> spillService.newFile(rightStreamers)
+        );
+    }
+
+    /**
+     * Chooses the number of partitions so that a single spilled partition of the estimated left relation
+     * fits into half of the available memory.
+     */
+    static int numSpillPartitions(long estimatedSizeOfLeft,
+                                  CircuitBreaker circuitBreaker,
+                                  long operationMemoryLimitInBytes) {
+        long availableMemory = circuitBreaker.getLimit() == -1
+            ? Long.MAX_VALUE
+            : circuitBreaker.getLimit() - circuitBreaker.getUsed();
+        if (operationMemoryLimitInBytes > 0) {
+            availableMemory = Math.min(availableMemory, operationMemoryLimitInBytes);
+        }
+        if (estimatedSizeOfLeft <= 0 || availableMemory <= 0) {
+            return MIN_SPILL_PARTITIONS;
+        }
+        long partitions = (estimatedSizeOfLeft * 2) / availableMemory + 1;
+        if (partitions >= MAX_SPILL_PARTITIONS) {
+            return MAX_SPILL_PARTITIONS;
+        }
+        return Math.max(MIN_SPILL_PARTITIONS, Integer.highestOneBit((int) partitions - 1) << 1);
+    }
 }
@@ -0,0 +1,491 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.BatchIterator;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.join.JoinBatchIterator;
+import io.crate.execution.engine.spill.SpillFile;
+
+/**
+ * A hybrid (grace) hash join which spills partitions of both relations to disk if the
+ * build side doesn't fit into memory.
+ *
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         partition = partitionOf(hash(keys(leftRow)))
+ *         if (partition is spilled) {
+ *             write leftRow to the left spill file of the partition
+ *         } else {
+ *             put leftRow into the in-memory hash table of the partition
+ *             while (memory pressure) {
+ *                 write the biggest in-memory partition to its left spill file and remove it from memory
+ *             }
+ *         }
+ *     }
+ *
+ *     Probe Phase:
+ *     for (rightRow in right) {
+ *         partition = partitionOf(hash(keys(rightRow)))
+ *         if (partition is spilled) {
+ *             write rightRow to the right spill file of the partition
+ *         } else {
+ *             emit all matches within the in-memory hash table of the partition
+ *         }
+ *     }
+ *
+ *     Spilled partitions Phase:
+ *     for (partition in spilled partitions) {
+ *         load the left spill file into the hash table
+ *         for (rightRow in right spill file) {
+ *             emit all matches
+ *         }
+ *     }
+ * </pre>
+ * <p>
+ * Unlike the {@link HashInnerJoinBatchIterator}, the left and the right relation are each consumed only once and the
+ * spill files are read at most once as long as a single spilled partition fits into memory. If a spilled partition
+ * is still too large (e.g. because of heavily skewed join keys) it is processed in blocks and the right spill file
+ * of that partition is re-read once per block.
+ * <p>
+ * The left relation is always consumed completely before the right relation is consumed.
+ * This makes the switch between the relations deterministic, which is required for distributed joins.
+ */
+public class HybridHashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
+
+    /**
+     * Minimum number of rows loaded per block if a spilled partition doesn't fit into memory.
+     * Avoids re-reading the right spill file for tiny blocks if other operations hold most of the memory.
+     */
+    static final int MIN_SPILLED_BLOCK_ROWS = 1024;
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        SPILLED_PARTITIONS,
+        DONE
+    }
+
+    private final RowAccounting<Object[]> leftRowAccounting;
+    private final Predicate<Row> joinCondition;
+    private final Function<Row, Object[]> joinKeysForLeft;
+    private final Function<Row, Object[]> joinKeysForRight;
+    private final LongPredicate mustSpill;
+    private final Supplier<SpillFile> leftSpillFiles;
+    private final Supplier<SpillFile> rightSpillFiles;
+
+    private final int partitionMask;
+    private final List<JoinHashTable> partitions;
+    private final long[] partitionBytes;
+    private final SpillFile[] leftSpilled;
+    private final SpillFile[] rightSpilled;
+
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final UnsafeArrayRow spilledRightRow = new UnsafeArrayRow();
+
+    private Phase phase = Phase.BUILD;
+    private long bytesInMemory = 0;
+    @Nullable
+    private JoinHashTable matchingTable;
+    private int leftMatchingRowPos = -1;
+
+    private int spilledPartition = -1;
+    private final JoinHashTable spilledPartitionBuffer = new JoinHashTable();
+    @Nullable
+    private CloseableIterator<Object[]> spilledLeftRows;
+    @Nullable
+    private CloseableIterator<Object[]> spilledRightRows;
+
+    private volatile Throwable killed;
+
+    /**
+     * @param numPartitions number of partitions the relations are split into, must be a power of two.
+     * @param mustSpill predicate called with the number of bytes held in memory by the join,
+     *                  returning true if partitions should be moved to disk.
+     * @param leftSpillFiles supplies empty spill files for rows of the left relation.
+     * @param rightSpillFiles supplies empty spill files for rows of the right relation.
+     */
+    public HybridHashInnerJoinBatchIterator(BatchIterator<Row> left,
+                                            BatchIterator<Row> right,
+                                            RowAccounting<Object[]> leftRowAccounting,
+                                            CombinedRow combiner,
+                                            Predicate<Row> joinCondition,
+                                            Function<Row, Object[]> joinKeysForLeft,
+                                            Function<Row, Object[]> joinKeysForRight,
+                                            int numPartitions,
+                                            LongPredicate mustSpill,
+                                            Supplier<SpillFile> leftSpillFiles,
+                                            Supplier<SpillFile> rightSpillFiles) {
+        super(left, right, combiner);
+        assert Integer.bitCount(numPartitions) == 1 : "numPartitions must be a power of two";
+        this.leftRowAccounting = leftRowAccounting;
+        this.joinCondition = joinCondition;
+        this.joinKeysForLeft = joinKeysForLeft;
+        this.joinKeysForRight = joinKeysForRight;
+        this.mustSpill = mustSpill;
+        this.leftSpillFiles = leftSpillFiles;
+        this.rightSpillFiles = rightSpillFiles;
+        this.partitionMask = numPartitions - 1;
+        this.partitions = new ArrayList<>(numPartitions);
+        for (int i = 0; i < numPartitions; i++) {
+            partitions.add(new JoinHashTable());
+        }
+        this.partitionBytes = new long[numPartitions];
+        this.leftSpilled = new SpillFile[numPartitions];
+        this.rightSpilled = new SpillFile[numPartitions];
+    }
+
+    @Override
+    public Row currentElement() {
+        return combiner.currentElement();
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfKilled();
+        super.moveToStart();
+        releaseResources();
+        phase = Phase.BUILD;
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        switch (phase) {
+            case BUILD:
+                if (build() == false) {
+                    return false;
+                }
+                phase = Phase.PROBE;
+                activeIt = right;
+                // fall through
+            case PROBE:
+                if (probe()) {
+                    return true;
+                }
+                if (right.allLoaded() == false) {
+                    return false;
+                }
+                startSpilledPartitionsPhase();
+                // fall through
+            case SPILLED_PARTITIONS:
+                if (joinSpilledPartitions()) {
+                    return true;
+                }
+                phase = Phase.DONE;
+                releaseResources();
+                return false;
+
+            case DONE:
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        killed = BatchIterator.CLOSED;
+        try {
+            super.close();
+        } finally {
+            // The row accounting is not released here. The operation releases its memory on completion, which may
+            // happen before the iterator is closed.
+            deleteSpillFilesAndClearBuffers();
+        }
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
+    }
+
+    /**
+     * @return true if the left side is fully consumed, false if the next batch must be loaded
+     */
+    private boolean build() {
+        while (left.moveNext()) {
+            Object[] row = left.currentElement().materialize();
+            Object[] keys = joinKeysForLeft.apply(leftRow.cells(row));
+            int hash = JoinHashTable.hash(keys);
+            int partition = partitionOf(hash);
+            SpillFile spillFile = leftSpilled[partition];
+            if (spillFile == null) {
+                long rowBytes = leftRowAccounting.accountForAndMaybeBreak(row);
+                partitions.get(partition).add(hash, keys, row);
+                partitionBytes[partition] += rowBytes;
+                bytesInMemory += rowBytes;
+                if (mustSpill.test(bytesInMemory)) {
+                    // Spill until the join holds at most half of its memory or everything is on disk.
+                    // Deciding on the memory of the join itself avoids spilling all partitions at once
+                    // if other operations keep the breaker usage high.
+                    long targetBytes = bytesInMemory / 2;
+                    while (spillBiggestPartition() && bytesInMemory > targetBytes) {
+                        // spill next partition
+                    }
+                }
+            } else {
+                spillFile.write(row);
+            }
+        }
+        return left.allLoaded();
+    }
+
+    /**
+     * @return true if a match was found, false if there are no more matches or the next batch of the right side
+     *         must be loaded.
+     */
+    private boolean probe() {
+        if (findMatchingRows()) {
+            return true;
+        }
+        while (right.moveNext()) {
+            Row row = right.currentElement();
+            Object[] keys = joinKeysForRight.apply(row);
+            int hash = JoinHashTable.hash(keys);
+            int partition = partitionOf(hash);
+            if (leftSpilled[partition] == null) {
+                matchingTable = partitions.get(partition);
+                leftMatchingRowPos = matchingTable.first(hash, keys);
+                if (leftMatchingRowPos != -1) {
+                    combiner.setRight(row);
+                    if (findMatchingRows()) {
+                        return true;
+                    }
+                }
+            } else {
+                SpillFile spillFile = rightSpilled[partition];
+                if (spillFile == null) {
+                    spillFile = rightSpillFiles.get();
+                    rightSpilled[partition] = spillFile;
+                }
+                spillFile.write(row);
+            }
+        }
+        return false;
+    }
+
+    private void startSpilledPartitionsPhase() {
+        phase = Phase.SPILLED_PARTITIONS;
+        for (int i = 0; i < partitions.size(); i++) {
+            partitions.get(i).release();
+            partitionBytes[i] = 0;
+        }
+        bytesInMemory = 0;
+        leftRowAccounting.release();
+        spilledPartition = -1;
+    }
+
+    /**
+     * @return true if a match was found, false if all spilled partitions are processed.
+     */
+    private boolean joinSpilledPartitions() {
+        while (true) {
+            if (findMatchingRows()) {
+                return true;
+            }
+            if (spilledRightRows != null) {
+                while (spilledRightRows.hasNext()) {
+                    spilledRightRow.cells(spilledRightRows.next());
+                    Object[] keys = joinKeysForRight.apply(spilledRightRow);
+                    matchingTable = spilledPartitionBuffer;
+                    leftMatchingRowPos = spilledPartitionBuffer.first(JoinHashTable.hash(keys), keys);
+                    if (leftMatchingRowPos != -1) {
+                        combiner.setRight(spilledRightRow);
+                        if (findMatchingRows()) {
+                            return true;
+                        }
+                    }
+                }
+                spilledRightRows.close();
+                spilledRightRows = null;
+                assert spilledLeftRows != null : "spilledLeftRows must be set while right rows are processed";
+                if (spilledLeftRows.hasNext()) {
+                    // The partition didn't fit into memory, continue with the next block of it
+                    loadSpilledLeftBlock();
+                    spilledRightRows = rightSpilled[spilledPartition].rows();
+                    continue;
+                }
+                closeSpilledPartition(spilledPartition);
+            }
+            if (nextSpilledPartition() == false) {
+                return false;
+            }
+        }
+    }
+
+    private boolean nextSpilledPartition() {
+        for (int p = spilledPartition + 1; p < leftSpilled.length; p++) {
+            SpillFile leftFile = leftSpilled[p];
+            if (leftFile == null) {
+                continue;
+            }
+            SpillFile rightFile = rightSpilled[p];
+            if (rightFile == null || rightFile.numRows() == 0 || leftFile.numRows() == 0) {
+                closeSpilledPartition(p);
+                continue;
+            }
+            spilledPartition = p;
+            spilledLeftRows = leftFile.rows();
+            loadSpilledLeftBlock();
+            spilledRightRows = rightFile.rows();
+            return true;
+        }
+        spilledPartition = leftSpilled.length;
+        return false;
+    }
+
+    private void loadSpilledLeftBlock() {
+        assert spilledLeftRows != null : "spilledLeftRows must be set to load a block";
+        spilledPartitionBuffer.clear();
+        leftRowAccounting.release();
+        long blockBytes = 0;
+        int blockRows = 0;
+        while (spilledLeftRows.hasNext()) {
+            Object[] row = spilledLeftRows.next();
+            blockBytes += leftRowAccounting.accountForAndMaybeBreak(row);
+            blockRows++;
+            Object[] keys = joinKeysForLeft.apply(leftRow.cells(row));
+            spilledPartitionBuffer.add(JoinHashTable.hash(keys), keys, row);
+            if (blockRows >= MIN_SPILLED_BLOCK_ROWS && mustSpill.test(blockBytes)) {
+                break;
+            }
+        }
+    }
+
+    private void closeSpilledPartition(int partition) {
+        if (spilledLeftRows != null && partition == spilledPartition) {
+            spilledLeftRows.close();
+            spilledLeftRows = null;
+            spilledPartitionBuffer.release();
+            leftRowAccounting.release();
+        }
+        closeSpillFile(leftSpilled, partition);
+        closeSpillFile(rightSpilled, partition);
+    }
+
+    /**
+     * Moves the biggest in-memory partition to disk and stops accounting for its memory.
+     *
+     * @return false if there was no partition left to spill.
+     */
+    private boolean spillBiggestPartition() {
+        int biggest = -1;
+        long biggestBytes = 0;
+        for (int p = 0; p < partitionBytes.length; p++) {
+            if (leftSpilled[p] == null && partitionBytes[p] > biggestBytes) {
+                biggest = p;
+                biggestBytes = partitionBytes[p];
+            }
+        }
+        if (biggest == -1) {
+            return false;
+        }
+        SpillFile spillFile = leftSpillFiles.get();
+        leftSpilled[biggest] = spillFile;
+        JoinHashTable buffer = partitions.get(biggest);
+        for (int i = 0; i < buffer.size(); i++) {
+            spillFile.write(buffer.row(i));
+        }
+        buffer.release();
+        leftRowAccounting.release(biggestBytes);
+        bytesInMemory -= biggestBytes;
+        partitionBytes[biggest] = 0;
+        return true;
+    }
+
+    private int partitionOf(int hash) {
+        return BitMixer.mix32(hash) & partitionMask;
+    }
+
+    private boolean findMatchingRows() {
+        while (leftMatchingRowPos != -1) {
+            assert matchingTable != null : "matchingTable must be set if there is a matching row";
+            leftRow.cells(matchingTable.row(leftMatchingRowPos));
+            leftMatchingRowPos = matchingTable.next(leftMatchingRowPos);
+            combiner.setLeft(leftRow);
+            if (joinCondition.test(combiner.currentElement())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releaseResources() {
+        deleteSpillFilesAndClearBuffers();
+        leftRowAccounting.release();
+    }
+
+    private void deleteSpillFilesAndClearBuffers() {
+        leftMatchingRowPos = -1;
+        matchingTable = null;
+        if (spilledLeftRows != null) {
+            spilledLeftRows.close();
+            spilledLeftRows = null;
+        }
+        if (spilledRightRows != null) {
+            spilledRightRows.close();
+            spilledRightRows = null;
+        }
+        for (int p = 0; p < partitions.size(); p++) {
+            partitions.get(p).release();
+            partitionBytes[p] = 0;
+            closeSpillFile(leftSpilled, p);
+            closeSpillFile(rightSpilled, p);
+        }
+        spilledPartitionBuffer.release();
+        spilledPartition = -1;
+        bytesInMemory = 0;
+    }
+
+    private static void closeSpillFile(SpillFile[] spillFiles, int partition) {
+        SpillFile spillFile = spillFiles[partition];
+        if (spillFile != null) {
+            spillFile.close();
+            spillFiles[partition] = null;
+        }
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
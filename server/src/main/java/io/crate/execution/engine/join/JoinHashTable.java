@@ -0,0 +1,202 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.BitMixer;
+
+/**
+ * Hash table for the build side of hash joins.
+ * <p>
+ * Instead of a map from the join keys to a list of rows this table keeps all rows in a single array and links rows
+ * with the same join keys through an {@code int[]} of row positions:
+ *
+ * <pre>
+ *     slots:   open addressing table (linear probing) pointing to the last added row of each distinct key
+ *     rows:    [row0, row1, row2, ...]
+ *     keys:    [k0,   k1,   k2,   ...]
+ *     hashes:  [h0,   h1,   h2,   ...]
+ *     next:    position of the previous row with the same keys, or -1
+ * </pre>
+ * <p>
+ * A lookup compares the hash and then the key values of a slot before following it, so a chain only contains rows
+ * with equal join keys and rows whose keys only share the hash are never passed on to the join condition.
+ * This reduces the per row overhead from a list per key, the boxed map entry and the list growth to
+ * a few array entries, see {@link #BYTES_PER_ROW}.
+ * <p>
+ * Usage:
+ * <pre>
+ *     int hash = JoinHashTable.hash(keys);
+ *     for (int pos = table.first(hash, keys); pos != -1; pos = table.next(pos)) {
+ *         Object[] row = table.row(pos);
+ *     }
+ * </pre>
+ */
+public final class JoinHashTable {
+
+    /**
+     * Estimated memory used per row by the table itself, excluding the row:
+     * the references to the row and its keys, hash and next entries, the slot with a load factor of 0.75,
+     * some slack for the growth of the arrays and the array holding the keys.
+     * The key values are usually shared with the row.
+     */
+    public static final int BYTES_PER_ROW = 72;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int EMPTY = 0;
+
+    private Object[][] rows;
+    private Object[][] keys;
+    private int[] hashes;
+    private int[] next;
+    private int size;
+
+    /**
+     * position + 1 of the last added row for a key, {@link #EMPTY} for free slots
+     */
+    private int[] slots;
+    private int mask;
+    private int numKeys;
+    private int resizeAt;
+
+    public JoinHashTable() {
+        init();
+    }
+
+    private void init() {
+        rows = new Object[INITIAL_CAPACITY][];
+        keys = new Object[INITIAL_CAPACITY][];
+        hashes = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+        mask = slots.length - 1;
+        resizeAt = (int) (slots.length * LOAD_FACTOR);
+        size = 0;
+        numKeys = 0;
+    }
+
+    /**
+     * @return the hash of the join keys which must be passed to {@link #add(int, Object[], Object[])} and
+     *         {@link #first(int, Object[])}.
+     */
+    public static int hash(Object[] keys) {
+        return Arrays.hashCode(keys);
+    }
+
+    public void add(int hash, Object[] keys, Object[] row) {
+        if (size == rows.length) {
+            int newLength = size + (size >> 1);
+            rows = Arrays.copyOf(rows, newLength);
+            this.keys = Arrays.copyOf(this.keys, newLength);
+            hashes = Arrays.copyOf(hashes, newLength);
+            next = Arrays.copyOf(next, newLength);
+        }
+        int pos = size++;
+        rows[pos] = row;
+        this.keys[pos] = keys;
+        hashes[pos] = hash;
+        int slot = slotOf(hash, keys);
+        int head = slots[slot];
+        next[pos] = head - 1;
+        slots[slot] = pos + 1;
+        if (head == EMPTY && ++numKeys > resizeAt) {
+            rehash();
+        }
+    }
+
+    /**
+     * @return the position of a row with the given join keys or -1 if there is none.
+     */
+    public int first(int hash, Object[] keys) {
+        return slots[slotOf(hash, keys)] - 1;
+    }
+
+    /**
+     * @return the position of the next row with the same keys as the row at {@code pos} or -1 if there is none.
+     */
+    public int next(int pos) {
+        return next[pos];
+    }
+
+    public Object[] row(int pos) {
+        return rows[pos];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all rows but keeps the allocated arrays for re-use.
+     */
+    public void clear() {
+        Arrays.fill(rows, 0, size, null);
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        numKeys = 0;
+    }
+
+    /**
+     * Removes all rows and shrinks the table to its initial capacity.
+     */
+    public void release() {
+        init();
+    }
+
+    private int slotOf(int hash, Object[] keys) {
+        int slot = BitMixer.mixPhi(hash) & mask;
+        int head;
+        while ((head = slots[slot]) != EMPTY
+               && (hashes[head - 1] != hash || Arrays.equals(this.keys[head - 1], keys) == false)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int freeSlotOf(int hash) {
+        int slot = BitMixer.mixPhi(hash) & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldSlots = slots;
+        slots = new int[oldSlots.length << 1];
+        mask = slots.length - 1;
+        resizeAt = (int) (slots.length * LOAD_FACTOR);
+        for (int head : oldSlots) {
+            if (head != EMPTY) {
+                // Each slot holds distinct keys, no need to compare them
+                slots[freeSlotOf(hashes[head - 1])] = head;
+            }
+        }
+    }
+}
@@ -53,8 +53,10 @@ import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.jetbrains.annotations.Nullable;
 
+import io.crate.Streamer;
 import io.crate.analyze.NumberOfReplicas;
 import io.crate.analyze.SymbolEvaluator;
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.common.collections.Iterables;
 import io.crate.common.collections.Lists2;
@@ -115,6 +117,7 @@ import io.crate.execution.engine.sort.OrderingByPosition;
 import io.crate.execution.engine.sort.SortingLimitAndOffsetProjector;
 import io.crate.execution.engine.sort.SortingProjector;
 import io.crate.execution.engine.sort.UnboundedSortingLimitAndOffsetCollector;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.engine.window.WindowProjector;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.execution.support.ThreadPools;
@@ -177,7 +180,8 @@ public class ProjectionToProjectorVisitor
     private final int numProcessors;
     private final Map<String, FileOutputFactory> fileOutputFactoryMap;
     private final Schemas schemas;
-
+    @Nullable
+    private final SpillService spillService;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
                                         Schemas schemas,
@@ -193,7 +197,8 @@ public class ProjectionToProjectorVisitor
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
                                         Version indexVersionCreated,
                                         @Nullable ShardId shardId,
-                                        Map<String, FileOutputFactory> fileOutputFactoryMap) {
+                                        Map<String, FileOutputFactory> fileOutputFactoryMap,
+                                        @Nullable SpillService spillService) {
         this.clusterService = clusterService;
         this.schemas = schemas;
         this.nodeJobsCounter = nodeJobsCounter;
@@ -210,6 +215,7 @@ public class ProjectionToProjectorVisitor
         this.shardId = shardId;
         this.numProcessors = EsExecutors.numberOfProcessors(settings);
         this.fileOutputFactoryMap = fileOutputFactoryMap;
+        this.spillService = spillService;
     }
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -224,6 +230,35 @@ public class ProjectionToProjectorVisitor
                                         EvaluatingNormalizer normalizer,
                                         Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter) {
+        this(clusterService,
+            schemas,
+            nodeJobsCounter,
+            circuitBreakerService,
+            nodeCtx,
+            threadPool,
+            settings,
+            elasticsearchClient,
+            inputFactory,
+            normalizer,
+            sysUpdaterGetter,
+            staticTableDefinitionGetter,
+            null
+        );
+    }
+
+    public ProjectionToProjectorVisitor(ClusterService clusterService,
+                                        Schemas schemas,
+                                        NodeLimits nodeJobsCounter,
+                                        CircuitBreakerService circuitBreakerService,
+                                        NodeContext nodeCtx,
+                                        ThreadPool threadPool,
+                                        Settings settings,
+                                        ElasticsearchClient elasticsearchClient,
+                                        InputFactory inputFactory,
+                                        EvaluatingNormalizer normalizer,
+                                        Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
+                                        Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
+                                        @Nullable SpillService spillService) {
         this(clusterService,
             schemas,
             nodeJobsCounter,
@@ -238,7 +273,8 @@ public class ProjectionToProjectorVisitor
             staticTableDefinitionGetter,
             Version.CURRENT,
             null,
-            null
+            null,
+            spillService
         );
     }
 
@@ -293,6 +329,34 @@ public class ProjectionToProjectorVisitor
                 UNBOUNDED_COLLECTOR_THRESHOLD
             );
         }
+        if (spillService != null && spillService.isEnabled()) {
+            // Writing a sorted run releases the accounted memory,
+            // so the sorting must account on its own instead of sharing the accounting of the operation.
+            RamAccounting operationRamAccounting = context.ramAccounting;
+            RamAccounting sortRamAccounting = new ConcurrentRamAccounting(
+                operationRamAccounting::addBytes,
+                bytes -> operationRamAccounting.addBytes(-bytes),
+                "sort",
+                0
+            );
+            Streamer<?>[] streamers = new Streamer<?>[rowTypes.size()];
+            for (int i = 0; i < rowTypes.size(); i++) {
+                streamers[i] = rowTypes.get(i).streamer();
+            }
+            return new SortingProjector(
+                new RowCellsAccountingWithEstimators(rowTypes, sortRamAccounting, rowMemoryOverhead),
+                inputs,
+                ctx.expressions(),
+                numOutputs,
+                OrderingByPosition.arrayOrdering(rowTypes, orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
+                projection.offset(),
+                spillService.memoryPressure(
+                    circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY),
+                    context.txnCtx.sessionSettings().memoryLimitInBytes()
+                ),
+                () -> spillService.newFile(streamers)
+            );
+        }
         return new SortingProjector(
             rowAccounting,
             inputs,
@@ -348,7 +412,10 @@ public class ProjectionToProjectorVisitor
             context.ramAccounting,
             context.memoryManager,
             clusterService.state().nodes().getMinNodeVersion(),
-            indexVersionCreated
+            indexVersionCreated,
+            spillService,
+            circuitBreakerService.getBreaker(HierarchyCircuitBreakerService.QUERY),
+            context.txnCtx.sessionSettings().memoryLimitInBytes()
         );
     }
 
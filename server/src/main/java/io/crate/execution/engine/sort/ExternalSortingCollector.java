@@ -0,0 +1,275 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+import io.crate.data.CloseableIterator;
+import io.crate.data.CollectionBucket;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.distribution.merge.KeyIterable;
+import io.crate.execution.engine.distribution.merge.PagingIterator;
+import io.crate.execution.engine.spill.SpillFile;
+
+/**
+ * Collector which sorts rows like the {@link SortingProjector} but writes sorted runs to {@link SpillFile}s
+ * once the rows held in memory get close to the memory limit.
+ * <p>
+ * If any run was written, the result is a k-way merge of all runs and the rows remaining in memory, so the memory
+ * used for sorting is bounded by the spill threshold, independent of the number of rows.
+ * If there are more than {@link #MAX_MERGE_FAN_IN} runs, they are first merged into fewer, bigger runs
+ * in several passes, so the number of runs read at once stays bounded.
+ * <p>
+ * The {@link RowAccounting} must be exclusively used by this collector, as it's released whenever a run is written.
+ * The collector must be {@link #close() closed} once the result is consumed to delete the runs.
+ */
+final class ExternalSortingCollector implements Collector<Row, List<Object[]>, Iterable<Row>>, Closeable {
+
+    /**
+     * Minimum number of rows of a run.
+     * Avoids writing tiny runs if other operations hold most of the memory.
+     */
+    static final int MIN_RUN_ROWS = 1024;
+
+    /**
+     * Maximum number of runs merged at once. Each run being read holds an open file and a read buffer.
+     */
+    static final int MAX_MERGE_FAN_IN = 32;
+
+    private final RowAccounting<Object[]> rowAccounting;
+    private final Collection<? extends Input<?>> inputs;
+    private final Iterable<? extends CollectExpression<Row, ?>> expressions;
+    private final int numOutputs;
+    private final Comparator<Object[]> comparator;
+    private final int offset;
+    private final LongPredicate memoryPressure;
+    private final Supplier<SpillFile> newRunFile;
+    private final List<SpillFile> runs = new ArrayList<>();
+    private final List<CloseableIterator<Object[]>> openRuns = new ArrayList<>();
+
+    private long bytesInMemory = 0;
+
+    /**
+     * @param memoryPressure tells if the collector should write a run, given the number of bytes it holds in memory
+     * @param newRunFile     creates spill files for rows of all inputs
+     */
+    ExternalSortingCollector(RowAccounting<Object[]> rowAccounting,
+                             Collection<? extends Input<?>> inputs,
+                             Iterable<? extends CollectExpression<Row, ?>> expressions,
+                             int numOutputs,
+                             Comparator<Object[]> comparator,
+                             int offset,
+                             LongPredicate memoryPressure,
+                             Supplier<SpillFile> newRunFile) {
+        this.rowAccounting = rowAccounting;
+        this.inputs = inputs;
+        this.expressions = expressions;
+        this.numOutputs = numOutputs;
+        this.comparator = comparator;
+        this.offset = offset;
+        this.memoryPressure = memoryPressure;
+        this.newRunFile = newRunFile;
+    }
+
+    @Override
+    public Supplier<List<Object[]>> supplier() {
+        return ArrayList::new;
+    }
+
+    @Override
+    public BiConsumer<List<Object[]>, Row> accumulator() {
+        return this::onNextRow;
+    }
+
+    @Override
+    public BinaryOperator<List<Object[]>> combiner() {
+        return (rows1, rows2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<List<Object[]>, Iterable<Row>> finisher() {
+        return this::finish;
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    private void onNextRow(List<Object[]> rows, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        Object[] cells = new Object[inputs.size()];
+        int i = 0;
+        for (Input<?> input : inputs) {
+            cells[i++] = input.value();
+        }
+        bytesInMemory += rowAccounting.accountForAndMaybeBreak(cells);
+        rows.add(cells);
+        if (rows.size() >= MIN_RUN_ROWS && memoryPressure.test(bytesInMemory)) {
+            writeRun(rows);
+        }
+    }
+
+    private void writeRun(List<Object[]> rows) {
+        rows.sort(comparator);
+        SpillFile run = newRunFile.get();
+        runs.add(run);
+        for (Object[] cells : rows) {
+            run.write(cells);
+        }
+        run.finishWriting();
+        rows.clear();
+        if (rows instanceof ArrayList<Object[]> arrayList) {
+            arrayList.trimToSize();
+        }
+        rowAccounting.release();
+        bytesInMemory = 0;
+    }
+
+    private Iterable<Row> finish(List<Object[]> rows) {
+        rows.sort(comparator);
+        if (runs.isEmpty()) {
+            List<Object[]> result = offset == 0 ? rows : rows.subList(Math.min(offset, rows.size()), rows.size());
+            return new CollectionBucket(result, numOutputs);
+        }
+        // The rows remaining in memory are merged together with the runs
+        while (runs.size() + 1 > MAX_MERGE_FAN_IN) {
+            mergeRunsPass();
+        }
+        List<KeyIterable<Integer, Object[]>> sortedRuns = new ArrayList<>(runs.size() + 1);
+        for (int i = 0; i < runs.size(); i++) {
+            SpillFile run = runs.get(i);
+            sortedRuns.add(new KeyIterable<>(i, () -> {
+                CloseableIterator<Object[]> it = run.rows();
+                openRuns.add(it);
+                return it;
+            }));
+        }
+        sortedRuns.add(new KeyIterable<>(runs.size(), rows));
+        return () -> {
+            PagingIterator<Integer, Object[]> merged = PagingIterator.createSorted(comparator, false);
+            merged.merge(sortedRuns);
+            merged.finish();
+            for (int i = 0; i < offset && merged.hasNext(); i++) {
+                merged.next();
+            }
+            RowN row = new RowN(numOutputs);
+            return new Iterator<>() {
+
+                @Override
+                public boolean hasNext() {
+                    return merged.hasNext();
+                }
+
+                @Override
+                public Row next() {
+                    if (!merged.hasNext()) {
+                        throw new NoSuchElementException("No more rows");
+                    }
+                    row.cells(merged.next());
+                    return row;
+                }
+            };
+        };
+    }
+
+    /**
+     * Merges the runs in groups of {@link #MAX_MERGE_FAN_IN} into new runs and deletes the merged runs.
+     */
+    private void mergeRunsPass() {
+        List<SpillFile> pass = new ArrayList<>(runs);
+        for (int start = 0; start < pass.size(); start += MAX_MERGE_FAN_IN) {
+            List<SpillFile> group = pass.subList(start, Math.min(start + MAX_MERGE_FAN_IN, pass.size()));
+            if (group.size() == 1) {
+                continue;
+            }
+            SpillFile mergedRun = newRunFile.get();
+            // Registered before merging so that it's deleted on close if merging fails
+            runs.add(mergedRun);
+            mergeRuns(group, mergedRun);
+            for (SpillFile run : group) {
+                runs.remove(run);
+                run.close();
+            }
+        }
+    }
+
+    private void mergeRuns(List<SpillFile> group, SpillFile mergedRun) {
+        List<CloseableIterator<Object[]>> groupRows = new ArrayList<>(group.size());
+        try {
+            List<KeyIterable<Integer, Object[]>> sortedRuns = new ArrayList<>(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                CloseableIterator<Object[]> it = group.get(i).rows();
+                groupRows.add(it);
+                sortedRuns.add(new KeyIterable<>(i, () -> it));
+            }
+            PagingIterator<Integer, Object[]> merged = PagingIterator.createSorted(comparator, false);
+            merged.merge(sortedRuns);
+            merged.finish();
+            while (merged.hasNext()) {
+                mergedRun.write(merged.next());
+            }
+            mergedRun.finishWriting();
+        } finally {
+            for (CloseableIterator<Object[]> it : groupRows) {
+                it.close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the runs written to disk
+     */
+    @Override
+    public void close() {
+        for (CloseableIterator<Object[]> openRun : openRuns) {
+            openRun.close();
+        }
+        openRuns.clear();
+        for (SpillFile run : runs) {
+            run.close();
+        }
+        runs.clear();
+    }
+}
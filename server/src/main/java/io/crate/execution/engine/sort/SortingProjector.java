@@ -30,10 +30,14 @@ import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.data.breaker.RowAccounting;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.spill.SpillFile;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -52,6 +56,10 @@ public class SortingProjector implements Projector {
     private final int offset;
     private final int numOutputs;
     private final RowAccounting<Object[]> rowAccounting;
+    @Nullable
+    private final LongPredicate memoryPressure;
+    @Nullable
+    private final Supplier<SpillFile> newRunFile;
 
     /**
      * @param rowAccounting               sorting is a pipeline breaker so account for the used memory
@@ -67,6 +75,26 @@ public class SortingProjector implements Projector {
                             int numOutputs,
                             Comparator<Object[]> comparator,
                             int offset) {
+        this(rowAccounting, inputs, collectExpressions, numOutputs, comparator, offset, null, null);
+    }
+
+    /**
+     * Creates a projector which writes sorted runs to disk if {@code memoryPressure} signals that the rows held
+     * in memory get too large, see {@link ExternalSortingCollector}.
+     * The {@code rowAccounting} must be exclusively used by this projector in that case.
+     *
+     * @param memoryPressure tells if a sorted run should be written, given the number of bytes held in memory.
+     *                       Null to sort in memory only.
+     * @param newRunFile     creates spill files for rows of all {@code inputs}
+     */
+    public SortingProjector(RowAccounting<Object[]> rowAccounting,
+                            Collection<? extends Input<?>> inputs,
+                            Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                            int numOutputs,
+                            Comparator<Object[]> comparator,
+                            int offset,
+                            @Nullable LongPredicate memoryPressure,
+                            @Nullable Supplier<SpillFile> newRunFile) {
         if (offset < 0) {
             throw new IllegalArgumentException("invalid offset " + offset);
         }
@@ -76,11 +104,34 @@ public class SortingProjector implements Projector {
         this.collectExpressions = collectExpressions;
         this.comparator = comparator;
         this.offset = offset;
+        this.memoryPressure = memoryPressure;
+        this.newRunFile = newRunFile;
     }
 
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (memoryPressure != null && newRunFile != null) {
+            ExternalSortingCollector externalCollector = new ExternalSortingCollector(
+                rowAccounting,
+                inputs,
+                collectExpressions,
+                numOutputs,
+                comparator,
+                offset,
+                memoryPressure,
+                newRunFile
+            );
+            return CollectingBatchIterator.newInstance(
+                () -> {
+                    batchIterator.close();
+                    externalCollector.close();
+                },
+                batchIterator::kill,
+                () -> batchIterator.collect(externalCollector),
+                batchIterator.hasLazyResultSet()
+            );
+        }
         Collector<Row, ?, Bucket> collector = Collectors.mapping(
             this::getCells,
             Collectors.collectingAndThen(Collectors.toList(), this::sortAndCreateBucket));
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import io.crate.Streamer;
+import io.crate.data.CloseableIterator;
+import io.crate.data.Row;
+
+/**
+ * A temporary file holding rows which are serialized using the {@link Streamer}s of their column types.
+ * <p>
+ * Rows are appended until {@link #finishWriting()} is called, afterwards they can be read back any number of
+ * times using {@link #rows()}. Closing the file deletes it.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class SpillFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Path path;
+    private final Streamer<?>[] streamers;
+
+    private StreamOutput out;
+    private long numRows = 0;
+
+    public SpillFile(Path path, Streamer<?>[] streamers) throws IOException {
+        this.path = path;
+        this.streamers = streamers;
+        this.out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void write(Row row) {
+        assert out != null : "Cannot write to a SpillFile after finishWriting() was called";
+        assert row.numColumns() == streamers.length : "number of streamers must match row size";
+        try {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numRows++;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void write(Object[] cells) {
+        assert out != null : "Cannot write to a SpillFile after finishWriting() was called";
+        assert cells.length == streamers.length : "number of streamers must match row size";
+        try {
+            for (int i = 0; i < streamers.length; i++) {
+                ((Streamer) streamers[i]).writeValueTo(out, cells[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numRows++;
+    }
+
+    /**
+     * Flushes and closes the underlying output. Must be called before the rows can be read.
+     */
+    public void finishWriting() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            out = null;
+        }
+    }
+
+    public long numRows() {
+        return numRows;
+    }
+
+    /**
+     * @return an iterator over the rows of this file. Each call to {@code next()} returns a new array.
+     *         The iterator must be closed to release the file handle.
+     */
+    public CloseableIterator<Object[]> rows() {
+        finishWriting();
+        final StreamInput in;
+        try {
+            in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CloseableIterator<>() {
+
+            long remaining = numRows;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Object[] next() {
+                if (remaining <= 0) {
+                    throw new NoSuchElementException("SpillFile has no more rows");
+                }
+                Object[] cells = new Object[streamers.length];
+                try {
+                    for (int i = 0; i < streamers.length; i++) {
+                        cells[i] = streamers[i].readValueFrom(in);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                remaining--;
+                return cells;
+            }
+
+            @Override
+            public void close() {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Closes and deletes the file
+     */
+    @Override
+    public void close() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpillFile{path=" + path + ", numRows=" + numRows + '}';
+    }
+}
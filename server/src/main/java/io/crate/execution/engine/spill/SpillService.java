@@ -0,0 +1,145 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.spill;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongPredicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+
+import io.crate.Streamer;
+import io.crate.common.io.IOUtils;
+
+/**
+ * Provides temporary {@link SpillFile}s to operations which can offload their state to disk
+ * once the memory they hold gets close to the query circuit breaker limit.
+ * <p>
+ * Spill files are created within a {@code spill} folder in the first data path of the node.
+ * Leftovers of previous runs are removed when the node starts.
+ */
+@Singleton
+public final class SpillService {
+
+    private static final Logger LOGGER = LogManager.getLogger(SpillService.class);
+
+    static final String SPILL_FOLDER = "spill";
+
+    /**
+     * Minimum number of bytes an operation must hold before it spills because of the overall circuit breaker usage.
+     * Otherwise operations holding little memory would spill over and over again while other operations keep
+     * the breaker usage above the threshold, without relieving the breaker noticeably.
+     */
+    static final long MIN_SPILL_BYTES = 4L * 1024 * 1024;
+
+    public static final Setting<Boolean> SPILL_ENABLED_SETTING = Setting.boolSetting(
+        "spill.enabled",
+        true,
+        Property.NodeScope,
+        Property.Dynamic,
+        Property.Exposed
+    );
+
+    public static final Setting<Double> SPILL_BREAKER_THRESHOLD_SETTING = Setting.doubleSetting(
+        "spill.breaker_threshold",
+        0.75,
+        0.1,
+        1.0,
+        Property.NodeScope,
+        Property.Dynamic,
+        Property.Exposed
+    );
+
+    private final Path spillPath;
+
+    private volatile boolean enabled;
+    private volatile double breakerThreshold;
+
+    @Inject
+    public SpillService(Settings settings, ClusterSettings clusterSettings, NodeEnvironment nodeEnvironment) {
+        this(nodeEnvironment.nodeDataPaths()[0].resolve(SPILL_FOLDER), settings);
+        clusterSettings.addSettingsUpdateConsumer(SPILL_ENABLED_SETTING, newValue -> enabled = newValue);
+        clusterSettings.addSettingsUpdateConsumer(SPILL_BREAKER_THRESHOLD_SETTING, newValue -> breakerThreshold = newValue);
+        try {
+            IOUtils.rm(spillPath);
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't remove leftover spill files in " + spillPath, e);
+        }
+    }
+
+    public SpillService(Path spillPath, Settings settings) {
+        this.spillPath = spillPath;
+        this.enabled = SPILL_ENABLED_SETTING.get(settings);
+        this.breakerThreshold = SPILL_BREAKER_THRESHOLD_SETTING.get(settings);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a new, empty spill file for rows of the given streamers.
+     * The caller is responsible to {@link SpillFile#close()} it which deletes the file.
+     */
+    public SpillFile newFile(Streamer<?>[] streamers) {
+        try {
+            Files.createDirectories(spillPath);
+            return new SpillFile(Files.createTempFile(spillPath, "spill-", ".bin"), streamers);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns a predicate which tells an operation holding the given number of bytes in memory if it should spill.
+     * This is the case if either the {@code memory.operation_limit} is close to be reached or if the
+     * circuit breaker usage crossed {@link #SPILL_BREAKER_THRESHOLD_SETTING} and the operation holds at least
+     * {@link #MIN_SPILL_BYTES}. As spilling releases the memory of the operation, it has to grow to this size
+     * again before it spills the next time.
+     *
+     * @param operationMemoryLimitInBytes the memory limit of a single operation, 0 if unlimited.
+     */
+    public LongPredicate memoryPressure(CircuitBreaker breaker, long operationMemoryLimitInBytes) {
+        return bytesInMemory -> {
+            double threshold = breakerThreshold;
+            if (operationMemoryLimitInBytes > 0 && bytesInMemory >= operationMemoryLimitInBytes * threshold) {
+                return true;
+            }
+            if (bytesInMemory < MIN_SPILL_BYTES) {
+                return false;
+            }
+            long limit = breaker.getLimit();
+            return limit != -1 && breaker.getUsed() >= limit * threshold;
+        };
+    }
+}
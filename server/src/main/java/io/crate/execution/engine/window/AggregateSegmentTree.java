@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import org.apache.lucene.util.RamUsageEstimator;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+
+/**
+ * Segment tree over the partial states of the rows of a partition.
+ * <p>
+ * Allows to compute a non removable cumulative aggregation over any frame of the partition by combining
+ * O(log n) states, instead of iterating over all rows of the frame whenever the start of the frame moves.
+ * <p>
+ * The states of the tree are combined again for every frame, so this requires an aggregation whose
+ * {@link AggregationFunction#isReduceSelective() reduce is selective}.
+ */
+final class AggregateSegmentTree {
+
+    private final AggregationFunction<Object, ?> aggregation;
+    private final Object emptyState;
+    private final Object[] nodes;
+    private final int numLeaves;
+
+    /**
+     * @param emptyState the state of an aggregation which didn't see any rows
+     * @param leafStates the states of the rows of the partition, in order
+     */
+    AggregateSegmentTree(AggregationFunction<Object, ?> aggregation, Object emptyState, Object[] leafStates) {
+        assert aggregation.isReduceSelective() : "Segment tree requires an aggregation with a selective reduce";
+        this.aggregation = aggregation;
+        this.emptyState = emptyState;
+        this.numLeaves = leafStates.length;
+        this.nodes = new Object[2 * numLeaves];
+        System.arraycopy(leafStates, 0, nodes, numLeaves, numLeaves);
+        for (int i = numLeaves - 1; i > 0; i--) {
+            nodes[i] = reduce(nodes[2 * i], nodes[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Returns the state of the aggregation over the leaves from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    Object query(int start, int end) {
+        assert start >= 0 && end <= numLeaves : "Range must be within the leaves of the tree";
+        Object left = emptyState;
+        Object right = emptyState;
+        for (int l = start + numLeaves, r = end + numLeaves; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                left = reduce(left, nodes[l++]);
+            }
+            if ((r & 1) == 1) {
+                right = reduce(nodes[--r], right);
+            }
+        }
+        return reduce(left, right);
+    }
+
+    /**
+     * Returns the size of the tree, excluding the states it refers to
+     */
+    long ramBytesUsed() {
+        return RamUsageEstimator.shallowSizeOf(nodes);
+    }
+
+    private Object reduce(Object state1, Object state2) {
+        // A selective reduce doesn't create new states, the leaf states are accounted when building the tree
+        return aggregation.reduce(RamAccounting.NO_ACCOUNTING, state1, state2);
+    }
+}
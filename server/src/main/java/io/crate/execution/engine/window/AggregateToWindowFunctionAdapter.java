@@ -35,6 +35,7 @@ import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
 import org.elasticsearch.Version;
 
 import org.jetbrains.annotations.Nullable;
@@ -56,6 +57,10 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
     private int seenFrameUpperBound = -1;
     private Object resultForCurrentFrame;
 
+    @Nullable
+    private AggregateSegmentTree segmentTree;
+    private long segmentTreeBytes = 0;
+
     AggregateToWindowFunctionAdapter(AggregationFunction aggregationFunction,
                                      ExpressionsInput<Row, Boolean> filter,
                                      Version indexVersionCreated,
@@ -99,9 +104,17 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                           Input... args) {
         assert ignoreNulls == null;
         if (idxInPartition == 0) {
+            releaseSegmentTree();
             recomputeFunction(frame, expressions, args);
+        } else if (segmentTree != null) {
+            resultForCurrentFrame = computeWithSegmentTree(frame);
         } else if (isLowerBoundIncreasing(frame, seenFrameLowerBound)) {
-            if (aggregationFunction.isRemovableCumulative()) {
+            if (aggregationFunction.isReduceSelective() && !aggregationFunction.isRemovableCumulative()) {
+                // The frame is sliding, instead of iterating over all rows of every frame,
+                // build a segment tree once for the partition to compute each frame in O(log n)
+                segmentTree = buildSegmentTree(frame, expressions, args);
+                resultForCurrentFrame = computeWithSegmentTree(frame);
+            } else if (aggregationFunction.isRemovableCumulative()) {
                 removeSeenRowsFromAccumulatedState(frame, expressions, args);
                 resultForCurrentFrame = aggregationFunction.terminatePartial(ramAccounting, accumulatedState);
                 if (frame.upperBoundExclusive() > seenFrameUpperBound) {
@@ -119,6 +132,56 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
         return resultForCurrentFrame;
     }
 
+    private AggregateSegmentTree buildSegmentTree(WindowFrameState frame,
+                                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                                  Input[] args) {
+        int partitionSize = frame.partitionSize();
+        Object emptyState = aggregationFunction.newState(
+            RamAccounting.NO_ACCOUNTING,
+            indexVersionCreated,
+            minNodeVersion,
+            memoryManager
+        );
+        Object[] leafStates = new Object[partitionSize];
+        DataType partialType = aggregationFunction.partialType();
+        long leafBytes = 0;
+        var row = new ArrayRow();
+        for (int i = 0; i < partitionSize; i++) {
+            Object[] cells = frame.getRowInPartitionAtIndexOrNull(i);
+            assert cells != null : "No row at idx=" + i + " in current partition=" + frame;
+            row.cells(cells);
+            for (int j = 0, expressionsSize = expressions.size(); j < expressionsSize; j++) {
+                expressions.get(j).setNextRow(row);
+            }
+            Object leafState = emptyState;
+            if (filter.value(row)) {
+                //noinspection unchecked
+                leafState = aggregationFunction.iterate(RamAccounting.NO_ACCOUNTING, memoryManager, emptyState, args);
+                leafBytes += partialType.valueBytes(leafState);
+            }
+            leafStates[i] = leafState;
+        }
+        //noinspection unchecked
+        AggregateSegmentTree tree = new AggregateSegmentTree(aggregationFunction, emptyState, leafStates);
+        segmentTreeBytes = tree.ramBytesUsed() + leafBytes;
+        ramAccounting.addBytes(segmentTreeBytes);
+        return tree;
+    }
+
+    private Object computeWithSegmentTree(WindowFrameState frame) {
+        Object state = segmentTree.query(frame.lowerBound(), frame.upperBoundExclusive());
+        //noinspection unchecked
+        return aggregationFunction.terminatePartial(ramAccounting, state);
+    }
+
+    private void releaseSegmentTree() {
+        if (segmentTree != null) {
+            ramAccounting.addBytes(-segmentTreeBytes);
+            segmentTree = null;
+            segmentTreeBytes = 0;
+        }
+    }
+
     private void removeSeenRowsFromAccumulatedState(WindowFrameState frame,
                                                     List<? extends CollectExpression<Row, ?>> expressions,
                                                     Input[] args) {
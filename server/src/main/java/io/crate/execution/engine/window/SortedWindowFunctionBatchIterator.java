@@ -0,0 +1,304 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.carrotsearch.hppc.LongArrayList;
+
+import io.crate.common.exceptions.Exceptions;
+import io.crate.data.ArrayRow;
+import io.crate.data.BatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.execution.engine.collect.CollectExpression;
+
+/**
+ * BatchIterator which computes window functions over a source that is already sorted by the
+ * PARTITION BY and ORDER BY of the window definition.
+ *
+ * <p>
+ * Unlike {@link WindowFunctionBatchIterator#of} this is not a pipeline breaker. It only buffers the rows of the
+ * current partition and emits them as soon as the partition is complete.
+ * </p>
+ *
+ * <p>
+ * If {@code streamFrames} is set, the frame of a row must not depend on the rows following its peers and the
+ * window functions must not look at rows before the current row, except through an incrementally computed state.
+ * This is the case for {@code ROWS|RANGE BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW} with aggregates or
+ * {@code row_number()}. Rows are then emitted as soon as their frame is complete, and rows that were emitted
+ * are dropped from the buffer, so that only the current frame boundary is held in memory.
+ * </p>
+ */
+final class SortedWindowFunctionBatchIterator implements BatchIterator<Row> {
+
+    /**
+     * Emitted rows are only dropped from the buffer in chunks to avoid shifting the remaining rows for every row.
+     */
+    private static final int MIN_ROWS_TO_DROP = 1024;
+
+    private final BatchIterator<Row> source;
+    private final RowAccounting<Row> rowAccounting;
+    private final RamAccounting ramAccounting;
+    private final ComputeFrameBoundary<Object[]> computeFrameStart;
+    private final ComputeFrameBoundary<Object[]> computeFrameEnd;
+    @Nullable
+    private final Comparator<Object[]> cmpPartitionBy;
+    @Nullable
+    private final Comparator<Object[]> cmpOrderBy;
+    private final int numCellsInSourceRow;
+    private final boolean streamFrames;
+    private final List<WindowFunction> windowFunctions;
+    private final List<? extends CollectExpression<Row, ?>> argsExpressions;
+    private final Boolean[] ignoreNulls;
+    private final Input[][] args;
+
+    private final ArrayList<Object[]> rows = new ArrayList<>();
+    private final LongArrayList rowBytes = new LongArrayList();
+    private final WindowFrameState frame = new WindowFrameState(0, 0, rows);
+    private final ArrayRow currentRow = new ArrayRow();
+
+    /**
+     * Number of rows of the current partition which were dropped from the head of {@link #rows}
+     */
+    private int numDroppedRows = 0;
+    private int next = 0;
+    private int idxInPartition = 0;
+    private int peerGroupStart = 0;
+    private boolean partitionComplete = false;
+
+    @Nullable
+    private Object[] lastRow;
+    @Nullable
+    private Object[] firstRowOfNextPartition;
+    private long firstRowOfNextPartitionBytes;
+    @Nullable
+    private volatile Throwable killed;
+
+    SortedWindowFunctionBatchIterator(BatchIterator<Row> source,
+                                      RowAccounting<Row> rowAccounting,
+                                      RamAccounting ramAccounting,
+                                      ComputeFrameBoundary<Object[]> computeFrameStart,
+                                      ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                      @Nullable Comparator<Object[]> cmpPartitionBy,
+                                      @Nullable Comparator<Object[]> cmpOrderBy,
+                                      int numCellsInSourceRow,
+                                      boolean streamFrames,
+                                      List<WindowFunction> windowFunctions,
+                                      List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                      Boolean[] ignoreNulls,
+                                      Input[]... args) {
+        assert windowFunctions.size() == args.length : "arguments must be defined for each window function";
+        assert args.length == ignoreNulls.length : "ignore-nulls option must be defined for each window function";
+        this.source = source;
+        this.rowAccounting = rowAccounting;
+        this.ramAccounting = ramAccounting;
+        this.computeFrameStart = computeFrameStart;
+        this.computeFrameEnd = computeFrameEnd;
+        this.cmpPartitionBy = cmpPartitionBy;
+        this.cmpOrderBy = cmpOrderBy;
+        this.numCellsInSourceRow = numCellsInSourceRow;
+        this.streamFrames = streamFrames;
+        this.windowFunctions = windowFunctions;
+        this.argsExpressions = argsExpressions;
+        this.ignoreNulls = ignoreNulls;
+        this.args = args;
+        this.currentRow.cells(new Object[numCellsInSourceRow + windowFunctions.size()]);
+    }
+
+    @Override
+    public Row currentElement() {
+        return currentRow;
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfClosedOrKilled();
+        source.moveToStart();
+        releaseRows();
+        if (firstRowOfNextPartition != null) {
+            ramAccounting.addBytes(-firstRowOfNextPartitionBytes);
+            firstRowOfNextPartition = null;
+        }
+        partitionComplete = false;
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfClosedOrKilled();
+        while (true) {
+            if (next < rows.size() && isFrameComplete(next)) {
+                currentRow.cells(computeWindowFunctions(next));
+                next++;
+                idxInPartition++;
+                if (streamFrames) {
+                    maybeDropEmittedRows();
+                }
+                return true;
+            }
+            if (partitionComplete) {
+                startNextPartition();
+                if (rows.isEmpty()) {
+                    return false;
+                }
+                continue;
+            }
+            if (source.moveNext()) {
+                addRow(source.currentElement());
+                continue;
+            }
+            if (source.allLoaded() && !rows.isEmpty()) {
+                partitionComplete = true;
+                continue;
+            }
+            return false;
+        }
+    }
+
+    private boolean isFrameComplete(int idx) {
+        if (partitionComplete) {
+            return true;
+        }
+        if (streamFrames) {
+            // The frame may end with the last peer of the current row,
+            // which is only known once a row of the next peer group arrived.
+            return cmpOrderBy == null || idx < peerGroupStart;
+        }
+        return false;
+    }
+
+    private Object[] computeWindowFunctions(int idx) {
+        int pStart = -numDroppedRows;
+        int pEnd = rows.size();
+        int wBegin = computeFrameStart.apply(pStart, pEnd, idx, rows);
+        int wEnd = computeFrameEnd.apply(pStart, pEnd, idx, rows);
+        frame.updateBounds(pStart, pEnd, wBegin, wEnd);
+        return WindowFunctionBatchIterator.computeAndInjectResults(
+            rows, numCellsInSourceRow, windowFunctions, frame, idx, idxInPartition, argsExpressions, ignoreNulls, args);
+    }
+
+    private void addRow(Row row) {
+        long bytes = rowAccounting.accountForAndMaybeBreak(row);
+        Object[] cells = WindowFunctionBatchIterator.materializeWithSpare(row, windowFunctions.size());
+        if (lastRow != null && cmpPartitionBy != null && cmpPartitionBy.compare(lastRow, cells) != 0) {
+            firstRowOfNextPartition = cells;
+            firstRowOfNextPartitionBytes = bytes;
+            partitionComplete = true;
+        } else {
+            appendRow(cells, bytes);
+        }
+    }
+
+    private void appendRow(Object[] cells, long bytes) {
+        if (lastRow != null && cmpOrderBy != null && cmpOrderBy.compare(lastRow, cells) != 0) {
+            peerGroupStart = rows.size();
+        }
+        rows.add(cells);
+        rowBytes.add(bytes);
+        lastRow = cells;
+    }
+
+    private void startNextPartition() {
+        releaseRows();
+        partitionComplete = false;
+        if (firstRowOfNextPartition != null) {
+            appendRow(firstRowOfNextPartition, firstRowOfNextPartitionBytes);
+            firstRowOfNextPartition = null;
+        }
+    }
+
+    private void maybeDropEmittedRows() {
+        if (next < MIN_ROWS_TO_DROP || next * 2 < rows.size()) {
+            return;
+        }
+        long bytes = 0;
+        for (int i = 0; i < next; i++) {
+            bytes += rowBytes.get(i);
+        }
+        ramAccounting.addBytes(-bytes);
+        rows.subList(0, next).clear();
+        rowBytes.removeRange(0, next);
+        numDroppedRows += next;
+        peerGroupStart -= next;
+        next = 0;
+    }
+
+    private void releaseRows() {
+        long bytes = 0;
+        for (int i = 0; i < rowBytes.size(); i++) {
+            bytes += rowBytes.get(i);
+        }
+        ramAccounting.addBytes(-bytes);
+        rows.clear();
+        rowBytes.clear();
+        numDroppedRows = 0;
+        next = 0;
+        idxInPartition = 0;
+        peerGroupStart = 0;
+        lastRow = null;
+    }
+
+    private void raiseIfClosedOrKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+
+    @Override
+    public void close() {
+        source.close();
+        // The accounted memory is released together with the operation
+        rows.clear();
+        rowBytes.clear();
+        killed = BatchIterator.CLOSED;
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        return source.loadNextBatch();
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return source.allLoaded();
+    }
+
+    @Override
+    public void kill(@NotNull Throwable throwable) {
+        source.kill(throwable);
+        killed = throwable;
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return source.hasLazyResultSet();
+    }
+}
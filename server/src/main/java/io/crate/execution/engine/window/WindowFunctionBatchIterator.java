@@ -117,7 +117,7 @@ public final class WindowFunctionBatchIterator {
         );
     }
 
-    private static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
+    static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
         Object[] cells = new Object[row.numColumns() + numWindowFunctions];
         for (int i = 0; i < row.numColumns(); i++) {
             cells[i] = row.get(i);
@@ -227,15 +227,15 @@ public final class WindowFunctionBatchIterator {
         return cmpPartitionBy.thenComparing(cmpOrderBy);
     }
 
-    private static Object[] computeAndInjectResults(List<Object[]> rows,
-                                                    int numCellsInSourceRow,
-                                                    List<WindowFunction> windowFunctions,
-                                                    WindowFrameState frame,
-                                                    int idx,
-                                                    int idxInPartition,
-                                                    List<? extends CollectExpression<Row, ?>> argsExpressions,
-                                                    Boolean[] ignoreNulls,
-                                                    Input[]... args) {
+    static Object[] computeAndInjectResults(List<Object[]> rows,
+                                            int numCellsInSourceRow,
+                                            List<WindowFunction> windowFunctions,
+                                            WindowFrameState frame,
+                                            int idx,
+                                            int idxInPartition,
+                                            List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                            Boolean[] ignoreNulls,
+                                            Input[]... args) {
         Object[] row = rows.get(idx);
         for (int c = 0; c < windowFunctions.size(); c++) {
             WindowFunction windowFunction = windowFunctions.get(c);
@@ -57,6 +57,7 @@ import io.crate.memory.MemoryManager;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
+import io.crate.sql.tree.FrameBound;
 import io.crate.sql.tree.WindowFrame;
 import io.crate.types.DataType;
 import io.crate.types.IntervalType;
@@ -153,6 +154,29 @@ public class WindowProjector {
             windowDefinition,
             cmpOrderBy
         );
+        if (projection.sortedInput()) {
+            var frameDefinition = windowDefinition.windowFrameDefinition();
+            boolean streamFrames = frameDefinition.start().type() == FrameBound.Type.UNBOUNDED_PRECEDING
+                && frameDefinition.end().type() == FrameBound.Type.CURRENT_ROW
+                && (frameDefinition.mode() == WindowFrame.Mode.ROWS || cmpOrderBy != null)
+                && windowFunctions.stream().allMatch(
+                    f -> f instanceof RowNumberWindowFunction || f instanceof AggregateToWindowFunctionAdapter);
+            return sourceRows -> new SortedWindowFunctionBatchIterator(
+                sourceRows,
+                accounting,
+                ramAccounting,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                cmpOrderBy,
+                numCellsInSourceRow,
+                streamFrames,
+                windowFunctions,
+                windowFuncArgsExpressions,
+                ignoreNulls,
+                windowFuncArgsInputs
+            );
+        }
         return sourceRows -> WindowFunctionBatchIterator.of(
             sourceRows,
             accounting,
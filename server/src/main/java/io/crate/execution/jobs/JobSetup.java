@@ -93,6 +93,7 @@ import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.JobLauncher.HandlerPhase;
 import io.crate.execution.engine.aggregation.AggregationPipe;
+import io.crate.execution.engine.aggregation.GroupingCollector;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.MapSideDataCollectOperation;
@@ -106,10 +107,12 @@ import io.crate.execution.engine.distribution.StreamBucket;
 import io.crate.execution.engine.distribution.merge.PagingIterator;
 import io.crate.execution.engine.fetch.FetchTask;
 import io.crate.execution.engine.join.HashJoinOperation;
+import io.crate.execution.engine.join.JoinHashTable;
 import io.crate.execution.engine.join.NestedLoopOperation;
 import io.crate.execution.engine.pipeline.ProjectingRowConsumer;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.InputFactory;
 import io.crate.expression.RowFilter;
 import io.crate.expression.eval.EvaluatingNormalizer;
@@ -136,6 +139,7 @@ public class JobSetup {
     private final CircuitBreakerService circuitBreakerService;
     private final CountOperation countOperation;
     private final MemoryManagerFactory memoryManagerFactory;
+    private final SpillService spillService;
     private final DistributingConsumerFactory distributingConsumerFactory;
     private final InnerPreparer innerPreparer;
     private final InputFactory inputFactory;
@@ -160,7 +164,8 @@ public class JobSetup {
                     NodeContext nodeCtx,
                     SystemCollectSource systemCollectSource,
                     ShardCollectSource shardCollectSource,
-                    MemoryManagerFactory memoryManagerFactory) {
+                    MemoryManagerFactory memoryManagerFactory,
+                    SpillService spillService) {
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
         this.schemas = schemas;
         this.collectOperation = collectOperation;
@@ -168,6 +173,7 @@ public class JobSetup {
         this.circuitBreakerService = circuitBreakerService;
         this.countOperation = countOperation;
         this.memoryManagerFactory = memoryManagerFactory;
+        this.spillService = spillService;
         this.pkLookupOperation = new PKLookupOperation(indicesService, shardCollectSource);
         this.distributingConsumerFactory = distributingConsumerFactory;
         innerPreparer = new InnerPreparer();
@@ -186,7 +192,8 @@ public class JobSetup {
             inputFactory,
             normalizer,
             systemCollectSource::getRowUpdater,
-            systemCollectSource::tableDefinition
+            systemCollectSource::tableDefinition,
+            spillService
         );
     }
 
@@ -694,7 +701,9 @@ public class JobSetup {
                         memoryManager,
                         phase.jobId()
                     );
-                    collector = groupingProjector.getCollector();
+                    GroupingCollector<Object> groupingCollector = groupingProjector.getCollector();
+                    finalRowConsumer.completionFuture().whenComplete((result, error) -> groupingCollector.close());
+                    collector = groupingCollector;
                     projections = projections.subList(1, projections.size());
                 } else if (firstProjection instanceof AggregationProjection) {
                     AggregationProjection aggregationProjection = (AggregationProjection) firstProjection;
@@ -942,18 +951,24 @@ public class JobSetup {
                 phase.numLeftOutputs(),
                 phase.numRightOutputs(),
                 firstConsumer,
+                phase.joinType(),
                 joinCondition,
                 phase.leftJoinConditionInputs(),
                 phase.rightJoinConditionInputs(),
-                // 110 extra bytes per row =
-                //    96 bytes for each ArrayList +
-                //    7 bytes per key for the IntHashObjectHashMap  (should be 4 but the map pre-allocates more)
-                //    7 bytes perv value (pointer from the map to the list) (should be 4 but the map pre-allocates more)
-                new RowCellsAccountingWithEstimators(phase.leftOutputTypes(), ramAccountingOfOperation, 110),
+                new RowCellsAccountingWithEstimators(
+                    phase.leftOutputTypes(),
+                    ramAccountingOfOperation,
+                    JoinHashTable.BYTES_PER_ROW
+                ),
                 context.transactionContext,
                 inputFactory,
                 breaker(),
-                phase.estimatedRowSizeForLeft()
+                phase.estimatedRowSizeForLeft(),
+                phase.numberOfRowsForLeft(),
+                phase.leftOutputTypes(),
+                phase.rightOutputTypes(),
+                spillService,
+                context.operationMemoryLimitInBytes()
             );
             DistResultRXTask left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
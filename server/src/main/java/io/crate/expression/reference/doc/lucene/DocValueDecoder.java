@@ -0,0 +1,126 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.expression.reference.doc.lucene;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.search.DocValueFormat;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.CharacterType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+
+/**
+ * Decodes the doc values of a column into the Java value of its {@link DataType}.
+ *
+ * <p>
+ * Numeric, timestamp and boolean columns are stored as {@link SortedNumericDocValues} and decoded by
+ * {@link Numeric}, text and ip columns as {@link SortedSetDocValues} and decoded by {@link Binary}.
+ * </p>
+ */
+public abstract sealed class DocValueDecoder {
+
+    /**
+     * @return the decoder for the type or null if values of the type can't be decoded from doc values.
+     */
+    @Nullable
+    public static DocValueDecoder of(DataType<?> type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return new Numeric(value -> type.sanitizeValue(value));
+            case FloatType.ID:
+                return new Numeric(value -> NumericUtils.sortableIntToFloat((int) value));
+            case DoubleType.ID:
+                return new Numeric(NumericUtils::sortableLongToDouble);
+            case BooleanType.ID:
+                return new Numeric(value -> value == 1);
+            case StringType.ID:
+            case CharacterType.ID:
+                return new Binary(BytesRef::utf8ToString);
+            case IpType.ID:
+                return new Binary(DocValueFormat.IP::format);
+            default:
+                return null;
+        }
+    }
+
+    private DocValueDecoder() {
+    }
+
+    public static final class Numeric extends DocValueDecoder {
+
+        private final LongFunction<Object> decode;
+
+        private Numeric(LongFunction<Object> decode) {
+            this.decode = decode;
+        }
+
+        public SortedNumericDocValues docValues(LeafReader reader, String columnName) throws IOException {
+            return DocValues.getSortedNumeric(reader, columnName);
+        }
+
+        public Object decode(long value) {
+            return decode.apply(value);
+        }
+    }
+
+    public static final class Binary extends DocValueDecoder {
+
+        private final Function<BytesRef, Object> decode;
+
+        private Binary(Function<BytesRef, Object> decode) {
+            this.decode = decode;
+        }
+
+        public SortedSetDocValues docValues(LeafReader reader, String columnName) throws IOException {
+            return DocValues.getSortedSet(reader, columnName);
+        }
+
+        public Object decode(BytesRef bytes) {
+            return decode.apply(bytes);
+        }
+    }
+}
@@ -22,7 +22,16 @@
 package io.crate.expression.reference.doc.lucene;
 
 import io.crate.execution.engine.fetch.ReaderContext;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 
 import java.io.IOException;
 
@@ -49,9 +58,27 @@ public class RawCollectorExpression extends LuceneCollectorExpression<String> {
     @Override
     public String value() {
         try {
-            return CompressorFactory.uncompressIfNeeded(sourceLookup.rawSource()).utf8ToString();
+            BytesReference source = CompressorFactory.uncompressIfNeeded(sourceLookup.rawSource());
+            BytesRef bytes = source.toBytesRef();
+            if (CompactXContent.isCompact(bytes.bytes, bytes.offset, bytes.length)) {
+                return toJson(bytes);
+            }
+            return source.utf8ToString();
         } catch (IOException e) {
             throw new RuntimeException("Failed to uncompress source", e);
         }
     }
+
+    private static String toJson(BytesRef bytes) throws IOException {
+        try (XContentParser parser = CompactXContent.COMPACT_XCONTENT.createParser(
+                NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                bytes.bytes,
+                bytes.offset,
+                bytes.length)) {
+            XContentBuilder builder = JsonXContent.builder();
+            builder.copyCurrentStructure(parser);
+            return Strings.toString(builder);
+        }
+    }
 }
@@ -37,12 +37,14 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.DeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentParser.Token;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.expression.symbol.RefVisitor;
@@ -129,29 +131,48 @@ public final class SourceParser {
     }
 
     public Map<String, Object> parse(BytesReference bytes, boolean includeUnknownCols) {
+        BytesRef bytesRef = bytes.toBytesRef();
+        if (CompactXContent.isCompact(bytesRef.bytes, bytesRef.offset, bytesRef.length)) {
+            // Reads directly from the stored bytes; unrequested columns are skipped without decoding them
+            try (XContentParser parser = CompactXContent.COMPACT_XCONTENT.createParser(
+                    NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+                    bytesRef.bytes,
+                    bytesRef.offset,
+                    bytesRef.length)) {
+                return parse(parser, includeUnknownCols);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         try (InputStream inputStream = XContentHelper.getUncompressedInputStream(bytes)) {
             XContentParser parser = XContentType.JSON.xContent().createParser(
                 NamedXContentRegistry.EMPTY,
                 DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
                 inputStream
             );
-            Token token = parser.currentToken();
-            if (token == null) {
-                parser.nextToken();
-            }
-            return parseObject(
-                parser,
-                requiredColumns,
-                droppedColumns,
-                lookupNameBySourceKey,
-                new StringBuilder(),
-                includeUnknownCols
-            );
+            return parse(parser, includeUnknownCols);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    private Map<String, Object> parse(XContentParser parser, boolean includeUnknownCols) throws IOException {
+        Token token = parser.currentToken();
+        if (token == null) {
+            parser.nextToken();
+        }
+        return parseObject(
+            parser,
+            requiredColumns,
+            droppedColumns,
+            lookupNameBySourceKey,
+            new StringBuilder(),
+            includeUnknownCols,
+            true
+        );
+    }
+
     public Map<String, Object> parse(BytesReference bytes) {
         return parse(bytes, false);
     }
@@ -185,17 +206,27 @@ public final class SourceParser {
         }
     }
 
+    /**
+     * @param stopWhenComplete if true, parsing stops as soon as all required columns have been read,
+     *                         skipping the rest of the object. Only valid for the root object, because
+     *                         the parser isn't moved to the end of the object.
+     */
     @SuppressWarnings({"unchecked", "rawtypes"})
     private static Map<String, Object> parseObject(XContentParser parser,
                                                    @Nullable Map<String, Object> requiredColumns,
                                                    Set<String> droppedColumns,
                                                    Function<String, String> lookupNameBySourceKey,
                                                    StringBuilder colPath,
-                                                   boolean includeUnknown) throws IOException {
+                                                   boolean includeUnknown,
+                                                   boolean stopWhenComplete) throws IOException {
         var parseAllFields = false;
         if (requiredColumns == null || requiredColumns.isEmpty()) {
             parseAllFields = true;
         }
+        final int numRequired = parseAllFields || includeUnknown || !stopWhenComplete
+            ? -1
+            : requiredColumns.size();
+        int numRequiredSeen = 0;
         HashMap<String, Object> values = new HashMap<>();
         XContentParser.Token token = parser.nextToken(); // move past START_OBJECT;
         for (; token == XContentParser.Token.FIELD_NAME; token = parser.nextToken()) {
@@ -211,6 +242,9 @@ public final class SourceParser {
 
             token = parser.nextToken(); // Move to the current field's value
             var required = requiredColumns == null ? null : requiredColumns.get(fieldName);
+            if (required != null) {
+                numRequiredSeen++;
+            }
             if ((parseAllFields == false && required == null && !includeUnknown) || dropped) {
                 parser.skipChildren();
             } else if (token == START_ARRAY
@@ -250,6 +284,9 @@ public final class SourceParser {
 
                 colPath.delete(prevLength, colPath.length());
             }
+            if (numRequiredSeen == numRequired) {
+                break;
+            }
         }
         return values;
     }
@@ -281,7 +318,7 @@ public final class SourceParser {
             case START_ARRAY -> parseArray(parser, type, requiredColumns, droppedColumns, lookupNameBySourceKey,
                 colPath);
             case START_OBJECT -> parseObject(parser, requiredColumns, droppedColumns, lookupNameBySourceKey,
-                colPath, includeUnknown);
+                colPath, includeUnknown, false);
             case VALUE_STRING -> type == null ? parser.text() : parseByType(parser, type);
             case VALUE_NUMBER -> type == null ? parser.numberValue() : parseByType(parser, type);
             case VALUE_BOOLEAN -> type == null ? parser.booleanValue() : parseByType(parser, type);
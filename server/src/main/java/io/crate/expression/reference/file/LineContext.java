@@ -22,14 +22,18 @@
 package io.crate.expression.reference.file;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.lucene.util.UnicodeUtil;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.compress.NotXContentException;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
@@ -39,7 +43,7 @@ import io.crate.server.xcontent.XContentHelper;
 
 public class LineContext {
 
-    private final LineCursor cursor;
+    private LineCursor cursor;
 
     private byte[] rawSource;
     private LinkedHashMap<String, Object> parsedSource;
@@ -56,6 +60,14 @@ public class LineContext {
             int len = UnicodeUtil.UTF8toUTF16(rawSource, 0, rawSource.length, chars);
             return new String(chars, 0, len);
         }
+        if (parsedSource != null) {
+            // The source was decoded without a raw representation, e.g. from a Parquet file
+            try (XContentBuilder builder = JsonXContent.builder()) {
+                return Strings.toString(builder.map(parsedSource));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         return null;
     }
 
@@ -63,18 +75,25 @@ public class LineContext {
     LinkedHashMap<String, Object> sourceAsMap() {
         if (parsedSource == null) {
             if (rawSource != null) {
-                try {
-                    // preserve the order of the rawSource
-                    ParsedXContent parsedXContent = XContentHelper.convertToMap(new BytesArray(rawSource), true, XContentType.JSON);
-                    parsedSource = (LinkedHashMap<String, Object>) parsedXContent.map();
-                } catch (ElasticsearchParseException | NotXContentException e) {
-                    throw new RuntimeException("JSON parser error: " + e.getMessage(), e);
-                }
+                parsedSource = parseSource(rawSource);
             }
         }
         return parsedSource;
     }
 
+    /**
+     * Parses a JSON source into a map, preserving the order of its keys.
+     */
+    @SuppressWarnings("unchecked")
+    public static LinkedHashMap<String, Object> parseSource(byte[] rawSource) {
+        try {
+            ParsedXContent parsedXContent = XContentHelper.convertToMap(new BytesArray(rawSource), true, XContentType.JSON);
+            return (LinkedHashMap<String, Object>) parsedXContent.map();
+        } catch (ElasticsearchParseException | NotXContentException e) {
+            throw new RuntimeException("JSON parser error: " + e.getMessage(), e);
+        }
+    }
+
     public Object get(ColumnIdent columnIdent) {
         Map<String, Object> parentMap = sourceAsMap();
         if (parentMap == null) {
@@ -88,6 +107,29 @@ public class LineContext {
         this.parsedSource = null;
     }
 
+    /**
+     * Sets the source together with its already {@link #parseSource(byte[]) parsed} map.
+     */
+    public void rawSource(byte[] bytes, @Nullable LinkedHashMap<String, Object> parsedSource) {
+        this.rawSource = bytes;
+        this.parsedSource = parsedSource;
+    }
+
+    /**
+     * Sets a source which is only available as map. The raw JSON source is generated from it if it's accessed.
+     */
+    public void parsedSource(LinkedHashMap<String, Object> parsedSource) {
+        this.rawSource = null;
+        this.parsedSource = parsedSource;
+    }
+
+    /**
+     * Changes the cursor providing the uri, line number and uri failure of the current line.
+     */
+    public void cursor(LineCursor cursor) {
+        this.cursor = cursor;
+    }
+
     String currentUri() {
         return cursor.uri().toString();
     }
@@ -26,6 +26,7 @@ import io.crate.planner.operators.StatementClassifier.Classification;
 
 import org.jetbrains.annotations.Nullable;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
 public class JobContext {
 
@@ -35,6 +36,7 @@ public class JobContext {
     private final long started;
     @Nullable
     private final Classification classification;
+    private final LongAdder usedBytes = new LongAdder();
 
     public JobContext(UUID id, String stmt, long started, User user, @Nullable Classification classification) {
         this.id = id;
@@ -65,6 +67,17 @@ public class JobContext {
         return classification;
     }
 
+    /**
+     * Adds the bytes used by a finished operation of the job
+     */
+    public void addUsedBytes(long bytes) {
+        usedBytes.add(bytes);
+    }
+
+    public long usedBytes() {
+        return usedBytes.sum();
+    }
+
     @Override
     public String toString() {
         return "JobContext{" +
@@ -100,6 +100,8 @@ public class Schemas extends AbstractLifecycleComponent implements Iterable<Sche
     private final Map<String, SchemaInfo> schemas = new ConcurrentHashMap<>();
     private final Map<String, SchemaInfo> builtInSchemas;
 
+    private volatile long metadataVersion = -1L;
+
     @Inject
     public Schemas(Map<String, SchemaInfo> builtInSchemas,
                    ClusterService clusterService,
@@ -339,9 +341,18 @@ public class Schemas extends AbstractLifecycleComponent implements Iterable<Sche
             for (SchemaInfo schemaInfo : this) {
                 schemaInfo.update(event);
             }
+            metadataVersion = event.state().metadata().version();
         }
     }
 
+    /**
+     * @return the version of the metadata the schemas have been updated to last.
+     *         Anything derived from the schemas after reading this version reflects at least this version.
+     */
+    public long metadataVersion() {
+        return metadataVersion;
+    }
+
     @VisibleForTesting
     static Set<String> getNewCurrentSchemas(Metadata metadata) {
         Set<String> schemas = new HashSet<>();
@@ -0,0 +1,218 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.sys;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.elasticsearch.common.hash.MurmurHash3;
+
+import io.crate.sql.parser.StatementNormalizer;
+
+/**
+ * Aggregates execution statistics per normalized statement (See {@link StatementNormalizer}).
+ * <p>
+ * The memory usage is bounded: Entries are spread over a fixed number of stripes, each guarded by its own lock
+ * and holding at most {@code maxEntries / numStripes} entries. If a stripe is full, the least frequently used
+ * entry is evicted to make room for a new statement, the least recently used one if several are used equally often.
+ * </p>
+ * <p>
+ * The frequency is tracked separately from the reported number of calls and halved every
+ * {@code DECAY_INTERVAL_FACTOR * maxEntries} recordings of a stripe. Statements which were called often in the
+ * past but aren't anymore are therefore evicted eventually, instead of forcing new statements to evict each other.
+ * </p>
+ */
+public class StatementMetrics implements Iterable<StatementMetricsView> {
+
+    static final int MAX_STRIPES = 16;
+    static final int MAX_STATEMENT_LENGTH = 2048;
+    static final int DECAY_INTERVAL_FACTOR = 10;
+
+    private static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toMillis(10);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private final Stripe[] stripes;
+
+    public StatementMetrics(int maxEntries) {
+        this(maxEntries, Math.min(MAX_STRIPES, maxEntries));
+    }
+
+    StatementMetrics(int maxEntries, int numStripes) {
+        this.stripes = new Stripe[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new Stripe(maxEntries / numStripes);
+        }
+    }
+
+    public boolean isEnabled() {
+        return stripes.length > 0;
+    }
+
+    /**
+     * @param duration duration of the execution in milliseconds
+     * @param rows number of rows returned or affected by the statement
+     * @param usedBytes number of bytes used by the operations of the statement
+     */
+    public void recordValue(String statement, long duration, boolean failed, long rows, long usedBytes) {
+        if (stripes.length == 0) {
+            return;
+        }
+        String normalized = StatementNormalizer.normalize(statement);
+        byte[] bytes = normalized.getBytes(StandardCharsets.UTF_8);
+        long id = MurmurHash3.hash64(bytes, 0, bytes.length);
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(id), stripes.length)];
+        stripe.recordValue(id, normalized, Math.max(0, duration), failed, rows, usedBytes);
+    }
+
+    @Override
+    public Iterator<StatementMetricsView> iterator() {
+        List<StatementMetricsView> views = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.addViews(views);
+        }
+        return views.iterator();
+    }
+
+    private static final class Stripe {
+
+        private final int maxEntries;
+        private final long decayInterval;
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private long recordings = 0;
+
+        Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.decayInterval = (long) DECAY_INTERVAL_FACTOR * maxEntries;
+        }
+
+        synchronized void recordValue(long id, String statement, long duration, boolean failed, long rows, long usedBytes) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                if (entries.size() >= maxEntries) {
+                    evictLeastFrequentlyUsed();
+                }
+                String stmt = statement.length() > MAX_STATEMENT_LENGTH
+                    ? statement.substring(0, MAX_STATEMENT_LENGTH)
+                    : statement;
+                entry = new Entry(id, stmt);
+                entries.put(id, entry);
+            }
+            recordings++;
+            entry.frequency++;
+            entry.lastUsed = recordings;
+            entry.recordValue(duration, failed, rows, usedBytes);
+            if (recordings % decayInterval == 0) {
+                for (Entry e : entries.values()) {
+                    e.frequency >>>= 1;
+                }
+            }
+        }
+
+        private void evictLeastFrequentlyUsed() {
+            Entry victim = null;
+            for (Entry entry : entries.values()) {
+                if (victim == null
+                    || entry.frequency < victim.frequency
+                    || (entry.frequency == victim.frequency && entry.lastUsed < victim.lastUsed)) {
+                    victim = entry;
+                }
+            }
+            if (victim != null) {
+                entries.remove(victim.id);
+            }
+        }
+
+        synchronized void addViews(List<StatementMetricsView> views) {
+            for (Entry entry : entries.values()) {
+                views.add(entry.createView());
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final String statement;
+        private final IntCountsHistogram histogram = new IntCountsHistogram(
+            HIGHEST_TRACKABLE_VALUE,
+            NUMBER_OF_SIGNIFICANT_VALUE_DIGITS
+        );
+
+        /**
+         * Number of calls with periodic decay, used to pick the entry to evict
+         */
+        private long frequency;
+        private long lastUsed;
+
+        private long calls;
+        private long failedCount;
+        private long sumOfDurations;
+        private long minDuration = Long.MAX_VALUE;
+        private long maxDuration;
+        private long rows;
+        private long usedBytes;
+
+        Entry(long id, String statement) {
+            this.id = id;
+            this.statement = statement;
+        }
+
+        void recordValue(long duration, boolean failed, long rows, long usedBytes) {
+            calls++;
+            if (failed) {
+                failedCount++;
+            }
+            // The histogram is capped, sum, min and max track the real duration
+            histogram.recordValue(Math.min(duration, HIGHEST_TRACKABLE_VALUE));
+            sumOfDurations += duration;
+            minDuration = Math.min(minDuration, duration);
+            maxDuration = Math.max(maxDuration, duration);
+            this.rows += rows;
+            this.usedBytes += usedBytes;
+        }
+
+        StatementMetricsView createView() {
+            Histogram copy = new Histogram(HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+            copy.add(histogram);
+            return new StatementMetricsView(
+                Long.toHexString(id),
+                statement,
+                calls,
+                failedCount,
+                sumOfDurations,
+                minDuration,
+                maxDuration,
+                rows,
+                usedBytes,
+                copy
+            );
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.sys;
+
+import org.HdrHistogram.Histogram;
+
+import io.crate.common.annotations.Immutable;
+
+@Immutable
+public final class StatementMetricsView {
+
+    private final String id;
+    private final String statement;
+    private final long calls;
+    private final long failedCount;
+    private final long sumOfDurations;
+    private final long minDuration;
+    private final long maxDuration;
+    private final long rows;
+    private final long usedBytes;
+    private final Histogram histogram;
+
+    /**
+     * Create a read-only view onto the metrics of a statement.
+     *
+     * The given histogram must not be modified by whoever creates the StatementMetricsView.
+     */
+    StatementMetricsView(String id,
+                         String statement,
+                         long calls,
+                         long failedCount,
+                         long sumOfDurations,
+                         long minDuration,
+                         long maxDuration,
+                         long rows,
+                         long usedBytes,
+                         Histogram histogram) {
+        this.id = id;
+        this.statement = statement;
+        this.calls = calls;
+        this.failedCount = failedCount;
+        this.sumOfDurations = sumOfDurations;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+        this.rows = rows;
+        this.usedBytes = usedBytes;
+        this.histogram = histogram;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String statement() {
+        return statement;
+    }
+
+    public long calls() {
+        return calls;
+    }
+
+    public long failedCount() {
+        return failedCount;
+    }
+
+    public long sumOfDurations() {
+        return sumOfDurations;
+    }
+
+    public long minDuration() {
+        return calls == 0 ? 0L : minDuration;
+    }
+
+    public long maxDuration() {
+        return maxDuration;
+    }
+
+    public double meanDuration() {
+        return calls == 0 ? 0.0 : (double) sumOfDurations / calls;
+    }
+
+    public long getDurationAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long usedBytes() {
+        return usedBytes;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.sys;
+
+import static io.crate.types.DataTypes.DOUBLE;
+import static io.crate.types.DataTypes.LONG;
+import static io.crate.types.DataTypes.STRING;
+
+import java.util.function.Supplier;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Routing;
+import io.crate.metadata.SystemTable;
+
+public class SysStatementMetricsTableInfo {
+
+    public static final RelationName NAME = new RelationName(SysSchemaInfo.NAME, "statement_metrics");
+
+    public static SystemTable<StatementMetricsView> create(Supplier<DiscoveryNode> localNode) {
+        return SystemTable.<StatementMetricsView>builder(NAME)
+            .add("id", STRING, StatementMetricsView::id)
+            .add("stmt", STRING, StatementMetricsView::statement)
+            .add("calls", LONG, StatementMetricsView::calls)
+            .add("failed_count", LONG, StatementMetricsView::failedCount)
+            .add("sum_of_durations", LONG, StatementMetricsView::sumOfDurations)
+            .add("min", LONG, StatementMetricsView::minDuration)
+            .add("max", LONG, StatementMetricsView::maxDuration)
+            .add("mean", DOUBLE, StatementMetricsView::meanDuration)
+            .startObject("percentiles")
+                .add("50", LONG, x -> x.getDurationAtPercentile(50.0))
+                .add("75", LONG, x -> x.getDurationAtPercentile(75.0))
+                .add("90", LONG, x -> x.getDurationAtPercentile(90.0))
+                .add("95", LONG, x -> x.getDurationAtPercentile(95.0))
+                .add("99", LONG, x -> x.getDurationAtPercentile(99.0))
+            .endObject()
+            .add("rows", LONG, StatementMetricsView::rows)
+            .add("used_bytes", LONG, StatementMetricsView::usedBytes)
+            .startObject("node")
+                .add("id", STRING, ignored -> localNode.get().getId())
+                .add("name", STRING, ignored -> localNode.get().getName())
+            .endObject()
+            .withRouting((state, routingProvider, sessionSettings) -> Routing.forTableOnAllNodes(NAME, state.nodes()))
+            .build();
+    }
+}
@@ -154,6 +154,10 @@ public class SysTableDefinitions {
             () -> completedFuture(jobsLogs.metrics()),
             SysMetricsTableInfo.create(localNode).expressions(),
             false));
+        tableDefinitions.put(SysStatementMetricsTableInfo.NAME, new StaticTableDefinition<>(
+            () -> completedFuture(jobsLogs.statementMetrics()),
+            SysStatementMetricsTableInfo.create(localNode).expressions(),
+            false));
         tableDefinitions.put(SysSegmentsTableInfo.IDENT, new StaticTableDefinition<>(
             () -> completedFuture(shardSegmentInfos),
             SysSegmentsTableInfo.create(clusterService::localNode).expressions(),
@@ -23,7 +23,9 @@ package io.crate.module;
 
 import org.elasticsearch.common.inject.AbstractModule;
 
+import io.crate.action.sql.PlanCache;
 import io.crate.action.sql.Sessions;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.udf.UserDefinedFunctionService;
 import io.crate.memory.MemoryManagerFactory;
 import io.crate.metadata.DanglingArtifactsService;
@@ -43,10 +45,12 @@ public class CrateCommonModule extends AbstractModule {
         bind(FulltextAnalyzerResolver.class).asEagerSingleton();
         bind(PostgresNetty.class).asEagerSingleton();
         bind(Sessions.class).asEagerSingleton();
+        bind(PlanCache.class).asEagerSingleton();
         bind(Planner.class).asEagerSingleton();
         bind(TableStats.class).asEagerSingleton();
         bind(TableStatsService.class).asEagerSingleton();
         bind(MemoryManagerFactory.class).asEagerSingleton();
+        bind(SpillService.class).asEagerSingleton();
         bind(UserDefinedFunctionService.class).asEagerSingleton();
         bind(RestSQLAction.class).asEagerSingleton();
         bind(DanglingArtifactsService.class).asEagerSingleton();
@@ -38,9 +38,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 
+/**
+ * Converts CSV lines into JSON objects.
+ * <p>
+ * Once the header has been parsed, {@link #parse(String, long)} and {@link #parseWithoutHeader(String, long)}
+ * are safe to be called concurrently.
+ */
 public class CSVLineParser {
 
-    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
     private final ArrayList<String> headerKeyList = new ArrayList<>();
     private String[] columnNamesArray;
     private final List<String> targetColumns;
@@ -86,7 +91,7 @@ public class CSVLineParser {
 
     public byte[] parse(String row, long rowNumber) throws IOException {
         MappingIterator<Object> iterator = csvReader.readValues(row.getBytes(StandardCharsets.UTF_8));
-        out.reset();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(row.length() + 16);
         XContentBuilder jsonBuilder = new XContentBuilder(JsonXContent.JSON_XCONTENT, out).startObject();
         int i = 0, j = 0;
         while (iterator.hasNext()) {
@@ -111,7 +116,7 @@ public class CSVLineParser {
 
     public byte[] parseWithoutHeader(String row, long rowNumber) throws IOException {
         MappingIterator<String> iterator = csvReader.readValues(row.getBytes(StandardCharsets.UTF_8));
-        out.reset();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(row.length() + 16);
         XContentBuilder jsonBuilder = new XContentBuilder(JsonXContent.JSON_XCONTENT, out).startObject();
         int i = 0;
         while (iterator.hasNext()) {
@@ -71,7 +71,7 @@ public abstract class AbstractJoinPlan implements LogicalPlan {
 
     @Override
     public List<Symbol> outputs() {
-        if (joinType == JoinType.SEMI) {
+        if (joinType == JoinType.SEMI || joinType == JoinType.ANTI) {
             return lhs.outputs();
         } else {
             return Lists2.concat(lhs.outputs(), rhs.outputs());
@@ -40,10 +40,11 @@ import io.crate.sql.tree.JoinType;
  * <p>
  * Using hash join is possible under following assumptions:
  * <ul>
- * <li>it's a {@link JoinType#INNER} join type</li>
+ * <li>it's an {@link JoinType#INNER}, {@link JoinType#LEFT}, {@link JoinType#RIGHT} or {@link JoinType#FULL} join</li>
  * <li>the join condition contains no {@link OrOperator}</li>
  * <li>the join condition contains at least one {@link EqOperator}</li>
- * <li>at least one argument of the {@link EqOperator} must NOT contain fields to multiple tables</li>
+ * <li>each argument of the {@link EqOperator} must contain fields of exactly one table</li>
+ * <li>the arguments of the {@link EqOperator} must not refer to the same table</li>
  * </ul>
  */
 public class EquiJoinDetector {
@@ -51,14 +52,16 @@ public class EquiJoinDetector {
     private static final Visitor VISITOR = new Visitor();
 
     public static boolean isHashJoinPossible(JoinType joinType, Symbol joinCondition) {
-        if (joinType != JoinType.INNER) {
-            return false;
-        }
-        return isEquiJoin(joinCondition);
+        return switch (joinType) {
+            case INNER, LEFT, RIGHT, FULL -> isEquiJoin(joinCondition);
+            case CROSS, SEMI, ANTI -> false;
+        };
     }
 
     private static boolean isEquiJoin(Symbol joinCondition) {
-        assert joinCondition != null : "join condition must not be null on inner joins";
+        if (joinCondition == null) {
+            return false;
+        }
         Context context = new Context();
         joinCondition.accept(VISITOR, context);
         return context.isHashJoinPossible;
@@ -84,11 +87,14 @@ public class EquiJoinDetector {
                 case EqOperator.NAME:
                     context.isHashJoinPossible = true;
                     context.insideEqOperator = true;
+                    Set<RelationName> previousArgRelations = null;
                     for (Symbol arg : function.arguments()) {
                         arg.accept(this, context);
-                        if (context.usedRelationsInsideEqOperatorArgument.size() != 1) {
+                        Set<RelationName> argRelations = context.usedRelationsInsideEqOperatorArgument;
+                        if (argRelations.size() != 1 || argRelations.equals(previousArgRelations)) {
                             context.isHashJoinPossible = false;
                         }
+                        previousArgRelations = argRelations;
                         context.usedRelationsInsideEqOperatorArgument = new HashSet<>();
                     }
                     break;
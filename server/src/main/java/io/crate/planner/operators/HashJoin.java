@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.SequencedCollection;
 import java.util.Set;
 
+import org.elasticsearch.Version;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.analyze.OrderBy;
@@ -60,7 +61,15 @@ public class HashJoin extends AbstractJoinPlan {
     public HashJoin(LogicalPlan lhs,
                     LogicalPlan rhs,
                     Symbol joinCondition) {
-        super(lhs, rhs, joinCondition, JoinType.INNER);
+        this(lhs, rhs, joinCondition, JoinType.INNER);
+    }
+
+    public HashJoin(LogicalPlan lhs,
+                    LogicalPlan rhs,
+                    Symbol joinCondition,
+                    JoinType joinType) {
+        super(lhs, rhs, joinCondition, joinType);
+        assert joinType != JoinType.CROSS : "A cross join cannot be executed as hash join";
     }
 
     @Override
@@ -74,6 +83,12 @@ public class HashJoin extends AbstractJoinPlan {
                                @Nullable Integer pageSizeHint,
                                Row params,
                                SubQueryResults subQueryResults) {
+        if (joinType != JoinType.INNER
+            && plannerContext.clusterState().nodes().getMinNodeVersion().before(Version.V_5_6_0)) {
+            // Nodes before 5.6.0 can only execute inner hash joins
+            return new NestedLoopJoin(lhs, rhs, joinType, joinCondition, false, false, false, true)
+                .build(executor, plannerContext, hints, projectionBuilder, limit, offset, order, pageSizeHint, params, subQueryResults);
+        }
         ExecutionPlan leftExecutionPlan = lhs.build(
             executor, plannerContext, hints, projectionBuilder, NO_LIMIT, 0, null, null, params, subQueryResults);
         ExecutionPlan rightExecutionPlan = rhs.build(
@@ -173,10 +188,12 @@ public class HashJoin extends AbstractJoinPlan {
             leftOutputs.size(),
             rightOutputs.size(),
             joinExecutionNodes,
+            joinType,
             InputColumns.create(paramBinder.apply(joinCondition), joinOutputs),
             InputColumns.create(lhsHashSymbols, new InputColumns.SourceSymbols(leftOutputs)),
             InputColumns.create(rhsHashSymbols, new InputColumns.SourceSymbols(rightOutputs)),
             Symbols.typeView(leftOutputs),
+            Symbols.typeView(rightOutputs),
             lhStats.estimateSizeForColumns(leftOutputs),
             lhStats.numDocs());
         return new Join(
@@ -195,7 +212,8 @@ public class HashJoin extends AbstractJoinPlan {
         return new HashJoin(
             sources.get(0),
             sources.get(1),
-            joinCondition
+            joinCondition,
+            joinType
         );
     }
 
@@ -217,7 +235,8 @@ public class HashJoin extends AbstractJoinPlan {
         return new HashJoin(
             newLhs,
             newRhs,
-            joinCondition
+            joinCondition,
+            joinType
         );
     }
 
@@ -245,7 +264,8 @@ public class HashJoin extends AbstractJoinPlan {
             new HashJoin(
                 lhsFetchRewrite == null ? lhs : lhsFetchRewrite.newPlan(),
                 rhsFetchRewrite == null ? rhs : rhsFetchRewrite.newPlan(),
-                joinCondition)
+                joinCondition,
+                joinType)
         );
     }
 
@@ -258,6 +278,7 @@ public class HashJoin extends AbstractJoinPlan {
     public void print(PrintContext printContext) {
         printContext
             .text("HashJoin[")
+            .text(joinType == JoinType.INNER ? "" : joinType + " | ")
             .text(joinCondition.toString())
             .text("]");
         printStats(printContext);
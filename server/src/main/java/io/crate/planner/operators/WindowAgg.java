@@ -37,6 +37,7 @@ import org.jetbrains.annotations.Nullable;
 
 import io.crate.analyze.OrderBy;
 import io.crate.analyze.WindowDefinition;
+import io.crate.analyze.validator.SemanticSortValidator;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Row;
@@ -49,11 +50,17 @@ import io.crate.execution.engine.pipeline.LimitAndOffset;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.expression.symbol.WindowFunction;
+import io.crate.metadata.IndexType;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.Merge;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.PositionalOrderBy;
 import io.crate.planner.ResultDescription;
+import io.crate.planner.consumer.OrderByPositionVisitor;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
 
@@ -155,13 +162,9 @@ public class WindowAgg extends ForwardingLogicalPlan {
         Function<Symbol, Symbol> toInputCols = binder.andThen(s -> InputColumns.create(s, sourceSymbols));
 
         List<WindowFunction> boundWindowFunctions = (List<WindowFunction>)(List<?>) Lists2.map(windowFunctions, toInputCols);
-        List<Projection> projections = new ArrayList<>();
-        WindowAggProjection windowAggProjection = new WindowAggProjection(
-            windowDefinition.map(toInputCols),
-            boundWindowFunctions,
-            InputColumns.create(this.standalone, sourceSymbols)
-        );
-        projections.add(windowAggProjection);
+        // Requesting the source to be sorted by the window ordering allows to compute the window functions
+        // one partition at a time instead of materializing and sorting all rows.
+        OrderBy windowOrderBy = createOrderByInclPartitionBy(windowDefinition);
         ExecutionPlan sourcePlan = source.build(
             executor,
             plannerContext,
@@ -169,7 +172,7 @@ public class WindowAgg extends ForwardingLogicalPlan {
             projectionBuilder,
             LimitAndOffset.NO_LIMIT,
             LimitAndOffset.NO_OFFSET,
-            null,
+            canCollectSorted(source, windowOrderBy) ? windowOrderBy : null,
             pageSizeHint,
             params,
             subQueryResults
@@ -181,6 +184,18 @@ public class WindowAgg extends ForwardingLogicalPlan {
                                    || executesOnHandler;
         if (nonDistExecution) {
             sourcePlan = Merge.ensureOnHandler(sourcePlan, plannerContext);
+        }
+        PositionalOrderBy sourceOrderBy = sourcePlan.resultDescription().orderBy();
+        boolean sortedInput = isSortedBy(sourceOrderBy, windowOrderBy, source.outputs());
+        List<Projection> projections = new ArrayList<>();
+        WindowAggProjection windowAggProjection = new WindowAggProjection(
+            windowDefinition.map(toInputCols),
+            boundWindowFunctions,
+            InputColumns.create(this.standalone, sourceSymbols),
+            sortedInput
+        );
+        projections.add(windowAggProjection);
+        if (nonDistExecution) {
             for (Projection projection : projections) {
                 sourcePlan.addProjection(projection);
             }
@@ -199,7 +214,8 @@ public class WindowAgg extends ForwardingLogicalPlan {
                 resultDescription.streamOutputs(),
                 projections,
                 DistributionInfo.DEFAULT_BROADCAST,
-                null
+                // Each upstream sends its rows sorted, a sorted merge keeps them sorted
+                sortedInput ? sourceOrderBy : null
             );
             return new Merge(
                 sourcePlan,
@@ -214,6 +230,56 @@ public class WindowAgg extends ForwardingLogicalPlan {
         return sourcePlan;
     }
 
+    /**
+     * @return true if the source can provide rows sorted by {@code windowOrderBy} without adding a sort itself.
+     *         That is only the case for a Collect on a doc table where all sort keys are columns of a sortable
+     *         type with doc values. Other keys would have to be evaluated per document to sort the collected
+     *         rows, which is not cheaper than sorting them in the window projection.
+     */
+    private static boolean canCollectSorted(LogicalPlan source, @Nullable OrderBy windowOrderBy) {
+        if (windowOrderBy == null
+            || !(source instanceof Collect collect)
+            || !(collect.relation().tableInfo() instanceof DocTableInfo)) {
+            return false;
+        }
+        for (Symbol sortKey : windowOrderBy.orderBySymbols()) {
+            if (!(sortKey instanceof Reference ref)
+                || !SemanticSortValidator.SUPPORTED_TYPES.contains(ref.valueType().id())
+                || !ref.hasDocValues()
+                || ref.granularity() == RowGranularity.PARTITION
+                || ref.indexType() == IndexType.FULLTEXT) {
+                return false;
+            }
+        }
+        return OrderByPositionVisitor.orderByPositionsOrNull(windowOrderBy.orderBySymbols(), source.outputs()) != null;
+    }
+
+    /**
+     * @return true if rows sorted by {@code actual} are also sorted by {@code expected},
+     *         which refers to the {@code outputs} of the source.
+     */
+    private static boolean isSortedBy(@Nullable PositionalOrderBy actual,
+                                      @Nullable OrderBy expected,
+                                      List<Symbol> outputs) {
+        if (actual == null || expected == null) {
+            return false;
+        }
+        int[] positions = OrderByPositionVisitor.orderByPositionsOrNull(expected.orderBySymbols(), outputs);
+        if (positions == null || positions.length > actual.indices().length) {
+            return false;
+        }
+        boolean[] reverseFlags = expected.reverseFlags();
+        boolean[] nullsFirst = expected.nullsFirst();
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] != actual.indices()[i]
+                || reverseFlags[i] != actual.reverseFlags()[i]
+                || nullsFirst[i] != actual.nullsFirst()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Nullable
     static OrderBy createOrderByInclPartitionBy(WindowDefinition windowDefinition) {
         var orderBy = windowDefinition.orderBy();
@@ -27,10 +27,16 @@ import java.util.Map;
 import org.jetbrains.annotations.Nullable;
 
 import io.crate.common.collections.Maps;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.ScopedSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.NodeContext;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RelationName;
 import io.crate.metadata.TransactionContext;
 import io.crate.planner.operators.AbstractJoinPlan;
 import io.crate.planner.operators.Collect;
@@ -158,54 +164,71 @@ public class PlanStats {
                 || rhsStats.sizeInBytes() == -1) {
                 return new Stats(-1, -1, statsByColumn);
             }
-            long numRows = join.joinType() == JoinType.CROSS
-                ? lhsStats.numDocs() * rhsStats.numDocs()
-                // We don't have any cardinality estimates, so just take the bigger table
-                : Math.max(lhsStats.numDocs(), rhsStats.numDocs());
-            Stats joinStats = new Stats(
+            long numRows = estimateJoinRows(join, lhsStats, rhsStats, statsByColumn);
+            return new Stats(
                 numRows,
                 (lhsStats.averageSizePerRowInBytes() * numRows) + (rhsStats.averageSizePerRowInBytes() * numRows),
                 statsByColumn
             );
-            Symbol joinCondition = join.joinCondition();
-            if (joinCondition == null) {
-                return joinStats;
-            }
-            long estimatedNumRows = SelectivityFunctions.estimateNumRows(
-                nodeContext,
-                txnCtx,
-                joinStats,
-                joinCondition,
-                null
-            );
-            return joinStats.withNumDocs(estimatedNumRows);
         }
 
         @Override
         public Stats visitHashJoin(HashJoin join, Void context) {
-            var lhsStats = join.lhs().accept(this, context);
-            var rhsStats = join.rhs().accept(this, context);
-            Map<ColumnIdent, ColumnStats<?>> statsByColumn = Maps.concat(lhsStats.statsByColumn(), rhsStats.statsByColumn());
-            if (lhsStats.numDocs() == -1
-                || lhsStats.sizeInBytes() == -1
-                || rhsStats.numDocs() == -1
-                || rhsStats.sizeInBytes() == -1) {
-                return new Stats(-1, -1, statsByColumn);
+            return visitAbstractJoinPlan(join, context);
+        }
+
+        /**
+         * Estimates the number of rows of a join based on the cross product of both sides
+         * and the selectivity of the join condition.
+         * Equi-join conditions between the two sides use the column statistics of the side they belong to.
+         */
+        private long estimateJoinRows(AbstractJoinPlan join,
+                                      Stats lhsStats,
+                                      Stats rhsStats,
+                                      Map<ColumnIdent, ColumnStats<?>> statsByColumn) {
+            long lhsRows = lhsStats.numDocs();
+            long rhsRows = rhsStats.numDocs();
+            double crossProduct = (double) lhsRows * rhsRows;
+            Symbol joinCondition = join.joinCondition();
+            double selectivity = 1.0;
+            if (joinCondition != null && join.joinType() != JoinType.CROSS) {
+                List<RelationName> lhsRelations = join.lhs().getRelationNames();
+                List<RelationName> rhsRelations = join.rhs().getRelationNames();
+                Stats joinStats = new Stats(lhsRows + rhsRows, -1, statsByColumn);
+                for (Symbol condition : AndOperator.split(joinCondition)) {
+                    if (condition instanceof Function fn && fn.name().equals(EqOperator.NAME)) {
+                        Symbol arg1 = fn.arguments().get(0);
+                        Symbol arg2 = fn.arguments().get(1);
+                        if (isFrom(arg1, lhsRelations) && isFrom(arg2, rhsRelations)) {
+                            selectivity *= SelectivityFunctions.eqJoinSelectivity(arg1, lhsStats, arg2, rhsStats);
+                            continue;
+                        } else if (isFrom(arg1, rhsRelations) && isFrom(arg2, lhsRelations)) {
+                            selectivity *= SelectivityFunctions.eqJoinSelectivity(arg2, lhsStats, arg1, rhsStats);
+                            continue;
+                        }
+                    }
+                    selectivity *= SelectivityFunctions.selectivity(nodeContext, txnCtx, joinStats, condition, null);
+                }
             }
-            long numRows = Math.max(lhsStats.numDocs(), rhsStats.numDocs());
-            long sizeInBytes =
-                (numRows * lhsStats.averageSizePerRowInBytes())
-                + (numRows * rhsStats.averageSizePerRowInBytes());
-
-            Stats joinStats = new Stats(numRows, sizeInBytes, statsByColumn);
-            long estimatedNumRows = SelectivityFunctions.estimateNumRows(
-                nodeContext,
-                txnCtx,
-                joinStats,
-                join.joinCondition(),
-                null
-            );
-            return joinStats.withNumDocs(estimatedNumRows);
+            double numRows = crossProduct * selectivity;
+            numRows = switch (join.joinType()) {
+                case LEFT -> Math.max(numRows, lhsRows);
+                case RIGHT -> Math.max(numRows, rhsRows);
+                case FULL -> Math.max(numRows, Math.max(lhsRows, rhsRows));
+                case SEMI, ANTI -> Math.min(numRows, lhsRows);
+                default -> numRows;
+            };
+            return numRows >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) numRows;
+        }
+
+        private static boolean isFrom(Symbol symbol, List<RelationName> relations) {
+            if (symbol instanceof Reference ref) {
+                return relations.contains(ref.ident().tableIdent());
+            }
+            if (symbol instanceof ScopedSymbol field) {
+                return relations.contains(field.relation());
+            }
+            return false;
         }
 
         @Override
@@ -0,0 +1,291 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.optimizer.joinorder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.expression.symbol.Symbol;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.costs.PlanStats;
+import io.crate.planner.selectivity.SelectivityFunctions;
+import io.crate.statistics.Stats;
+
+/**
+ * Finds the cheapest left-deep join order for the nodes of a {@link JoinGraph}
+ * which only consists of inner joins.
+ *
+ * <p>
+ * The cost of a join order is the sum of the estimated number of rows of all
+ * intermediate join results. The number of rows of a set of joined nodes is the
+ * product of the number of rows of each node and the selectivity of each
+ * equi-join condition between them. This is independent of the order in which
+ * the nodes are joined.
+ * </p>
+ *
+ * <p>
+ * For up to {@link #MAX_NODES_FOR_EXHAUSTIVE_SEARCH} nodes all orders are
+ * considered using dynamic programming over the subsets of the nodes.
+ * For more nodes a greedy search is used which starts with the cheapest pair
+ * of nodes and adds the node resulting in the fewest rows next.
+ * </p>
+ *
+ * Only orders where each node has a join condition with one of the nodes
+ * joined before it are considered, so no cross joins are introduced.
+ */
+public final class JoinEnumerator {
+
+    static final int MAX_NODES_FOR_EXHAUSTIVE_SEARCH = 8;
+
+    private final List<LogicalPlan> nodes;
+    private final double[] numRows;
+    private final double[][] selectivity;
+    private final boolean[][] connected;
+
+    private JoinEnumerator(List<LogicalPlan> nodes,
+                           double[] numRows,
+                           double[][] selectivity,
+                           boolean[][] connected) {
+        this.nodes = nodes;
+        this.numRows = numRows;
+        this.selectivity = selectivity;
+        this.connected = connected;
+    }
+
+    /**
+     * @return the enumerator or null if the number of rows of one of the nodes is unknown.
+     */
+    @Nullable
+    public static JoinEnumerator create(JoinGraph graph, PlanStats planStats) {
+        List<LogicalPlan> nodes = graph.nodes();
+        int numNodes = nodes.size();
+        Map<LogicalPlan, Integer> positions = new IdentityHashMap<>(numNodes);
+        Stats[] stats = new Stats[numNodes];
+        double[] numRows = new double[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            LogicalPlan node = nodes.get(i);
+            positions.put(node, i);
+            stats[i] = planStats.get(node);
+            if (stats[i].numDocs() == -1) {
+                return null;
+            }
+            numRows[i] = stats[i].numDocs();
+        }
+        double[][] selectivity = new double[numNodes][numNodes];
+        boolean[][] connected = new boolean[numNodes][numNodes];
+        for (double[] row : selectivity) {
+            Arrays.fill(row, 1.0);
+        }
+        for (int i = 0; i < numNodes; i++) {
+            LogicalPlan node = nodes.get(i);
+            for (JoinGraph.Edge edge : graph.edges(node)) {
+                Integer to = positions.get(edge.to());
+                // Edges exist in both directions, only use them once
+                if (to == null || to <= i) {
+                    continue;
+                }
+                boolean leftIsFromNode = node.outputs().contains(edge.left());
+                Symbol nodeSymbol = leftIsFromNode ? edge.left() : edge.right();
+                Symbol toSymbol = leftIsFromNode ? edge.right() : edge.left();
+                double edgeSelectivity = SelectivityFunctions.eqJoinSelectivity(
+                    nodeSymbol,
+                    stats[i],
+                    toSymbol,
+                    stats[to]
+                );
+                selectivity[i][to] *= edgeSelectivity;
+                selectivity[to][i] *= edgeSelectivity;
+                connected[i][to] = true;
+                connected[to][i] = true;
+            }
+        }
+        return new JoinEnumerator(nodes, numRows, selectivity, connected);
+    }
+
+    /**
+     * @return the join order with the lowest cost or null if there is no order without a cross join.
+     */
+    @Nullable
+    public List<LogicalPlan> bestOrder() {
+        if (nodes.size() <= MAX_NODES_FOR_EXHAUSTIVE_SEARCH) {
+            return exhaustiveSearch();
+        }
+        return greedySearch();
+    }
+
+    /**
+     * @return the cost of joining the nodes in the given order.
+     *         {@link Double#POSITIVE_INFINITY} if a node has no join condition with a node joined before.
+     */
+    public double cost(List<LogicalPlan> order) {
+        assert order.size() == nodes.size() : "order must contain all nodes";
+        int[] positions = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            positions[i] = nodes.indexOf(order.get(i));
+        }
+        double cost = 0.0;
+        double rows = numRows[positions[0]];
+        for (int i = 1; i < positions.length; i++) {
+            int node = positions[i];
+            boolean isConnected = false;
+            double joinedRows = rows * numRows[node];
+            for (int j = 0; j < i; j++) {
+                isConnected |= connected[node][positions[j]];
+                joinedRows *= selectivity[node][positions[j]];
+            }
+            if (!isConnected) {
+                return Double.POSITIVE_INFINITY;
+            }
+            rows = joinedRows;
+            cost += rows;
+        }
+        return cost;
+    }
+
+    @Nullable
+    private List<LogicalPlan> exhaustiveSearch() {
+        int numNodes = nodes.size();
+        int numSets = 1 << numNodes;
+        double[] rows = new double[numSets];
+        double[] costs = new double[numSets];
+        int[] lastNode = new int[numSets];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        Arrays.fill(rows, -1.0);
+        for (int i = 0; i < numNodes; i++) {
+            costs[1 << i] = 0.0;
+            rows[1 << i] = numRows[i];
+            lastNode[1 << i] = i;
+        }
+        // Subsets are always smaller than their supersets, so they're computed first
+        for (int set = 1; set < numSets; set++) {
+            if (costs[set] == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+            int currentSet = set;
+            IntPredicate inSet = other -> (currentSet & (1 << other)) != 0;
+            for (int node = 0; node < numNodes; node++) {
+                int nodeBit = 1 << node;
+                if ((set & nodeBit) != 0 || !isConnected(node, inSet)) {
+                    continue;
+                }
+                int newSet = set | nodeBit;
+                if (rows[newSet] < 0) {
+                    rows[newSet] = joinedRows(rows[set], inSet, node);
+                }
+                double cost = costs[set] + rows[newSet];
+                if (cost < costs[newSet]) {
+                    costs[newSet] = cost;
+                    lastNode[newSet] = node;
+                }
+            }
+        }
+        int set = numSets - 1;
+        if (costs[set] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        LogicalPlan[] order = new LogicalPlan[numNodes];
+        for (int i = numNodes - 1; i >= 0; i--) {
+            int node = lastNode[set];
+            order[i] = nodes.get(node);
+            set &= ~(1 << node);
+        }
+        return Arrays.asList(order);
+    }
+
+    @Nullable
+    private List<LogicalPlan> greedySearch() {
+        int numNodes = nodes.size();
+        int bestLeft = -1;
+        int bestRight = -1;
+        double bestRows = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numNodes; i++) {
+            for (int j = i + 1; j < numNodes; j++) {
+                if (connected[i][j]) {
+                    double rows = numRows[i] * numRows[j] * selectivity[i][j];
+                    if (rows < bestRows) {
+                        bestRows = rows;
+                        bestLeft = i;
+                        bestRight = j;
+                    }
+                }
+            }
+        }
+        if (bestLeft == -1) {
+            return null;
+        }
+        List<LogicalPlan> order = new ArrayList<>(numNodes);
+        order.add(nodes.get(bestLeft));
+        order.add(nodes.get(bestRight));
+        BitSet joined = new BitSet(numNodes);
+        joined.set(bestLeft);
+        joined.set(bestRight);
+        double rows = bestRows;
+        while (order.size() < numNodes) {
+            int bestNode = -1;
+            double bestNodeRows = Double.POSITIVE_INFINITY;
+            for (int node = 0; node < numNodes; node++) {
+                if (joined.get(node) || !isConnected(node, joined::get)) {
+                    continue;
+                }
+                double nodeRows = joinedRows(rows, joined::get, node);
+                if (nodeRows < bestNodeRows) {
+                    bestNodeRows = nodeRows;
+                    bestNode = node;
+                }
+            }
+            if (bestNode == -1) {
+                return null;
+            }
+            order.add(nodes.get(bestNode));
+            joined.set(bestNode);
+            rows = bestNodeRows;
+        }
+        return order;
+    }
+
+    private boolean isConnected(int node, IntPredicate inSet) {
+        for (int other = 0; other < nodes.size(); other++) {
+            if (inSet.test(other) && connected[node][other]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double joinedRows(double rowsOfSet, IntPredicate inSet, int node) {
+        double rows = rowsOfSet * numRows[node];
+        for (int other = 0; other < nodes.size(); other++) {
+            if (inSet.test(other)) {
+                rows *= selectivity[node][other];
+            }
+        }
+        return rows;
+    }
+}
@@ -56,14 +56,17 @@ public class ReorderHashJoin implements Rule<HashJoin> {
         boolean expectedRowsAvailable = lhStats.numDocs() != -1 && rhStats.numDocs() != -1;
         // We move the smaller table to the right side since benchmarking
         // revealed that this improves performance in most cases.
-        if (expectedRowsAvailable && lhStats.numDocs() < rhStats.numDocs()) {
+        if (expectedRowsAvailable
+            && lhStats.numDocs() < rhStats.numDocs()
+            && plan.joinType().supportsInversion()) {
             // We need to preserve the output order even when lhs/rhs are swapped
             // therefore we add an Eval on top
             return Eval.create(
                 new HashJoin(
                     plan.rhs(),
                     plan.lhs(),
-                    plan.joinCondition()
+                    plan.joinCondition(),
+                    plan.joinType().invert()
                 ),
                 plan.outputs()
             );
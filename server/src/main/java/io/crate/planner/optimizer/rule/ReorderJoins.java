@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.optimizer.rule;
+
+import static io.crate.planner.optimizer.matcher.Pattern.typeOf;
+
+import java.util.List;
+import java.util.function.Function;
+
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.operators.Eval;
+import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.JoinPlan;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.Rule;
+import io.crate.planner.optimizer.costs.PlanStats;
+import io.crate.planner.optimizer.iterative.GroupReference;
+import io.crate.planner.optimizer.joinorder.JoinEnumerator;
+import io.crate.planner.optimizer.joinorder.JoinGraph;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Pattern;
+import io.crate.sql.tree.JoinType;
+
+/**
+ * Changes the order of a tree of inner joins to the order with the lowest
+ * estimated cost based on the table statistics, see {@link JoinEnumerator}.
+ *
+ * <p>
+ * The rule only applies if statistics are available for all joined relations and
+ * the new order is estimated to be considerably cheaper than the current one.
+ * Trees containing cross or outer joins are left to {@link EliminateCrossJoin}.
+ * </p>
+ */
+public class ReorderJoins implements Rule<JoinPlan> {
+
+    /**
+     * Minimum relative cost reduction required to change the join order.
+     * Prevents changing the order back and forth based on small differences in the estimates.
+     */
+    private static final double MIN_COST_REDUCTION = 0.1;
+
+    private final Pattern<JoinPlan> pattern = typeOf(JoinPlan.class)
+        .with(join -> join.joinType() == JoinType.INNER);
+
+    @Override
+    public Pattern<JoinPlan> pattern() {
+        return pattern;
+    }
+
+    @Override
+    public LogicalPlan apply(JoinPlan join,
+                             Captures captures,
+                             PlanStats planStats,
+                             TransactionContext txnCtx,
+                             NodeContext nodeCtx,
+                             Function<LogicalPlan, LogicalPlan> resolvePlan) {
+        if (join.getRelationNames().size() < 3 || !hasOnlyInnerJoins(join, resolvePlan)) {
+            return null;
+        }
+        JoinGraph joinGraph = JoinGraph.create(join, resolvePlan);
+        if (joinGraph.hasCrossJoin() || joinGraph.size() < 3) {
+            return null;
+        }
+        JoinEnumerator enumerator = JoinEnumerator.create(joinGraph, planStats);
+        if (enumerator == null) {
+            return null;
+        }
+        List<LogicalPlan> newOrder = enumerator.bestOrder();
+        List<LogicalPlan> originalOrder = joinGraph.nodes();
+        if (newOrder == null || newOrder.equals(originalOrder)) {
+            return null;
+        }
+        double newCost = enumerator.cost(newOrder);
+        double originalCost = enumerator.cost(originalOrder);
+        if (newCost >= originalCost * (1.0 - MIN_COST_REDUCTION)) {
+            return null;
+        }
+        LogicalPlan newJoinPlan = EliminateCrossJoin.reorder(joinGraph, newOrder);
+        return Eval.create(newJoinPlan, join.outputs());
+    }
+
+    /**
+     * Checks the joins which are part of the {@link JoinGraph}, a reorder would turn outer joins into inner joins.
+     */
+    private static boolean hasOnlyInnerJoins(LogicalPlan plan, Function<LogicalPlan, LogicalPlan> resolvePlan) {
+        if (plan instanceof GroupReference) {
+            return hasOnlyInnerJoins(resolvePlan.apply(plan), resolvePlan);
+        }
+        if (plan instanceof Filter filter) {
+            return hasOnlyInnerJoins(filter.source(), resolvePlan);
+        }
+        if (plan instanceof JoinPlan joinPlan) {
+            return joinPlan.joinType() == JoinType.INNER
+                && hasOnlyInnerJoins(joinPlan.lhs(), resolvePlan)
+                && hasOnlyInnerJoins(joinPlan.rhs(), resolvePlan);
+        }
+        return true;
+    }
+}
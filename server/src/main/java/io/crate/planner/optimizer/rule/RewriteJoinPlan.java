@@ -66,7 +66,8 @@ public class RewriteJoinPlan implements Rule<JoinPlan> {
             return new HashJoin(
                 join.lhs(),
                 join.rhs(),
-                join.joinCondition()
+                join.joinCondition(),
+                join.joinType()
             );
         } else {
             return new NestedLoopJoin(
@@ -59,7 +59,8 @@ public class RewriteNestedLoopJoinToHashJoin implements Rule<NestedLoopJoin> {
             return new HashJoin(
                 nl.lhs(),
                 nl.rhs(),
-                nl.joinCondition()
+                nl.joinCondition(),
+                nl.joinType()
             );
         } else {
             return null;
@@ -30,6 +30,10 @@ import org.jetbrains.annotations.Nullable;
 import io.crate.data.Row;
 import io.crate.expression.operator.AndOperator;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.Operators;
 import io.crate.expression.operator.OrOperator;
 import io.crate.expression.predicate.IsNullPredicate;
@@ -48,6 +52,7 @@ import io.crate.metadata.TransactionContext;
 import io.crate.statistics.ColumnStats;
 import io.crate.statistics.MostCommonValues;
 import io.crate.statistics.Stats;
+import io.crate.types.DataType;
 
 /**
  * Used to estimate the number of rows returned after applying a given query.
@@ -69,9 +74,53 @@ public class SelectivityFunctions {
                                        Stats stats,
                                        Symbol query,
                                        @Nullable Row params) {
+        return (long) (stats.numDocs() * selectivity(nodeCtx, txnCtx, stats, query, params));
+    }
+
+    /**
+     * @return the estimated fraction of rows matching the query, between 0.0 and 1.0
+     */
+    public static double selectivity(NodeContext nodeCtx,
+                                     TransactionContext txnCtx,
+                                     Stats stats,
+                                     Symbol query,
+                                     @Nullable Row params) {
         var estimator = new SelectivityEstimator(nodeCtx, txnCtx, stats, params);
-        Double selectivity = query.accept(estimator, null);
-        return (long) (stats.numDocs() * selectivity);
+        return query.accept(estimator, null);
+    }
+
+    /**
+     * Estimates the selectivity of the join condition {@code lhs = rhs} where
+     * {@code lhs} is a column of a relation with {@code lhsStats} and {@code rhs}
+     * is a column of another relation with {@code rhsStats}.
+     *
+     * <p>
+     * The selectivity is relative to the cross product of both relations.
+     * </p>
+     */
+    public static double eqJoinSelectivity(Symbol lhs, Stats lhsStats, Symbol rhs, Stats rhsStats) {
+        ColumnIdent lhsColumn = getColumn(lhs);
+        ColumnIdent rhsColumn = getColumn(rhs);
+        ColumnStats<?> lhsColumnStats = lhsColumn == null ? null : lhsStats.getColumnStats(lhsColumn);
+        ColumnStats<?> rhsColumnStats = rhsColumn == null ? null : rhsStats.getColumnStats(rhsColumn);
+        if (lhsColumnStats == null && rhsColumnStats == null) {
+            return DEFAULT_EQ_SEL;
+        }
+        if (lhsColumnStats == null) {
+            return 1.0 / Math.max(1.0, rhsColumnStats.approxDistinct());
+        }
+        if (rhsColumnStats == null) {
+            return 1.0 / Math.max(1.0, lhsColumnStats.approxDistinct());
+        }
+        return eqJoinSelectivity(lhsColumnStats, rhsColumnStats);
+    }
+
+    private static double eqJoinSelectivity(ColumnStats<?> lhsStats, ColumnStats<?> rhsStats) {
+        if (!lhsStats.mostCommonValues().isEmpty() && !rhsStats.mostCommonValues().isEmpty()) {
+            return selectivityFromMvcMatches(lhsStats, rhsStats);
+        }
+        double selectivity = (1.0 - lhsStats.nullFraction()) * (1.0 - rhsStats.nullFraction());
+        return selectivity / Math.max(1.0, Math.max(lhsStats.approxDistinct(), rhsStats.approxDistinct()));
     }
 
     static class SelectivityEstimator extends SymbolVisitor<Void, Double> {
@@ -187,21 +236,88 @@ public class SelectivityFunctions {
         }
 
         ColumnStats<?> lhsStats = stats.getColumnStats(lhsColumn);
-        if (lhsStats == null || lhsStats.mostCommonValues().isEmpty()) {
+        if (lhsStats == null) {
+            return defaultSel;
+        }
+        MostCommonValues mostCommonValues = lhsStats.mostCommonValues();
+        boolean hasHistogram = lhsStats.histogram().size() >= 2;
+        if (mostCommonValues.isEmpty() && !hasHistogram) {
             return defaultSel;
         }
 
         Scalar<Boolean, Object> operator = (Scalar<Boolean, Object>) nodeCtx.functions().getQualified(function);
-        MostCommonValues mostCommonValues = lhsStats.mostCommonValues();
         double selectivity = 0.0;
+        double mcvFrequency = 0.0;
         for (int i = 0; i < mostCommonValues.length(); i++) {
             Object value = mostCommonValues.value(i);
+            mcvFrequency += mostCommonValues.frequency(i);
             Boolean result = operator.evaluate(txnCtx, nodeCtx, () -> value, () -> rhsValue);
             if (result != null && result) {
                 selectivity += mostCommonValues.frequency(i);
             }
         }
-        return selectivity;
+        if (hasHistogram) {
+            // The histogram covers the values which are not null and not part of the most common values
+            double histogramFraction = clamp(1.0 - lhsStats.nullFraction() - mcvFrequency);
+            selectivity += histogramFraction * histogramSelectivity(lhsStats, function.name(), rhsValue);
+        }
+        return clamp(selectivity);
+    }
+
+    /**
+     * See PostgreSQL src/backend/utils/adt/selfuncs.c `ineq_histogram_selectivity`
+     *
+     * <p>
+     * The histogram contains the boundaries of buckets which each hold the same number of values.
+     * The fraction of values below {@code value} is the number of buckets below it,
+     * plus the linear interpolated position of {@code value} within its bucket for numeric types.
+     * </p>
+     */
+    private static <T> double histogramSelectivity(ColumnStats<T> columnStats, String operatorName, Object value) {
+        DataType<T> type = columnStats.type();
+        List<T> histogram = columnStats.histogram();
+        T val;
+        try {
+            val = type.sanitizeValue(value);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return MAGIC_SEL;
+        }
+        int numBounds = histogram.size();
+        final double fractionBelow;
+        if (type.compare(val, histogram.get(0)) <= 0) {
+            fractionBelow = 0.0;
+        } else if (type.compare(val, histogram.get(numBounds - 1)) >= 0) {
+            fractionBelow = 1.0;
+        } else {
+            // Find the bucket with histogram[low] < val <= histogram[high]
+            int low = 0;
+            int high = numBounds - 1;
+            while (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if (type.compare(histogram.get(mid), val) < 0) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            double bucketFraction = 0.5;
+            if (val instanceof Number number
+                && histogram.get(low) instanceof Number lowBound
+                && histogram.get(high) instanceof Number highBound) {
+
+                double lowValue = lowBound.doubleValue();
+                double highValue = highBound.doubleValue();
+                if (highValue > lowValue) {
+                    bucketFraction = clamp((number.doubleValue() - lowValue) / (highValue - lowValue));
+                }
+            }
+            fractionBelow = (low + bucketFraction) / (numBounds - 1);
+        }
+        return switch (operatorName) {
+            case LtOperator.NAME, LteOperator.NAME -> fractionBelow;
+            case GtOperator.NAME, GteOperator.NAME -> 1.0 - fractionBelow;
+            default -> MAGIC_SEL;
+        };
     }
 
     private static double isNullSelectivity(Symbol arg, Stats stats) {
@@ -246,22 +362,7 @@ public class SelectivityFunctions {
                 return 1.0 / lhsStats.approxDistinct();
             }
 
-            MostCommonValues lhsMcv = lhsStats.mostCommonValues();
-            MostCommonValues rhsMcv = rhsStats.mostCommonValues();
-
-            if (!lhsMcv.isEmpty() && !rhsMcv.isEmpty()) {
-                return selectivityFromMvcMatches(lhsStats, rhsStats);
-            }
-
-            double nullfrac1 = lhsStats.nullFraction();
-            double nullfrac2 = rhsStats.nullFraction();
-
-            double selectivity = (1.0 - nullfrac1) * (1.0 - nullfrac2);
-            if (lhsStats.approxDistinct() > rhsStats.approxDistinct()) {
-                return selectivity / lhsStats.approxDistinct();
-            } else {
-                return selectivity / rhsStats.approxDistinct();
-            }
+            return eqJoinSelectivity(lhsStats, rhsStats);
         }
 
         return 1.0 / lhsStats.approxDistinct();
@@ -318,9 +419,9 @@ public class SelectivityFunctions {
         double unmatchfreq2 = 0.0;
         for (int i = 0; i < rhsMcv.length(); i++) {
             if (hasmatch2[i]) {
-                matchfreq2 = rhsMcv.frequency(i);
+                matchfreq2 += rhsMcv.frequency(i);
             } else {
-                unmatchfreq1 = rhsMcv.frequency(i);
+                unmatchfreq2 += rhsMcv.frequency(i);
             }
         }
         matchfreq2 = clamp(matchfreq2);
@@ -67,6 +67,7 @@ import io.crate.execution.dsl.projection.SourceIndexWriterReturnSummaryProjectio
 import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.engine.JobLauncher;
 import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.execution.engine.pipeline.LimitAndOffset;
 import io.crate.expression.reference.file.SourceLineNumberExpression;
 import io.crate.expression.reference.file.SourceParsingFailureExpression;
@@ -179,13 +180,11 @@ public final class CopyFromPlan implements Plan {
                 "copy_from.validation",
                 "Using (validation = ?) in COPY FROM is no longer supported. Validation is always enforced");
         }
-        var inputFormat = settingAsEnum(
-            FileUriCollectPhase.InputFormat.class,
-            settings.get(INPUT_FORMAT_SETTING.getKey(), INPUT_FORMAT_SETTING.getDefault(Settings.EMPTY)));
         // TODO make FileUriCollectPhase ctor accept an uri of the List<String>
         // instead of the Symbol type, such as the uri can be evaluated and converted
         // to the required type already at this stage, but not later on in FileCollectSource.
-        var boundedURI = validateAndConvertToLiteral(eval.apply(copyFrom.uri()));
+        var boundedURI = validateAndConvertToLiteral(eval.apply(copyFrom.uri()), copyFrom.isStdin());
+        var inputFormat = inputFormat(settings, boundedURI);
         var header = settings.getAsBoolean("header", true);
         var targetColumns = copyFrom.targetColumns();
         if (!header && copyFrom.targetColumns().isEmpty()) {
@@ -325,10 +324,13 @@ public final class CopyFromPlan implements Plan {
             context.jobId(),
             context.nextExecutionPhaseId(),
             "copyFrom",
-            getExecutionNodes(
-                allNodes,
-                boundedCopyFrom.settings().getAsInt("num_readers", allNodes.getSize()),
-                boundedCopyFrom.nodePredicate()),
+            copyFrom.isStdin()
+                // The lines sent by the client are only available on the handler node
+                ? List.of(context.handlerNode())
+                : getExecutionNodes(
+                    allNodes,
+                    boundedCopyFrom.settings().getAsInt("num_readers", allNodes.getSize()),
+                    boundedCopyFrom.nodePredicate()),
             boundedCopyFrom.uri(),
             boundedCopyFrom.targetColumns(),
             toCollect,
@@ -432,19 +434,57 @@ public final class CopyFromPlan implements Plan {
         return nodes;
     }
 
-    private static Symbol validateAndConvertToLiteral(Object uri) {
-        if (uri instanceof String) {
+    /**
+     * Parquet is inferred from the file extension if the format isn't set explicitly. Unlike CSV, which is
+     * inferred per file, Parquet files are read by a different iterator, so all files must be Parquet files.
+     */
+    private static FileUriCollectPhase.InputFormat inputFormat(Settings settings, Symbol uri) {
+        if (settings.hasValue(INPUT_FORMAT_SETTING.getKey())) {
+            return settingAsEnum(FileUriCollectPhase.InputFormat.class, settings.get(INPUT_FORMAT_SETTING.getKey()));
+        }
+        Object value = ((Literal<?>) uri).value();
+        boolean isParquet;
+        if (value instanceof String str) {
+            isParquet = str.endsWith(".parquet");
+        } else {
+            List<?> uris = (List<?>) value;
+            isParquet = !uris.isEmpty() && uris.stream().allMatch(u -> u instanceof String str && str.endsWith(".parquet"));
+        }
+        return isParquet
+            ? FileUriCollectPhase.InputFormat.PARQUET
+            : settingAsEnum(FileUriCollectPhase.InputFormat.class, INPUT_FORMAT_SETTING.getDefault(Settings.EMPTY));
+    }
+
+    /**
+     * @param stdin true if the URI is the internal URI of a COPY FROM STDIN, which is the only one allowed to use
+     *              the {@link StdinRegistry#SCHEME}.
+     */
+    private static Symbol validateAndConvertToLiteral(Object uri, boolean stdin) {
+        if (uri instanceof String str) {
+            ensureNotStdin(str, stdin);
             return Literal.of(DataTypes.STRING.sanitizeValue(uri));
         } else if (uri instanceof List<?> uris) {
             Object value = uris.get(0);
             if (!(value instanceof String)) {
                 throw AnalyzedCopyFrom.raiseInvalidType(DataTypes.guessType(uri));
             }
+            for (Object u : uris) {
+                if (u instanceof String str) {
+                    ensureNotStdin(str, stdin);
+                }
+            }
             return Literal.of(DataTypes.STRING_ARRAY, DataTypes.STRING_ARRAY.sanitizeValue(uri));
         }
         throw AnalyzedCopyFrom.raiseInvalidType(DataTypes.guessType(uri));
     }
 
+    private static void ensureNotStdin(String uri, boolean stdin) {
+        if (!stdin && StdinRegistry.isStdin(uri)) {
+            throw new IllegalArgumentException(
+                "The `" + StdinRegistry.SCHEME + "` scheme is reserved for COPY FROM STDIN and can't be used as URI");
+        }
+    }
+
     private static Predicate<DiscoveryNode> discoveryNodePredicate(@Nullable Object nodeFilter) {
         if (nodeFilter == null) {
             return discoveryNode -> true;
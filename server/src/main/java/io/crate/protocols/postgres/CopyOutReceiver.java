@@ -0,0 +1,134 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.auth.AccessControl;
+import io.crate.data.Row;
+import io.crate.protocols.postgres.DelayableWriteChannel.DelayedWrites;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+/**
+ * Sends the rows of a {@code COPY TO STDOUT} as CopyData messages, one JSON document per line.
+ * <p>
+ * If {@code columnNames} is null, the row must consist of a single column containing the
+ * document ({@code _doc}) which is written as JSON object. Otherwise each row is written as JSON object or, if
+ * {@code asArray} is true, as JSON array.
+ */
+class CopyOutReceiver extends BaseResultReceiver {
+
+    private static final byte NEW_LINE = (byte) '\n';
+
+    private final String query;
+    private final DelayableWriteChannel channel;
+    private final DelayedWrites delayedWrites;
+    private final Channel directChannel;
+    private final AccessControl accessControl;
+    @Nullable
+    private final List<String> columnNames;
+    private final boolean asArray;
+
+    private long rowCount = 0;
+
+    CopyOutReceiver(String query,
+                    DelayableWriteChannel channel,
+                    DelayedWrites delayedWrites,
+                    AccessControl accessControl,
+                    @Nullable List<String> columnNames,
+                    boolean asArray) {
+        this.query = query;
+        this.channel = channel;
+        this.delayedWrites = delayedWrites;
+        this.directChannel = channel.bypassDelay();
+        this.accessControl = accessControl;
+        this.columnNames = columnNames;
+        this.asArray = asArray;
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        rowCount++;
+        Messages.sendCopyData(directChannel, toLine(row));
+        if (rowCount % 1000 == 0) {
+            directChannel.flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] toLine(Row row) {
+        try (XContentBuilder builder = JsonXContent.builder()) {
+            if (columnNames == null) {
+                builder.map((Map<String, Object>) row.get(0));
+            } else if (asArray) {
+                builder.startArray();
+                for (int i = 0; i < columnNames.size(); i++) {
+                    builder.value(row.get(i));
+                }
+                builder.endArray();
+            } else {
+                builder.startObject();
+                for (int i = 0; i < columnNames.size(); i++) {
+                    builder.field(columnNames.get(i), row.get(i));
+                }
+                builder.endObject();
+            }
+            BytesRef bytes = BytesReference.bytes(builder).toBytesRef();
+            byte[] line = new byte[bytes.length + 1];
+            System.arraycopy(bytes.bytes, bytes.offset, line, 0, bytes.length);
+            line[bytes.length] = NEW_LINE;
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void allFinished() {
+        Messages.sendCopyDone(directChannel);
+        ChannelFuture sendCommandComplete = Messages.sendCommandComplete(directChannel, query, rowCount);
+        channel.writePendingMessages(delayedWrites);
+        channel.flush();
+        sendCommandComplete.addListener(f -> super.allFinished());
+    }
+
+    @Override
+    public void fail(@NotNull Throwable throwable) {
+        ChannelFuture sendErrorResponse = Messages.sendErrorResponse(directChannel, accessControl, throwable);
+        channel.writePendingMessages(delayedWrites);
+        channel.flush();
+        sendErrorResponse.addListener(f -> super.fail(throwable));
+    }
+}
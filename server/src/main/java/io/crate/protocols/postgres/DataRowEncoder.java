@@ -0,0 +1,97 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.data.Row;
+import io.crate.protocols.postgres.types.PGType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+/**
+ * Encodes rows as DataRow messages into a shared buffer instead of allocating a buffer per row.
+ * <p>
+ * The buffer is written and flushed to the channel once it exceeds {@link #FLUSH_THRESHOLD_BYTES}.
+ * {@link #writePending()} must be called before any other message is written to the channel
+ * to retain the message order.
+ * </p>
+ */
+final class DataRowEncoder {
+
+    static final int FLUSH_THRESHOLD_BYTES = 64 * 1024;
+
+    private final Channel channel;
+    private final List<PGType<?>> columnTypes;
+    private final int flushThresholdBytes;
+
+    @Nullable
+    private final FormatCodes.FormatCode[] formatCodes;
+
+    @Nullable
+    private ByteBuf buffer;
+
+    DataRowEncoder(Channel channel, List<PGType<?>> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
+        this(channel, columnTypes, formatCodes, FLUSH_THRESHOLD_BYTES);
+    }
+
+    DataRowEncoder(Channel channel,
+                   List<PGType<?>> columnTypes,
+                   @Nullable FormatCodes.FormatCode[] formatCodes,
+                   int flushThresholdBytes) {
+        this.channel = channel;
+        this.columnTypes = columnTypes;
+        this.formatCodes = formatCodes;
+        this.flushThresholdBytes = flushThresholdBytes;
+    }
+
+    void write(Row row) {
+        if (buffer == null) {
+            buffer = channel.alloc().buffer(flushThresholdBytes + flushThresholdBytes / 4);
+        }
+        Messages.writeDataRow(buffer, row, columnTypes, formatCodes);
+        if (buffer.readableBytes() >= flushThresholdBytes) {
+            writePending();
+            channel.flush();
+        }
+    }
+
+    /**
+     * Writes the buffered DataRow messages to the channel without flushing it.
+     */
+    void writePending() {
+        ByteBuf buf = buffer;
+        if (buf == null) {
+            return;
+        }
+        buffer = null;
+        if (buf.isReadable()) {
+            channel.write(buf);
+        } else {
+            buf.release();
+        }
+    }
+
+}
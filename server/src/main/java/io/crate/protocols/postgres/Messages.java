@@ -313,48 +313,63 @@ public class Messages {
      * ByteN
      * The value of the column, in the format indicated by the associated format code. n is the above length.
      */
-    @SuppressWarnings({"unchecked","rawtypes"})
     static void sendDataRow(Channel channel, Row row, List<PGType<?>> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
+        ByteBuf buffer = channel.alloc().buffer();
+        try {
+            writeDataRow(buffer, row, columnTypes, formatCodes);
+        } catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+        channel.write(buffer);
+    }
+
+    /**
+     * Appends a DataRow message to the buffer, starting at the current writerIndex.
+     * If encoding the row fails, the writerIndex is reset and the exception is re-thrown.
+     *
+     * @return the number of bytes written.
+     */
+    @SuppressWarnings({"unchecked","rawtypes"})
+    static int writeDataRow(ByteBuf buffer, Row row, List<PGType<?>> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
         int length = 4 + 2;
         assert columnTypes.size() == row.numColumns()
             : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
 
-        ByteBuf buffer = channel.alloc().buffer();
+        int startIndex = buffer.writerIndex();
         buffer.writeByte('D');
         buffer.writeInt(0); // will be set at the end
         buffer.writeShort(row.numColumns());
 
-        for (int i = 0; i < row.numColumns(); i++) {
-            PGType pgType = columnTypes.get(i);
-            Object value;
-            try {
-                value = row.get(i);
-            } catch (Exception e) {
-                buffer.release();
-                throw e;
-            }
-            if (value == null) {
-                buffer.writeInt(-1);
-                length += 4;
-            } else {
-                FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
-                switch (formatCode) {
-                    case TEXT:
-                        length += pgType.writeAsText(buffer, value);
-                        break;
-                    case BINARY:
-                        length += pgType.writeAsBinary(buffer, value);
-                        break;
-
-                    default:
-                        buffer.release();
-                        throw new AssertionError("Unrecognized formatCode: " + formatCode);
+        try {
+            for (int i = 0; i < row.numColumns(); i++) {
+                PGType pgType = columnTypes.get(i);
+                Object value = row.get(i);
+                if (value == null) {
+                    buffer.writeInt(-1);
+                    length += 4;
+                } else {
+                    FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
+                    switch (formatCode) {
+                        case TEXT:
+                            length += pgType.writeAsText(buffer, value);
+                            break;
+                        case BINARY:
+                            length += pgType.writeAsBinary(buffer, value);
+                            break;
+
+                        default:
+                            throw new AssertionError("Unrecognized formatCode: " + formatCode);
+                    }
                 }
             }
+        } catch (Throwable t) {
+            buffer.writerIndex(startIndex);
+            throw t;
         }
 
-        buffer.setInt(1, length);
-        channel.write(buffer);
+        buffer.setInt(startIndex + 1, length);
+        return length + 1;
     }
 
     static void writeCString(ByteBuf buffer, byte[] valBytes) {
@@ -525,6 +540,61 @@ public class Messages {
         sendShortMsg(channel, '3', "sentCloseComplete");
     }
 
+    /**
+     * CopyInResponse
+     * | 'G' | int32 len | int8 format | int16 numColumns | int16 columnFormat ... |
+     * <p>
+     * The data is read as text (format 0), the columns are sent as they appear in the file.
+     */
+    static ChannelFuture sendCopyInResponse(Channel channel, int numColumns) {
+        return sendCopyResponse(channel, 'G', numColumns, "sentCopyInResponse");
+    }
+
+    /**
+     * CopyOutResponse
+     * | 'H' | int32 len | int8 format | int16 numColumns | int16 columnFormat ... |
+     */
+    static ChannelFuture sendCopyOutResponse(Channel channel, int numColumns) {
+        return sendCopyResponse(channel, 'H', numColumns, "sentCopyOutResponse");
+    }
+
+    private static ChannelFuture sendCopyResponse(Channel channel, char msgType, int numColumns, String traceLogMsg) {
+        int length = 4 + 1 + 2 + numColumns * 2;
+        ByteBuf buffer = channel.alloc().buffer(length + 1);
+        buffer.writeByte(msgType);
+        buffer.writeInt(length);
+        buffer.writeByte(0);
+        buffer.writeShort(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+            buffer.writeShort(0);
+        }
+        ChannelFuture channelFuture = channel.writeAndFlush(buffer);
+        if (LOGGER.isTraceEnabled()) {
+            channelFuture.addListener((ChannelFutureListener) future -> LOGGER.trace(traceLogMsg));
+        }
+        return channelFuture;
+    }
+
+    /**
+     * CopyData
+     * | 'd' | int32 len | byte[] data |
+     */
+    static ChannelFuture sendCopyData(Channel channel, byte[] data) {
+        ByteBuf buffer = channel.alloc().buffer(5 + data.length);
+        buffer.writeByte('d');
+        buffer.writeInt(4 + data.length);
+        buffer.writeBytes(data);
+        return channel.write(buffer);
+    }
+
+    /**
+     * CopyDone
+     * | 'c' | int32 len |
+     */
+    static ChannelFuture sendCopyDone(Channel channel) {
+        return sendShortMsg(channel, 'c', "sentCopyDone");
+    }
+
     /**
      * AuthenticationCleartextPassword (B)
      *
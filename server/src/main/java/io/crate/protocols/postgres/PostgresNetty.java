@@ -60,6 +60,7 @@ import com.carrotsearch.hppc.IntSet;
 
 import io.crate.action.sql.Sessions;
 import io.crate.auth.Authentication;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.netty.NettyBootstrap;
 import io.crate.protocols.ssl.SslContextProvider;
@@ -101,6 +102,7 @@ public class PostgresNetty extends AbstractLifecycleComponent {
     private final Settings settings;
     private final UserManager userManager;
     private final Supplier<SslContext> sslContextProvider;
+    private final StdinRegistry stdinRegistry;
 
     private ServerBootstrap bootstrap;
 
@@ -126,10 +128,12 @@ public class PostgresNetty extends AbstractLifecycleComponent {
                          NettyBootstrap nettyBootstrap,
                          Netty4Transport netty4Transport,
                          PageCacheRecycler pageCacheRecycler,
-                         SslContextProvider sslContextProvider) {
+                         SslContextProvider sslContextProvider,
+                         StdinRegistry stdinRegistry) {
         this.settings = settings;
         this.sessionSettingRegistry = sessionSettingRegistry;
         this.userManager = userManager;
+        this.stdinRegistry = stdinRegistry;
         namedLogger = LogManager.getLogger("psql");
         this.sqlOperations = sqlOperations;
         this.networkService = networkService;
@@ -181,7 +185,8 @@ public class PostgresNetty extends AbstractLifecycleComponent {
                         chPipeline.addLast("dispatcher", new Netty4MessageChannelHandler(pageCacheRecycler, transport));
                     },
                     authentication,
-                    sslContextProvider
+                    sslContextProvider,
+                    stdinRegistry
                 );
                 pipeline.addLast("frame-decoder", postgresWireProtocol.decoder);
                 pipeline.addLast("handler", postgresWireProtocol.handler);
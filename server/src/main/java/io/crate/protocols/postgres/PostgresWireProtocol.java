@@ -55,12 +55,15 @@ import io.crate.action.sql.DescribeResult;
 import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.Session;
 import io.crate.action.sql.Sessions;
+import io.crate.analyze.AnalyzedCopyToStdout;
 import io.crate.auth.AccessControl;
 import io.crate.auth.Authentication;
 import io.crate.auth.AuthenticationMethod;
 import io.crate.auth.Protocol;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.collections.Lists2;
+import io.crate.execution.engine.collect.files.StdinLineIterator;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.settings.CoordinatorSessionSettings;
@@ -71,7 +74,11 @@ import io.crate.protocols.postgres.parser.PgArrayParser;
 import io.crate.protocols.postgres.types.PGType;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.CopyFrom;
+import io.crate.sql.tree.CopyTo;
+import io.crate.sql.tree.Expression;
 import io.crate.sql.tree.Statement;
+import io.crate.sql.tree.StringLiteral;
 import io.crate.types.DataType;
 import io.crate.user.User;
 import io.netty.buffer.ByteBuf;
@@ -185,6 +192,45 @@ import joptsimple.OptionSet;
  *          |                                  |
  *          |  ReadyForQuery                   |
  *          |<---------------------------------|
+ *
+ * Copy In (COPY FROM STDIN, sent as simple query)
+ *
+ *          +                                  +
+ *          |  Q (query)                       |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |  CopyInResponse or ErrorResponse |
+ *          |<---------------------------------|
+ *          |                                  |
+ *          |  CopyData                        |
+ *          |--------------------------------->|
+ *          |  CopyData                        |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |  CopyDone or CopyFail            |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |  CommandComplete or ErrorResponse|
+ *          |<---------------------------------|
+ *          |  ReadyForQuery                   |
+ *          |<---------------------------------|
+ *
+ * Copy Out (COPY TO STDOUT, sent as simple query)
+ *
+ *          +                                  +
+ *          |  Q (query)                       |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |  CopyOutResponse                 |
+ *          |<---------------------------------|
+ *          |  CopyData                        |
+ *          |<---------------------------------|
+ *          |  CopyDone                        |
+ *          |<---------------------------------|
+ *          |  CommandComplete                 |
+ *          |<---------------------------------|
+ *          |  ReadyForQuery                   |
+ *          |<---------------------------------|
  * </pre>
  * <p>
  * Take a look at {@link Messages} to see how the messages are structured.
@@ -207,6 +253,7 @@ public class PostgresWireProtocol {
     private final Function<CoordinatorSessionSettings, AccessControl> getAccessControl;
     private final Authentication authService;
     private final Consumer<ChannelPipeline> addTransportHandler;
+    private final StdinRegistry stdinRegistry;
 
     private DelayableWriteChannel channel;
     Session session;
@@ -214,13 +261,21 @@ public class PostgresWireProtocol {
     private AuthenticationContext authContext;
     private Properties properties;
 
+    /**
+     * The COPY FROM STDIN currently receiving data from the client, if any.
+     */
+    @Nullable
+    private volatile CopyIn copyIn;
+
     PostgresWireProtocol(Sessions sessions,
                          SessionSettingRegistry sessionSettingRegistry,
                          Function<CoordinatorSessionSettings, AccessControl> getAcessControl,
                          Consumer<ChannelPipeline> addTransportHandler,
                          Authentication authService,
-                         Supplier<SslContext> getSslContext) {
+                         Supplier<SslContext> getSslContext,
+                         StdinRegistry stdinRegistry) {
         this.sessions = sessions;
+        this.stdinRegistry = stdinRegistry;
         this.sessionSettingRegistry = sessionSettingRegistry;
         this.getAccessControl = getAcessControl;
         this.addTransportHandler = addTransportHandler;
@@ -280,6 +335,9 @@ public class PostgresWireProtocol {
         }
     }
 
+    private record CopyIn(StdinLineIterator lines, CompletableFuture<Void> done) {
+    }
+
     private class MessageHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
         @Override
@@ -336,6 +394,10 @@ public class PostgresWireProtocol {
         }
 
         private void dispatchMessage(ByteBuf buffer, DelayableWriteChannel channel) {
+            if (copyIn != null && (decoder.msgType() == 'H' || decoder.msgType() == 'S')) {
+                // Flush and Sync are ignored in copy-in mode
+                return;
+            }
             switch (decoder.msgType()) {
                 case 'Q': // Query (simple)
                     handleSimpleQuery(buffer, channel);
@@ -364,6 +426,15 @@ public class PostgresWireProtocol {
                 case 'C':
                     handleClose(buffer, channel);
                     return;
+                case 'd':
+                    handleCopyData(buffer, channel);
+                    return;
+                case 'c':
+                    endCopyIn(null);
+                    return;
+                case 'f':
+                    handleCopyFail(buffer);
+                    return;
                 case 'X': // Terminate (called when jdbc connection is closed)
                     closeSession();
                     channel.close();
@@ -379,6 +450,7 @@ public class PostgresWireProtocol {
         }
 
         private void closeSession() {
+            endCopyIn(new IllegalStateException("Connection closed during COPY FROM STDIN"));
             if (session != null) {
                 session.close();
                 session = null;
@@ -802,7 +874,14 @@ public class PostgresWireProtocol {
         composedFuture.whenComplete(new ReadyForQueryCallback(channel, TransactionState.IDLE));
     }
 
+    @SuppressWarnings("unchecked")
     private CompletableFuture<?> handleSingleQuery(Statement statement, String query, DelayableWriteChannel channel) {
+        if (statement instanceof CopyFrom<?> copyFrom && copyFrom.isStdin()) {
+            return handleCopyFromStdin((CopyFrom<Expression>) copyFrom, query, channel);
+        }
+        if (statement instanceof CopyTo<?> copyTo && copyTo.isStdout()) {
+            return handleCopyToStdout((CopyTo<Expression>) copyTo, query, channel);
+        }
         CompletableFuture<?> result = new CompletableFuture<>();
 
         AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
@@ -844,6 +923,141 @@ public class PostgresWireProtocol {
         }
     }
 
+    /**
+     * Registers the data sent by the client as source of the COPY FROM. It is processed by the
+     * same pipeline as a COPY FROM reading files, but on this node only.
+     */
+    private CompletableFuture<?> handleCopyFromStdin(CopyFrom<Expression> copyFrom,
+                                                     String query,
+                                                     DelayableWriteChannel channel) {
+        AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
+        Channel directChannel = channel.bypassDelay();
+        StdinLineIterator lines = stdinRegistry.register(() -> directChannel.config().setAutoRead(true));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<?> executed;
+        try {
+            CopyFrom<Expression> copyFromStdin = new CopyFrom<>(
+                copyFrom.table(),
+                copyFrom.columns(),
+                new StringLiteral(lines.uri().toString()),
+                true,
+                copyFrom.properties(),
+                copyFrom.isReturnSummary()
+            );
+            session.analyze("", copyFromStdin, Collections.emptyList(), query);
+            session.bind("", "", Collections.emptyList(), null);
+            Messages.sendCopyInResponse(channel, copyFrom.columns().size());
+            copyIn = new CopyIn(lines, done);
+
+            DelayedWrites delayedWrites = channel.delayWrites();
+            RowCountReceiver rowCountReceiver = new RowCountReceiver(
+                query,
+                channel,
+                delayedWrites,
+                accessControl
+            );
+            session.execute("", 0, rowCountReceiver);
+            executed = session.sync();
+        } catch (Throwable t) {
+            endCopyIn(t);
+            stdinRegistry.unregister(lines);
+            channel.discardDelayedWrites();
+            Messages.sendErrorResponse(channel, accessControl, t);
+            return CompletableFuture.failedFuture(t);
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        executed.whenComplete((res, err) -> {
+            // If the execution failed, the client may still be sending data which is discarded
+            lines.close();
+            stdinRegistry.unregister(lines);
+            done.whenComplete((ignored, ignoredErr) -> {
+                if (err == null) {
+                    result.complete(res);
+                } else {
+                    result.completeExceptionally(err);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * CopyData
+     * | 'd' | int32 len | byte[] data
+     */
+    private void handleCopyData(ByteBuf buffer, Channel channel) {
+        CopyIn copy = copyIn;
+        int length = buffer.readableBytes();
+        if (copy == null) {
+            // Any data sent after the COPY failed is dropped
+            buffer.skipBytes(length);
+            return;
+        }
+        byte[] data = new byte[length];
+        buffer.readBytes(data);
+        if (copy.lines.feed(data, 0, length)) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * CopyFail
+     * | 'f' | int32 len | string errorMessage
+     */
+    private void handleCopyFail(ByteBuf buffer) {
+        String message = readCString(buffer);
+        endCopyIn(new IllegalStateException("COPY from stdin failed: " + message));
+    }
+
+    /**
+     * Ends the copy-in mode, either because the client sent all data or, if {@code failure}
+     * is not null, because the copy has been aborted.
+     */
+    private void endCopyIn(@Nullable Throwable failure) {
+        CopyIn copy = copyIn;
+        if (copy == null) {
+            return;
+        }
+        copyIn = null;
+        if (failure == null) {
+            copy.lines.finish();
+        } else {
+            copy.lines.kill(failure);
+        }
+        copy.done.complete(null);
+    }
+
+    /**
+     * Runs the query selecting the rows of the COPY TO and sends them as CopyData.
+     */
+    private CompletableFuture<?> handleCopyToStdout(CopyTo<Expression> copyTo,
+                                                    String query,
+                                                    DelayableWriteChannel channel) {
+        AccessControl accessControl = getAccessControl.apply(session.sessionSettings());
+        try {
+            session.analyze("", copyTo, Collections.emptyList(), query);
+            session.bind("", "", Collections.emptyList(), null);
+            AnalyzedCopyToStdout copyToStdout = (AnalyzedCopyToStdout) session.getAnalyzedStatement("");
+            Messages.sendCopyOutResponse(channel, copyToStdout.outputs().size());
+
+            DelayedWrites delayedWrites = channel.delayWrites();
+            CopyOutReceiver copyOutReceiver = new CopyOutReceiver(
+                query,
+                channel,
+                delayedWrites,
+                accessControl,
+                copyToStdout.columnNames(),
+                copyToStdout.asArray()
+            );
+            session.execute("", 0, copyOutReceiver);
+            return session.sync();
+        } catch (Throwable t) {
+            channel.discardDelayedWrites();
+            Messages.sendErrorResponse(channel, accessControl, t);
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
     private void handleCancelRequestBody(ByteBuf buffer, Channel channel) {
         var keyData = KeyData.of(buffer);
 
@@ -38,14 +38,11 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     private final String query;
     private final DelayableWriteChannel channel;
-    private final List<PGType<?>> columnTypes;
     private final TransactionState transactionState;
     private final AccessControl accessControl;
     private final Channel directChannel;
     private final DelayedWrites delayedWrites;
-
-    @Nullable
-    private final FormatCodes.FormatCode[] formatCodes;
+    private final DataRowEncoder dataRowEncoder;
 
     private long rowCount = 0;
 
@@ -62,21 +59,18 @@ class ResultSetReceiver extends BaseResultReceiver {
         this.directChannel = channel.bypassDelay();
         this.transactionState = transactionState;
         this.accessControl = accessControl;
-        this.columnTypes = columnTypes;
-        this.formatCodes = formatCodes;
+        this.dataRowEncoder = new DataRowEncoder(directChannel, columnTypes, formatCodes);
     }
 
     @Override
     public void setNextRow(Row row) {
+        dataRowEncoder.write(row);
         rowCount++;
-        Messages.sendDataRow(directChannel, row, columnTypes, formatCodes);
-        if (rowCount % 1000 == 0) {
-            directChannel.flush();
-        }
     }
 
     @Override
     public void batchFinished() {
+        dataRowEncoder.writePending();
         ChannelFuture sendPortalSuspended = Messages.sendPortalSuspended(directChannel);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
@@ -89,6 +83,7 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void allFinished() {
+        dataRowEncoder.writePending();
         ChannelFuture sendCommandComplete = Messages.sendCommandComplete(directChannel, query, rowCount);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
@@ -97,6 +92,7 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void fail(@NotNull Throwable throwable) {
+        dataRowEncoder.writePending();
         ChannelFuture sendErrorResponse = Messages.sendErrorResponse(directChannel, accessControl, throwable);
         channel.writePendingMessages(delayedWrites);
         channel.flush();
@@ -61,6 +61,11 @@ class DoubleType extends PGType<Double> {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @NotNull Double value) {
+        return writeAsciiAsText(buffer, Double.toString(value));
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@NotNull Double value) {
         return Double.toString(value).getBytes(StandardCharsets.UTF_8);
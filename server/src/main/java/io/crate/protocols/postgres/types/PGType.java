@@ -83,6 +83,7 @@ public abstract class PGType<T> {
 
     static final int INT32_BYTE_SIZE = Integer.SIZE / 8;
     private static final Logger LOGGER = LogManager.getLogger(PGType.class);
+    private static final byte[] LONG_MIN_VALUE_TEXT = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
 
     private final int oid;
     private final int typeLen;
@@ -175,6 +176,58 @@ public abstract class PGType<T> {
         return INT32_BYTE_SIZE + bytes.length;
     }
 
+    /**
+     * Write a integral value as text into the buffer without creating an intermediate String or byte array.
+     *
+     * @return the number of bytes written. (4 (int32)  + N)
+     */
+    static int writeLongAsText(ByteBuf buffer, long value) {
+        if (value == Long.MIN_VALUE) {
+            buffer.writeInt(LONG_MIN_VALUE_TEXT.length);
+            buffer.writeBytes(LONG_MIN_VALUE_TEXT);
+            return INT32_BYTE_SIZE + LONG_MIN_VALUE_TEXT.length;
+        }
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int numChars = negative ? numDigits(remaining) + 1 : numDigits(remaining);
+        buffer.writeInt(numChars);
+        buffer.ensureWritable(numChars);
+        int writerIndex = buffer.writerIndex();
+        int pos = writerIndex + numChars;
+        do {
+            buffer.setByte(--pos, (int) ('0' + remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            buffer.setByte(--pos, '-');
+        }
+        buffer.writerIndex(writerIndex + numChars);
+        return INT32_BYTE_SIZE + numChars;
+    }
+
+    private static int numDigits(long value) {
+        long limit = 10;
+        for (int digits = 1; digits < 19; digits++) {
+            if (value < limit) {
+                return digits;
+            }
+            limit *= 10;
+        }
+        return 19;
+    }
+
+    /**
+     * Write a value as text into the buffer, the value must only consist of ASCII characters.
+     *
+     * @return the number of bytes written. (4 (int32)  + N)
+     */
+    static int writeAsciiAsText(ByteBuf buffer, CharSequence value) {
+        int length = value.length();
+        buffer.writeInt(length);
+        buffer.writeCharSequence(value, StandardCharsets.US_ASCII);
+        return INT32_BYTE_SIZE + length;
+    }
+
     public T readTextValue(ByteBuf buffer, int valueLength) {
         byte[] bytes = new byte[valueLength];
         buffer.readBytes(bytes);
@@ -61,6 +61,11 @@ class RealType extends PGType<Float> {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @NotNull Float value) {
+        return writeAsciiAsText(buffer, Float.toString(value));
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@NotNull Float value) {
         return Float.toString(value).getBytes(StandardCharsets.UTF_8);
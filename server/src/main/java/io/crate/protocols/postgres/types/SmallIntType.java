@@ -61,6 +61,11 @@ class SmallIntType extends PGType<Short> {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @NotNull Short value) {
+        return writeLongAsText(buffer, value);
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@NotNull Short value) {
         return Short.toString(value).getBytes(StandardCharsets.UTF_8);
@@ -50,6 +50,17 @@ public class LogicalReplicationSettings {
         Property.Exposed
     );
 
+    /**
+     * Controls the maximum number of batches of operations per shard which are fetched from the publisher
+     * cluster concurrently.
+     */
+    public static final Setting<Integer> REPLICATION_MAX_CONCURRENT_READS = Setting.intSetting(
+        "replication.logical.max_concurrent_reads", 2, 1, 16,
+        Property.Dynamic,
+        Property.NodeScope,
+        Property.Exposed
+    );
+
     public static final Setting<TimeValue> REPLICATION_READ_POLL_DURATION = Setting.timeSetting(
         "replication.logical.reads_poll_duration",
         TimeValue.timeValueMillis(50),
@@ -147,21 +158,25 @@ public class LogicalReplicationSettings {
         MergeSchedulerConfig.AUTO_THROTTLE_SETTING,
         MergeSchedulerConfig.MAX_MERGE_COUNT_SETTING,
         MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
-        EngineConfig.INDEX_CODEC_SETTING
+        EngineConfig.INDEX_CODEC_SETTING,
+        IndexSettings.INDEX_SOURCE_FORMAT_SETTING
     );
 
     private int batchSize;
+    private int maxConcurrentReads;
     private int maxConcurrentFileChunks;
     private TimeValue pollDelay;
     private ByteSizeValue recoveryChunkSize;
 
     public LogicalReplicationSettings(Settings settings, ClusterService clusterService) {
         batchSize = REPLICATION_CHANGE_BATCH_SIZE.get(settings);
+        maxConcurrentReads = REPLICATION_MAX_CONCURRENT_READS.get(settings);
         pollDelay = REPLICATION_READ_POLL_DURATION.get(settings);
         recoveryChunkSize = REPLICATION_RECOVERY_CHUNK_SIZE.get(settings);
         maxConcurrentFileChunks = REPLICATION_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS.get(settings);
 
         clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_CHANGE_BATCH_SIZE, this::batchSize);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_MAX_CONCURRENT_READS, this::maxConcurrentReads);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_READ_POLL_DURATION, this::pollDelay);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_RECOVERY_CHUNK_SIZE, this::recoveryChunkSize);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(REPLICATION_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS, this::maxConcurrentFileChunks);
@@ -175,6 +190,14 @@ public class LogicalReplicationSettings {
         this.batchSize = batchSize;
     }
 
+    public int maxConcurrentReads() {
+        return maxConcurrentReads;
+    }
+
+    private void maxConcurrentReads(int maxConcurrentReads) {
+        this.maxConcurrentReads = maxConcurrentReads;
+    }
+
     public TimeValue pollDelay() {
         return pollDelay;
     }
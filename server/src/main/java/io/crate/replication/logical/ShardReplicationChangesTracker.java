@@ -24,8 +24,11 @@ package io.crate.replication.logical;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
@@ -41,6 +44,7 @@ import org.elasticsearch.action.support.replication.ReplicationResponse.ShardInf
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.index.seqno.RetentionLeaseInvalidRetainingSeqNoException;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
@@ -79,8 +83,18 @@ public class ShardReplicationChangesTracker implements Closeable {
     private final AtomicLong observedSeqNoAtLeader;
     private final AtomicLong seqNoAlreadyRequested;
 
+    /**
+     * Fetched batches waiting to be replayed, by their first sequence number.
+     * Batches can be fetched concurrently but are replayed in order.
+     */
+    private final TreeMap<Long, PendingReplay> pendingReplays = new TreeMap<>();
+    private long nextSeqNoToReplay;
+    private boolean replaying = false;
+    private int inFlightRequests = 0;
+
     private volatile Scheduler.Cancellable cancellable;
     private volatile boolean closed = false;
+    private volatile boolean stopped = false;
 
 
     public ShardReplicationChangesTracker(String subscriptionName,
@@ -100,11 +114,17 @@ public class ShardReplicationChangesTracker implements Closeable {
         var seqNoStats = indexShard.seqNoStats();
         this.observedSeqNoAtLeader = new AtomicLong(seqNoStats.getGlobalCheckpoint());
         this.seqNoAlreadyRequested = new AtomicLong(seqNoStats.getMaxSeqNo());
+        this.nextSeqNoToReplay = seqNoStats.getMaxSeqNo() + 1;
     }
 
     record SeqNoRange(long fromSeqNo, long toSeqNo) {
     }
 
+    private record PendingReplay(ShardChangesAction.Response response,
+                                 long lastSeqNo,
+                                 CompletableFuture<ReplicationResponse> future) {
+    }
+
     public void start() {
         LOGGER.debug("[{}] Spawning the shard changes reader", shardId);
         var retryRunnable = newRunnable();
@@ -121,22 +141,42 @@ public class ShardReplicationChangesTracker implements Closeable {
         );
     }
 
+    /**
+     * Requests the next batches of changes, up to {@link LogicalReplicationSettings#maxConcurrentReads()} at a time.
+     * Each finished request re-schedules this method.
+     */
     private void pollAndProcessPendingChanges() {
-        if (closed) {
+        if (closed || stopped) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("[{}] ShardReplicationChangesTracker closed. Stopping tracking", shardId);
             }
             return;
         }
-        SeqNoRange rangeToFetch = getNextSeqNoRange();
-        if (rangeToFetch == null) {
-            cancellable = threadPool.scheduleUnlessShuttingDown(
-                replicationSettings.pollDelay(),
-                ThreadPool.Names.LOGICAL_REPLICATION,
-                newRunnable()
-            );
-            return;
+        while (true) {
+            SeqNoRange rangeToFetch;
+            synchronized (this) {
+                if (inFlightRequests >= replicationSettings.maxConcurrentReads()) {
+                    return;
+                }
+                rangeToFetch = getNextSeqNoRange();
+                if (rangeToFetch == null) {
+                    if (inFlightRequests == 0) {
+                        cancellable = threadPool.scheduleUnlessShuttingDown(
+                            replicationSettings.pollDelay(),
+                            ThreadPool.Names.LOGICAL_REPLICATION,
+                            newRunnable()
+                        );
+                    }
+                    // Otherwise the completion of the in-flight requests re-schedules the polling
+                    return;
+                }
+                inFlightRequests++;
+            }
+            fetchAndReplayChanges(rangeToFetch);
         }
+    }
+
+    private void fetchAndReplayChanges(SeqNoRange rangeToFetch) {
         long fromSeqNo = rangeToFetch.fromSeqNo();
         long toSeqNo = rangeToFetch.toSeqNo();
 
@@ -153,6 +193,9 @@ public class ShardReplicationChangesTracker implements Closeable {
         });
         var futureReplicationResponse = futurePendingChanges.thenCompose(this::replayChanges);
         futureReplicationResponse.whenComplete((replicationResp, e) -> {
+            synchronized (this) {
+                inFlightRequests--;
+            }
             if (e == null) {
                 var pendingChanges = futurePendingChanges.join();
                 long lastSeqNo;
@@ -177,10 +220,12 @@ public class ShardReplicationChangesTracker implements Closeable {
                     }
                     updateBatchFetched(false, fromSeqNo, toSeqNo, fromSeqNo - 1, -1);
                 } else if (t instanceof InvalidShardEngineException) {
+                    stopped = true;
                     if (LOGGER.isDebugEnabled()) {
                         LOGGER.debug("Shard is not accepting replayed changes, engine changed", t);
                     }
                 } else {
+                    stopped = true;
                     LOGGER.warn(
                         "[{}] Error during tracking of upstream shard changes for subscription '{}'. Tracking stopped: {}",
                         shardId,
@@ -192,16 +237,92 @@ public class ShardReplicationChangesTracker implements Closeable {
         });
     }
 
-
+    /**
+     * Adds the fetched changes to the pending replays.
+     * The returned future completes once the changes have been replayed.
+     */
     private CompletableFuture<ReplicationResponse> replayChanges(ShardChangesAction.Response response) {
         List<Translog.Operation> translogOps = response.changes();
         if (translogOps.isEmpty()) {
             return CompletableFuture.completedFuture(new ReplicationResponse());
         }
+        long firstSeqNo = translogOps.get(0).seqNo();
+        long lastSeqNo = translogOps.get(translogOps.size() - 1).seqNo();
+        var future = new CompletableFuture<ReplicationResponse>();
+        synchronized (this) {
+            pendingReplays.put(firstSeqNo, new PendingReplay(response, lastSeqNo, future));
+        }
+        replayNextPendingChanges();
+        return future;
+    }
+
+    /**
+     * Replays the pending batches which directly follow the already replayed operations.
+     * Consecutive batches are coalesced into a single replay request.
+     * Batches after a gap wait until the missing operations have been fetched.
+     */
+    private void replayNextPendingChanges() {
+        List<PendingReplay> batches = new ArrayList<>();
+        long lastSeqNo;
+        synchronized (this) {
+            if (replaying || closed) {
+                return;
+            }
+            lastSeqNo = nextSeqNoToReplay - 1;
+            Map.Entry<Long, PendingReplay> entry;
+            while ((entry = pendingReplays.firstEntry()) != null && entry.getKey() <= lastSeqNo + 1) {
+                pendingReplays.pollFirstEntry();
+                PendingReplay pendingReplay = entry.getValue();
+                batches.add(pendingReplay);
+                lastSeqNo = Math.max(lastSeqNo, pendingReplay.lastSeqNo());
+            }
+            if (batches.isEmpty()) {
+                return;
+            }
+            replaying = true;
+        }
+        List<Translog.Operation> translogOps;
+        long maxSeqNoOfUpdatesOrDeletes;
+        if (batches.size() == 1) {
+            ShardChangesAction.Response response = batches.get(0).response();
+            translogOps = response.changes();
+            maxSeqNoOfUpdatesOrDeletes = response.maxSeqNoOfUpdatesOrDeletes();
+        } else {
+            translogOps = new ArrayList<>();
+            maxSeqNoOfUpdatesOrDeletes = -1;
+            for (PendingReplay batch : batches) {
+                translogOps.addAll(batch.response().changes());
+                maxSeqNoOfUpdatesOrDeletes = Math.max(maxSeqNoOfUpdatesOrDeletes, batch.response().maxSeqNoOfUpdatesOrDeletes());
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("[{}] Replaying {} batches with {} operations at once", shardId, batches.size(), translogOps.size());
+            }
+        }
+        long replayedSeqNo = lastSeqNo;
+        replay(translogOps, maxSeqNoOfUpdatesOrDeletes).whenComplete((resp, e) -> {
+            synchronized (this) {
+                replaying = false;
+                if (e == null) {
+                    nextSeqNoToReplay = Math.max(nextSeqNoToReplay, replayedSeqNo + 1);
+                }
+            }
+            for (PendingReplay batch : batches) {
+                if (e == null) {
+                    batch.future().complete(resp);
+                } else {
+                    batch.future().completeExceptionally(e);
+                }
+            }
+            replayNextPendingChanges();
+        });
+    }
+
+    private CompletableFuture<ReplicationResponse> replay(List<Translog.Operation> translogOps,
+                                                          long maxSeqNoOfUpdatesOrDeletes) {
         var replayRequest = new ReplayChangesAction.Request(
             shardId,
             translogOps,
-            response.maxSeqNoOfUpdatesOrDeletes()
+            maxSeqNoOfUpdatesOrDeletes
         );
         FutureActionListener<ReplicationResponse, ReplicationResponse> listener = new FutureActionListener<>(resp -> {
             ShardInfo shardInfo = resp.getShardInfo();
@@ -274,6 +395,20 @@ public class ShardReplicationChangesTracker implements Closeable {
         if (closed) {
             return;
         }
+        long replayedSeqNo;
+        synchronized (this) {
+            updateSeqNoRanges(success, fromSeqNoRequested, toSeqNoRequested, toSeqNoReceived, seqNoAtLeader);
+            // Batches may complete out of order, the lease must not retain less than what is replayed
+            replayedSeqNo = nextSeqNoToReplay - 1;
+        }
+        renewLeasesThenReschedule(replayedSeqNo);
+    }
+
+    private void updateSeqNoRanges(boolean success,
+                                   long fromSeqNoRequested,
+                                   long toSeqNoRequested,
+                                   long toSeqNoReceived,
+                                   long seqNoAtLeader) {
         if (success) {
             // we shouldn't ever be getting more operations than requested.
             assert toSeqNoRequested >= toSeqNoReceived :
@@ -322,7 +457,6 @@ public class ShardReplicationChangesTracker implements Closeable {
                 missingBatches.add(new SeqNoRange(fromSeqNoRequested, toSeqNoRequested));
             }
         }
-        renewLeasesThenReschedule(toSeqNoReceived);
     }
 
     private void renewLeasesThenReschedule(long toSeqNoReceived) {
@@ -349,7 +483,14 @@ public class ShardReplicationChangesTracker implements Closeable {
                         e -> {
                             var t = SQLExceptions.unwrap(e);
                             boolean isClosed = closed; // one volatile read
-                            if (!isClosed && SQLExceptions.maybeTemporary(t)) {
+                            if (!isClosed && t instanceof RetentionLeaseInvalidRetainingSeqNoException) {
+                                // A concurrent renewal with a higher sequence number won the race
+                                cancellable = threadPool.scheduleUnlessShuttingDown(
+                                    replicationSettings.pollDelay(),
+                                    ThreadPool.Names.LOGICAL_REPLICATION,
+                                    newRunnable()
+                                );
+                            } else if (!isClosed && SQLExceptions.maybeTemporary(t)) {
                                 LOGGER.info(
                                     "[{}] Temporary error during renewal of retention leases for subscription '{}'. Retrying: {}:{}",
                                     shardId,
@@ -376,6 +517,9 @@ public class ShardReplicationChangesTracker implements Closeable {
     @Override
     public void close() throws IOException {
         closed = true;
+        synchronized (this) {
+            pendingReplays.clear();
+        }
         Cancellable currentCancellable = cancellable;
         if (currentCancellable != null) {
             currentCancellable.cancel();
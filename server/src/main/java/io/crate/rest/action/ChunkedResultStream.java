@@ -0,0 +1,496 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.rest.action;
+
+import static io.crate.action.sql.Session.UNNAMED;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
+import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
+import org.jetbrains.annotations.Nullable;
+
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.Session;
+import io.crate.auth.AccessControl;
+import io.crate.data.Row;
+import io.crate.exceptions.SQLExceptions;
+import io.crate.expression.symbol.Symbol;
+import io.crate.protocols.http.Headers;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+
+/**
+ * Streams the result set of a query using HTTP chunked transfer encoding.
+ *
+ * <p>
+ * The portal is executed with a fetch size of {@link #FETCH_SIZE} rows. Once a
+ * page is complete the consumer suspends, the page is written as a single chunk
+ * and the portal is only resumed after the channel becomes writable again.
+ * The memory used per request is therefore bounded by one page plus the
+ * outbound buffer of the channel, independent of the size of the result.
+ * </p>
+ *
+ * <p>
+ * Two output formats are supported:
+ * </p>
+ * <ul>
+ *  <li>{@link Format#JSON}: the same document as a regular response, written incrementally</li>
+ *  <li>{@link Format#NDJSON}: one JSON document per line. The first line contains
+ *  the columns, followed by one array per row and a final line with the row count
+ *  and the duration. If the execution fails after the response started, the last
+ *  line is the error object.</li>
+ * </ul>
+ */
+final class ChunkedResultStream {
+
+    private static final Logger LOGGER = LogManager.getLogger(ChunkedResultStream.class);
+
+    static final int FETCH_SIZE = 1000;
+
+    enum Format {
+        JSON("application/json; charset=UTF-8"),
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * @return the format for the value of the "stream" query parameter or null if streaming is disabled.
+         */
+        @Nullable
+        static Format fromParameter(@Nullable List<String> values) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            String value = values.get(0).toLowerCase(Locale.ENGLISH);
+            return switch (value) {
+                case "", "true", "json" -> JSON;
+                case "ndjson" -> NDJSON;
+                case "false" -> null;
+                default -> throw new IllegalArgumentException(
+                    "Invalid value for parameter `stream`: `" + value + "`. Supported values are: [json, ndjson]");
+            };
+        }
+    }
+
+    private final ChannelHandlerContext ctx;
+    private final Session session;
+    private final FullHttpRequest request;
+    private final Netty4CorsConfig corsConfig;
+    private final AccessControl accessControl;
+    private final List<Symbol> fields;
+    private final Format format;
+    private final boolean includeTypes;
+    private final boolean includeErrorTrace;
+    private final long startTimeInNs;
+    private final ChunkOutputStream out;
+    private final CompletableFuture<XContentBuilder> result = new CompletableFuture<>();
+
+    /**
+     * Only used for {@link Format#JSON}; keeps the state of the document across pages
+     */
+    @Nullable
+    private ResultToXContentBuilder jsonBuilder;
+    @Nullable
+    private XContentBuilder jsonContent;
+
+    private boolean responseStarted = false;
+    private boolean waitingForWritability = false;
+    private long rowCount = 0;
+
+    ChunkedResultStream(ChannelHandlerContext ctx,
+                        Session session,
+                        FullHttpRequest request,
+                        Netty4CorsConfig corsConfig,
+                        AccessControl accessControl,
+                        List<Symbol> fields,
+                        Format format,
+                        boolean includeTypes,
+                        boolean includeErrorTrace,
+                        long startTimeInNs) {
+        this.ctx = ctx;
+        this.session = session;
+        this.request = request;
+        this.corsConfig = corsConfig;
+        this.accessControl = accessControl;
+        this.fields = fields;
+        this.format = format;
+        this.includeTypes = includeTypes;
+        this.includeErrorTrace = includeErrorTrace;
+        this.startTimeInNs = startTimeInNs;
+        this.out = new ChunkOutputStream(ctx);
+    }
+
+    /**
+     * Starts the execution of the bound unnamed portal.
+     *
+     * @return a future which completes with {@code null} once the response has been streamed
+     *         or exceptionally if the execution failed before any part of the response was sent.
+     *         In the latter case the caller is responsible to send an error response.
+     */
+    CompletableFuture<XContentBuilder> start() throws IOException {
+        writeHeader();
+        // Further requests on this connection are only read after the stream finished,
+        // they would otherwise replace the unnamed portal we're consuming
+        ctx.channel().config().setAutoRead(false);
+        ChannelFutureListener onClose = this::channelClosed;
+        ctx.channel().closeFuture().addListener(onClose);
+        result.whenComplete((res, err) -> ctx.channel().closeFuture().removeListener(onClose));
+        try {
+            session.execute(UNNAMED, FETCH_SIZE, new Page());
+            session.sync();
+        } catch (RuntimeException e) {
+            out.release();
+            finish();
+            result.complete(null);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Must be called from the event loop if the writability of the channel changed
+     */
+    void channelWritabilityChanged() {
+        if (waitingForWritability && ctx.channel().isWritable()) {
+            waitingForWritability = false;
+            resume();
+        }
+    }
+
+    /**
+     * Called on the event loop once the channel is closed. If the stream waits for the channel to become writable,
+     * the consumer is suspended and is closed together with the session, so there is nothing left that would
+     * complete the stream.
+     */
+    private void channelClosed(ChannelFuture future) {
+        if (waitingForWritability) {
+            waitingForWritability = false;
+            abort();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        if (format == Format.JSON) {
+            jsonContent = new XContentBuilder(JsonXContent.JSON_XCONTENT, out);
+            jsonBuilder = ResultToXContentBuilder.builder(jsonContent).cols(fields);
+            if (includeTypes) {
+                jsonBuilder.colTypes(fields);
+            }
+            jsonBuilder.startRows();
+        } else {
+            try (XContentBuilder builder = new XContentBuilder(JsonXContent.JSON_XCONTENT, new NoCloseOutputStream(out))) {
+                ResultToXContentBuilder header = ResultToXContentBuilder.builder(builder).cols(fields);
+                if (includeTypes) {
+                    header.colTypes(fields);
+                }
+                header.build();
+            }
+            out.write('\n');
+        }
+    }
+
+    private void writeRow(Row row) throws IOException {
+        if (jsonBuilder == null) {
+            try (XContentBuilder builder = new XContentBuilder(JsonXContent.JSON_XCONTENT, new NoCloseOutputStream(out))) {
+                builder.startArray();
+                for (int i = 0; i < fields.size(); i++) {
+                    builder.value(row.get(i));
+                }
+                builder.endArray();
+            }
+            out.write('\n');
+        } else {
+            jsonBuilder.addRow(row, fields.size());
+        }
+        rowCount++;
+    }
+
+    private void writeFooter() throws IOException {
+        if (jsonBuilder == null) {
+            try (XContentBuilder builder = new XContentBuilder(JsonXContent.JSON_XCONTENT, new NoCloseOutputStream(out))) {
+                ResultToXContentBuilder.builder(builder)
+                    .rowCount(rowCount)
+                    .duration(startTimeInNs)
+                    .build();
+            }
+            out.write('\n');
+        } else {
+            jsonBuilder
+                .finishRows()
+                .rowCount(rowCount)
+                .duration(startTimeInNs)
+                .build()
+                .flush();
+        }
+    }
+
+    private void startResponse() {
+        if (responseStarted) {
+            return;
+        }
+        responseStarted = true;
+        HttpVersion httpVersion = request.protocolVersion();
+        DefaultHttpResponse resp = new DefaultHttpResponse(httpVersion, HttpResponseStatus.OK);
+        resp.headers().add(HttpHeaderNames.CONTENT_TYPE, format.mediaType);
+        Netty4CorsHandler.setCorsResponseHeaders(request, resp, corsConfig);
+        if (httpVersion.equals(HttpVersion.HTTP_1_0)) {
+            // HTTP/1.0 doesn't support chunked encoding, the end of the response is signaled by closing the connection
+            HttpUtil.setKeepAlive(resp, false);
+        } else {
+            HttpUtil.setTransferEncodingChunked(resp, true);
+        }
+        ctx.write(resp);
+    }
+
+    private void writeChunk() throws IOException {
+        if (jsonContent != null) {
+            jsonContent.flush();
+        }
+        startResponse();
+        ctx.writeAndFlush(new DefaultHttpContent(out.take()))
+            .addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    private void writeLastChunk() {
+        startResponse();
+        boolean closeConnection = Headers.isCloseConnection(request)
+            || request.protocolVersion().equals(HttpVersion.HTTP_1_0);
+        var lastWrite = ctx.writeAndFlush(new DefaultLastHttpContent(out.take()));
+        if (closeConnection) {
+            lastWrite.addListener(ChannelFutureListener.CLOSE);
+        } else {
+            lastWrite.addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        }
+    }
+
+    private void resume() {
+        if (!ctx.channel().isActive()) {
+            // The session is closed together with the channel, which also closes the suspended consumer
+            abort();
+            return;
+        }
+        if (!ctx.channel().isWritable()) {
+            waitingForWritability = true;
+            return;
+        }
+        try {
+            session.execute(UNNAMED, FETCH_SIZE, new Page());
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (!responseStarted) {
+            out.release();
+            finish();
+            result.completeExceptionally(t);
+            return;
+        }
+        if (format == Format.NDJSON && ctx.channel().isActive()) {
+            var throwable = SQLExceptions.prepareForClientTransmission(accessControl, t);
+            try (XContentBuilder error = HttpError.fromThrowable(throwable).toXContent(includeErrorTrace)) {
+                out.write(BytesReference.toBytes(BytesReference.bytes(error)));
+                out.write('\n');
+                writeLastChunk();
+            } catch (IOException e) {
+                out.release();
+                ctx.close();
+            }
+        } else {
+            // A JSON document can't be terminated in a meaningful way; closing the connection
+            // without the last chunk lets the client detect that the response is incomplete.
+            LOGGER.debug("Streaming result failed after response started, closing connection", t);
+            out.release();
+            ctx.close();
+        }
+        finish();
+        result.complete(null);
+    }
+
+    private void abort() {
+        out.release();
+        finish();
+        result.complete(null);
+    }
+
+    private void finish() {
+        ctx.channel().config().setAutoRead(true);
+    }
+
+    /**
+     * Receives a single page of the result
+     */
+    private class Page extends BaseResultReceiver {
+
+        @Override
+        public void setNextRow(Row row) {
+            if (!ctx.channel().isActive()) {
+                throw new IllegalStateException("Client closed the connection");
+            }
+            try {
+                writeRow(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void batchFinished() {
+            if (!ctx.channel().isActive()) {
+                // Causes the consumer to close the suspended iterator
+                throw new IllegalStateException("Client closed the connection");
+            }
+            try {
+                writeChunk();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            super.allFinished();
+            ctx.executor().execute(ChunkedResultStream.this::resume);
+        }
+
+        @Override
+        public void allFinished() {
+            if (completionFuture().isDone()) {
+                return;
+            }
+            try {
+                writeFooter();
+                writeLastChunk();
+                finish();
+                result.complete(null);
+            } catch (Throwable t) {
+                ChunkedResultStream.this.fail(t);
+            }
+            super.allFinished();
+        }
+
+        @Override
+        public void fail(Throwable t) {
+            if (completionFuture().isDone()) {
+                return;
+            }
+            ChunkedResultStream.this.fail(t);
+            super.fail(t);
+        }
+    }
+
+    /**
+     * Collects the bytes of a chunk into a {@link ByteBuf}, which is handed over to the channel on {@link #take()}
+     */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private final ChannelHandlerContext ctx;
+
+        @Nullable
+        private ByteBuf buffer;
+
+        ChunkOutputStream(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        private ByteBuf buffer() {
+            if (buffer == null) {
+                buffer = ctx.alloc().buffer();
+            }
+            return buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer().writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer().writeBytes(b, off, len);
+        }
+
+        ByteBuf take() {
+            ByteBuf chunk = buffer;
+            buffer = null;
+            return chunk == null ? Unpooled.EMPTY_BUFFER : chunk;
+        }
+
+        void release() {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Prevents closing the {@link ChunkOutputStream} when closing the per-line builders of {@link Format#NDJSON}
+     */
+    private static class NoCloseOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+
+        NoCloseOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.flush();
+        }
+    }
+}
@@ -91,6 +91,9 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
     private Session session;
 
+    @Nullable
+    private volatile ChunkedResultStream activeStream;
+
     SqlHttpHandler(Settings settings,
                    Sessions sqlOperations,
                    Function<String, CircuitBreaker> circuitBreakerProvider,
@@ -111,10 +114,13 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         if (request.uri().startsWith("/_sql")) {
             Session session = ensureSession(request);
             Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
-            ByteBuf content = request.content();
-            handleSQLRequest(session, content, paramContainFlag(parameters, "types"))
+            handleSQLRequest(session, ctx, request, parameters)
                 .whenComplete((result, t) -> {
                     try {
+                        if (result == null && t == null) {
+                            // Response has been streamed
+                            return;
+                        }
                         sendResponse(session, ctx, request, parameters, result, t);
                     } catch (Throwable ex) {
                         LOGGER.error("Error sending response", ex);
@@ -136,6 +142,15 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return values != null && (values.equals(singletonList("")) || values.equals(singletonList("true")));
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        ChunkedResultStream stream = activeStream;
+        if (stream != null) {
+            stream.channelWritabilityChanged();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
         if (session != null) {
@@ -188,13 +203,22 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         ctx.writeAndFlush(resp, promise);
     }
 
-    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session, ByteBuf content, boolean includeTypes) {
+    /**
+     * @return future completing with the response body or with {@code null} if the result has been streamed to the client.
+     */
+    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session,
+                                                                ChannelHandlerContext ctx,
+                                                                FullHttpRequest request,
+                                                                Map<String, List<String>> parameters) {
         SQLRequestParseContext parseContext;
+        ChunkedResultStream.Format streamFormat;
         try {
-            parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(content));
+            parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(request.content()));
+            streamFormat = ChunkedResultStream.Format.fromParameter(parameters.get("stream"));
         } catch (Throwable t) {
             return CompletableFuture.failedFuture(t);
         }
+        boolean includeTypes = paramContainFlag(parameters, "types");
         List<Object> args = parseContext.args();
         List<List<Object>> bulkArgs = parseContext.bulkArgs();
         if (bothProvided(args, bulkArgs)) {
@@ -203,6 +227,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         }
         try {
             if (args != null || bulkArgs == null) {
+                if (streamFormat != null) {
+                    boolean includeErrorTrace = paramContainFlag(parameters, "error_trace");
+                    return executeStreamingRequest(
+                        session, ctx, request, parseContext.stmt(), args, streamFormat, includeTypes, includeErrorTrace);
+                }
                 return executeSimpleRequest(session, parseContext.stmt(), args, includeTypes);
             } else {
                 return executeBulkRequest(session, parseContext.stmt(), bulkArgs);
@@ -261,6 +290,50 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             .thenCompose(ignored -> resultReceiver.completionFuture());
     }
 
+    /**
+     * Like {@link #executeSimpleRequest(Session, String, List, boolean)} but writes the rows of a result set
+     * incrementally using chunked transfer encoding instead of collecting them into a single response.
+     * Statements without a result set are responded to as usual.
+     */
+    private CompletableFuture<XContentBuilder> executeStreamingRequest(Session session,
+                                                                       ChannelHandlerContext ctx,
+                                                                       FullHttpRequest request,
+                                                                       String stmt,
+                                                                       List<Object> args,
+                                                                       ChunkedResultStream.Format format,
+                                                                       boolean includeTypes,
+                                                                       boolean includeErrorTrace) throws IOException {
+        long startTimeInNs = System.nanoTime();
+        session.parse(UNNAMED, stmt, emptyList());
+        session.bind(UNNAMED, UNNAMED, args == null ? emptyList() : args, null);
+        DescribeResult description = session.describe('P', UNNAMED);
+        List<Symbol> resultFields = description.getFields();
+        if (resultFields == null) {
+            var resultReceiver = new RestRowCountReceiver(JsonXContent.builder(), startTimeInNs, includeTypes);
+            session.execute(UNNAMED, 0, resultReceiver);
+            return session.sync()
+                .thenCompose(ignored -> resultReceiver.completionFuture());
+        }
+        ChunkedResultStream stream = new ChunkedResultStream(
+            ctx,
+            session,
+            request,
+            corsConfig,
+            getAccessControl.apply(session.sessionSettings()),
+            resultFields,
+            format,
+            includeTypes,
+            includeErrorTrace,
+            startTimeInNs
+        );
+        activeStream = stream;
+        return stream.start().whenComplete((result, err) -> {
+            if (activeStream == stream) {
+                activeStream = null;
+            }
+        });
+    }
+
     private CompletableFuture<XContentBuilder> executeBulkRequest(Session session,
                                                                   String stmt,
                                                                   List<List<Object>> bulkArgs) {
@@ -33,10 +33,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class ColumnStats<T> implements Writeable {
 
+    /**
+     * If a partition has more distinct values than this fraction of its rows,
+     * the number of distinct values is assumed to grow with the number of rows.
+     */
+    private static final double SCALING_DISTINCT_FRACTION = 0.1;
+
     private final double nullFraction;
     private final double averageSizeInBytes;
     private final double approxDistinct;
@@ -101,6 +109,10 @@ public final class ColumnStats<T> implements Writeable {
         return approxDistinct;
     }
 
+    public DataType<T> type() {
+        return type;
+    }
+
     public MostCommonValues mostCommonValues() {
         return mostCommonValues;
     }
@@ -247,6 +259,139 @@ public final class ColumnStats<T> implements Writeable {
         );
     }
 
+    /**
+     * Combines the statistics of the partitions of a table into statistics for the whole table.
+     *
+     * <p>
+     * The most common values are re-ranked by their number of rows across all partitions
+     * and the histogram bounds of all partitions are re-distributed into a single histogram
+     * weighted by the number of rows each bound represents.
+     * </p>
+     *
+     * <p>
+     * Like in PostgreSQL, the number of distinct values of a partition is assumed to scale with
+     * the number of rows if it is above {@link #SCALING_DISTINCT_FRACTION} of the rows (e.g. ids).
+     * Those are summed up. Other columns (e.g. enums) are assumed to share their values across partitions.
+     * </p>
+     *
+     * @param columnStats the statistics of the column in each partition
+     * @param numRows the number of rows of each partition
+     */
+    @SuppressWarnings("unchecked")
+    static ColumnStats<?> merge(List<ColumnStats<?>> columnStats, List<Long> numRows) {
+        assert columnStats.size() == numRows.size() : "Must have the number of rows for each partition";
+        if (columnStats.size() == 1) {
+            return columnStats.get(0);
+        }
+        final DataType<Object> type = (DataType<Object>) columnStats.get(0).type;
+        double totalRows = 0;
+        double nullRows = 0;
+        double totalSizeInBytes = 0;
+        double scalingDistinct = 0;
+        double fixedDistinct = 0;
+        double maxDistinct = 0;
+        Map<Object, Double> rowsByCommonValue = new HashMap<>();
+        List<Object> histogramValues = new ArrayList<>();
+        List<Double> histogramWeights = new ArrayList<>();
+        for (int i = 0; i < columnStats.size(); i++) {
+            ColumnStats<?> stats = columnStats.get(i);
+            long rows = numRows.get(i);
+            if (rows <= 0) {
+                continue;
+            }
+            double partitionNonNullRows = (1.0 - stats.nullFraction) * rows;
+            totalRows += rows;
+            nullRows += stats.nullFraction * rows;
+            totalSizeInBytes += stats.averageSizeInBytes * partitionNonNullRows;
+            maxDistinct = Math.max(maxDistinct, stats.approxDistinct);
+            if (stats.approxDistinct > SCALING_DISTINCT_FRACTION * partitionNonNullRows) {
+                scalingDistinct += stats.approxDistinct;
+            } else {
+                fixedDistinct = Math.max(fixedDistinct, stats.approxDistinct);
+            }
+            MostCommonValues mcv = stats.mostCommonValues;
+            double mcvFrequency = 0;
+            for (int j = 0; j < mcv.length(); j++) {
+                rowsByCommonValue.merge(mcv.value(j), mcv.frequency(j) * rows, Double::sum);
+                mcvFrequency += mcv.frequency(j);
+            }
+            List<?> histogram = stats.histogram;
+            if (!histogram.isEmpty()) {
+                double weight = Math.max(0.0, 1.0 - stats.nullFraction - mcvFrequency) * rows / histogram.size();
+                for (Object value : histogram) {
+                    histogramValues.add(value);
+                    histogramWeights.add(weight);
+                }
+            }
+        }
+        if (totalRows == 0) {
+            return columnStats.get(0);
+        }
+        double nonNullRows = totalRows - nullRows;
+        final double approxDistinct = Math.min(Math.max(scalingDistinct + fixedDistinct, maxDistinct), nonNullRows);
+
+        List<Map.Entry<Object, Double>> commonValues = new ArrayList<>(rowsByCommonValue.entrySet());
+        commonValues.sort(Map.Entry.<Object, Double>comparingByValue().reversed());
+        int numCommonValues = Math.min(MostCommonValues.MCV_TARGET, commonValues.size());
+        Object[] values = new Object[numCommonValues];
+        double[] frequencies = new double[numCommonValues];
+        for (int i = 0; i < numCommonValues; i++) {
+            values[i] = commonValues.get(i).getKey();
+            frequencies[i] = commonValues.get(i).getValue() / totalRows;
+        }
+
+        Integer[] order = new Integer[histogramValues.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> type.compare(histogramValues.get(a), histogramValues.get(b)));
+        List<Object> sortedValues = new ArrayList<>(order.length);
+        double[] weights = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedValues.add(histogramValues.get(order[i]));
+            weights[i] = histogramWeights.get(order[i]);
+        }
+        return new ColumnStats<>(
+            nullRows / totalRows,
+            nonNullRows > 0 ? totalSizeInBytes / nonNullRows : columnStats.get(0).averageSizeInBytes,
+            approxDistinct,
+            type,
+            new MostCommonValues(values, frequencies),
+            generateWeightedHistogram(MostCommonValues.MCV_TARGET, sortedValues, weights)
+        );
+    }
+
+    /**
+     * Like {@link #generateHistogram(int, List)} but each value represents {@code weights[i]} rows.
+     */
+    static <T> List<T> generateWeightedHistogram(int numBins, List<T> sortedValues, double[] weights) {
+        int numHist = Math.min(numBins, sortedValues.size());
+        if (numHist < 2) {
+            return List.of();
+        }
+        double totalWeight = 0;
+        for (double weight : weights) {
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            return generateHistogram(numBins, sortedValues);
+        }
+        ArrayList<T> histogram = new ArrayList<>(numHist);
+        histogram.add(sortedValues.get(0));
+        double step = totalWeight / (numHist - 1);
+        double nextBound = step;
+        double cumulativeWeight = 0;
+        for (int i = 0; i < sortedValues.size() - 1 && histogram.size() < numHist - 1; i++) {
+            cumulativeWeight += weights[i];
+            if (cumulativeWeight >= nextBound) {
+                histogram.add(sortedValues.get(i));
+                nextBound += step;
+            }
+        }
+        histogram.add(sortedValues.get(sortedValues.size() - 1));
+        return histogram;
+    }
+
     private static <T> List<T> removeMCVs(List<T> samples, MostCommonValues.MVCCandidate[] mostCommonValueCandidates) {
         Arrays.sort(mostCommonValueCandidates, Comparator.comparingInt(x -> x.first));
         // The candidates are now sorted by the start indices of the most common values, e.g.
@@ -0,0 +1,61 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.statistics;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.transport.TransportResponse;
+
+public final class FetchIndexChangesResponse extends TransportResponse {
+
+    private final Map<String, IndexChanges> changesByIndex;
+
+    FetchIndexChangesResponse(Map<String, IndexChanges> changesByIndex) {
+        this.changesByIndex = changesByIndex;
+    }
+
+    public FetchIndexChangesResponse(StreamInput in) throws IOException {
+        this.changesByIndex = in.readMap(StreamInput::readString, IndexChanges::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeMap(changesByIndex, StreamOutput::writeString, (o, changes) -> changes.writeTo(o));
+    }
+
+    Map<String, IndexChanges> changesByIndex() {
+        return changesByIndex;
+    }
+
+    public static FetchIndexChangesResponse merge(FetchIndexChangesResponse r1, FetchIndexChangesResponse r2) {
+        HashMap<String, IndexChanges> merged = new HashMap<>(r1.changesByIndex);
+        for (var entry : r2.changesByIndex.entrySet()) {
+            merged.merge(entry.getKey(), entry.getValue(), IndexChanges::add);
+        }
+        return new FetchIndexChangesResponse(merged);
+    }
+}
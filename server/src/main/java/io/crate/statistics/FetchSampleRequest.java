@@ -23,6 +23,7 @@ package io.crate.statistics;
 
 import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.transport.TransportRequest;
@@ -37,11 +38,20 @@ public final class FetchSampleRequest extends TransportRequest {
     private final RelationName relationName;
     private final List<Reference> columns;
     private final int maxSamples;
+    private final List<String> indices;
 
     public FetchSampleRequest(RelationName relationName, List<Reference> columns, int maxSamples) {
+        this(relationName, columns, maxSamples, List.of());
+    }
+
+    /**
+     * @param indices the indices (partitions) of the relation to sample. Empty to sample all of them.
+     */
+    public FetchSampleRequest(RelationName relationName, List<Reference> columns, int maxSamples, List<String> indices) {
         this.relationName = relationName;
         this.columns = columns;
         this.maxSamples = maxSamples;
+        this.indices = indices;
     }
 
     public FetchSampleRequest(StreamInput in) throws IOException {
@@ -52,6 +62,11 @@ public final class FetchSampleRequest extends TransportRequest {
         for (int i = 0; i < numColumns; i++) {
             columns.add(Reference.fromStream(in));
         }
+        if (in.getVersion().onOrAfter(Version.V_5_6_0)) {
+            this.indices = in.readStringList();
+        } else {
+            this.indices = List.of();
+        }
     }
 
     @Override
@@ -62,6 +77,9 @@ public final class FetchSampleRequest extends TransportRequest {
         for (Reference column : columns) {
             Reference.toStream(out, column);
         }
+        if (out.getVersion().onOrAfter(Version.V_5_6_0)) {
+            out.writeStringCollection(indices);
+        }
     }
 
     public RelationName relation() {
@@ -76,9 +94,13 @@ public final class FetchSampleRequest extends TransportRequest {
         return maxSamples;
     }
 
+    public List<String> indices() {
+        return indices;
+    }
+
     @Override
     public final int hashCode() {
-        return Objects.hash(relationName, columns, maxSamples);
+        return Objects.hash(relationName, columns, maxSamples, indices);
     }
 
     @Override
@@ -92,6 +114,9 @@ public final class FetchSampleRequest extends TransportRequest {
         if (!(obj instanceof FetchSampleRequest other)) {
             return false;
         }
-        return relationName.equals(other.relation()) && columns.equals(other.columns()) && maxSamples == other.maxSamples();
+        return relationName.equals(other.relation())
+            && columns.equals(other.columns())
+            && maxSamples == other.maxSamples()
+            && indices.equals(other.indices());
     }
 }
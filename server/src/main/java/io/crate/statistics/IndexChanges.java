@@ -0,0 +1,101 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.statistics;
+
+import java.io.IOException;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+/**
+ * Number of documents and write operations of the primary shards of an index.
+ * Used to detect if the statistics of an index (or partition) are outdated
+ * without having to re-sample it.
+ */
+final class IndexChanges implements Writeable {
+
+    /**
+     * Minimum number of changed rows before an index is re-sampled.
+     * Prevents re-sampling small tables on every single write.
+     */
+    static final long MIN_CHANGED_ROWS = 50;
+
+    private final String indexUUID;
+    private final long numDocs;
+    private final long numOps;
+
+    /**
+     * @param numOps Sum of the max sequence number + 1 of all primary shards,
+     *               incremented by every insert, update and delete.
+     */
+    IndexChanges(String indexUUID, long numDocs, long numOps) {
+        this.indexUUID = indexUUID;
+        this.numDocs = numDocs;
+        this.numOps = numOps;
+    }
+
+    IndexChanges(StreamInput in) throws IOException {
+        this.indexUUID = in.readString();
+        this.numDocs = in.readVLong();
+        this.numOps = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(indexUUID);
+        out.writeVLong(numDocs);
+        out.writeVLong(numOps);
+    }
+
+    long numDocs() {
+        return numDocs;
+    }
+
+    /**
+     * Combines the changes of shards of the same index located on different nodes.
+     */
+    IndexChanges add(IndexChanges other) {
+        assert indexUUID.equals(other.indexUUID) : "Can only add changes of the same index";
+        return new IndexChanges(indexUUID, numDocs + other.numDocs, numOps + other.numOps);
+    }
+
+    /**
+     * Returns true if the number of documents or the number of write operations moved by more
+     * than {@code threshold} (a fraction of the number of documents at the time of the previous sampling)
+     * since {@code previous} was taken.
+     * An index which got re-created under the same name always counts as changed.
+     */
+    boolean exceedsThreshold(IndexChanges previous, double threshold) {
+        if (!indexUUID.equals(previous.indexUUID)) {
+            return true;
+        }
+        long changedRows = Math.max(Math.abs(numDocs - previous.numDocs), numOps - previous.numOps);
+        return changedRows > MIN_CHANGED_ROWS + threshold * previous.numDocs;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexChanges{uuid=" + indexUUID + ", numDocs=" + numDocs + ", numOps=" + numOps + '}';
+    }
+}
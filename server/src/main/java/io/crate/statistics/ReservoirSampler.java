@@ -153,8 +153,15 @@ public final class ReservoirSampler {
         return bytesSinceLastPause;
     }
 
-    @SuppressWarnings("rawtypes")
     Samples getSamples(RelationName relationName, List<Reference> columns, int maxSamples) {
+        return getSamples(relationName, columns, maxSamples, List.of());
+    }
+
+    /**
+     * @param indices the indices (partitions) of the relation to sample. Empty to sample all of them.
+     */
+    @SuppressWarnings("rawtypes")
+    Samples getSamples(RelationName relationName, List<Reference> columns, int maxSamples, List<String> indices) {
         TableInfo table;
         try {
             table = schemas.getTableInfo(relationName);
@@ -178,6 +185,7 @@ public final class ReservoirSampler {
                 columns,
                 maxSamples,
                 docTable,
+                indices,
                 random,
                 metadata,
                 coordinatorTxnCtx,
@@ -197,6 +205,7 @@ public final class ReservoirSampler {
     private Samples getSamples(List<Reference> columns,
                                int maxSamples,
                                DocTableInfo docTable,
+                               List<String> indices,
                                Random random,
                                Metadata metadata,
                                CoordinatorTxnCtx coordinatorTxnCtx,
@@ -210,6 +219,9 @@ public final class ReservoirSampler {
         long totalSizeInBytes = 0;
 
         for (String index : docTable.concreteOpenIndices()) {
+            if (!indices.isEmpty() && !indices.contains(index)) {
+                continue;
+            }
             var indexMetadata = metadata.index(index);
             if (indexMetadata == null) {
                 continue;
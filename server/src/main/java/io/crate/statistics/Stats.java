@@ -22,6 +22,7 @@
 package io.crate.statistics;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -108,6 +109,34 @@ public class Stats implements Writeable {
         );
     }
 
+    /**
+     * Combines the statistics of the partitions of a table into statistics for the whole table.
+     * See {@link ColumnStats#merge(List, List)}
+     */
+    public static Stats merge(List<Stats> partitionStats) {
+        if (partitionStats.size() == 1) {
+            return partitionStats.get(0);
+        }
+        long numDocs = 0;
+        long sizeInBytes = 0;
+        Map<ColumnIdent, List<ColumnStats<?>>> columnStatsByColumn = new HashMap<>();
+        Map<ColumnIdent, List<Long>> numRowsByColumn = new HashMap<>();
+        for (Stats stats : partitionStats) {
+            numDocs += stats.numDocs;
+            sizeInBytes += stats.sizeInBytes;
+            for (var entry : stats.statsByColumn.entrySet()) {
+                columnStatsByColumn.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+                numRowsByColumn.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(stats.numDocs);
+            }
+        }
+        Map<ColumnIdent, ColumnStats<?>> statsByColumn = new HashMap<>();
+        for (var entry : columnStatsByColumn.entrySet()) {
+            ColumnIdent column = entry.getKey();
+            statsByColumn.put(column, ColumnStats.merge(entry.getValue(), numRowsByColumn.get(column)));
+        }
+        return new Stats(numDocs, sizeInBytes, statsByColumn);
+    }
+
     public long numDocs() {
         return numDocs;
     }
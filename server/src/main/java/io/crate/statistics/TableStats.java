@@ -36,9 +36,18 @@ import org.elasticsearch.common.inject.Singleton;
 public class TableStats {
 
     private volatile Map<RelationName, Stats> tableStats = new HashMap<>();
+    private volatile long version = 0L;
 
     public void updateTableStats(Map<RelationName, Stats> tableStats) {
         this.tableStats = tableStats;
+        version++;
+    }
+
+    /**
+     * Incremented on every update of the statistics
+     */
+    public long version() {
+        return version;
     }
 
     /**
@@ -37,15 +37,16 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
-import io.crate.action.sql.BaseResultReceiver;
-import io.crate.action.sql.Session;
-import io.crate.action.sql.Sessions;
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.common.unit.TimeValue;
-import io.crate.data.Row;
 
 /**
  * Periodically refresh {@link TableStats} based on {@link #refreshInterval}.
+ * <p>
+ * Only tables and partitions which changed by more than {@link #STATS_SERVICE_CHANGE_THRESHOLD_SETTING}
+ * since they were last sampled are re-sampled, so the cost of a refresh depends on the write volume
+ * instead of the total data volume.
+ * </p>
  */
 @Singleton
 public class TableStatsService implements Runnable {
@@ -58,11 +59,12 @@ public class TableStatsService implements Runnable {
     public static final Setting<ByteSizeValue> STATS_SERVICE_THROTTLING_SETTING = Setting.byteSizeSetting(
         "stats.service.max_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB), Property.NodeScope, Property.Dynamic, Property.Exposed);
 
-    static final String STMT = "ANALYZE";
+    public static final Setting<Double> STATS_SERVICE_CHANGE_THRESHOLD_SETTING = Setting.doubleSetting(
+        "stats.service.change_threshold", 0.1, 0.0, Property.NodeScope, Property.Dynamic, Property.Exposed);
 
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
-    private final Session session;
+    private final TransportAnalyzeAction analyzeAction;
 
     @VisibleForTesting
     volatile TimeValue refreshInterval;
@@ -70,19 +72,25 @@ public class TableStatsService implements Runnable {
     @VisibleForTesting
     volatile Scheduler.ScheduledCancellable scheduledRefresh;
 
+    @VisibleForTesting
+    volatile double changeThreshold;
+
     @Inject
     public TableStatsService(Settings settings,
                              ThreadPool threadPool,
                              ClusterService clusterService,
-                             Sessions sqlOperations) {
+                             TransportAnalyzeAction analyzeAction) {
         this.threadPool = threadPool;
         this.clusterService = clusterService;
+        this.analyzeAction = analyzeAction;
         refreshInterval = STATS_SERVICE_REFRESH_INTERVAL_SETTING.get(settings);
+        changeThreshold = STATS_SERVICE_CHANGE_THRESHOLD_SETTING.get(settings);
         scheduledRefresh = scheduleNextRefresh(refreshInterval);
-        session = sqlOperations.newSystemSession();
 
         clusterService.getClusterSettings().addSettingsUpdateConsumer(
             STATS_SERVICE_REFRESH_INTERVAL_SETTING, this::setRefreshInterval);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(
+            STATS_SERVICE_CHANGE_THRESHOLD_SETTING, newThreshold -> changeThreshold = newThreshold);
     }
 
     @Override
@@ -104,14 +112,12 @@ public class TableStatsService implements Runnable {
             return;
         }
         try {
-            BaseResultReceiver resultReceiver = new BaseResultReceiver();
-            resultReceiver.completionFuture().whenComplete((res, err) -> {
+            analyzeAction.fetchChangedSamplesThenGenerateAndPublishStats(changeThreshold).whenComplete((res, err) -> {
                 scheduledRefresh = scheduleNextRefresh(refreshInterval);
                 if (err != null) {
-                    LOGGER.error("Error running periodic " + STMT + "", err);
+                    LOGGER.error("Error running periodic table statistics refresh", err);
                 }
             });
-            session.quickExec(STMT, resultReceiver, Row.EMPTY);
         } catch (Throwable t) {
             LOGGER.error("error retrieving table stats", t);
         }
@@ -25,15 +25,20 @@ import static java.util.concurrent.CompletableFuture.completedFuture;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -41,8 +46,14 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IllegalIndexShardStateException;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
+import org.jetbrains.annotations.Nullable;
 
 import io.crate.Streamer;
 import io.crate.action.FutureActionListener;
@@ -57,15 +68,17 @@ import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.doc.DocSchemaInfo;
+import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.SchemaInfo;
 import io.crate.metadata.table.TableInfo;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 @Singleton
-public final class TransportAnalyzeAction {
+public class TransportAnalyzeAction {
 
     private static final String FETCH_SAMPLES = "internal:crate:sql/analyze/fetch_samples";
+    private static final String FETCH_INDEX_CHANGES = "internal:crate:sql/analyze/fetch_index_changes";
     private static final String RECEIVE_TABLE_STATS = "internal:crate:sql/analyze/receive_stats";
 
     /**
@@ -83,19 +96,36 @@ public final class TransportAnalyzeAction {
      * In PostgreSQL `k` is configurable (per column). We don't support changing k, we default it to 100
      */
     private static final int NUM_SAMPLES = 300 * MostCommonValues.MCV_TARGET;
+
+    /**
+     * Partitions are sampled proportionally to their share of the rows of the table,
+     * but take at least this many samples to be able to detect their most common values.
+     */
+    private static final int MIN_SAMPLES_PER_INDEX = 10 * MostCommonValues.MCV_TARGET;
+
     private final TransportService transportService;
     private final Schemas schemas;
     private final ClusterService clusterService;
     private final ConcurrentHashMap<FetchSampleRequest, CompletableFuture<Samples>> analysisByRequest = new ConcurrentHashMap<>();
     private final Executor executor;
 
+    /**
+     * Statistics of each table or partition index from the last time it was sampled by this node.
+     * Used to re-sample only the indices which changed.
+     */
+    private final ConcurrentHashMap<String, SampledIndex> sampledIndices = new ConcurrentHashMap<>();
+
+    private record SampledIndex(IndexChanges changes, List<Reference> columns, Stats stats) {
+    }
+
     @Inject
     public TransportAnalyzeAction(TransportService transportService,
                                   ReservoirSampler reservoirSampler,
                                   Schemas schemas,
                                   ClusterService clusterService,
                                   TableStats tableStats,
-                                  ThreadPool threadPool) {
+                                  ThreadPool threadPool,
+                                  IndicesService indicesService) {
         this.transportService = transportService;
         this.schemas = schemas;
         this.clusterService = clusterService;
@@ -117,7 +147,7 @@ public final class TransportAnalyzeAction {
 
                     if (previous == null) {
                         newSamples.completeAsync(
-                            () -> reservoirSampler.getSamples(req.relation(), req.columns(), req.maxSamples()),
+                            () -> reservoirSampler.getSamples(req.relation(), req.columns(), req.maxSamples(), req.indices()),
                             executor
                         );
                         return newSamples
@@ -130,6 +160,16 @@ public final class TransportAnalyzeAction {
             )
         );
 
+        transportService.registerRequestHandler(
+            FETCH_INDEX_CHANGES,
+            ThreadPool.Names.MANAGEMENT,
+            FetchIndexChangesRequest::new,
+            // Explicit generic is required for eclipse JDT, otherwise it won't compile
+            new NodeActionRequestHandler<FetchIndexChangesRequest, FetchIndexChangesResponse>(
+                req -> completedFuture(new FetchIndexChangesResponse(getIndexChanges(indicesService, req.indices())))
+            )
+        );
+
         transportService.registerRequestHandler(
             RECEIVE_TABLE_STATS,
             ThreadPool.Names.SAME, // cheap operation
@@ -144,28 +184,181 @@ public final class TransportAnalyzeAction {
         );
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Samples all tables and publishes the resulting statistics to all nodes.
+     */
     public CompletableFuture<AcknowledgedResponse> fetchSamplesThenGenerateAndPublishStats() {
+        return fetchSamplesThenGenerateAndPublishStats(false, 0.0);
+    }
+
+    /**
+     * Like {@link #fetchSamplesThenGenerateAndPublishStats()}, but only re-samples tables and partitions
+     * whose number of documents or write operations changed by more than {@code changeThreshold}
+     * (a fraction of their number of documents) since this node sampled them the last time.
+     * The statistics of the other partitions are re-used.
+     */
+    public CompletableFuture<AcknowledgedResponse> fetchChangedSamplesThenGenerateAndPublishStats(double changeThreshold) {
+        return fetchSamplesThenGenerateAndPublishStats(true, changeThreshold);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<AcknowledgedResponse> fetchSamplesThenGenerateAndPublishStats(boolean onlyChanged,
+                                                                                            double changeThreshold) {
+        if (clusterService.state().nodes().getMinNodeVersion().before(Version.V_5_6_0)) {
+            // Older nodes can't sample single partitions, sample whole tables instead
+            return fetchTableSamplesThenGenerateAndPublishStats();
+        }
+        List<DocTableInfo> tables = docTables();
+        List<String> indices = new ArrayList<>();
+        for (DocTableInfo table : tables) {
+            indices.addAll(Arrays.asList(table.concreteOpenIndices()));
+        }
+        return fetchIndexChanges(indices).thenCompose(changesByIndex -> {
+            sampledIndices.keySet().retainAll(new HashSet<>(indices));
+            ArrayList<CompletableFuture<Map.Entry<RelationName, Stats>>> futures = new ArrayList<>();
+            for (DocTableInfo table : tables) {
+                List<Reference> primitiveColumns = primitiveColumns(table);
+                String[] tableIndices = table.concreteOpenIndices();
+                long tableNumDocs = 0;
+                for (String index : tableIndices) {
+                    IndexChanges changes = changesByIndex.get(index);
+                    tableNumDocs += changes == null ? 0 : changes.numDocs();
+                }
+                List<CompletableFuture<Stats>> indexStats = new ArrayList<>(tableIndices.length);
+                for (String index : tableIndices) {
+                    IndexChanges changes = changesByIndex.get(index);
+                    SampledIndex previous = sampledIndices.get(index);
+                    if (onlyChanged
+                        && previous != null
+                        && previous.columns().equals(primitiveColumns)
+                        && (changes == null || !changes.exceedsThreshold(previous.changes(), changeThreshold))) {
+                        // The row count is known without sampling, only the column statistics are re-used
+                        Stats stats = changes == null ? previous.stats() : previous.stats().withNumDocs(changes.numDocs());
+                        indexStats.add(completedFuture(stats));
+                        continue;
+                    }
+                    indexStats.add(fetchSamples(
+                        table.ident(),
+                        primitiveColumns,
+                        numSamples(changes, tableNumDocs),
+                        List.of(index)
+                    ).thenApply(samples -> {
+                        Stats stats = createTableStats(samples, primitiveColumns);
+                        if (changes != null) {
+                            sampledIndices.put(index, new SampledIndex(changes, primitiveColumns, stats));
+                        }
+                        return stats;
+                    }));
+                }
+                futures.add(CompletableFutures.allAsList(indexStats)
+                    .thenApply(stats -> Map.entry(table.ident(), Stats.merge(stats))));
+            }
+            return CompletableFutures.allAsList(futures)
+                .thenCompose(entries -> publishTableStats(Map.ofEntries(entries.toArray(new Map.Entry[0]))));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<AcknowledgedResponse> fetchTableSamplesThenGenerateAndPublishStats() {
         ArrayList<CompletableFuture<Map.Entry<RelationName, Stats>>> futures = new ArrayList<>();
+        for (DocTableInfo table : docTables()) {
+            List<Reference> primitiveColumns = primitiveColumns(table);
+            futures.add(fetchSamples(
+                table.ident(),
+                primitiveColumns,
+                NUM_SAMPLES,
+                List.of()
+            ).thenApply(samples -> Map.entry(table.ident(), createTableStats(samples, primitiveColumns))));
+        }
+        return CompletableFutures.allAsList(futures)
+            .thenCompose(entries -> publishTableStats(Map.ofEntries(entries.toArray(new Map.Entry[0]))));
+    }
+
+    private List<DocTableInfo> docTables() {
+        List<DocTableInfo> tables = new ArrayList<>();
         for (SchemaInfo schema : schemas) {
             if (!(schema instanceof DocSchemaInfo)) {
                 continue;
             }
             for (TableInfo table : schema.getTables()) {
-                List<Reference> primitiveColumns = StreamSupport.stream(table.spliterator(), false)
-                    .filter(x -> !x.column().isSystemColumn())
-                    .filter(x -> DataTypes.isPrimitive(x.valueType()))
-                    .map(x -> table.getReadReference(x.column()))
-                    .toList();
-
-                futures.add(fetchSamples(
-                    table.ident(),
-                    primitiveColumns
-                ).thenApply(samples -> Map.entry(table.ident(), createTableStats(samples, primitiveColumns))));
+                if (table instanceof DocTableInfo docTable) {
+                    tables.add(docTable);
+                }
             }
         }
-        return CompletableFutures.allAsList(futures)
-            .thenCompose(entries -> publishTableStats(Map.ofEntries(entries.toArray(new Map.Entry[0]))));
+        return tables;
+    }
+
+    private static List<Reference> primitiveColumns(TableInfo table) {
+        return StreamSupport.stream(table.spliterator(), false)
+            .filter(x -> !x.column().isSystemColumn())
+            .filter(x -> DataTypes.isPrimitive(x.valueType()))
+            .map(x -> table.getReadReference(x.column()))
+            .toList();
+    }
+
+    /**
+     * Number of samples to take from an index of a table, proportional to its share of the rows of the table.
+     */
+    @VisibleForTesting
+    static int numSamples(@Nullable IndexChanges changes, long tableNumDocs) {
+        if (changes == null || tableNumDocs <= 0 || changes.numDocs() >= tableNumDocs) {
+            return NUM_SAMPLES;
+        }
+        long proportionalSamples = (long) Math.ceil((double) NUM_SAMPLES * changes.numDocs() / tableNumDocs);
+        return (int) Math.max(MIN_SAMPLES_PER_INDEX, proportionalSamples);
+    }
+
+    @VisibleForTesting
+    static Map<String, IndexChanges> getIndexChanges(Iterable<IndexService> indexServices, Collection<String> indices) {
+        Set<String> indicesToCheck = new HashSet<>(indices);
+        Map<String, IndexChanges> changesByIndex = new HashMap<>();
+        for (IndexService indexService : indexServices) {
+            Index index = indexService.index();
+            if (!indicesToCheck.contains(index.getName())) {
+                continue;
+            }
+            for (IndexShard indexShard : indexService) {
+                if (!indexShard.routingEntry().primary()) {
+                    continue;
+                }
+                try {
+                    IndexChanges changes = new IndexChanges(
+                        index.getUUID(),
+                        indexShard.docStats().getCount(),
+                        indexShard.seqNoStats().getMaxSeqNo() + 1
+                    );
+                    changesByIndex.merge(index.getName(), changes, IndexChanges::add);
+                } catch (IllegalIndexShardStateException | AlreadyClosedException ignored) {
+                    // Shard isn't ready, the previous statistics of the index are kept
+                }
+            }
+        }
+        return changesByIndex;
+    }
+
+    private CompletableFuture<Map<String, IndexChanges>> fetchIndexChanges(List<String> indices) {
+        FutureActionListener<FetchIndexChangesResponse, Map<String, IndexChanges>> listener =
+            new FutureActionListener<>(FetchIndexChangesResponse::changesByIndex);
+        DiscoveryNodes discoveryNodes = clusterService.state().nodes();
+        var multiListener = new MultiActionListener<>(
+            discoveryNodes.getSize(),
+            Collectors.reducing(
+                new FetchIndexChangesResponse(Map.of()),
+                FetchIndexChangesResponse::merge
+            ),
+            listener
+        );
+        var responseHandler = new ActionListenerResponseHandler<>(
+            multiListener,
+            FetchIndexChangesResponse::new,
+            ThreadPool.Names.SAME
+        );
+        FetchIndexChangesRequest request = new FetchIndexChangesRequest(indices);
+        for (DiscoveryNode node : discoveryNodes) {
+            transportService.sendRequest(node, FETCH_INDEX_CHANGES, request, responseHandler);
+        }
+        return listener;
     }
 
     private CompletableFuture<AcknowledgedResponse> publishTableStats(Map<RelationName, Stats> newTableStats) {
@@ -223,14 +416,17 @@ public final class TransportAnalyzeAction {
     }
 
     @SuppressWarnings("rawtypes")
-    private CompletableFuture<Samples> fetchSamples(RelationName relationName, List<Reference> columns) {
+    private CompletableFuture<Samples> fetchSamples(RelationName relationName,
+                                                    List<Reference> columns,
+                                                    int maxSamples,
+                                                    List<String> indices) {
         FutureActionListener<FetchSampleResponse, Samples> listener = new FutureActionListener<>(FetchSampleResponse::samples);
         DiscoveryNodes discoveryNodes = clusterService.state().nodes();
         MultiActionListener<FetchSampleResponse, ?, FetchSampleResponse> multiListener = new MultiActionListener<>(
             discoveryNodes.getSize(),
             Collectors.reducing(
                 new FetchSampleResponse(Samples.EMPTY),
-                (FetchSampleResponse s1, FetchSampleResponse s2) -> FetchSampleResponse.merge(TransportAnalyzeAction.NUM_SAMPLES, s1, s2)),
+                (FetchSampleResponse s1, FetchSampleResponse s2) -> FetchSampleResponse.merge(maxSamples, s1, s2)),
             listener
         );
         List<Streamer> streamers = Arrays.asList(Symbols.streamerArray(columns));
@@ -243,7 +439,7 @@ public final class TransportAnalyzeAction {
             transportService.sendRequest(
                 node,
                 FETCH_SAMPLES,
-                new FetchSampleRequest(relationName, columns, TransportAnalyzeAction.NUM_SAMPLES),
+                new FetchSampleRequest(relationName, columns, maxSamples, indices),
                 responseHandler
             );
         }
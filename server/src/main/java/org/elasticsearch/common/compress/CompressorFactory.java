@@ -27,6 +27,7 @@ import org.jetbrains.annotations.Nullable;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 
 import com.fasterxml.jackson.dataformat.smile.SmileConstants;
 
@@ -82,6 +83,9 @@ public class CompressorFactory {
                 && bytes[offset + 2] == SmileConstants.HEADER_BYTE_3) {
             return XContentType.SMILE;
         }
+        if (CompactXContent.isCompact(bytes, offset, length)) {
+            return XContentType.COMPACT;
+        }
         if (length > 2 && first == '-' && bytes[offset + 1] == '-' && bytes[offset + 2] == '-') {
             return XContentType.YAML;
         }
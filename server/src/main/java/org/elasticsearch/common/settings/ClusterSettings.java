@@ -99,12 +99,14 @@ import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportSettings;
 
+import io.crate.action.sql.PlanCache;
 import io.crate.action.sql.Sessions;
 import io.crate.auth.AuthSettings;
 import io.crate.blob.v2.BlobIndicesService;
 import io.crate.cluster.gracefulstop.DecommissioningService;
 import io.crate.execution.engine.collect.stats.JobsLogService;
 import io.crate.execution.engine.indexing.ShardingUpsertExecutor;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.execution.jobs.NodeLimits;
 import io.crate.legacy.LegacySettings;
 import io.crate.memory.MemoryManagerFactory;
@@ -414,8 +416,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
         JobsLogService.STATS_JOBS_LOG_PERSIST_FILTER,
         JobsLogService.STATS_OPERATIONS_LOG_SIZE_SETTING,
         JobsLogService.STATS_OPERATIONS_LOG_EXPIRATION_SETTING,
+        JobsLogService.STATS_STATEMENT_METRICS_SIZE_SETTING,
         TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING,
         TableStatsService.STATS_SERVICE_THROTTLING_SETTING,
+        TableStatsService.STATS_SERVICE_CHANGE_THRESHOLD_SETTING,
         ShardingUpsertExecutor.BULK_REQUEST_TIMEOUT_SETTING,
         DecommissioningService.DECOMMISSION_INTERNAL_SETTING_GROUP,
         DecommissioningService.GRACEFUL_STOP_MIN_AVAILABILITY_SETTING,
@@ -426,10 +430,13 @@ public final class ClusterSettings extends AbstractScopedSettings {
         UDCService.UDC_INITIAL_DELAY_SETTING,
         UDCService.UDC_INTERVAL_SETTING,
         MemoryManagerFactory.MEMORY_ALLOCATION_TYPE,
+        SpillService.SPILL_ENABLED_SETTING,
+        SpillService.SPILL_BREAKER_THRESHOLD_SETTING,
         AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP,
         Sessions.NODE_READ_ONLY_SETTING,
         Sessions.STATEMENT_TIMEOUT,
         Sessions.MEMORY_LIMIT,
+        PlanCache.PLAN_CACHE_SIZE,
         PostgresNetty.PSQL_ENABLED_SETTING,
         PostgresNetty.PSQL_PORT_SETTING,
         AuthSettings.AUTH_HOST_BASED_ENABLED_SETTING,
@@ -446,6 +453,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SslSettings.SSL_RESOURCE_POLL_INTERVAL,
         BlobIndicesService.SETTING_BLOBS_PATH,
         LogicalReplicationSettings.REPLICATION_CHANGE_BATCH_SIZE,
+        LogicalReplicationSettings.REPLICATION_MAX_CONCURRENT_READS,
         LogicalReplicationSettings.REPLICATION_READ_POLL_DURATION,
         LogicalReplicationSettings.REPLICATION_RECOVERY_CHUNK_SIZE,
         LogicalReplicationSettings.REPLICATION_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS,
@@ -68,6 +68,34 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING =
         Setting.boolSetting("index.warmer.enabled", true, Property.Dynamic, Property.IndexScope, Property.Deprecated);
 
+    /**
+     * Format used to store the {@code _source} of new documents.
+     * Readers detect the format per document, so the setting is dynamic and changing it doesn't require
+     * re-writing existing documents.
+     */
+    public static final Setting<String> INDEX_SOURCE_FORMAT_SETTING = new Setting<>("index.source_format", "json", s -> {
+        switch (s) {
+            case "json":
+            case "compact":
+                return s;
+            default:
+                throw new IllegalArgumentException(
+                    "unknown value for [index.source_format] must be one of [json, compact] but was: " + s);
+        }
+    }, DataTypes.STRING, Property.Dynamic, Property.IndexScope);
+
+    /**
+     * Nodes before 5.6.0 can't parse documents stored in the compact format,
+     * it must only be used once all nodes have been upgraded.
+     */
+    public static void validateSourceFormat(Settings settings, Version minNodeVersion) {
+        if ("compact".equals(settings.get(INDEX_SOURCE_FORMAT_SETTING.getKey())) && minNodeVersion.before(Version.V_5_6_0)) {
+            throw new IllegalArgumentException(
+                "Setting [source_format] to [compact] is only supported when all nodes in the cluster are running " +
+                "at least version 5.6.0");
+        }
+    }
+
     public static final Setting<String> INDEX_CHECK_ON_STARTUP = new Setting<>("index.shard.check_on_startup", "false", (s) -> {
         switch (s) {
             case "false":
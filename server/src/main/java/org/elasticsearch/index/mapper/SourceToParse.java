@@ -21,9 +21,11 @@ package org.elasticsearch.index.mapper;
 
 import java.util.Objects;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 
 public class SourceToParse {
 
@@ -40,8 +42,13 @@ public class SourceToParse {
         this.id = Objects.requireNonNull(id);
         // we always convert back to byte array, since we store it and Field only supports bytes..
         // so, we might as well do it here, and improve the performance of working with direct byte arrays
-        this.source = new BytesArray(Objects.requireNonNull(source).toBytesRef());
-        this.xContentType = Objects.requireNonNull(xContentType);
+        BytesRef bytes = Objects.requireNonNull(source).toBytesRef();
+        this.source = new BytesArray(bytes);
+        // The format of the source depends on the table setting at the time the document was written.
+        // Translog and replica operations don't carry that information, so compact sources are detected here.
+        this.xContentType = CompactXContent.isCompact(bytes.bytes, bytes.offset, bytes.length)
+            ? XContentType.COMPACT
+            : Objects.requireNonNull(xContentType);
     }
 
     public BytesReference source() {
@@ -0,0 +1,232 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.action.sql;
+
+import static io.crate.testing.Asserts.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.data.Row;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.settings.CoordinatorSessionSettings;
+import io.crate.metadata.settings.session.SessionSettingRegistry;
+import io.crate.planner.Plan;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.sql.parser.SqlParser;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataType;
+import io.crate.user.StubUserManager;
+import io.crate.user.User;
+
+public class PlanCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private static AnalyzedStatement parse(Session session, String stmt) {
+        session.parse("S1", stmt, List.of());
+        return session.preparedStatements.get("S1").analyzedStatement();
+    }
+
+    @Test
+    public void test_sessions_share_analyzed_statement_of_same_query() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int primary key, name text)")
+            .build();
+        try (Session session1 = e.createSession();
+             Session session2 = e.createSession()) {
+            AnalyzedStatement stmt1 = parse(session1, "select name from t1 where id = ?");
+            AnalyzedStatement stmt2 = parse(session2, "select name from t1 where id = ?");
+            assertThat(stmt2).isSameAs(stmt1);
+            assertThat(session2.preparedStatements.get("S1").cachedStatement()).isNotNull();
+
+            AnalyzedStatement otherStmt = parse(session2, "select name from t1 where id = 1");
+            assertThat(otherStmt).isNotSameAs(stmt1);
+        }
+    }
+
+    @Test
+    public void test_quick_exec_shares_cached_statements_with_parse() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int primary key, name text)")
+            .build();
+        PlanCache planCache = e.sqlOperations.planCache();
+        try (Session session1 = e.createSession();
+             Session session2 = e.createSession()) {
+            String stmt = "select name from t1 where id = 1";
+            session1.quickExec(stmt, new BaseResultReceiver(), Row.EMPTY);
+            assertThat(planCache.size()).isEqualTo(1L);
+
+            AnalyzedStatement analyzedStatement = parse(session2, stmt);
+            PlanCache.CachedStatement cachedStatement = session2.preparedStatements.get("S1").cachedStatement();
+            assertThat(cachedStatement).isNotNull();
+            Plan plan = planCache.plan(cachedStatement, () -> {
+                throw new AssertionError("quickExec must have cached the plan");
+            });
+
+            session1.quickExec(stmt, new BaseResultReceiver(), Row.EMPTY);
+            assertThat(parse(session2, stmt)).isSameAs(analyzedStatement);
+            assertThat(planCache.plan(cachedStatement, () -> null)).isSameAs(plan);
+            assertThat(planCache.size()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void test_session_settings_and_user_are_part_of_the_key() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int)")
+            .addTable("create table custom.t1 (id int)")
+            .build();
+        try (Session session1 = e.createSession();
+             Session session2 = e.createSession()) {
+            AnalyzedStatement stmt1 = parse(session1, "select id from t1");
+            session2.sessionSettings().setSearchPath("custom");
+            AnalyzedStatement stmt2 = parse(session2, "select id from t1");
+            assertThat(stmt2).isNotSameAs(stmt1);
+            assertThat(stmt2.outputs().get(0)).isReference().hasName("id");
+            assertThat(parse(session2, "select id from t1")).isSameAs(stmt2);
+
+            session2.sessionSettings().setSearchPath("doc");
+            session2.sessionSettings().setSessionUser(User.of("arthur"));
+            assertThat(parse(session2, "select id from t1")).isNotSameAs(stmt1);
+        }
+    }
+
+    @Test
+    public void test_schema_changes_invalidate_cached_statements() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int)")
+            .build();
+        try (Session session = e.createSession()) {
+            AnalyzedStatement stmt1 = parse(session, "select * from t1");
+            assertThat(parse(session, "select * from t1")).isSameAs(stmt1);
+
+            // Publishes a new cluster state with changed metadata
+            SQLExecutor.builder(clusterService)
+                .addTable("create table doc.t2 (id int)")
+                .build();
+            assertThat(parse(session, "select * from t1")).isNotSameAs(stmt1);
+        }
+    }
+
+    @Test
+    public void test_statements_with_non_deterministic_functions_or_side_effects_are_not_cached() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int, ts timestamp with time zone)")
+            .build();
+        for (String stmt : List.of(
+                "select random() from t1",
+                "select id from t1 where ts < now()",
+                "select id from t1 where id = (select random() * 10)",
+                "insert into t1 (id, ts) values (1, current_timestamp)",
+                "create table t3 (x int)",
+                "set search_path to 'foo'")) {
+            var analyzedStatement = e.analyze(stmt);
+            assertThat(PlanCache.isCacheable(SqlParser.createStatement(stmt), analyzedStatement))
+                .as(stmt)
+                .isFalse();
+        }
+        for (String stmt : List.of(
+                "select id from t1 where id = ?",
+                "select id from t1 where id in (select id from t1 where ts > '2023-01-01')",
+                "insert into t1 (id) values (?)",
+                "update t1 set id = ? where id = ?",
+                "delete from t1 where id = ?")) {
+            var analyzedStatement = e.analyze(stmt);
+            assertThat(PlanCache.isCacheable(SqlParser.createStatement(stmt), analyzedStatement))
+                .as(stmt)
+                .isTrue();
+        }
+    }
+
+    @Test
+    public void test_plans_are_cached_until_table_stats_change() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table doc.t1 (id int)")
+            .build();
+        TableStats tableStats = new TableStats();
+        PlanCache planCache = new PlanCache(
+            Settings.EMPTY,
+            clusterService,
+            e.schemas(),
+            new SessionSettingRegistry(Set.of()),
+            new StubUserManager(),
+            tableStats
+        );
+        String stmt = "select id from t1 where id = ?";
+        CoordinatorSessionSettings sessionSettings = CoordinatorSessionSettings.systemDefaults();
+        PlanCache.Key key = planCache.key(stmt, List.of(), sessionSettings);
+        assertThat(planCache.get(key, sessionSettings)).isNull();
+        PlanCache.CachedStatement cachedStatement = planCache.put(
+            key,
+            SqlParser.createStatement(stmt),
+            e.analyze(stmt),
+            new DataType<?>[0]
+        );
+        assertThat(planCache.get(key, sessionSettings)).isSameAs(cachedStatement);
+        assertThat(planCache.size()).isEqualTo(1L);
+
+        AtomicInteger numPlanned = new AtomicInteger();
+        LogicalPlan logicalPlan = e.logicalPlan(stmt);
+        Plan plan1 = planCache.plan(cachedStatement, () -> {
+            numPlanned.incrementAndGet();
+            return logicalPlan;
+        });
+        Plan plan2 = planCache.plan(cachedStatement, () -> {
+            numPlanned.incrementAndGet();
+            return logicalPlan;
+        });
+        assertThat(plan2).isSameAs(plan1);
+        assertThat(numPlanned.get()).isEqualTo(1);
+
+        tableStats.updateTableStats(Map.of(new RelationName("doc", "t1"), new Stats(10, 100, Map.of())));
+        planCache.plan(cachedStatement, () -> {
+            numPlanned.incrementAndGet();
+            return logicalPlan;
+        });
+        assertThat(numPlanned.get()).isEqualTo(2);
+
+        planCache.invalidateAll();
+        assertThat(planCache.size()).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_cache_can_be_disabled() throws Exception {
+        PlanCache planCache = new PlanCache(
+            Settings.builder().put(PlanCache.PLAN_CACHE_SIZE.getKey(), 0).build(),
+            clusterService,
+            SQLExecutor.builder(clusterService).build().schemas(),
+            new SessionSettingRegistry(Set.of()),
+            new StubUserManager(),
+            new TableStats()
+        );
+        assertThat(planCache.key("select 1", List.of(), CoordinatorSessionSettings.systemDefaults())).isNull();
+    }
+}
@@ -31,6 +31,7 @@ import java.util.stream.IntStream;
 import org.junit.Test;
 
 import io.crate.data.Row;
+import io.crate.data.Row1;
 import io.crate.data.testing.BatchSimulatingIterator;
 import io.crate.data.testing.FailingBatchIterator;
 import io.crate.data.testing.TestingBatchIterators;
@@ -77,4 +78,21 @@ public class RowConsumerToResultReceiverTest {
         consumer.accept(FailingBatchIterator.failOnAllLoaded(), null);
         assertThat(resultReceiver.completionFuture().isCompletedExceptionally()).isTrue();
     }
+
+    @Test
+    public void test_sum_of_affected_rows_is_passed_on_completion_for_row_count_results() throws Exception {
+        BaseResultReceiver resultReceiver = new BaseResultReceiver();
+        long[] completedRows = new long[] { -1L };
+        RowConsumerToResultReceiver consumer = new RowConsumerToResultReceiver(
+            resultReceiver,
+            0,
+            true,
+            (t, rows) -> completedRows[0] = rows
+        );
+
+        consumer.accept(TestingBatchIterators.ofValues(List.of(3L, Row1.ERROR, 4L)), null);
+        resultReceiver.completionFuture().get(10, TimeUnit.SECONDS);
+
+        assertThat(completedRows[0]).isEqualTo(7L);
+    }
 }
@@ -75,7 +75,8 @@ public class SessionsTest extends CrateDummyClusterServiceUnitTest {
             new JobsLogs(() -> false),
             Settings.EMPTY,
             clusterService,
-            new TableStats()
+            new TableStats(),
+            mock(PlanCache.class)
         );
 
         KeyData keyData = new KeyData(10, 20);
@@ -145,7 +146,8 @@ public class SessionsTest extends CrateDummyClusterServiceUnitTest {
                 .put("statement_timeout", "30s")
                 .build(),
             clusterService,
-            new TableStats()
+            new TableStats(),
+            mock(PlanCache.class)
         );
         Session session = sessions.newSession("doc", User.CRATE_USER);
         assertThat(session.sessionSettings().statementTimeout())
@@ -161,7 +163,8 @@ public class SessionsTest extends CrateDummyClusterServiceUnitTest {
             new JobsLogs(() -> false),
             Settings.EMPTY,
             clusterService,
-            new TableStats()
+            new TableStats(),
+            mock(PlanCache.class)
         );
         return sessions;
     }
@@ -207,6 +207,21 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(analysis.inputFormat()).isEqualTo(FileUriCollectPhase.InputFormat.JSON);
     }
 
+    @Test
+    public void test_parquet_format_is_inferred_from_file_extension_if_format_is_not_set() {
+        BoundCopyFrom analysis = analyze("COPY users FROM '/some/distant/file.parquet'");
+        assertThat(analysis.inputFormat()).isEqualTo(FileUriCollectPhase.InputFormat.PARQUET);
+
+        analysis = analyze("COPY users FROM ['/some/file.parquet', '/some/other/file.json']");
+        assertThat(analysis.inputFormat()).isEqualTo(FileUriCollectPhase.InputFormat.JSON);
+
+        analysis = analyze("COPY users FROM '/some/distant/file.parquet' WITH (format='json')");
+        assertThat(analysis.inputFormat()).isEqualTo(FileUriCollectPhase.InputFormat.JSON);
+
+        analysis = analyze("COPY users FROM '/some/distant/file.parquet' WITH (format='csv')");
+        assertThat(analysis.inputFormat()).isEqualTo(FileUriCollectPhase.InputFormat.CSV);
+    }
+
     @Test
     public void testCopyToFile() throws Exception {
         assertThatThrownBy(() -> analyze("COPY users TO '/blah.txt'"))
@@ -401,4 +416,39 @@ public class CopyAnalyzerTest extends CrateDummyClusterServiceUnitTest {
         BoundCopyTo analysis = analyze("COPY doc.generated_copy (i) TO DIRECTORY '/dummy'");
         assertThat(analysis.outputNames()).containsExactly("i");
     }
+
+    @Test
+    public void test_copy_from_rejects_stdin_scheme_in_uri() throws Exception {
+        assertThatThrownBy(() -> analyze("COPY users FROM 'stdin:///' || gen_random_text_uuid()"))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("The `stdin` scheme is reserved for COPY FROM STDIN and can't be used as URI");
+        assertThatThrownBy(() -> analyze("COPY users FROM ?", List.of("/tmp/file.json", "STDIN:///foo")))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("The `stdin` scheme is reserved for COPY FROM STDIN and can't be used as URI");
+    }
+
+    @Test
+    public void test_copy_to_stdout_is_analyzed_as_query_of_the_selected_columns() throws Exception {
+        AnalyzedCopyToStdout copyTo = e.analyze("COPY users (id, name) WHERE id > 1 TO STDOUT");
+        assertThat(copyTo.columnNames()).containsExactly("id", "name");
+        assertThat(copyTo.asArray()).isTrue();
+        assertThat(copyTo.outputs()).satisfiesExactly(
+            x -> assertThat(x).isReference().hasName("id"),
+            x -> assertThat(x).isReference().hasName("name"));
+
+        copyTo = e.analyze("COPY users (id) TO STDOUT WITH (format = 'json_object')");
+        assertThat(copyTo.asArray()).isFalse();
+    }
+
+    @Test
+    public void test_copy_to_stdout_without_columns_selects_the_documents() throws Exception {
+        AnalyzedCopyToStdout copyTo = e.analyze("COPY users TO STDOUT");
+        assertThat(copyTo.columnNames()).isNull();
+        assertThat(copyTo.asArray()).isFalse();
+        assertThat(copyTo.outputs()).satisfiesExactly(x -> assertThat(x).isReference().hasName("_doc"));
+
+        assertThatThrownBy(() -> e.analyze("COPY users TO STDOUT WITH (format = 'json_array')"))
+            .isExactlyInstanceOf(UnsupportedOperationException.class)
+            .hasMessage("Output format not supported without specifying columns.");
+    }
 }
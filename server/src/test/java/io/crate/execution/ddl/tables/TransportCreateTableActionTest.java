@@ -0,0 +1,58 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.ddl.tables;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.elasticsearch.test.ESTestCase.buildNewFakeTransportAddress;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.junit.Test;
+
+public class TransportCreateTableActionTest {
+
+    @Test
+    public void test_compact_source_format_requires_all_nodes_on_5_6() throws Exception {
+        Settings settings = Settings.builder()
+            .put(IndexSettings.INDEX_SOURCE_FORMAT_SETTING.getKey(), "compact")
+            .build();
+        DiscoveryNode currentNode = new DiscoveryNode("n1", buildNewFakeTransportAddress(), Version.CURRENT);
+        ClusterState state = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .nodes(DiscoveryNodes.builder().add(currentNode))
+            .build();
+        TransportCreateTableAction.validateSettings(settings, state);
+
+        ClusterState mixedState = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .nodes(DiscoveryNodes.builder()
+                .add(currentNode)
+                .add(new DiscoveryNode("n2", buildNewFakeTransportAddress(), Version.V_5_5_0)))
+            .build();
+        assertThatThrownBy(() -> TransportCreateTableAction.validateSettings(settings, mixedState))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Setting [source_format] to [compact] is only supported when all nodes in the cluster " +
+                        "are running at least version 5.6.0");
+    }
+}
@@ -84,7 +84,8 @@ public class WindowAggProjectionSerialisationTest {
         var expectedWindowAggProjection = new WindowAggProjection(
             partitionByOneWindowDef,
             List.of(firstWindowFunction, secondWindowFunction),
-            List.of(standaloneInput));
+            List.of(standaloneInput),
+            true);
 
         var output = new BytesStreamOutput();
         expectedWindowAggProjection.writeTo(output);
@@ -95,6 +96,7 @@ public class WindowAggProjectionSerialisationTest {
         assertThat(
             actualWindowAggProjection.outputs(),
             contains(standaloneInput, firstWindowFunction, secondWindowFunction));
+        assertThat(actualWindowAggProjection.sortedInput(), is(true));
         assertThat(actualWindowAggProjection, is(expectedWindowAggProjection));
     }
 
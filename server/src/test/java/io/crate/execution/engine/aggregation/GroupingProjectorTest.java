@@ -0,0 +1,162 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.aggregation;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static io.crate.testing.TestingHelpers.createNodeContext;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Bucket;
+import io.crate.data.CollectionBucket;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.testing.TestingRowConsumer;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.execution.engine.spill.SpillService;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Symbol;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.NodeContext;
+import io.crate.types.DataTypes;
+
+public class GroupingProjectorTest extends ESTestCase {
+
+    private static final int NUM_GROUPS = 500;
+    private static final int NUM_ROWS = 5_000;
+
+    private AggregationContext countStar;
+    private Path spillPath;
+
+    @Before
+    public void prepare() {
+        NodeContext nodeCtx = createNodeContext();
+        CountAggregation aggregation = (CountAggregation) nodeCtx.functions().getQualified(
+            CountAggregation.COUNT_STAR_SIGNATURE,
+            Collections.emptyList(),
+            CountAggregation.COUNT_STAR_SIGNATURE.getReturnType().createType()
+        );
+        countStar = new AggregationContext(aggregation, () -> true, List.of());
+        spillPath = createTempDir();
+    }
+
+    private Bucket groupAndCount(int numKeys, long operationMemoryLimitInBytes) throws Exception {
+        List<Symbol> keys = new ArrayList<>(numKeys);
+        List<Input<?>> keyInputs = new ArrayList<>(numKeys);
+        CollectExpression<Row, ?>[] expressions = new CollectExpression[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            RowCollectExpression expression = new RowCollectExpression(i);
+            keys.add(new InputColumn(i, DataTypes.INTEGER));
+            keyInputs.add(expression);
+            expressions[i] = expression;
+        }
+        List<Object[]> rows = new ArrayList<>(NUM_ROWS);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            Object[] cells = new Object[numKeys];
+            for (int k = 0; k < numKeys; k++) {
+                cells[k] = (i % NUM_GROUPS) * (k + 1);
+            }
+            rows.add(cells);
+        }
+        GroupingProjector projector = new GroupingProjector(
+            keys,
+            keyInputs,
+            expressions,
+            AggregateMode.ITER_FINAL,
+            new AggregationContext[] { countStar },
+            RamAccounting.NO_ACCOUNTING,
+            new OnHeapMemoryManager(bytes -> {}),
+            Version.CURRENT,
+            Version.CURRENT,
+            new SpillService(spillPath, Settings.EMPTY),
+            new NoopCircuitBreaker("query"),
+            operationMemoryLimitInBytes
+        );
+        BatchIterator<Row> batchIterator = projector.apply(
+            InMemoryBatchIterator.of(new CollectionBucket(rows), SENTINEL, true));
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(batchIterator, null);
+        return consumer.getBucket();
+    }
+
+    private static void assertGroupCounts(Bucket result, int numKeys) {
+        assertThat(result).hasSize(NUM_GROUPS);
+        for (Row row : result) {
+            assertThat(row.numColumns()).isEqualTo(numKeys + 1);
+            int group = (int) row.get(0);
+            for (int k = 1; k < numKeys; k++) {
+                assertThat(row.get(k)).isEqualTo(group * (k + 1));
+            }
+            assertThat(row.get(numKeys)).isEqualTo((long) NUM_ROWS / NUM_GROUPS);
+        }
+    }
+
+    private void assertNoSpillFilesLeft() throws IOException {
+        if (Files.notExists(spillPath)) {
+            return;
+        }
+        try (var files = Files.list(spillPath)) {
+            assertThat(files.filter(f -> f.getFileName().toString().startsWith("spill-")).toList()).isEmpty();
+        }
+    }
+
+    @Test
+    public void test_single_key_groups_are_spilled_and_merged_under_memory_pressure() throws Exception {
+        Bucket result = groupAndCount(1, 10_000);
+        assertGroupCounts(result, 1);
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_packed_keys_groups_are_spilled_and_merged_under_memory_pressure() throws Exception {
+        Bucket result = groupAndCount(2, 10_000);
+        assertGroupCounts(result, 2);
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_groups_stay_in_memory_without_memory_pressure() throws Exception {
+        Bucket result = groupAndCount(1, 0);
+        assertGroupCounts(result, 1);
+        assertNoSpillFilesLeft();
+    }
+}
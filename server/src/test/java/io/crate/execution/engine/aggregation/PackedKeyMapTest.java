@@ -0,0 +1,107 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.data.Input;
+import io.crate.types.DataTypes;
+
+public class PackedKeyMapTest extends ESTestCase {
+
+    private static List<Input<?>> inputs(Object... values) {
+        List<Input<?>> inputs = new ArrayList<>(values.length);
+        for (Object value : values) {
+            inputs.add(() -> value);
+        }
+        return inputs;
+    }
+
+    @Test
+    public void test_key_packer_only_supports_integral_types_up_to_two_longs() {
+        assertThat(KeyPacker.of(List.of(DataTypes.INTEGER, DataTypes.LONG))).isNotNull();
+        assertThat(KeyPacker.of(List.of(DataTypes.LONG, DataTypes.TIMESTAMPZ))).isNotNull();
+        assertThat(KeyPacker.of(List.of(DataTypes.LONG, DataTypes.LONG, DataTypes.BYTE))).isNull();
+        assertThat(KeyPacker.of(List.of(DataTypes.INTEGER, DataTypes.STRING))).isNull();
+        assertThat(KeyPacker.of(List.of(DataTypes.INTEGER, DataTypes.DOUBLE))).isNull();
+    }
+
+    @Test
+    public void test_pack_and_unpack_round_trips_values() {
+        KeyPacker packer = KeyPacker.of(List.of(DataTypes.SHORT, DataTypes.LONG, DataTypes.INTEGER, DataTypes.BYTE));
+        assertThat(packer.numLongs()).isEqualTo(2);
+        long[] packed = new long[packer.numLongs()];
+        assertThat(packer.pack(inputs((short) -3, Long.MIN_VALUE, -1, (byte) 7), packed)).isTrue();
+        assertThat(packer.unpack(packed, 0)).isEqualTo((short) -3);
+        assertThat(packer.unpack(packed, 1)).isEqualTo(Long.MIN_VALUE);
+        assertThat(packer.unpack(packed, 2)).isEqualTo(-1);
+        assertThat(packer.unpack(packed, 3)).isEqualTo((byte) 7);
+
+        assertThat(packer.pack(inputs((short) 1, null, 1, (byte) 1), packed)).isFalse();
+    }
+
+    @Test
+    public void test_map_groups_packed_and_unpacked_keys() {
+        KeyPacker packer = KeyPacker.of(List.of(DataTypes.INTEGER, DataTypes.INTEGER));
+        PackedKeyMap<Object[]> map = new PackedKeyMap<>(packer.numLongs());
+        Map<List<Integer>, Integer> expected = new HashMap<>();
+        PackedKeyMap.Key key = new PackedKeyMap.Key(packer.numLongs());
+        for (int i = 0; i < 1000; i++) {
+            Integer a = randomBoolean() ? null : randomIntBetween(-20, 20);
+            int b = randomIntBetween(-20, 20);
+            Object mapKey = packer.pack(inputs(a, b), key.longs) ? key : Arrays.asList(a, b);
+            Object[] counter = map.get(mapKey);
+            if (counter == null) {
+                map.put(mapKey, new Object[] { 1 });
+            } else {
+                counter[0] = (int) counter[0] + 1;
+            }
+            expected.merge(Arrays.asList(a, b), 1, Integer::sum);
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        Map<List<Object>, Object> actual = new HashMap<>();
+        for (var entry : map.entrySet()) {
+            List<Object> unpacked;
+            if (entry.getKey() instanceof PackedKeyMap.Key packedKey) {
+                unpacked = Arrays.asList(packer.unpack(packedKey.longs, 0), packer.unpack(packedKey.longs, 1));
+            } else {
+                unpacked = (List<Object>) entry.getKey();
+            }
+            actual.put(unpacked, entry.getValue()[0]);
+        }
+        assertThat(actual).isEqualTo(expected);
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.entrySet()).isEmpty();
+    }
+}
@@ -63,4 +63,23 @@ public class ArrayAggTest extends AggregationTestCase {
         ).boundSignature().returnType();
         assertThat(returnType, Matchers.is(DataTypes.BIGINT_ARRAY));
     }
+
+    @Test
+    public void test_array_agg_on_text_column_uses_doc_values() throws Exception {
+        assertHasDocValueAggregator(ArrayAgg.NAME, List.of(DataTypes.STRING));
+        var result = executeAggregation(
+            ArrayAgg.SIGNATURE,
+            List.of(DataTypes.STRING),
+            new ArrayType<>(DataTypes.STRING),
+            new Object[][]{
+                new Object[]{"a"},
+                new Object[]{null},
+                new Object[]{"b"},
+                new Object[]{"a"}
+            },
+            false,
+            List.of()
+        );
+        assertThat((List<Object>) result, Matchers.contains("a", null, "b", "a"));
+    }
 }
@@ -146,4 +146,27 @@ public class CollectSetAggregationTest extends AggregationTestCase {
                    (List<Object>) executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {"Ruben"}, {null}}),
                    is(containsInAnyOrder("Youri", "Ruben")));
     }
+
+    @Test
+    public void test_function_implements_doc_values_aggregator_for_supported_types() {
+        for (var dataType : List.of(
+                DataTypes.BYTE,
+                DataTypes.SHORT,
+                DataTypes.INTEGER,
+                DataTypes.LONG,
+                DataTypes.FLOAT,
+                DataTypes.DOUBLE,
+                DataTypes.BOOLEAN,
+                DataTypes.TIMESTAMPZ,
+                DataTypes.STRING,
+                DataTypes.IP)) {
+            assertHasDocValueAggregator(CollectSetAggregation.NAME, List.of(dataType));
+        }
+    }
+
+    @Test
+    public void test_ip() throws Exception {
+        assertThat((List<Object>) executeAggregation(DataTypes.IP, new Object[][]{{"127.0.0.1"}, {"10.0.0.1"}, {"127.0.0.1"}}),
+                   is(containsInAnyOrder("127.0.0.1", "10.0.0.1")));
+    }
 }
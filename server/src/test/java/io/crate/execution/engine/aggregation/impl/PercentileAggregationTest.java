@@ -298,4 +298,35 @@ public class PercentileAggregationTest extends AggregationTestCase {
         impl.iterate(ramAccounting, memoryManager, state, Literal.of(20L), fractions);
         assertThat(ramAccounting.totalBytes()).isEqualTo(104L);
     }
+
+    @Test
+    public void test_percentile_with_literal_fraction_uses_doc_values() throws Exception {
+        for (DataType<?> valueType : DataTypes.NUMERIC_PRIMITIVE_TYPES) {
+            assertThat(
+                singleArgPercentile.getDocValueAggregator(null, toReference(List.of(valueType)), null, List.of()),
+                nullValue());
+            assertThat(
+                singleArgPercentile.getDocValueAggregator(null, toReference(List.of(valueType)), null, List.of(Literal.of(0.5))),
+                notNullValue());
+
+            Object[][] rows = new Object[10][];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new Object[]{ valueType.sanitizeValue(i), 0.5 };
+            }
+            Object result = executeAggregation(
+                Signature.aggregate(
+                    PercentileAggregation.NAME,
+                    valueType.getTypeSignature(),
+                    DataTypes.DOUBLE.getTypeSignature(),
+                    DataTypes.DOUBLE.getTypeSignature()
+                ),
+                List.of(valueType, DataTypes.DOUBLE),
+                DataTypes.DOUBLE,
+                rows,
+                false,
+                List.of(Literal.of(0.5))
+            );
+            assertThat(result, is(4.5));
+        }
+    }
 }
@@ -33,6 +33,7 @@ import org.junit.Test;
 import io.crate.expression.symbol.Literal;
 import io.crate.metadata.functions.BoundSignature;
 import io.crate.operation.aggregation.AggregationTestCase;
+import io.crate.types.DataTypes;
 
 public class StringAggTest extends AggregationTestCase {
 
@@ -91,4 +92,22 @@ public class StringAggTest extends AggregationTestCase {
 
         assertThat(result, is("a;b,c;d"));
     }
+
+    @Test
+    public void test_string_agg_with_literal_delimiter_uses_doc_values() throws Exception {
+        var stringAgg = new StringAgg(StringAgg.SIGNATURE, BoundSignature.sameAsUnbound(StringAgg.SIGNATURE));
+        var references = toReference(List.of(DataTypes.STRING));
+        assertThat(stringAgg.getDocValueAggregator(null, references, null, List.of()), Matchers.nullValue());
+        assertThat(stringAgg.getDocValueAggregator(null, references, null, List.of(Literal.of(","))), Matchers.notNullValue());
+
+        var result = executeAggregation(
+            StringAgg.SIGNATURE, new Object[][]{
+                new Object[]{"a", ","},
+                new Object[]{null, ","},
+                new Object[]{"b", ","},
+                new Object[]{"c", ","},
+            },
+            List.of(Literal.of(",")));
+        assertThat(result, is("a,b,c"));
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.aggregation.impl.templates;
+
+import static io.crate.operation.aggregation.AggregationTestCase.toReference;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.data.breaker.RamAccounting;
+import io.crate.exceptions.ArrayViaDocValuesUnsupportedException;
+import io.crate.metadata.Reference;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+public class ObjectDocValueAggregatorTest extends ESTestCase {
+
+    private static ObjectDocValueAggregator<List<Object>> collectValues(Reference reference) {
+        ObjectDocValueAggregator<List<Object>> aggregator = ObjectDocValueAggregator.of(
+            reference,
+            (ramAccounting, memoryManager, minNodeVersion) -> new ArrayList<>(),
+            (ramAccounting, state, value) -> state.add(value),
+            true
+        );
+        assertThat(aggregator).isNotNull();
+        return aggregator;
+    }
+
+    private static List<Object> aggregate(DataType<?> type, Document... docs) throws Exception {
+        Reference reference = toReference(List.of(type)).get(0);
+        ObjectDocValueAggregator<List<Object>> aggregator = collectValues(reference);
+        List<Object> state = aggregator.initialState(RamAccounting.NO_ACCOUNTING, null, Version.CURRENT);
+        try (var writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig())) {
+            for (Document doc : docs) {
+                writer.addDocument(doc);
+            }
+            try (var reader = DirectoryReader.open(writer)) {
+                for (LeafReaderContext leaf : reader.leaves()) {
+                    aggregator.loadDocValues(leaf);
+                    for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                        aggregator.apply(RamAccounting.NO_ACCOUNTING, doc, state);
+                    }
+                }
+            }
+        }
+        return state;
+    }
+
+    private static Document doc(String column, long... values) {
+        Document doc = new Document();
+        for (long value : values) {
+            doc.add(new SortedNumericDocValuesField(column, value));
+        }
+        return doc;
+    }
+
+    private static Document doc(String column, String... values) {
+        Document doc = new Document();
+        for (String value : values) {
+            doc.add(new SortedSetDocValuesField(column, new BytesRef(value)));
+        }
+        return doc;
+    }
+
+    @Test
+    public void test_decodes_single_values_and_missing_values_as_null() throws Exception {
+        assertThat(aggregate(DataTypes.LONG, doc("0", 2L), doc("0", new long[0]), doc("0", 1L)))
+            .containsExactly(2L, null, 1L);
+        assertThat(aggregate(DataTypes.STRING, doc("0", "b"), doc("0", new String[0]), doc("0", "a")))
+            .containsExactly("b", null, "a");
+    }
+
+    @Test
+    public void test_numeric_doc_values_with_multiple_values_are_not_supported() throws Exception {
+        assertThatThrownBy(() -> aggregate(DataTypes.LONG, doc("0", 1L), doc("0", 1L, 2L)))
+            .isExactlyInstanceOf(ArrayViaDocValuesUnsupportedException.class);
+    }
+
+    @Test
+    public void test_binary_doc_values_with_multiple_values_are_not_supported() throws Exception {
+        assertThatThrownBy(() -> aggregate(DataTypes.STRING, doc("0", "a"), doc("0", "a", "b")))
+            .isExactlyInstanceOf(ArrayViaDocValuesUnsupportedException.class);
+    }
+}
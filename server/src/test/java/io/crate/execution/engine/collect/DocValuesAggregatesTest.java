@@ -23,20 +23,38 @@ package io.crate.execution.engine.collect;
 
 import static io.crate.testing.TestingHelpers.createNodeContext;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.Version;
 import org.junit.Before;
 import org.junit.Test;
 
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.TableRelation;
+import io.crate.common.MutableLong;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.testing.TestingRowConsumer;
 import io.crate.execution.engine.aggregation.impl.CountAggregation;
 import io.crate.execution.engine.aggregation.impl.SumAggregation;
 import io.crate.execution.engine.aggregation.impl.templates.SortedNumericDocValueAggregator;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.symbol.Aggregation;
 import io.crate.expression.symbol.InputColumn;
@@ -199,6 +217,53 @@ public class DocValuesAggregatesTest extends CrateDummyClusterServiceUnitTest {
             );
     }
 
+    @Test
+    public void test_aggregations_can_be_computed_in_multiple_slices_of_a_segment() throws Exception {
+        Reference xRef = (Reference) e.asSymbol("tbl.x");
+        List<Aggregation> aggregations = List.of(countAggregation(0), longSumAggregation(0));
+        try (var writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig())) {
+            for (long i = 1; i <= 10; i++) {
+                Document doc = new Document();
+                doc.add(new SortedNumericDocValuesField(xRef.storageIdent(), i));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+            try (var reader = DirectoryReader.open(writer)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+                assertThat(leaves).hasSize(1);
+                LeafReaderContext leaf = leaves.get(0);
+
+                List<Object[]> partialResults = new ArrayList<>();
+                for (var range : List.of(new LeafDocRange(leaf, 0, 4), new LeafDocRange(leaf, 4, 10))) {
+                    var aggregators = DocValuesAggregates.createAggregators(
+                        functions,
+                        mock(LuceneReferenceResolver.class),
+                        aggregations,
+                        List.of(xRef),
+                        table
+                    );
+                    BatchIterator<Row> it = DocValuesAggregates.getIterator(
+                        RamAccounting.NO_ACCOUNTING,
+                        null,
+                        Version.CURRENT,
+                        searcher,
+                        List.of(range),
+                        new MatchAllDocsQuery(),
+                        aggregators
+                    );
+                    TestingRowConsumer consumer = new TestingRowConsumer();
+                    consumer.accept(it, null);
+                    partialResults.addAll(consumer.getResult());
+                }
+                // Each slice emits its own partial states: count(x), sum(x)
+                assertThat(partialResults)
+                    .extracting(row -> ((MutableLong) row[0]).value(), row -> row[1])
+                    .containsExactly(tuple(4L, 10L), tuple(6L, 45L));
+            }
+        }
+    }
+
     private static Aggregation countAggregation(int inputCol) {
         return new Aggregation(
             CountAggregation.SIGNATURE,
@@ -27,6 +27,7 @@ import static org.elasticsearch.cluster.metadata.Metadata.COLUMN_OID_UNASSIGNED;
 import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -48,11 +49,13 @@ import org.elasticsearch.common.lucene.BytesRefs;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.data.breaker.RamAccounting;
 import io.crate.data.testing.TestingRowConsumer;
 import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.engine.fetch.ReaderContext;
 import io.crate.expression.reference.doc.lucene.BytesRefColumnReference;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
@@ -70,6 +73,7 @@ import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.functions.Signature;
 import io.crate.sql.tree.ColumnPolicy;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 
 public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTest {
@@ -135,6 +139,7 @@ public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServ
         var it = DocValuesGroupByOptimizedIterator.GroupByIterator.forSingleKey(
             List.of(sumDocValuesAggregator),
             indexSearcher,
+            LeafDocRange.of(indexSearcher.getTopReaderContext().leaves()),
             new SimpleReference(
                 new ReferenceIdent(RelationName.fromIndexName("test"), "y"),
                 RowGranularity.DOC,
@@ -162,6 +167,78 @@ public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServ
             new Object[]{0L, 6L}, new Object[]{1L, 4L});
     }
 
+    @Test
+    public void test_group_by_doc_values_optimized_iterator_groups_each_slice_of_a_segment() throws Exception {
+        SumAggregation<?> sumAggregation = (SumAggregation<?>) functions.getQualified(
+            Signature.aggregate(
+                SumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+        var leaves = indexSearcher.getTopReaderContext().leaves();
+        assertThat(leaves).hasSize(1);
+        var leaf = leaves.get(0);
+        Reference keyRef = new SimpleReference(
+            new ReferenceIdent(RelationName.fromIndexName("test"), "y"),
+            RowGranularity.DOC,
+            DataTypes.LONG,
+            ColumnPolicy.DYNAMIC,
+            IndexType.PLAIN,
+            true,
+            true,
+            0,
+            COLUMN_OID_UNASSIGNED,
+            false,
+            null
+        );
+        Reference valueRef = new SimpleReference(
+            new ReferenceIdent(RelationName.fromIndexName("test"), "z"),
+            RowGranularity.DOC,
+            DataTypes.LONG,
+            ColumnPolicy.DYNAMIC,
+            IndexType.PLAIN,
+            true,
+            true,
+            0,
+            COLUMN_OID_UNASSIGNED,
+            false,
+            null
+        );
+
+        List<List<Object[]>> resultsBySlice = new ArrayList<>();
+        for (var range : List.of(new LeafDocRange(leaf, 0, 2), new LeafDocRange(leaf, 2, 4))) {
+            // Aggregators and expressions are stateful, every slice gets its own instances
+            var sumDocValuesAggregator = sumAggregation.getDocValueAggregator(
+                mock(LuceneReferenceResolver.class),
+                List.of(valueRef),
+                mock(DocTableInfo.class),
+                List.of()
+            );
+            var it = DocValuesGroupByOptimizedIterator.GroupByIterator.forSingleKey(
+                List.of(sumDocValuesAggregator),
+                indexSearcher,
+                List.of(range),
+                keyRef,
+                List.of(new LongColumnReference("y")),
+                RamAccounting.NO_ACCOUNTING,
+                null,
+                null,
+                new MatchAllDocsQuery(),
+                new CollectorContext(Set.of(), Function.identity())
+            );
+            var rowConsumer = new TestingRowConsumer();
+            rowConsumer.accept(it, null);
+            resultsBySlice.add(rowConsumer.getResult());
+        }
+        assertThat(resultsBySlice.get(0)).containsExactlyInAnyOrder(
+            new Object[]{0L, 2L}, new Object[]{1L, 1L});
+        assertThat(resultsBySlice.get(1)).containsExactlyInAnyOrder(
+            new Object[]{0L, 4L}, new Object[]{1L, 3L});
+    }
+
     @Test
     public void test_group_by_doc_values_optimized_iterator_for_many_keys() throws Exception {
         SumAggregation<?> sumAggregation = (SumAggregation<?>) functions.getQualified(
@@ -226,6 +303,7 @@ public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServ
         var it = DocValuesGroupByOptimizedIterator.GroupByIterator.forManyKeys(
             List.of(sumDocValuesAggregator),
             indexSearcher,
+            LeafDocRange.of(indexSearcher.getTopReaderContext().leaves()),
             keyRefs,
             keyExpressions,
             RamAccounting.NO_ACCOUNTING,
@@ -242,6 +320,107 @@ public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServ
             new Object[]{"0", 0L, 6L}, new Object[]{"1", 1L, 4L});
     }
 
+    private static Reference ref(String name, DataType<?> type) {
+        return new SimpleReference(
+            new ReferenceIdent(RelationName.fromIndexName("test"), name),
+            RowGranularity.DOC,
+            type,
+            ColumnPolicy.DYNAMIC,
+            IndexType.PLAIN,
+            true,
+            true,
+            0,
+            COLUMN_OID_UNASSIGNED,
+            false,
+            null
+        );
+    }
+
+    private List<Object[]> groupByUsingCodes(IndexSearcher searcher, List<Reference> keyRefs) throws Exception {
+        SumAggregation<?> sumAggregation = (SumAggregation<?>) functions.getQualified(
+            Signature.aggregate(
+                SumAggregation.NAME,
+                DataTypes.LONG.getTypeSignature(),
+                DataTypes.LONG.getTypeSignature()
+            ),
+            List.of(DataTypes.LONG),
+            DataTypes.LONG
+        );
+        var sumDocValuesAggregator = sumAggregation.getDocValueAggregator(
+            mock(LuceneReferenceResolver.class),
+            List.of(ref("z", DataTypes.LONG)),
+            mock(DocTableInfo.class),
+            List.of()
+        );
+        var it = DocValuesGroupByOptimizedIterator.GroupByIterator.forManyKeysUsingCodes(
+            List.of(sumDocValuesAggregator),
+            searcher,
+            LeafDocRange.of(searcher.getTopReaderContext().leaves()),
+            keyRefs,
+            Lists2.map(keyRefs, GroupKeyDocValues::of),
+            RamAccounting.NO_ACCOUNTING,
+            null,
+            null,
+            new MatchAllDocsQuery()
+        );
+        var rowConsumer = new TestingRowConsumer();
+        rowConsumer.accept(it, null);
+        return rowConsumer.getResult();
+    }
+
+    @Test
+    public void test_group_by_many_keys_using_codes() throws Exception {
+        var indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig());
+        Object[][] data = new Object[][] {
+            // country, device, y, z
+            new Object[] {"AT", "mobile", 1L, 1L},
+            new Object[] {"DE", "desktop", 2L, 2L},
+            new Object[] {"AT", "mobile", 1L, 3L},
+            new Object[] {"AT", null, null, 4L},
+            new Object[] {"DE", "desktop", 2L, 5L},
+        };
+        for (int i = 0; i < data.length; i++) {
+            Object[] row = data[i];
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("country", BytesRefs.toBytesRef(row[0])));
+            if (row[1] != null) {
+                doc.add(new SortedSetDocValuesField("device", BytesRefs.toBytesRef(row[1])));
+            }
+            if (row[2] != null) {
+                doc.add(new NumericDocValuesField("y", (Long) row[2]));
+            }
+            doc.add(new NumericDocValuesField("z", (Long) row[3]));
+            indexWriter.addDocument(doc);
+            if (i == 2) {
+                // Ordinals are segment local, groups must be merged across segments
+                indexWriter.commit();
+            }
+        }
+        indexWriter.commit();
+        var searcher = new IndexSearcher(DirectoryReader.open(indexWriter));
+        assertThat(searcher.getIndexReader().leaves()).hasSize(2);
+
+        List<Object[]> packedResult = groupByUsingCodes(
+            searcher,
+            List.of(ref("country", DataTypes.STRING), ref("device", DataTypes.STRING))
+        );
+        assertThat(packedResult).containsExactlyInAnyOrder(
+            new Object[]{"AT", "mobile", 4L},
+            new Object[]{"AT", null, 4L},
+            new Object[]{"DE", "desktop", 7L}
+        );
+
+        List<Object[]> mixedResult = groupByUsingCodes(
+            searcher,
+            List.of(ref("country", DataTypes.STRING), ref("y", DataTypes.LONG))
+        );
+        assertThat(mixedResult).containsExactlyInAnyOrder(
+            new Object[]{"AT", 1L, 4L},
+            new Object[]{"AT", null, 4L},
+            new Object[]{"DE", 2L, 7L}
+        );
+    }
+
     @Test
     public void test_optimized_iterator_stop_processing_on_kill() throws Exception {
         Throwable expectedException = stopOnInterrupting(it -> it.kill(new InterruptedException("killed")));
@@ -292,6 +471,7 @@ public class DocValuesGroupByOptimizedIteratorTest extends CrateDummyClusterServ
         return DocValuesGroupByOptimizedIterator.GroupByIterator.getIterator(
             List.of(),
             indexSearcher,
+            LeafDocRange.of(indexSearcher.getTopReaderContext().leaves()),
             List.of(new LuceneCollectorExpression<>() {
 
                 @Override
@@ -61,6 +61,7 @@ import io.crate.data.breaker.RamAccounting;
 import io.crate.data.testing.BatchIteratorTester;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.collect.collectors.LeafDocRange;
 import io.crate.execution.engine.fetch.ReaderContext;
 import io.crate.expression.InputRow;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
@@ -107,6 +108,7 @@ public class GroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTe
         return GroupByOptimizedIterator.getIterator(
             BigArrays.NON_RECYCLING_INSTANCE,
             indexSearcher,
+            LeafDocRange.of(indexSearcher.getTopReaderContext().leaves()),
             columnName,
             aggregationContexts,
             List.of(new LuceneCollectorExpression<Object>() {
@@ -21,6 +21,8 @@
 
 package io.crate.execution.engine.collect.collectors;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -39,7 +41,10 @@ import org.apache.lucene.store.ByteBuffersDirectory;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
 import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.TestingRowConsumer;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LongColumnReference;
 
@@ -82,4 +87,50 @@ public class LuceneBatchIteratorTest {
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void test_slices_split_segment_into_doc_ranges() throws Exception {
+        var leaves = indexSearcher.getTopReaderContext().leaves();
+        assertThat(leaves).hasSize(1);
+
+        List<List<LeafDocRange>> slices = LeafDocRange.slices(leaves, 3, 5);
+        assertThat(slices).hasSize(3);
+        assertThat(slices).allSatisfy(slice -> assertThat(slice).hasSize(1));
+        assertThat(slices.get(0).get(0)).satisfies(range -> {
+            assertThat(range.minDoc()).isEqualTo(0);
+            assertThat(range.maxDoc()).isEqualTo(7);
+        });
+        assertThat(slices.get(2).get(0)).satisfies(range -> {
+            assertThat(range.minDoc()).isEqualTo(14);
+            assertThat(range.maxDoc()).isEqualTo(20);
+        });
+
+        assertThat(LeafDocRange.slices(leaves, 3, 10)).hasSize(2);
+        assertThat(LeafDocRange.slices(leaves, 3, 50)).hasSize(1);
+        assertThat(LeafDocRange.slices(leaves, 1, 5)).hasSize(1);
+    }
+
+    @Test
+    public void test_sliced_iterators_return_all_rows() throws Exception {
+        var leaves = indexSearcher.getTopReaderContext().leaves();
+        List<Object[]> result = new ArrayList<>();
+        for (List<LeafDocRange> slice : LeafDocRange.slices(leaves, 3, 5)) {
+            LongColumnReference columnReference = new LongColumnReference("x");
+            List<LongColumnReference> refs = List.of(columnReference);
+            BatchIterator<Row> it = new LuceneBatchIterator(
+                indexSearcher,
+                slice,
+                new MatchAllDocsQuery(),
+                null,
+                false,
+                new CollectorContext(Set.of(), Function.identity()),
+                refs,
+                refs
+            );
+            TestingRowConsumer consumer = new TestingRowConsumer();
+            consumer.accept(it, null);
+            result.addAll(consumer.getResult());
+        }
+        assertThat(result).containsExactlyElementsOf(expectedResult);
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.crate.analyze.CopyFromParserProperties;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.BatchSimulatingIterator;
+import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+import io.crate.expression.InputFactory;
+import io.crate.expression.InputFactory.Context;
+import io.crate.expression.reference.file.FileLineReferenceResolver;
+import io.crate.expression.reference.file.SourceLineNumberExpression;
+import io.crate.expression.reference.file.SourceParsingFailureExpression;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.Functions;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.testing.TestingHelpers;
+import io.crate.types.DataTypes;
+import io.crate.user.User;
+import io.crate.user.UserLookup;
+
+public class ParallelLineProcessorTest {
+
+    private final UserLookup userLookup = () -> List.of(User.CRATE_USER);
+    private final NodeContext nodeCtx = new NodeContext(new Functions(Map.of()), userLookup);
+    private final InputFactory inputFactory = new InputFactory(nodeCtx);
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void shutdownExecutor() throws Exception {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private ParallelLineProcessor lineProcessor(BatchIterator<LineCursor> source,
+                                                InputFormat inputFormat,
+                                                CopyFromParserProperties parserProperties) {
+        Context<LineCollectorExpression<?>> ctxForRefs = inputFactory.ctxForRefs(
+            CoordinatorTxnCtx.systemTransactionContext(),
+            FileLineReferenceResolver::getImplementation
+        );
+        ctxForRefs.add(List.of(
+            TestingHelpers.createReference(SourceLineNumberExpression.COLUMN_NAME, DataTypes.LONG),
+            TestingHelpers.createReference("x", DataTypes.INTEGER),
+            TestingHelpers.createReference(SourceParsingFailureExpression.COLUMN_NAME, DataTypes.STRING)
+        ));
+        return new ParallelLineProcessor(
+            source,
+            ctxForRefs.topLevelInputs(),
+            ctxForRefs.expressions(),
+            inputFormat,
+            parserProperties,
+            List.of(),
+            executor,
+            2
+        );
+    }
+
+    @Test
+    public void test_rows_of_all_chunks_are_emitted_in_the_order_of_the_lines() throws Exception {
+        URI uri = new URI("file:///dummy.json");
+        int numLines = ParallelLineProcessor.CHUNK_MAX_LINES * 3 + 10;
+        List<LineCursor> lines = new ArrayList<>();
+        List<Object[]> expectedResult = new ArrayList<>();
+        for (int i = 1; i <= numLines; i++) {
+            lines.add(new LineCursor(uri, i, "{\"x\": " + i + "}", null));
+            expectedResult.add(new Object[] { (long) i, i, null });
+        }
+        var tester = BatchIteratorTester.forRows(() -> lineProcessor(
+            new BatchSimulatingIterator<>(InMemoryBatchIterator.of(lines, new LineCursor(), true), 700, 5, null),
+            InputFormat.JSON,
+            CopyFromParserProperties.DEFAULT
+        ));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_csv_header_is_skipped_and_parse_failures_are_kept_per_line() throws Exception {
+        URI uri = new URI("file:///dummy.csv");
+        BatchIterator<LineCursor> source = InMemoryBatchIterator.of(
+            List.of(
+                new LineCursor(uri, 1, "x,y", null),
+                new LineCursor(uri, 2, "1,2,3,4", null),
+                new LineCursor(uri, 3, "1,2", null),
+                new LineCursor(uri, 4, "3,4", null)
+            ),
+            null,
+            false
+        );
+        ParallelLineProcessor lineProcessor = lineProcessor(
+            source,
+            InputFormat.CSV,
+            new CopyFromParserProperties(true, true, ',', 0)
+        );
+
+        List<Object[]> rows = lineProcessor.map(Row::materialize).toList().get(5, TimeUnit.SECONDS);
+        assertThat(rows).containsExactly(
+            new Object[] { 2L, null, "Number of values exceeds number of keys in csv file at line 2" },
+            new Object[] { 3L, 1, null },
+            new Object[] { 4L, 3, null }
+        );
+    }
+}
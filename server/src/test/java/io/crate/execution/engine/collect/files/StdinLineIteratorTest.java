@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.collect.files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.crate.execution.engine.collect.files.FileReadingIterator.LineCursor;
+
+public class StdinLineIteratorTest {
+
+    private final AtomicInteger numResumes = new AtomicInteger();
+    private final StdinRegistry registry = new StdinRegistry(Runnable::run);
+    private final StdinLineIterator iterator = registry.register(numResumes::incrementAndGet);
+
+    private boolean feed(String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        return iterator.feed(bytes, 0, bytes.length);
+    }
+
+    private List<LineCursor> consume() {
+        List<LineCursor> lines = new ArrayList<>();
+        while (iterator.moveNext()) {
+            lines.add(iterator.currentElement());
+        }
+        return lines;
+    }
+
+    @Test
+    public void test_lines_are_split_across_chunks() throws Exception {
+        assertThat(registry.get(iterator.uri().toString())).isSameAs(iterator);
+
+        feed("{\"x\": 1}\n{\"x\"");
+        feed(": 2}\r\n\n");
+        feed("{\"x\": 3}");
+        assertThat(consume()).containsExactly(
+            new LineCursor(iterator.uri(), 1, "{\"x\": 1}", null),
+            new LineCursor(iterator.uri(), 2, "{\"x\": 2}", null)
+        );
+        assertThat(iterator.allLoaded()).isFalse();
+
+        CompletableFuture<?> nextBatch = iterator.loadNextBatch().toCompletableFuture();
+        assertThat(nextBatch).isNotDone();
+        iterator.finish();
+        assertThat(nextBatch).isCompleted();
+        assertThat(consume()).containsExactly(
+            new LineCursor(iterator.uri(), 4, "{\"x\": 3}", null)
+        );
+        assertThat(iterator.allLoaded()).isTrue();
+
+        registry.unregister(iterator);
+        assertThat(registry.get(iterator.uri().toString())).isNull();
+    }
+
+    @Test
+    public void test_feed_requests_to_pause_reading_until_consumer_catches_up() throws Exception {
+        String line = "x".repeat(1023) + "\n";
+        int numLines = StdinLineIterator.MAX_BUFFERED_BYTES / 1023 + 1;
+        for (int i = 0; i < numLines - 1; i++) {
+            assertThat(feed(line)).isFalse();
+        }
+        assertThat(feed(line)).isTrue();
+
+        int consumed = 0;
+        while (numResumes.get() == 0) {
+            assertThat(iterator.moveNext()).isTrue();
+            consumed++;
+        }
+        assertThat(consumed).isGreaterThan(numLines / 2 - 1);
+        assertThat(consume()).hasSize(numLines - consumed);
+    }
+
+    @Test
+    public void test_kill_discards_data_and_resumes_reading() throws Exception {
+        String line = "x".repeat(1023) + "\n";
+        boolean paused = false;
+        while (!paused) {
+            paused = feed(line);
+        }
+        iterator.kill(new IllegalStateException("COPY from stdin failed: aborted"));
+        assertThat(numResumes.get()).isEqualTo(1);
+
+        assertThat(feed(line)).isFalse();
+        assertThatThrownBy(iterator::moveNext)
+            .isExactlyInstanceOf(IllegalStateException.class)
+            .hasMessage("COPY from stdin failed: aborted");
+    }
+
+    @Test
+    public void test_kill_fails_pending_batch() throws Exception {
+        CompletableFuture<?> nextBatch = iterator.loadNextBatch().toCompletableFuture();
+        iterator.kill(new IllegalStateException("COPY from stdin failed: aborted"));
+        assertThat(nextBatch).isCompletedExceptionally();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.collect.files.parquet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParquetReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static Path testFile() throws Exception {
+        return Paths.get(ParquetReaderTest.class.getResource("/essetup/data/copy/test_copy_from.parquet").toURI());
+    }
+
+    @Test
+    public void test_reads_schema_and_row_groups() throws Exception {
+        try (ParquetReader reader = ParquetReader.open(testFile())) {
+            assertThat(reader.columnNames()).containsExactly("id", "quote", "created", "day", "score", "flag");
+            assertThat(reader.numRowGroups()).isEqualTo(2);
+            assertThat(reader.numRows(0)).isEqualTo(2);
+            assertThat(reader.numRows(1)).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void test_decodes_uncompressed_plain_encoded_v1_pages() throws Exception {
+        try (ParquetReader reader = ParquetReader.open(testFile())) {
+            Object[][] values = reader.readRowGroup(0, new int[] {0, 1, 2, 3, 4, 5});
+            assertThat(values[0]).containsExactly(1, 2);
+            assertThat(values[1]).containsExactly(
+                "Don't pañic.",
+                "Would it save you a lot of time if I just gave up and went mad now?");
+            assertThat(values[2]).containsExactly(1_600_000_000_123L, null);
+            assertThat(values[3]).containsExactly(18000 * 86_400_000L, null);
+            assertThat(values[4]).containsExactly(1.5d, null);
+            assertThat(values[5]).containsExactly(true, false);
+        }
+    }
+
+    @Test
+    public void test_decodes_snappy_compressed_dictionary_encoded_v2_pages() throws Exception {
+        try (ParquetReader reader = ParquetReader.open(testFile())) {
+            Object[][] values = reader.readRowGroup(1, new int[] {1, 4, 5});
+            assertThat(values[0]).containsExactly("Time is an illusion. Lunchtime doubly so.", "Don't pañic.");
+            assertThat(values[1]).containsExactly(-2.25d, 42.0d);
+            assertThat(values[2]).containsExactly(null, true);
+        }
+    }
+
+    @Test
+    public void test_open_fails_on_files_which_are_not_parquet_files() throws Exception {
+        Path file = temporaryFolder.newFile("data.parquet").toPath();
+        Files.writeString(file, "{\"id\": 1, \"quote\": \"Don't panic\"}\n", StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> ParquetReader.open(file))
+            .isExactlyInstanceOf(IOException.class)
+            .hasMessage("File is not a Parquet file, the magic number at its end is missing");
+    }
+
+    @Test
+    public void test_snappy_uncompress_resolves_overlapping_copies() throws Exception {
+        byte[] compressed = new byte[] {
+            12,                     // uncompressed length
+            0x08, 'a', 'b', 'c',    // literal of 3 bytes
+            0x15, 3                 // copy of 9 bytes with 1 byte offset 3
+        };
+        assertThat(new String(Snappy.uncompress(compressed, 0, compressed.length), StandardCharsets.US_ASCII))
+            .isEqualTo("abcabcabcabc");
+
+        compressed = new byte[] {
+            8,
+            0x0C, 'a', 'b', 'c', 'd',
+            0x0E, 4, 0              // copy of 4 bytes with 2 byte offset 4
+        };
+        assertThat(new String(Snappy.uncompress(compressed, 0, compressed.length), StandardCharsets.US_ASCII))
+            .isEqualTo("abcdabcd");
+    }
+}
@@ -42,6 +42,7 @@ import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.collect.CollectTask;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.CoordinatorTxnCtx;
@@ -92,7 +93,8 @@ public class FileCollectSourceTest extends CrateDummyClusterServiceUnitTest {
             new NodeContext(new Functions(Map.of()), userLookup),
             clusterService,
             Map.of(),
-            THREAD_POOL
+            THREAD_POOL,
+            new StdinRegistry(THREAD_POOL)
         );
 
         CompletableFuture<BatchIterator<Row>> iterator = fileCollectSource.getIterator(
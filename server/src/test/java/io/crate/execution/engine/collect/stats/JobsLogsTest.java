@@ -63,6 +63,7 @@ import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.sys.MetricsView;
+import io.crate.metadata.sys.StatementMetricsView;
 import io.crate.planner.operators.StatementClassifier.Classification;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.user.User;
@@ -416,6 +417,26 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(metrics.get(0).classification(), is(new Classification(UNDEFINED)));
     }
 
+    @Test
+    public void test_execution_end_is_recorded_in_statement_metrics() {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        jobsLogs.updateStatementMetrics(10);
+        User user = User.of("arthur");
+        Classification classification = new Classification(SELECT, Collections.singleton("Collect"));
+
+        UUID jobId = UUID.randomUUID();
+        jobsLogs.logExecutionStart(jobId, "select name from users where id = 1", user, classification);
+        jobsLogs.logExecutionEnd(jobId, null, 5L);
+
+        List<StatementMetricsView> metrics = StreamSupport.stream(jobsLogs.statementMetrics().spliterator(), false)
+            .collect(Collectors.toList());
+        assertThat(metrics.size(), is(1));
+        assertThat(metrics.get(0).statement(), is("SELECT name FROM users WHERE id = ?"));
+        assertThat(metrics.get(0).calls(), is(1L));
+        assertThat(metrics.get(0).failedCount(), is(0L));
+        assertThat(metrics.get(0).rows(), is(5L));
+    }
+
     @Test
     public void testUniqueOperationIdsInOperationsTable() {
         JobsLogs jobsLogs = new JobsLogs(() -> true);
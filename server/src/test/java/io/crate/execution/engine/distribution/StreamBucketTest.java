@@ -0,0 +1,137 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.distribution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.types.DataTypes;
+
+public class StreamBucketTest extends ESTestCase {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[] {
+        DataTypes.LONG.streamer(),
+        DataTypes.INTEGER.streamer(),
+        DataTypes.TIMESTAMPZ.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.DOUBLE.streamer()
+    };
+
+    private List<Object[]> randomRows(int numRows) {
+        List<Object[]> rows = new ArrayList<>(numRows);
+        long timestamp = randomLongBetween(0, 1_700_000_000_000L);
+        for (int i = 0; i < numRows; i++) {
+            timestamp += randomIntBetween(0, 1000);
+            rows.add(new Object[] {
+                randomFrom(randomLong(), Long.MIN_VALUE, null),
+                rarely() ? null : Integer.valueOf(randomIntBetween(-10, 10)),
+                timestamp,
+                rarely() ? null : randomFrom("a", "b", "c"),
+                randomAlphaOfLength(12),
+                randomBoolean() ? null : Double.valueOf(randomDouble())
+            });
+        }
+        return rows;
+    }
+
+    private static StreamBucket build(List<Object[]> rows) {
+        StreamBucket.Builder builder = new StreamBucket.Builder(STREAMERS, RamAccounting.NO_ACCOUNTING);
+        for (Object[] row : rows) {
+            builder.add(new RowN(row));
+        }
+        return builder.build();
+    }
+
+    private static StreamBucket streamed(StreamBucket bucket, Version version) throws Exception {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(version);
+        bucket.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(version);
+        return new StreamBucket(in, STREAMERS);
+    }
+
+    private static List<Object[]> materialize(StreamBucket bucket) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Row row : bucket) {
+            rows.add(row.materialize());
+        }
+        return rows;
+    }
+
+    @Test
+    public void test_large_bucket_is_streamed_column_oriented_and_smaller() throws Exception {
+        List<Object[]> rows = randomRows(StreamBucket.COLUMNAR_MIN_ROWS + randomIntBetween(0, 2000));
+        StreamBucket bucket = build(rows);
+
+        BytesStreamOutput columnar = new BytesStreamOutput();
+        bucket.writeTo(columnar);
+        BytesStreamOutput rowOriented = new BytesStreamOutput();
+        rowOriented.setVersion(Version.V_5_5_0);
+        bucket.writeTo(rowOriented);
+        assertThat(columnar.size()).isLessThan(rowOriented.size());
+
+        StreamBucket received = streamed(bucket, Version.CURRENT);
+        assertThat(received.size()).isEqualTo(rows.size());
+        assertThat(materialize(received)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void test_small_bucket_roundtrip() throws Exception {
+        List<Object[]> rows = randomRows(randomIntBetween(0, StreamBucket.COLUMNAR_MIN_ROWS - 1));
+        StreamBucket received = streamed(build(rows), Version.CURRENT);
+        assertThat(materialize(received)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void test_columnar_bucket_is_converted_for_nodes_on_older_versions() throws Exception {
+        List<Object[]> rows = randomRows(StreamBucket.COLUMNAR_MIN_ROWS * 2);
+        StreamBucket received = streamed(build(rows), Version.CURRENT);
+
+        StreamBucket forwarded = streamed(received, Version.V_5_5_0);
+        assertThat(materialize(forwarded)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void test_columns_with_only_nulls_or_equal_values() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < StreamBucket.COLUMNAR_MIN_ROWS; i++) {
+            rows.add(new Object[] {null, 1, Long.MAX_VALUE, null, "same", 1.0d});
+        }
+        StreamBucket received = streamed(build(rows), Version.CURRENT);
+        assertThat(materialize(received)).containsExactlyElementsOf(rows);
+    }
+}
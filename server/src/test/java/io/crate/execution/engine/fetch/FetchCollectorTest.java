@@ -49,4 +49,13 @@ public class FetchCollectorTest {
         nonSequential.add(48);
         assertThat(FetchCollector.isSequential(nonSequential), is(false));
     }
+
+    @Test
+    public void test_sequential_doc_ids_within_range() {
+        int[] docIds = new int[] { 1, 5, 6, 7, 8, 20, 40 };
+        assertThat(FetchCollector.isSequential(docIds, 1, 5), is(true));
+        assertThat(FetchCollector.isSequential(docIds, 0, 5), is(false));
+        assertThat(FetchCollector.isSequential(docIds, 4, 6), is(false));
+        assertThat(FetchCollector.isSequential(docIds, 5, 6), is(false));
+    }
 }
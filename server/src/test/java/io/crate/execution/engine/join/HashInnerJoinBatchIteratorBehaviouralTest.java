@@ -70,8 +70,8 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
                 mock(RowAccounting.class),
                 new CombinedRow(1, 1),
                 row -> Objects.equals(row.get(0), row.get(1)),
-                row -> Objects.hash(row.get(0)),
-                row -> Objects.hash(row.get(0)),
+                row -> new Object[] { row.get(0) },
+                row -> new Object[] { row.get(0) },
                 ignored -> 2
             );
 
@@ -100,8 +100,8 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             row -> Objects.equals(row.get(0), row.get(1)),
-            row -> Objects.hash(row.get(0)),
-            row -> Objects.hash(row.get(0)),
+            row -> new Object[] { row.get(0) },
+            row -> new Object[] { row.get(0) },
             ignored -> 500000
         );
 
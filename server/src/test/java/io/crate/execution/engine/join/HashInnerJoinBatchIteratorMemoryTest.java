@@ -27,8 +27,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.function.ToIntFunction;
 
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.junit.Test;
@@ -50,12 +50,12 @@ public class HashInnerJoinBatchIteratorMemoryTest {
         return row -> Objects.equals(row.get(0), row.get(1));
     }
 
-    private static ToIntFunction<Row> getHashForLeft() {
-        return row -> Objects.hash(row.get(0));
+    private static Function<Row, Object[]> getKeysForLeft() {
+        return row -> new Object[] { row.get(0) };
     }
 
-    private static ToIntFunction<Row> getHashForRight() {
-        return row -> Objects.hash(row.get(0));
+    private static Function<Row, Object[]> getKeysForRight() {
+        return row -> new Object[] { row.get(0) };
     }
 
     @Test
@@ -78,8 +78,8 @@ public class HashInnerJoinBatchIteratorMemoryTest {
             rowAccounting,
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
+            getKeysForLeft(),
+            getKeysForRight(),
             ignored -> 2
         );
         TestingRowConsumer consumer = new TestingRowConsumer();
@@ -28,9 +28,9 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.function.ToIntFunction;
 
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.junit.Test;
@@ -62,16 +62,16 @@ public class HashInnerJoinBatchIteratorTest {
         return row -> Objects.equals(row.get(0), row.get(1));
     }
 
-    private static ToIntFunction<Row> getHashForLeft() {
-        return row -> Objects.hash(row.get(0));
+    private static Function<Row, Object[]> getKeysForLeft() {
+        return row -> new Object[] { row.get(0) };
     }
 
-    private static ToIntFunction<Row> getHashForRight() {
-        return row -> Objects.hash(row.get(0));
+    private static Function<Row, Object[]> getKeysForRight() {
+        return row -> new Object[] { row.get(0) };
     }
 
-    private static ToIntFunction<Row> getHashWithCollisions() {
-        return row -> (Integer) row.get(0) % 3;
+    private static Function<Row, Object[]> getKeysWithCollisions() {
+        return row -> new Object[] { (Integer) row.get(0) % 3 };
     }
 
     public HashInnerJoinBatchIteratorTest(@SuppressWarnings("unused") @Name("dataSetName") String testName,
@@ -134,8 +134,8 @@ public class HashInnerJoinBatchIteratorTest {
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
+            getKeysForLeft(),
+            getKeysForRight(),
             ignored -> 5
         );
         var tester = BatchIteratorTester.forRows(batchIteratorSupplier);
@@ -143,15 +143,15 @@ public class HashInnerJoinBatchIteratorTest {
     }
 
     @Test
-    public void testInnerHashJoinWithHashCollisions() throws Exception {
+    public void testInnerHashJoinWithKeysMatchingMoreRowsThanTheJoinCondition() throws Exception {
         Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
             leftIterator.get(),
             rightIterator.get(),
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashWithCollisions(),
-            getHashWithCollisions(),
+            getKeysWithCollisions(),
+            getKeysWithCollisions(),
             ignored -> 5
         );
         var tester = BatchIteratorTester.forRows(batchIteratorSupplier);
@@ -166,8 +166,8 @@ public class HashInnerJoinBatchIteratorTest {
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
+            getKeysForLeft(),
+            getKeysForRight(),
             ignored -> 1
         );
         var tester = BatchIteratorTester.forRows(batchIteratorSupplier);
@@ -182,8 +182,8 @@ public class HashInnerJoinBatchIteratorTest {
             mock(RowAccounting.class),
             new CombinedRow(1, 1),
             getCol0EqCol1JoinCondition(),
-            getHashForLeft(),
-            getHashForRight(),
+            getKeysForLeft(),
+            getKeysForRight(),
             ignored -> 3
         );
         var tester = BatchIteratorTester.forRows(batchIteratorSupplier);
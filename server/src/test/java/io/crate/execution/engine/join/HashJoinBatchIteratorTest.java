@@ -0,0 +1,150 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.breaker.RowAccounting;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.BatchSimulatingIterator;
+import io.crate.data.testing.TestingBatchIterators;
+import io.crate.sql.tree.JoinType;
+
+public class HashJoinBatchIteratorTest {
+
+    private static final List<Object> LEFT = Arrays.asList(0, 0, 1, 2, 2, 3, 4, 4);
+    private static final List<Object> RIGHT = Arrays.asList(1, 1, 2, 3, 4, 4, 5, 5, 6);
+
+    private static List<Object[]> innerResult() {
+        return new ArrayList<>(Arrays.asList(
+            new Object[] { 1, 1 }, new Object[] { 1, 1 },
+            new Object[] { 2, 2 }, new Object[] { 2, 2 },
+            new Object[] { 3, 3 },
+            new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }
+        ));
+    }
+
+    private static void assertJoin(JoinType joinType, List<Object[]> expectedResult) throws Exception {
+        for (int blockSize : new int[] { 1, 3, 100 }) {
+            assertJoin(
+                joinType,
+                () -> TestingBatchIterators.ofValues(LEFT),
+                () -> TestingBatchIterators.ofValues(RIGHT),
+                blockSize,
+                expectedResult
+            );
+            assertJoin(
+                joinType,
+                () -> new BatchSimulatingIterator<>(TestingBatchIterators.ofValues(LEFT), 2, 4, null),
+                () -> new BatchSimulatingIterator<>(TestingBatchIterators.ofValues(RIGHT), 2, 5, null),
+                blockSize,
+                expectedResult
+            );
+        }
+    }
+
+    private static void assertJoin(JoinType joinType,
+                                   Supplier<BatchIterator<Row>> left,
+                                   Supplier<BatchIterator<Row>> right,
+                                   int blockSize,
+                                   List<Object[]> expectedResult) throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator(
+            left.get(),
+            right.get(),
+            mock(RowAccounting.class),
+            new CombinedRow(1, 1),
+            joinType,
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> new Object[] { (Integer) row.get(0) % 3 },
+            row -> new Object[] { (Integer) row.get(0) % 3 },
+            ignored -> blockSize
+        );
+        var tester = BatchIteratorTester.forRows(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_inner_join() throws Exception {
+        assertJoin(JoinType.INNER, innerResult());
+    }
+
+    @Test
+    public void test_left_join() throws Exception {
+        List<Object[]> expectedResult = innerResult();
+        expectedResult.add(new Object[] { 0, null });
+        expectedResult.add(new Object[] { 0, null });
+        assertJoin(JoinType.LEFT, expectedResult);
+    }
+
+    @Test
+    public void test_right_join() throws Exception {
+        List<Object[]> expectedResult = innerResult();
+        expectedResult.add(new Object[] { null, 5 });
+        expectedResult.add(new Object[] { null, 5 });
+        expectedResult.add(new Object[] { null, 6 });
+        assertJoin(JoinType.RIGHT, expectedResult);
+    }
+
+    @Test
+    public void test_full_join() throws Exception {
+        List<Object[]> expectedResult = innerResult();
+        expectedResult.add(new Object[] { 0, null });
+        expectedResult.add(new Object[] { 0, null });
+        expectedResult.add(new Object[] { null, 5 });
+        expectedResult.add(new Object[] { null, 5 });
+        expectedResult.add(new Object[] { null, 6 });
+        assertJoin(JoinType.FULL, expectedResult);
+    }
+
+    @Test
+    public void test_right_join_with_empty_left_emits_all_right_rows() throws Exception {
+        assertJoin(
+            JoinType.RIGHT,
+            () -> TestingBatchIterators.range(0, 0),
+            () -> TestingBatchIterators.range(0, 3),
+            10,
+            Arrays.asList(new Object[] { null, 0 }, new Object[] { null, 1 }, new Object[] { null, 2 })
+        );
+    }
+
+    @Test
+    public void test_left_join_with_empty_right_emits_all_left_rows() throws Exception {
+        assertJoin(
+            JoinType.LEFT,
+            () -> TestingBatchIterators.range(0, 3),
+            () -> TestingBatchIterators.range(0, 0),
+            2,
+            Arrays.asList(new Object[] { 0, null }, new Object[] { 1, null }, new Object[] { 2, null })
+        );
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.Streamer;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.join.CombinedRow;
+import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.BatchSimulatingIterator;
+import io.crate.data.testing.TestingBatchIterators;
+import io.crate.execution.engine.sort.IgnoreRowCellsAccounting;
+import io.crate.execution.engine.spill.SpillFile;
+import io.crate.types.DataTypes;
+
+public class HybridHashInnerJoinBatchIteratorTest extends ESTestCase {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[] { DataTypes.INTEGER.streamer() };
+
+    private Path spillPath;
+
+    @Before
+    public void setupSpillPath() throws Exception {
+        spillPath = createTempDir();
+    }
+
+    private Supplier<SpillFile> spillFiles() {
+        return () -> {
+            try {
+                return new SpillFile(Files.createTempFile(spillPath, "spill-", ".bin"), STREAMERS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private BatchIterator<Row> joinIterator(BatchIterator<Row> left,
+                                            BatchIterator<Row> right,
+                                            int numPartitions,
+                                            LongPredicate mustSpill) {
+        return new HybridHashInnerJoinBatchIterator(
+            left,
+            right,
+            new IgnoreRowCellsAccounting(),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> new Object[] { row.get(0) },
+            row -> new Object[] { row.get(0) },
+            numPartitions,
+            mustSpill,
+            spillFiles(),
+            spillFiles()
+        );
+    }
+
+    private static List<Object[]> duplicateValuesResult() {
+        return Arrays.asList(
+            new Object[] { 1, 1 }, new Object[] { 1, 1 },
+            new Object[] { 2, 2 }, new Object[] { 2, 2 },
+            new Object[] { 3, 3 },
+            new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }, new Object[] { 4, 4 }
+        );
+    }
+
+    private static BatchIterator<Row> leftWithDuplicates() {
+        return new BatchSimulatingIterator<>(
+            TestingBatchIterators.ofValues(Arrays.asList(0, 0, 1, 2, 2, 3, 4, 4)), 2, 4, null);
+    }
+
+    private static BatchIterator<Row> rightWithDuplicates() {
+        return new BatchSimulatingIterator<>(
+            TestingBatchIterators.ofValues(Arrays.asList(1, 1, 2, 3, 4, 4, 5, 5, 6)), 2, 4, null);
+    }
+
+    @Test
+    public void test_join_without_spilling() throws Exception {
+        var tester = BatchIteratorTester.forRows(() -> joinIterator(
+            leftWithDuplicates(),
+            rightWithDuplicates(),
+            8,
+            bytes -> false
+        ));
+        tester.verifyResultAndEdgeCaseBehaviour(duplicateValuesResult());
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_join_with_all_partitions_spilled() throws Exception {
+        var tester = BatchIteratorTester.forRows(() -> joinIterator(
+            leftWithDuplicates(),
+            rightWithDuplicates(),
+            4,
+            bytes -> true
+        ));
+        tester.verifyResultAndEdgeCaseBehaviour(duplicateValuesResult());
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_join_with_unique_values_and_hash_collisions_spilled() throws Exception {
+        List<Object[]> expectedResult = Arrays.asList(new Object[] { 2, 2 }, new Object[] { 3, 3 }, new Object[] { 4, 4 });
+        var tester = BatchIteratorTester.forRows(() -> new HybridHashInnerJoinBatchIterator(
+            TestingBatchIterators.range(0, 5),
+            TestingBatchIterators.range(2, 6),
+            new IgnoreRowCellsAccounting(),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> new Object[] { (Integer) row.get(0) % 3 },
+            row -> new Object[] { (Integer) row.get(0) % 3 },
+            2,
+            bytes -> true,
+            spillFiles(),
+            spillFiles()
+        ));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_spilled_partition_exceeding_memory_is_joined_in_blocks() throws Exception {
+        int numRows = HybridHashInnerJoinBatchIterator.MIN_SPILLED_BLOCK_ROWS * 3;
+        List<Object[]> expectedResult = new ArrayList<>();
+        IntStream.range(numRows / 2, numRows).forEach(i -> {
+            expectedResult.add(new Object[] { i, i });
+            expectedResult.add(new Object[] { i, i });
+        });
+        BatchIterator<Row> it = joinIterator(
+            new BatchSimulatingIterator<>(TestingBatchIterators.range(0, numRows), 500, 6, null),
+            new BatchSimulatingIterator<>(
+                TestingBatchIterators.ofValues(
+                    IntStream.range(numRows / 2, numRows * 2).flatMap(i -> IntStream.of(i, i)).boxed().toList()),
+                700,
+                6,
+                null),
+            2,
+            bytes -> true
+        );
+        List<Object[]> result = it.map(Row::materialize).toList().get(5, TimeUnit.SECONDS);
+        assertThat(result).containsExactlyInAnyOrderElementsOf(expectedResult);
+        it.close();
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_partially_spilled_join_switches_to_spilling_during_build() throws Exception {
+        int numRows = 1000;
+        List<Object[]> expectedResult = new ArrayList<>();
+        IntStream.range(0, numRows).forEach(i -> expectedResult.add(new Object[] { i, i }));
+        int[] numChecks = new int[] { 0 };
+        BatchIterator<Row> it = joinIterator(
+            new BatchSimulatingIterator<>(TestingBatchIterators.range(0, numRows), 100, 10, null),
+            new BatchSimulatingIterator<>(TestingBatchIterators.range(0, numRows), 100, 10, null),
+            16,
+            // Starts spilling after half of the left side is loaded
+            bytes -> ++numChecks[0] > numRows / 2
+        );
+        List<Object[]> result = it.map(Row::materialize).toList().get(5, TimeUnit.SECONDS);
+        assertThat(result).containsExactlyInAnyOrderElementsOf(expectedResult);
+        it.close();
+        assertNoSpillFilesLeft();
+    }
+
+    @Test
+    public void test_spilling_halves_the_memory_of_the_join_instead_of_spilling_all_partitions() throws Exception {
+        int numRows = 1000;
+        int numPartitions = 16;
+        List<Object[]> expectedResult = new ArrayList<>();
+        IntStream.range(0, numRows).forEach(i -> expectedResult.add(new Object[] { i, i }));
+        Supplier<SpillFile> spillFiles = spillFiles();
+        int[] numLeftSpillFiles = new int[] { 0 };
+        BatchIterator<Row> it = new HybridHashInnerJoinBatchIterator(
+            TestingBatchIterators.range(0, numRows),
+            TestingBatchIterators.range(0, numRows),
+            new IgnoreRowCellsAccounting(),
+            new CombinedRow(1, 1),
+            row -> Objects.equals(row.get(0), row.get(1)),
+            row -> new Object[] { row.get(0) },
+            row -> new Object[] { row.get(0) },
+            numPartitions,
+            // IgnoreRowCellsAccounting accounts 42 bytes per row, spill once 600 rows are in memory
+            bytes -> bytes >= 42 * 600,
+            () -> {
+                numLeftSpillFiles[0]++;
+                return spillFiles.get();
+            },
+            spillFiles
+        );
+        List<Object[]> result = it.map(Row::materialize).toList().get(5, TimeUnit.SECONDS);
+        assertThat(result).containsExactlyInAnyOrderElementsOf(expectedResult);
+        assertThat(numLeftSpillFiles[0]).isBetween(1, numPartitions - 1);
+        it.close();
+        assertNoSpillFilesLeft();
+    }
+
+    private void assertNoSpillFilesLeft() throws IOException {
+        // the mock filesystem of the test framework may add extra files, only look at spill files
+        try (var files = Files.list(spillPath)) {
+            assertThat(files.filter(f -> f.getFileName().toString().startsWith("spill-")).toList()).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class JoinHashTableTest extends ESTestCase {
+
+    private static List<Object[]> rowsWithKeys(JoinHashTable table, int hash, Object... keys) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int pos = table.first(hash, keys); pos != -1; pos = table.next(pos)) {
+            rows.add(table.row(pos));
+        }
+        return rows;
+    }
+
+    private static void add(JoinHashTable table, Object[] row) {
+        Object[] keys = new Object[] { row[0] };
+        table.add(JoinHashTable.hash(keys), keys, row);
+    }
+
+    @Test
+    public void test_rows_are_chained_by_equal_keys() {
+        JoinHashTable table = new JoinHashTable();
+        Object[] a1 = new Object[] { "a", 1 };
+        Object[] b = new Object[] { "b", 2 };
+        Object[] a2 = new Object[] { "a", 3 };
+        add(table, a1);
+        add(table, b);
+        add(table, a2);
+
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(rowsWithKeys(table, JoinHashTable.hash(new Object[] { "a" }), "a")).containsExactlyInAnyOrder(a1, a2);
+        assertThat(rowsWithKeys(table, JoinHashTable.hash(new Object[] { "b" }), "b")).containsExactly(b);
+        assertThat(rowsWithKeys(table, JoinHashTable.hash(new Object[] { "c" }), "c")).isEmpty();
+    }
+
+    @Test
+    public void test_keys_with_the_same_hash_are_not_chained() {
+        JoinHashTable table = new JoinHashTable();
+        // Long.hashCode folds the upper into the lower 32 bits, both have a hash of 0
+        long key1 = 0L;
+        long key2 = (1L << 32) | 1L;
+        assertThat(Long.hashCode(key1)).isEqualTo(Long.hashCode(key2));
+        Object[] row1 = new Object[] { key1 };
+        Object[] row2 = new Object[] { key2 };
+        add(table, row1);
+        add(table, row2);
+
+        int hash = JoinHashTable.hash(row1);
+        assertThat(JoinHashTable.hash(row2)).isEqualTo(hash);
+        assertThat(rowsWithKeys(table, hash, key1)).containsExactly(row1);
+        assertThat(rowsWithKeys(table, hash, key2)).containsExactly(row2);
+        assertThat(rowsWithKeys(table, hash, 42L)).isEmpty();
+    }
+
+    @Test
+    public void test_table_grows_and_keeps_all_rows() {
+        JoinHashTable table = new JoinHashTable();
+        int numRows = randomIntBetween(1_000, 10_000);
+        int numKeys = randomIntBetween(1, numRows);
+        for (int i = 0; i < numRows; i++) {
+            int key = i % numKeys;
+            // use hashes which collide in the lower bits and across keys
+            table.add((key % 64) * 1024, new Object[] { key }, new Object[] { i });
+        }
+        assertThat(table.size()).isEqualTo(numRows);
+        int found = 0;
+        for (int k = 0; k < numKeys; k++) {
+            for (Object[] row : rowsWithKeys(table, (k % 64) * 1024, k)) {
+                assertThat((int) row[0] % numKeys).isEqualTo(k);
+                found++;
+            }
+        }
+        assertThat(found).isEqualTo(numRows);
+        for (int i = 0; i < numRows; i++) {
+            assertThat(table.row(i)[0]).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void test_clear_and_release_remove_all_rows() {
+        JoinHashTable table = new JoinHashTable();
+        for (int i = 0; i < 100; i++) {
+            add(table, new Object[] { i });
+        }
+        int hash = JoinHashTable.hash(new Object[] { 5 });
+        table.clear();
+        assertThat(table.isEmpty()).isTrue();
+        assertThat(table.first(hash, new Object[] { 5 })).isEqualTo(-1);
+
+        add(table, new Object[] { 5 });
+        assertThat(rowsWithKeys(table, hash, 5)).hasSize(1);
+
+        table.release();
+        assertThat(table.isEmpty()).isTrue();
+        assertThat(table.first(hash, new Object[] { 5 })).isEqualTo(-1);
+    }
+}
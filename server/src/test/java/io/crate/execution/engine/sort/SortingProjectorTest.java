@@ -25,16 +25,23 @@ import static io.crate.testing.TestingHelpers.isRow;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Test;
 
+import io.crate.Streamer;
 import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.data.BatchIterator;
@@ -46,6 +53,7 @@ import io.crate.data.testing.TestingBatchIterators;
 import io.crate.data.testing.TestingRowConsumer;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.RowCollectExpression;
+import io.crate.execution.engine.spill.SpillService;
 import io.crate.expression.symbol.Literal;
 import io.crate.types.DataTypes;
 
@@ -98,6 +106,107 @@ public class SortingProjectorTest extends ESTestCase {
         }
     }
 
+    private SortingProjector createSpillingProjector(Path spillPath,
+                                                     int rowsPerRun,
+                                                     int offset,
+                                                     AtomicInteger numSpillFiles) {
+        RowCollectExpression input = new RowCollectExpression(0);
+        SpillService spillService = new SpillService(spillPath, Settings.EMPTY);
+        RowCellsAccountingWithEstimators rowAccounting = new RowCellsAccountingWithEstimators(
+            List.of(DataTypes.INTEGER, DataTypes.BOOLEAN),
+            ConcurrentRamAccounting.forCircuitBreaker("testContext", new NoopCircuitBreaker("test"), 0),
+            0
+        );
+        long bytesPerRow = rowAccounting.accountRowBytes(new Object[] { 1, true });
+        return new SortingProjector(
+            rowAccounting,
+            List.of(input, Literal.of(true)),
+            List.<CollectExpression<Row, ?>>of(input),
+            2,
+            OrderingByPosition.arrayOrdering(DataTypes.INTEGER, 0, true, false),
+            offset,
+            bytesInMemory -> bytesInMemory >= rowsPerRun * bytesPerRow,
+            () -> {
+                numSpillFiles.incrementAndGet();
+                return spillService.newFile(new Streamer<?>[] { DataTypes.INTEGER.streamer(), DataTypes.BOOLEAN.streamer() });
+            }
+        );
+    }
+
+    private static void assertNoSpillFilesLeft(Path spillPath) throws IOException {
+        // the mock filesystem of the test framework may add extra files, only look at spill files
+        try (var files = Files.list(spillPath)) {
+            assertThat(files.filter(f -> f.getFileName().toString().startsWith("spill-")).count(), is(0L));
+        }
+    }
+
+    private void assertSortedDescending(Bucket rows, int numRows) {
+        assertThat(rows.size(), is(numRows));
+        int expected = numRows;
+        for (Row row : rows) {
+            assertThat(row, isRow(expected--, true));
+        }
+    }
+
+    @Test
+    public void test_order_by_merges_sorted_runs_written_to_disk() throws Exception {
+        Path spillPath = createTempDir();
+        AtomicInteger numSpillFiles = new AtomicInteger();
+        int rowsPerRun = ExternalSortingCollector.MIN_RUN_ROWS;
+        SortingProjector projector = createSpillingProjector(spillPath, rowsPerRun, 0, numSpillFiles);
+
+        int numRows = rowsPerRun * 3 + 10;
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, numRows + 1)), null);
+
+        assertSortedDescending(consumer.getBucket(), numRows);
+        assertThat(numSpillFiles.get(), is(3));
+        assertNoSpillFilesLeft(spillPath);
+    }
+
+    @Test
+    public void test_order_by_with_offset_skips_rows_of_merged_runs() throws Exception {
+        Path spillPath = createTempDir();
+        int rowsPerRun = ExternalSortingCollector.MIN_RUN_ROWS;
+        SortingProjector projector = createSpillingProjector(spillPath, rowsPerRun, rowsPerRun + 5, new AtomicInteger());
+
+        int numRows = rowsPerRun * 3 + 10;
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, numRows + 1)), null);
+
+        assertSortedDescending(consumer.getBucket(), numRows - rowsPerRun - 5);
+        assertNoSpillFilesLeft(spillPath);
+    }
+
+    @Test
+    public void test_runs_contain_a_minimum_number_of_rows() throws Exception {
+        Path spillPath = createTempDir();
+        AtomicInteger numSpillFiles = new AtomicInteger();
+        SortingProjector projector = createSpillingProjector(spillPath, 1, 0, numSpillFiles);
+
+        int numRows = ExternalSortingCollector.MIN_RUN_ROWS * 2 + 10;
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, numRows + 1)), null);
+
+        assertSortedDescending(consumer.getBucket(), numRows);
+        assertThat(numSpillFiles.get(), is(2));
+        assertNoSpillFilesLeft(spillPath);
+    }
+
+    @Test
+    public void test_runs_exceeding_the_merge_fan_in_are_merged_in_multiple_passes() throws Exception {
+        Path spillPath = createTempDir();
+        AtomicInteger numSpillFiles = new AtomicInteger();
+        int rowsPerRun = ExternalSortingCollector.MIN_RUN_ROWS;
+        SortingProjector projector = createSpillingProjector(spillPath, rowsPerRun, 0, numSpillFiles);
+
+        int numRuns = ExternalSortingCollector.MAX_MERGE_FAN_IN * 2 + 1;
+        int numRows = rowsPerRun * numRuns + 10;
+        consumer.accept(projector.apply(TestingBatchIterators.range(1, numRows + 1)), null);
+
+        assertSortedDescending(consumer.getBucket(), numRows);
+        // the last run is left as is, the other runs are merged into two runs
+        assertThat(numSpillFiles.get(), is(numRuns + 2));
+        assertNoSpillFilesLeft(spillPath);
+    }
+
     @Test
     public void testInvalidOffset() throws Exception {
         expectedException.expect(IllegalArgumentException.class);
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.spill;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.LongPredicate;
+
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class SpillServiceTest extends ESTestCase {
+
+    private static class FixedUsageBreaker extends NoopCircuitBreaker {
+
+        private final long used;
+        private final long limit;
+
+        FixedUsageBreaker(long used, long limit) {
+            super("query");
+            this.used = used;
+            this.limit = limit;
+        }
+
+        @Override
+        public long getUsed() {
+            return used;
+        }
+
+        @Override
+        public long getLimit() {
+            return limit;
+        }
+    }
+
+    private LongPredicate memoryPressure(long breakerUsed, long breakerLimit, long operationMemoryLimitInBytes) {
+        SpillService spillService = new SpillService(createTempDir(), Settings.EMPTY);
+        return spillService.memoryPressure(new FixedUsageBreaker(breakerUsed, breakerLimit), operationMemoryLimitInBytes);
+    }
+
+    @Test
+    public void test_operation_spills_if_it_reaches_the_operation_limit() {
+        LongPredicate memoryPressure = memoryPressure(0, 1_000_000_000, 1000);
+        assertThat(memoryPressure.test(749)).isFalse();
+        assertThat(memoryPressure.test(750)).isTrue();
+    }
+
+    @Test
+    public void test_operation_holding_little_memory_does_not_spill_under_breaker_pressure() {
+        LongPredicate memoryPressure = memoryPressure(900, 1000, 0);
+        assertThat(memoryPressure.test(0)).isFalse();
+        assertThat(memoryPressure.test(SpillService.MIN_SPILL_BYTES - 1)).isFalse();
+        assertThat(memoryPressure.test(SpillService.MIN_SPILL_BYTES)).isTrue();
+    }
+
+    @Test
+    public void test_operation_does_not_spill_below_breaker_threshold() {
+        long limit = 100 * SpillService.MIN_SPILL_BYTES;
+        LongPredicate memoryPressure = memoryPressure(limit / 2, limit, 0);
+        assertThat(memoryPressure.test(limit / 2)).isFalse();
+    }
+}
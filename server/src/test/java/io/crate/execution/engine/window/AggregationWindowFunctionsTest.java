@@ -332,4 +332,42 @@ public class AggregationWindowFunctionsTest extends AbstractWindowFunctionTest {
             rows
         );
     }
+
+    @Test
+    public void test_max_over_sliding_rows_frame() throws Throwable {
+        Object[][] rows = {
+            $(1, 3.0d),
+            $(2, 1.0d),
+            $(3, 4.0d),
+            $(4, 1.0d),
+            $(5, 5.0d),
+            $(6, 9.0d),
+        };
+        Object[] expected = new Object[] {3.0d, 4.0d, 4.0d, 5.0d, 9.0d, 9.0d};
+        assertEvaluate(
+            "max(d) over (order by x rows between 1 preceding and 1 following)",
+            expected,
+            List.of(new ColumnIdent("x"), new ColumnIdent("d")),
+            rows
+        );
+    }
+
+    @Test
+    public void test_min_over_sliding_rows_frame_ending_at_current_row() throws Throwable {
+        Object[][] rows = {
+            $(1, 3.0d),
+            $(2, 1.0d),
+            $(3, 4.0d),
+            $(4, 1.0d),
+            $(5, 5.0d),
+            $(6, 9.0d),
+        };
+        Object[] expected = new Object[] {3.0d, 1.0d, 1.0d, 1.0d, 1.0d, 5.0d};
+        assertEvaluate(
+            "min(d) over (order by x rows between 1 preceding and current row)",
+            expected,
+            List.of(new ColumnIdent("x"), new ColumnIdent("d")),
+            rows
+        );
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.execution.engine.window;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.data.BatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.breaker.RamAccounting;
+import io.crate.data.testing.BatchIteratorTester;
+import io.crate.data.testing.BatchSimulatingIterator;
+import io.crate.data.testing.TestingBatchIterators;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.sort.OrderingByPosition;
+import io.crate.metadata.functions.BoundSignature;
+import io.crate.metadata.functions.Signature;
+import io.crate.sql.tree.FrameBound;
+import io.crate.sql.tree.WindowFrame;
+import io.crate.types.DataTypes;
+
+public class SortedWindowFunctionBatchIteratorTest extends ESTestCase {
+
+    private static final Comparator<Object[]> CMP_ORDER_BY =
+        OrderingByPosition.arrayOrdering(DataTypes.INTEGER, 0, false, false);
+
+    // partition by x / 4
+    private static final Comparator<Object[]> CMP_PARTITION_BY =
+        Comparator.comparingInt(cells -> (int) cells[0] / 4);
+
+    private static final List<Object[]> EXPECTED_ROW_NUMBERS = IntStream.range(0, 10)
+        .mapToObj(i -> new Object[] { i, i % 4 + 1 })
+        .toList();
+
+    private static ComputeFrameBoundary<Object[]> frameStart(FrameBound.Type type) {
+        return (partitionStart, partitionEnd, currentIndex, sortedRows) -> type.getStart(
+            WindowFrame.Mode.RANGE, partitionStart, partitionEnd, currentIndex, null, null, CMP_ORDER_BY, sortedRows);
+    }
+
+    private static ComputeFrameBoundary<Object[]> frameEnd(FrameBound.Type type) {
+        return (partitionStart, partitionEnd, currentIndex, sortedRows) -> type.getEnd(
+            WindowFrame.Mode.RANGE, partitionStart, partitionEnd, currentIndex, null, null, CMP_ORDER_BY, sortedRows);
+    }
+
+    private static BatchIterator<Row> sortedWindowIterator(BatchIterator<Row> source,
+                                                           boolean streamFrames,
+                                                           WindowFunction windowFunction) {
+        return new SortedWindowFunctionBatchIterator(
+            source,
+            new IgnoreRowAccounting(),
+            RamAccounting.NO_ACCOUNTING,
+            frameStart(FrameBound.Type.UNBOUNDED_PRECEDING),
+            frameEnd(FrameBound.Type.CURRENT_ROW),
+            CMP_PARTITION_BY,
+            CMP_ORDER_BY,
+            1,
+            streamFrames,
+            List.of(windowFunction),
+            List.of(),
+            new Boolean[] { null },
+            new Input[0]
+        );
+    }
+
+    @Test
+    public void test_computes_window_functions_one_partition_at_a_time() throws Exception {
+        var tester = BatchIteratorTester.forRows(
+            () -> sortedWindowIterator(TestingBatchIterators.range(0, 10), false, rowNumber()));
+        tester.verifyResultAndEdgeCaseBehaviour(EXPECTED_ROW_NUMBERS);
+    }
+
+    @Test
+    public void test_computes_window_functions_over_batched_source() throws Exception {
+        var tester = BatchIteratorTester.forRows(
+            () -> sortedWindowIterator(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 3, 4, null), false, rowNumber()));
+        tester.verifyResultAndEdgeCaseBehaviour(EXPECTED_ROW_NUMBERS);
+    }
+
+    @Test
+    public void test_streaming_frames_computes_window_functions_while_partition_is_incomplete() throws Exception {
+        var tester = BatchIteratorTester.forRows(
+            () -> sortedWindowIterator(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 3, 4, null), true, rowNumber()));
+        tester.verifyResultAndEdgeCaseBehaviour(EXPECTED_ROW_NUMBERS);
+    }
+
+    @Test
+    public void test_streaming_frames_only_keeps_the_current_frame_in_memory() throws Exception {
+        RamAccounting ramAccounting = ConcurrentRamAccounting.forCircuitBreaker("test", new NoopCircuitBreaker("dummy"), 0);
+        int numRows = 10_000;
+        BatchIterator<Row> iterator = new SortedWindowFunctionBatchIterator(
+            TestingBatchIterators.range(0, numRows),
+            new RowAccountingWithEstimators(List.of(DataTypes.INTEGER), ramAccounting, 32),
+            ramAccounting,
+            frameStart(FrameBound.Type.UNBOUNDED_PRECEDING),
+            frameEnd(FrameBound.Type.CURRENT_ROW),
+            null,
+            CMP_ORDER_BY,
+            1,
+            true,
+            List.of(frameSizeAndLastValue()),
+            List.of(),
+            new Boolean[] { null },
+            new Input[0]
+        );
+        long maxBytes = 0;
+        int expected = 0;
+        while (iterator.moveNext()) {
+            Row row = iterator.currentElement();
+            assertThat(row.get(0)).isEqualTo(expected);
+            assertThat(row.get(1)).isEqualTo(List.of(expected + 1, expected));
+            maxBytes = Math.max(maxBytes, ramAccounting.totalBytes());
+            expected++;
+        }
+        assertThat(expected).isEqualTo(numRows);
+        // 48 bytes per row: 16 for the integer, 32 for the ArrayList element
+        assertThat(maxBytes).isLessThanOrEqualTo(2048 * 48L);
+        assertThat(ramAccounting.totalBytes()).isEqualTo(0L);
+    }
+
+    private static WindowFunction rowNumber() {
+        return new TestingWindowFunction("row_number") {
+
+            @Override
+            public Object execute(int idxInPartition,
+                                  WindowFrameState currentFrame,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  Boolean ignoreNulls,
+                                  Input... args) {
+                return idxInPartition + 1;
+            }
+        };
+    }
+
+    private static WindowFunction frameSizeAndLastValue() {
+        return new TestingWindowFunction("frame_size_and_last_value") {
+
+            @Override
+            public Object execute(int idxInPartition,
+                                  WindowFrameState currentFrame,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  Boolean ignoreNulls,
+                                  Input... args) {
+                Object[] lastRow = currentFrame.getRowInFrameAtIndexOrNull(currentFrame.upperBoundExclusive() - 1);
+                return List.of(currentFrame.size(), lastRow[0]);
+            }
+        };
+    }
+
+    private abstract static class TestingWindowFunction implements WindowFunction {
+
+        private final Signature signature;
+
+        TestingWindowFunction(String name) {
+            this.signature = Signature.window(name, DataTypes.INTEGER.getTypeSignature());
+        }
+
+        @Override
+        public Signature signature() {
+            return signature;
+        }
+
+        @Override
+        public BoundSignature boundSignature() {
+            return BoundSignature.sameAsUnbound(signature);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.expression.reference.doc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.lucene.document.InetAddressPoint;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.network.InetAddresses;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import io.crate.expression.reference.doc.lucene.DocValueDecoder;
+import io.crate.types.DataTypes;
+
+public class DocValueDecoderTest extends ESTestCase {
+
+    private static Object decode(DocValueDecoder decoder, long value) {
+        assertThat(decoder).isInstanceOf(DocValueDecoder.Numeric.class);
+        return ((DocValueDecoder.Numeric) decoder).decode(value);
+    }
+
+    private static Object decode(DocValueDecoder decoder, BytesRef value) {
+        assertThat(decoder).isInstanceOf(DocValueDecoder.Binary.class);
+        return ((DocValueDecoder.Binary) decoder).decode(value);
+    }
+
+    @Test
+    public void test_numeric_doc_values_are_decoded_to_the_value_of_the_type() {
+        assertThat(decode(DocValueDecoder.of(DataTypes.LONG), 42L)).isEqualTo(42L);
+        assertThat(decode(DocValueDecoder.of(DataTypes.INTEGER), 42L)).isEqualTo(42);
+        assertThat(decode(DocValueDecoder.of(DataTypes.SHORT), 42L)).isEqualTo((short) 42);
+        assertThat(decode(DocValueDecoder.of(DataTypes.TIMESTAMPZ), 42L)).isEqualTo(42L);
+        assertThat(decode(DocValueDecoder.of(DataTypes.FLOAT), NumericUtils.floatToSortableInt(1.5f))).isEqualTo(1.5f);
+        assertThat(decode(DocValueDecoder.of(DataTypes.DOUBLE), NumericUtils.doubleToSortableLong(2.5))).isEqualTo(2.5);
+        assertThat(decode(DocValueDecoder.of(DataTypes.BOOLEAN), 1L)).isEqualTo(true);
+        assertThat(decode(DocValueDecoder.of(DataTypes.BOOLEAN), 0L)).isEqualTo(false);
+    }
+
+    @Test
+    public void test_binary_doc_values_are_decoded_to_the_value_of_the_type() {
+        assertThat(decode(DocValueDecoder.of(DataTypes.STRING), new BytesRef("foo"))).isEqualTo("foo");
+        BytesRef ip = new BytesRef(InetAddressPoint.encode(InetAddresses.forString("192.168.0.1")));
+        assertThat(decode(DocValueDecoder.of(DataTypes.IP), ip)).isEqualTo("192.168.0.1");
+    }
+
+    @Test
+    public void test_types_without_doc_value_decoding_have_no_decoder() {
+        assertThat(DocValueDecoder.of(DataTypes.UNTYPED_OBJECT)).isNull();
+        assertThat(DocValueDecoder.of(DataTypes.GEO_POINT)).isNull();
+        assertThat(DocValueDecoder.of(DataTypes.STRING_ARRAY)).isNull();
+    }
+}
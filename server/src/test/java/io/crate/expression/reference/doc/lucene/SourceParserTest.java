@@ -31,6 +31,9 @@ import java.util.Set;
 import java.util.function.Function;
 
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Test;
 
@@ -59,6 +62,46 @@ public class SourceParserTest extends ESTestCase {
         assertThat(result.get("y")).isNull();
     }
 
+    @Test
+    public void test_parsing_stops_once_all_required_columns_are_read() throws Exception {
+        SourceParser sourceParser = new SourceParser(Set.of(), Function.identity());
+        sourceParser.register(new ColumnIdent("_doc", List.of("x")), DataTypes.INTEGER);
+        sourceParser.register(new ColumnIdent("_doc", List.of("obj", "a")), DataTypes.INTEGER);
+        // The remainder after the required columns is never read, so the invalid trailing content doesn't matter
+        Map<String, Object> result = sourceParser.parse(new BytesArray(
+            """
+                {"obj": {"a": 1, "b": 2}, "y": 20, "x": 10, "z": [
+            """));
+
+        assertThat(result).containsOnlyKeys("obj", "x");
+        assertThat(result.get("x")).isEqualTo(10);
+        assertThat(result.get("y")).isNull();
+        assertThat(Maps.getByPath(result, "obj.a")).isEqualTo(1);
+        assertThat(Maps.getByPath(result, "obj.b")).isNull();
+    }
+
+    @Test
+    public void test_parse_compact_source_skips_unregistered_columns() throws Exception {
+        SourceParser sourceParser = new SourceParser(Set.of(), key -> Map.of("1", "x", "2", "obj", "3", "a").getOrDefault(key, key));
+        sourceParser.register(new ColumnIdent("_doc", List.of("x")), DataTypes.INTEGER);
+        sourceParser.register(new ColumnIdent("_doc", List.of("obj", "a")), DataTypes.LONG);
+        XContentBuilder builder = CompactXContent.contentBuilder()
+            .startObject()
+                .startObject("2")
+                    .field("3", 1)
+                    .startArray("4").value("ignored").endArray()
+                .endObject()
+                .field("5", "ignored")
+                .field("1", 10)
+            .endObject();
+        Map<String, Object> result = sourceParser.parse(BytesReference.bytes(builder));
+
+        assertThat(result).containsOnlyKeys("obj", "x");
+        assertThat(result.get("x")).isEqualTo(10);
+        assertThat(Maps.getByPath(result, "obj.a")).isEqualTo(1L);
+        assertThat(Maps.getByPath(result, "obj.4")).isNull();
+    }
+
     @Test
     public void test_unnecessary_leafs_of_object_columns_are_not_collected() throws Exception {
         SourceParser sourceParser = new SourceParser(Set.of(), Function.identity());
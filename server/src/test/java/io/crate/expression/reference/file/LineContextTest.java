@@ -25,6 +25,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Test;
@@ -44,4 +45,16 @@ public class LineContextTest extends ESTestCase {
         assertNull(context.get(new ColumnIdent("details", "invalid")));
         assertEquals(43, context.get(new ColumnIdent("details", "age")));
     }
+
+    @Test
+    public void test_raw_source_is_generated_from_parsed_source() {
+        LineContext context = new LineContext(new LineCursor());
+        LinkedHashMap<String, Object> source = new LinkedHashMap<>();
+        source.put("name", "foo");
+        source.put("age", 43);
+        context.parsedSource(source);
+
+        assertEquals(43, context.get(new ColumnIdent("age")));
+        assertEquals("{\"name\":\"foo\",\"age\":43}", context.sourceAsString());
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.integrationtests;
+
+import static io.crate.testing.Asserts.assertThat;
+
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.test.IntegTestCase;
+import org.junit.Test;
+
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.testing.TestingHelpers;
+
+public class CompactSourceIntegrationTest extends IntegTestCase {
+
+    private static final String COLUMNS = """
+        (
+            id int primary key,
+            name text,
+            o object as (x int, tags array(text)),
+            d double,
+            f real,
+            b boolean,
+            bits bit(4),
+            ts timestamp with time zone
+        )
+        """;
+
+    private static final String VALUES = """
+        (1, 'Arthur', {x = 10, tags = ['a', 'b']}, 1.5, 1.1, true, B'1001', '2023-01-01T10:00:00Z'),
+        (2, 'Trillian', {x = 20, tags = []}, -2.25, 0.3, false, B'0110', null),
+        (3, null, null, null, null, null, null, null)
+        """;
+
+    @Test
+    public void test_compact_source_returns_same_results_as_json_source() throws Exception {
+        execute("create table t_json " + COLUMNS + " clustered into 2 shards with (number_of_replicas = 0)");
+        execute("create table t_compact " + COLUMNS +
+                " clustered into 2 shards with (number_of_replicas = 0, source_format = 'compact')");
+        execute("insert into t_json values " + VALUES);
+        execute("insert into t_compact values " + VALUES);
+        execute("refresh table t_json, t_compact");
+
+        for (String stmt : new String[] {
+            "select id, name, o, d, f, b, ts, bits = B'1001' from %s order by id",
+            "select _doc['name'], o['tags'], f from %s order by id",
+            "select name, d from %s where id = 2",
+            "select id, f from %s where f > 1.0"
+        }) {
+            execute(String.format(stmt, "t_json"));
+            String expected = TestingHelpers.printedTable(response.rows());
+            execute(String.format(stmt, "t_compact"));
+            assertThat(response).as(stmt).hasRows(expected.split("\n"));
+        }
+    }
+
+    @Test
+    public void test_update_and_dynamic_columns_on_table_with_compact_source() throws Exception {
+        execute("create table t (id int primary key, name text, o object(dynamic) as (x int)) " +
+                "with (number_of_replicas = 1, source_format = 'compact')");
+        ensureGreen();
+        execute("insert into t (id, name, o) values (1, 'Arthur', {x = 1}), (2, 'Ford', {x = 2, y = 'foo'})");
+        execute("update t set name = name || '!', o['x'] = o['x'] + 10 where id = 1");
+        execute("insert into t (id, name) values (2, 'Zaphod') on conflict (id) do update set name = excluded.name");
+        execute("refresh table t");
+
+        // Reads from primaries and replicas must be equal
+        for (int i = 0; i < 4; i++) {
+            execute("select id, name, o from t order by id");
+            assertThat(response).hasRows(
+                "1| Arthur!| {x=11}",
+                "2| Zaphod| {x=2, y=foo}"
+            );
+        }
+    }
+
+    @Test
+    public void test_changing_source_format_keeps_existing_documents_readable() throws Exception {
+        execute("create table t (id int, name text) with (number_of_replicas = 0, source_format = 'compact')");
+        execute("insert into t (id, name) values (1, 'Arthur')");
+        execute("alter table t set (source_format = 'json')");
+        // The setting is dynamic, new rows are written in the new format without re-opening the table
+        assertThat(sourceFormat("t")).isEqualTo("json");
+        execute("insert into t (id, name) values (2, 'Trillian')");
+        execute("alter table t set (source_format = 'compact')");
+        assertThat(sourceFormat("t")).isEqualTo("compact");
+        execute("insert into t (id, name) values (3, 'Ford')");
+        execute("refresh table t");
+
+        execute("select id, name from t order by id");
+        assertThat(response).hasRows(
+            "1| Arthur",
+            "2| Trillian",
+            "3| Ford"
+        );
+        // _raw is always returned as JSON
+        execute("select _raw from t order by id");
+        assertThat((String) response.rows()[0][0]).startsWith("{").contains(":\"Arthur\"");
+        assertThat((String) response.rows()[1][0]).startsWith("{").contains(":\"Trillian\"");
+        assertThat((String) response.rows()[2][0]).startsWith("{").contains(":\"Ford\"");
+    }
+
+    private String sourceFormat(String table) {
+        DocTableInfo tableInfo = cluster().getInstance(Schemas.class)
+            .getTableInfo(new RelationName(sqlExecutor.getCurrentSchema(), table));
+        return IndexSettings.INDEX_SOURCE_FORMAT_SETTING.get(tableInfo.parameters());
+    }
+}
@@ -117,6 +117,43 @@ public class CopyIntegrationTest extends SQLHttpIntegrationTest {
         assertThat(response.rows()[0][0]).isEqualTo("Don't pa\u00f1ic.");
     }
 
+    @Test
+    public void test_copy_from_parquet_file() {
+        execute("create table quotes (id int primary key, quote string, created timestamp with time zone, " +
+                "day timestamp with time zone, score double, flag boolean) with (number_of_replicas = 0)");
+
+        execute("copy quotes from ?", new Object[] {copyFilePath + "test_copy_from.parquet"});
+        assertThat(response).hasRowCount(4L);
+        refresh();
+
+        execute("select id, quote, created, day, score, flag from quotes order by id");
+        assertThat(response).hasRows(
+            "1| Don't pa\u00f1ic.| 1600000000123| 1555200000000| 1.5| true",
+            "2| Would it save you a lot of time if I just gave up and went mad now?| NULL| NULL| NULL| false",
+            "3| Time is an illusion. Lunchtime doubly so.| 1700000000000| 1641600000000| -2.25| NULL",
+            "4| Don't pa\u00f1ic.| NULL| 1641686400000| 42.0| true"
+        );
+    }
+
+    @Test
+    public void test_copy_from_parquet_file_reads_only_the_target_columns() {
+        execute("create table quotes (id int primary key, quote string, score double) " +
+                "with (number_of_replicas = 0)");
+
+        execute("copy quotes (id, score) from ? with (format = 'parquet')",
+            new Object[] {copyFilePath + "test_copy_from.parquet"});
+        assertThat(response).hasRowCount(4L);
+        refresh();
+
+        execute("select id, quote, score from quotes order by id");
+        assertThat(response).hasRows(
+            "1| NULL| 1.5",
+            "2| NULL| NULL",
+            "3| NULL| -2.25",
+            "4| NULL| 42.0"
+        );
+    }
+
     @Test
     public void testCopyFromFileWithCSVOptionWithDynamicColumnCreation() {
         execute("create table quotes (id int primary key, " +
@@ -1150,7 +1150,8 @@ public class JoinIntegrationTest extends IntegTestCase {
         execute("create table t4 (id int primary key, d int)");
         execute("insert into t1 (id, a) values (1, 1), (2, 10)");
         execute("insert into t2 (id, b) values (1, 2), (2, 20)");
-        execute("insert into t3 (id, c) values (1, 2), (3, 30)");
+        // t3 must have more rows than the join of t1 and t2 to be moved to the left side
+        execute("insert into t3 (id, c) values (1, 2), (3, 30), (4, 40)");
         execute("insert into t4 (id, d) values (1, 3)");
 
         execute("refresh table t1, t2, t3, t4");
@@ -1173,7 +1174,7 @@ public class JoinIntegrationTest extends IntegTestCase {
         // This should prevent from the test case becoming invalid
         assertThat(response.rows()[0][0]).isEqualTo(
             """
-                NestedLoopJoin[LEFT | (id = id)]
+                HashJoin[LEFT | (id = id)]
                   ├ Eval[id, a, id, b, id, c]
                   │  └ HashJoin[(id = id)]
                   │    ├ Collect[doc.t3 | [id, c] | true]
@@ -1363,6 +1364,7 @@ public class JoinIntegrationTest extends IntegTestCase {
      */
     @UseRandomizedSchema(random = false)
     @UseRandomizedOptimizerRules(0)
+    @UseHashJoins(0)
     @Test
     public void test_nested_loop_join_works_as_the_left_side_of_another_join() {
         execute("CREATE TABLE t1 (x int) CLUSTERED INTO 3 SHARDS");
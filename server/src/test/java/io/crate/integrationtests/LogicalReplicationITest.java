@@ -414,6 +414,35 @@ public class LogicalReplicationITest extends LogicalReplicationITestCase {
         }, 10, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void test_subscribed_table_receives_updates_of_concurrently_fetched_batches() throws Exception {
+        executeOnPublisher("CREATE TABLE doc.t1 (id INT PRIMARY KEY, x INT) CLUSTERED INTO 1 SHARDS WITH(" +
+                           defaultTableSettings() +
+                           ")");
+        createPublication("pub1", false, List.of("doc.t1"));
+        createSubscription("sub1", "pub1");
+        ensureGreenOnSubscriber();
+
+        int numDocs = 200;
+        var bulkArgs = new Object[numDocs][2];
+        for (int i = 0; i < numDocs; i++) {
+            bulkArgs[i][0] = i;
+            bulkArgs[i][1] = i;
+        }
+        executeBulkOnPublisher("INSERT INTO doc.t1 (id, x) VALUES (?, ?)", bulkArgs);
+        // Updates of rows in earlier batches must be replayed after the inserts
+        executeOnPublisher("UPDATE doc.t1 SET x = x * 2 WHERE id % 2 = 0");
+        executeOnPublisher("UPDATE doc.t1 SET x = x + 1 WHERE id % 5 = 0");
+        executeOnPublisher("REFRESH TABLE doc.t1");
+        var expected = executeOnPublisher("SELECT count(*), sum(x) FROM doc.t1");
+
+        assertBusy(() -> {
+            executeOnSubscriber("REFRESH TABLE doc.t1");
+            var res = executeOnSubscriber("SELECT count(*), sum(x) FROM doc.t1");
+            assertThat(res.rows()[0]).isEqualTo(expected.rows()[0]);
+        }, 20, TimeUnit.SECONDS);
+    }
+
     @Test
     public void test_write_to_subscribed_table_is_forbidden() throws Exception {
         executeOnPublisher("CREATE TABLE doc.t1 (id INT) WITH(" +
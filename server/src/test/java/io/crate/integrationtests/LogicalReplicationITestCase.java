@@ -213,6 +213,8 @@ public abstract class LogicalReplicationITestCase extends ESTestCase {
         builder.put(REPLICATION_READ_POLL_DURATION.getKey(), "10ms");
         // reduce batch size to test repeated polling of changes
         builder.put(LogicalReplicationSettings.REPLICATION_CHANGE_BATCH_SIZE.getKey(), "20");
+        // fetch batches concurrently to test the ordered replay of batches
+        builder.put(LogicalReplicationSettings.REPLICATION_MAX_CONCURRENT_READS.getKey(), randomIntBetween(1, 4));
         return builder.build();
     }
 
@@ -104,4 +104,46 @@ public class MetricsITest extends IntegTestCase {
         execute("SELECT sum(total_count) FROM sys.jobs_metrics WHERE classification['type'] = 'SELECT'");
         assertThat(response.rows()[0][0], Matchers.is((long) numQueries));
     }
+
+    @Test
+    public void test_statement_metrics_aggregate_executions_of_normalized_statements() throws Exception {
+        execute("CREATE TABLE tbl (x INT) CLUSTERED INTO 1 SHARDS");
+        execute("INSERT INTO tbl (x) VALUES (1), (2), (3)");
+        execute("REFRESH TABLE tbl");
+        int numQueries = 10;
+        for (int i = 0; i < numQueries; i++) {
+            execute("SELECT x FROM tbl WHERE x > " + i % 2);
+        }
+
+        assertBusy(() -> {
+            execute("SELECT sum(calls), sum(rows), sum(failed_count) FROM sys.statement_metrics " +
+                    "WHERE stmt = 'SELECT x FROM tbl WHERE x > ?'");
+            assertThat(response.rows()[0][0]).isEqualTo((long) numQueries);
+            assertThat(response.rows()[0][1]).isEqualTo(25L);
+            assertThat(response.rows()[0][2]).isEqualTo(0L);
+        });
+
+        execute("SELECT min <= max, mean >= 0, percentiles['99'] >= 0, node['name'] IS NOT NULL " +
+                "FROM sys.statement_metrics WHERE stmt = 'SELECT x FROM tbl WHERE x > ?'");
+        for (Object[] row : response.rows()) {
+            assertThat(row).containsOnly(true);
+        }
+    }
+
+    @Test
+    public void test_statement_metrics_record_affected_rows_of_dml_and_bulk_statements() throws Exception {
+        execute("CREATE TABLE tbl (x INT) CLUSTERED INTO 1 SHARDS");
+        execute("INSERT INTO tbl (x) VALUES (?)", new Object[][] { new Object[] { 1 }, new Object[] { 2 } });
+        execute("INSERT INTO tbl (x) VALUES (3), (4), (5)");
+        execute("REFRESH TABLE tbl");
+        execute("UPDATE tbl SET x = x + 10 WHERE x = ?", new Object[][] {
+            new Object[] { 1 }, new Object[] { 2 }, new Object[] { 3 }, new Object[] { 4 }
+        });
+
+        assertBusy(() -> {
+            execute("SELECT rows FROM sys.statement_metrics " +
+                    "WHERE stmt LIKE 'INSERT INTO tbl%' OR stmt LIKE 'UPDATE tbl%' ORDER BY rows");
+            assertThat(response.rows()).isEqualTo(new Object[][] { { 2L }, { 3L }, { 4L } });
+        });
+    }
 }
@@ -153,7 +153,8 @@ public class OuterJoinIntegrationTest extends IntegTestCase {
         execute("SELECT t2.id, t2.t1_id, t1.id, t1.is_match " +
                 "FROM t2 " +
                 "FULL OUTER JOIN t1 ON (t1.id = t2.t1_id) " +
-                "WHERE (t1.is_match = 1) ");
+                "WHERE (t1.is_match = 1) " +
+                "ORDER BY t1.id");
         assertThat(printedTable(response.rows()), is("2| 2| 2| 1\n" +
                                                      "NULL| NULL| 36| 1\n"));
     }
@@ -27,6 +27,9 @@ import static io.crate.protocols.postgres.PostgresNetty.PSQL_PORT_SETTING;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.Array;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
@@ -54,7 +57,10 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
+import org.postgresql.PGConnection;
 import org.postgresql.PGProperty;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.postgresql.geometric.PGpoint;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.util.PGobject;
@@ -495,6 +501,37 @@ public class PostgresTest extends IntegTestCase {
         }
     }
 
+    @Test
+    public void test_query_then_fetch_with_small_fetch_size_fetches_rows_in_order() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().executeUpdate(
+                "create table t (x int, s text) clustered into 3 shards with (number_of_replicas = 0)");
+            PreparedStatement preparedStatement = conn.prepareStatement("insert into t (x, s) values (?, ?)");
+            for (int i = 0; i < 50; i++) {
+                preparedStatement.setInt(1, i);
+                preparedStatement.setString(2, "s" + i);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+
+            conn.createStatement().executeUpdate("refresh table t");
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                // Each page requires several fetch requests, the next one is sent while the previous rows are consumed
+                st.setFetchSize(5);
+                try (ResultSet resultSet = st.executeQuery("select s, x from t order by x limit 40")) {
+                    int expected = 0;
+                    while (resultSet.next()) {
+                        assertThat(resultSet.getInt(2)).isEqualTo(expected);
+                        assertThat(resultSet.getString(1)).isEqualTo("s" + expected);
+                        expected++;
+                    }
+                    assertThat(expected).isEqualTo(40);
+                }
+            }
+        }
+    }
+
     @Test
     public void test_query_inbetween_suspended_fetch_operation() throws Exception {
         try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
@@ -1235,6 +1272,75 @@ public class PostgresTest extends IntegTestCase {
         }
     }
 
+    @Test
+    public void test_copy_from_stdin_and_copy_to_stdout() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().execute("create table tbl (id int primary key, name text)");
+            StringBuilder data = new StringBuilder();
+            for (int i = 0; i < 2500; i++) {
+                data.append("{\"id\": ").append(i).append(", \"name\": \"name-").append(i).append("\"}\n");
+            }
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            long numRows = copyManager.copyIn("copy tbl from stdin", new StringReader(data.toString()), 100);
+            assertThat(numRows).isEqualTo(2500L);
+
+            conn.createStatement().execute("refresh table tbl");
+            ResultSet result = conn.createStatement().executeQuery("select count(*), sum(id) from tbl");
+            assertThat(result.next()).isTrue();
+            assertThat(result.getLong(1)).isEqualTo(2500L);
+            assertThat(result.getLong(2)).isEqualTo(2500L * 2499 / 2);
+
+            StringWriter out = new StringWriter();
+            numRows = copyManager.copyOut("copy tbl (id, name) where id < 3 to stdout", out);
+            assertThat(numRows).isEqualTo(3L);
+            assertThat(out.toString().lines().sorted()).containsExactly(
+                "[0,\"name-0\"]",
+                "[1,\"name-1\"]",
+                "[2,\"name-2\"]"
+            );
+
+            out = new StringWriter();
+            copyManager.copyOut("copy tbl where id = 1 to stdout", out);
+            assertThat(out.toString())
+                .startsWith("{")
+                .endsWith("}\n")
+                .contains("\"id\":1", "\"name\":\"name-1\"");
+        }
+    }
+
+    @Test
+    public void test_copy_from_stdin_with_csv_format_and_failures() throws Exception {
+        try (Connection conn = DriverManager.getConnection(url(RW), properties)) {
+            conn.createStatement().execute("create table tbl (id int, name text)");
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+            long numRows = copyManager.copyIn(
+                "copy tbl from stdin with (format = 'csv')",
+                new StringReader("id,name\r\n1,Arthur\r\n2,Trillian\r\nx,Ford"));
+            assertThat(numRows).isEqualTo(2L);
+
+            conn.createStatement().execute("refresh table tbl");
+            ResultSet result = conn.createStatement().executeQuery("select name from tbl order by id");
+            assertThat(result.next()).isTrue();
+            assertThat(result.getString(1)).isEqualTo("Arthur");
+            assertThat(result.next()).isTrue();
+            assertThat(result.getString(1)).isEqualTo("Trillian");
+
+            assertThatThrownBy(() -> copyManager.copyIn("copy unknown from stdin", new StringReader("{}")))
+                .isExactlyInstanceOf(PSQLException.class)
+                .hasMessageContaining("Relation 'unknown' unknown");
+
+            CopyIn copyIn = copyManager.copyIn("copy tbl from stdin");
+            byte[] line = "{\"id\": 3}\n".getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(line, 0, line.length);
+            // The client expects the error response to CopyFail and doesn't raise it
+            copyIn.cancelCopy();
+            assertThat(copyIn.isActive()).isFalse();
+
+            // The connection can still be used
+            assertSelectNameFromSysClusterWorks(conn);
+        }
+    }
+
     private long getNumQueriesFromJobsLogs() {
         long result = 0;
         Iterable<JobsLogs> jobLogs = cluster().getInstances(JobsLogs.class);
@@ -24,10 +24,15 @@ package io.crate.integrationtests;
 import static io.crate.testing.Asserts.assertThat;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.util.EntityUtils;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.junit.Test;
 
 public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
@@ -157,4 +162,63 @@ public class RestSQLActionIntegrationTest extends SQLHttpIntegrationTest {
             assertThat(bodyAsString).contains("5 days");
         }
     }
+
+    @Test
+    public void test_stream_result_as_json() throws Exception {
+        try (var resp = post("_sql?stream&types", "{\"stmt\": \"select x from generate_series(1, 2500) as t(x)\"}", null)) {
+            assertThat(resp.getStatusLine().getStatusCode()).isEqualTo(200);
+            assertThat(resp.getEntity().isChunked()).isTrue();
+            String bodyAsString = EntityUtils.toString(resp.getEntity());
+            Map<String, Object> response = JsonXContent.JSON_XCONTENT.createParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, bodyAsString).map();
+            assertThat(response).containsEntry("cols", List.of("x"));
+            assertThat(response).containsEntry("col_types", List.of(9));
+            assertThat(response).containsEntry("rowcount", 2500);
+            List<?> rows = (List<?>) response.get("rows");
+            assertThat(rows).hasSize(2500);
+            assertThat(rows.get(0)).isEqualTo(List.of(1));
+            assertThat(rows.get(2499)).isEqualTo(List.of(2500));
+        }
+    }
+
+    @Test
+    public void test_stream_result_as_ndjson() throws Exception {
+        try (var resp = post("_sql?stream=ndjson", "{\"stmt\": \"select x, 'foo' as y from generate_series(1, 1500) as t(x)\"}", null)) {
+            assertThat(resp.getStatusLine().getStatusCode()).isEqualTo(200);
+            assertThat(resp.getFirstHeader("Content-Type").getValue()).isEqualTo("application/x-ndjson");
+            String[] lines = EntityUtils.toString(resp.getEntity()).split("\n");
+            assertThat(lines).hasSize(1502);
+            assertThat(lines[0]).isEqualTo("{\"cols\":[\"x\",\"y\"]}");
+            assertThat(lines[1]).isEqualTo("[1,\"foo\"]");
+            assertThat(lines[1500]).isEqualTo("[1500,\"foo\"]");
+            assertThat(lines[1501]).startsWith("{\"rowcount\":1500,\"duration\":");
+        }
+    }
+
+    @Test
+    public void test_stream_failure_after_first_chunk_is_last_ndjson_line() throws Exception {
+        String stmt = "{\"stmt\": \"select 1 / (x - 1200) from generate_series(1, 2000) as t(x)\"}";
+        try (var resp = post("_sql?stream=ndjson", stmt, null)) {
+            assertThat(resp.getStatusLine().getStatusCode()).isEqualTo(200);
+            String[] lines = EntityUtils.toString(resp.getEntity()).split("\n");
+            assertThat(lines.length).isGreaterThan(1000);
+            assertThat(lines[lines.length - 1]).startsWith("{\"error\":{\"message\":\"SQLParseException[/ by zero]\"");
+        }
+        // Connection and session can be used afterwards
+        try (var resp = post("_sql?stream", "{\"stmt\": \"select 1\"}", null)) {
+            assertThat(EntityUtils.toString(resp.getEntity())).startsWith("{\"cols\":[\"1\"],\"rows\":[[1]],\"rowcount\":1");
+        }
+    }
+
+    @Test
+    public void test_stream_failure_before_first_chunk_results_in_regular_error_response() throws Exception {
+        try (var resp = post("_sql?stream", "{\"stmt\": \"select 1 / 0\"}", null)) {
+            assertThat(resp.getStatusLine().getStatusCode()).isEqualTo(400);
+            assertThat(EntityUtils.toString(resp.getEntity())).contains("/ by zero");
+        }
+        try (var resp = post("_sql?stream=csv", "{\"stmt\": \"select 1\"}", null)) {
+            assertThat(resp.getStatusLine().getStatusCode()).isEqualTo(400);
+            assertThat(EntityUtils.toString(resp.getEntity())).contains("Invalid value for parameter `stream`: `csv`");
+        }
+    }
 }
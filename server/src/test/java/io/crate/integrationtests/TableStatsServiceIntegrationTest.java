@@ -21,9 +21,12 @@
 
 package io.crate.integrationtests;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.elasticsearch.test.IntegTestCase;
@@ -31,7 +34,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.RelationName;
+import io.crate.statistics.ColumnStats;
 import io.crate.statistics.TableStats;
 
 
@@ -62,4 +67,31 @@ public class TableStatsServiceIntegrationTest extends IntegTestCase {
             // to run this test.
         }, 5, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void test_row_counts_are_refreshed_without_resampling_partitions_with_few_changes() throws Exception {
+        execute("create table t2 (p int, a int) partitioned by (p) with (number_of_replicas = 0)");
+        Object[][] bulkArgs = new Object[200][];
+        for (int i = 0; i < bulkArgs.length; i++) {
+            bulkArgs[i] = new Object[] { i % 2, i % 2 };
+        }
+        execute("insert into t2 (p, a) values (?, ?)", bulkArgs);
+        execute("refresh table t2");
+        RelationName t2 = new RelationName(sqlExecutor.getCurrentSchema(), "t2");
+        assertBusy(() -> {
+            TableStats tableStats = cluster().getDataNodeInstance(TableStats.class);
+            assertThat(tableStats.numDocs(t2), is(200L));
+        }, 5, TimeUnit.SECONDS);
+
+        execute("insert into t2 (p, a) values (0, 3), (0, 3), (0, 3), (0, 3), (0, 3)");
+        execute("refresh table t2");
+        assertBusy(() -> {
+            TableStats tableStats = cluster().getDataNodeInstance(TableStats.class);
+            assertThat(tableStats.numDocs(t2), is(205L));
+        }, 5, TimeUnit.SECONDS);
+        // The changes are below the threshold, so the partition isn't sampled again
+        TableStats tableStats = cluster().getDataNodeInstance(TableStats.class);
+        ColumnStats<?> columnStats = tableStats.getStats(t2).getColumnStats(new ColumnIdent("a"));
+        assertThat(Arrays.asList(columnStats.mostCommonValues().values()), not(hasItem(3)));
+    }
 }
@@ -22,10 +22,12 @@
 package io.crate.metadata.cluster;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.elasticsearch.cluster.metadata.IndexMetadata.INDEX_ROUTING_EXCLUDE_GROUP_PREFIX;
 import static org.elasticsearch.cluster.metadata.IndexMetadata.SETTING_CREATION_DATE;
 import static org.elasticsearch.cluster.metadata.IndexMetadata.SETTING_NUMBER_OF_SHARDS;
 import static org.elasticsearch.common.settings.AbstractScopedSettings.ARCHIVED_SETTINGS_PREFIX;
+import static org.elasticsearch.test.ESTestCase.buildNewFakeTransportAddress;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -33,17 +35,23 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexTemplateMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
 import org.junit.Test;
 
 import io.crate.analyze.TableParameters;
+import io.crate.execution.ddl.tables.AlterTableRequest;
 import io.crate.metadata.PartitionName;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
@@ -107,4 +115,26 @@ public class AlterTableClusterStateExecutorTest {
         assertThat(filteredSettings.isEmpty()).isFalse();
         assertThat(filteredSettings.get(fullName)).isEqualTo("node1");
     }
+
+    @Test
+    public void test_compact_source_format_requires_all_nodes_on_5_6() throws Exception {
+        var executor = new AlterTableClusterStateExecutor(null, null, null, null, null);
+        ClusterState state = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .nodes(DiscoveryNodes.builder()
+                .add(new DiscoveryNode("n1", buildNewFakeTransportAddress(), Version.CURRENT))
+                .add(new DiscoveryNode("n2", buildNewFakeTransportAddress(), Version.V_5_5_0)))
+            .build();
+        var request = new AlterTableRequest(
+            new RelationName(Schemas.DOC_SCHEMA_NAME, "t1"),
+            null,
+            false,
+            false,
+            Settings.builder().put(IndexSettings.INDEX_SOURCE_FORMAT_SETTING.getKey(), "compact").build(),
+            Map.of()
+        );
+        assertThatThrownBy(() -> executor.execute(state, request))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Setting [source_format] to [compact] is only supported when all nodes in the cluster " +
+                        "are running at least version 5.6.0");
+    }
 }
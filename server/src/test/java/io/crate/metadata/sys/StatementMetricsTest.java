@@ -0,0 +1,153 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.metadata.sys;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class StatementMetricsTest {
+
+    private static List<StatementMetricsView> views(StatementMetrics metrics) {
+        return StreamSupport.stream(metrics.spliterator(), false).toList();
+    }
+
+    @Test
+    public void test_statements_differing_only_in_literals_are_aggregated() {
+        StatementMetrics metrics = new StatementMetrics(10);
+        metrics.recordValue("select * from t where x = 1", 10, false, 1, 100);
+        metrics.recordValue("SELECT * FROM t WHERE x = 20", 30, true, 3, 50);
+
+        List<StatementMetricsView> views = views(metrics);
+        assertThat(views).hasSize(1);
+        StatementMetricsView view = views.get(0);
+        assertThat(view.statement()).isEqualTo("SELECT * FROM t WHERE x = ?");
+        assertThat(view.calls()).isEqualTo(2L);
+        assertThat(view.failedCount()).isEqualTo(1L);
+        assertThat(view.sumOfDurations()).isEqualTo(40L);
+        assertThat(view.minDuration()).isEqualTo(10L);
+        assertThat(view.maxDuration()).isEqualTo(30L);
+        assertThat(view.meanDuration()).isEqualTo(20.0);
+        assertThat(view.rows()).isEqualTo(4L);
+        assertThat(view.usedBytes()).isEqualTo(150L);
+    }
+
+    @Test
+    public void test_number_of_entries_is_bounded_and_least_called_entry_is_evicted() {
+        StatementMetrics metrics = new StatementMetrics(1);
+        metrics.recordValue("select 1 from t1", 1, false, 1, 0);
+        metrics.recordValue("select 1 from t1", 1, false, 1, 0);
+        metrics.recordValue("select 1 from t2", 1, false, 1, 0);
+
+        List<StatementMetricsView> views = views(metrics);
+        assertThat(views).hasSize(1);
+        assertThat(views.get(0).statement()).isEqualTo("SELECT ? FROM t2");
+        assertThat(views.get(0).calls()).isEqualTo(1L);
+    }
+
+    @Test
+    public void test_least_recently_used_entry_is_evicted_among_equally_often_called_entries() {
+        StatementMetrics metrics = new StatementMetrics(2, 1);
+        metrics.recordValue("select 1 from t1", 1, false, 1, 0);
+        metrics.recordValue("select 1 from t2", 1, false, 1, 0);
+        metrics.recordValue("select 1 from t3", 1, false, 1, 0);
+
+        assertThat(views(metrics))
+            .extracting(StatementMetricsView::statement)
+            .containsExactlyInAnyOrder("SELECT ? FROM t2", "SELECT ? FROM t3");
+    }
+
+    @Test
+    public void test_entries_which_are_not_called_anymore_are_evicted_after_their_frequency_decayed() {
+        StatementMetrics metrics = new StatementMetrics(3, 1);
+        for (int i = 0; i < 100; i++) {
+            metrics.recordValue("select 1 from old1", 1, false, 1, 0);
+            metrics.recordValue("select 1 from old2", 1, false, 1, 0);
+        }
+        // Without decay the two new statements would keep evicting each other from the last free slot
+        for (int i = 0; i < 200; i++) {
+            metrics.recordValue("select 1 from new1", 1, false, 1, 0);
+            metrics.recordValue("select 1 from new2", 1, false, 1, 0);
+        }
+
+        List<StatementMetricsView> views = views(metrics);
+        assertThat(views)
+            .extracting(StatementMetricsView::statement)
+            .contains("SELECT ? FROM new1", "SELECT ? FROM new2");
+        // The reported calls are not affected by the decay
+        assertThat(views)
+            .filteredOn(view -> view.statement().equals("SELECT ? FROM new2"))
+            .extracting(StatementMetricsView::calls)
+            .allSatisfy(calls -> assertThat(calls).isGreaterThan(100L));
+    }
+
+    @Test
+    public void test_metrics_are_disabled_with_zero_entries() {
+        StatementMetrics metrics = new StatementMetrics(0);
+        assertThat(metrics.isEnabled()).isFalse();
+        metrics.recordValue("select 1", 1, false, 1, 0);
+        assertThat(views(metrics)).isEmpty();
+    }
+
+    @Test
+    public void test_negative_duration_is_recorded_as_zero() {
+        StatementMetrics metrics = new StatementMetrics(10);
+        metrics.recordValue("select 1", -5, false, 1, 0);
+        StatementMetricsView view = views(metrics).get(0);
+        assertThat(view.minDuration()).isEqualTo(0L);
+        assertThat(view.getDurationAtPercentile(50.0)).isEqualTo(0L);
+    }
+
+    @Test
+    public void test_concurrent_recording_does_not_lose_calls() throws Exception {
+        StatementMetrics metrics = new StatementMetrics(10);
+        int numThreads = 4;
+        int callsPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch latch = new CountDownLatch(numThreads);
+        try {
+            for (int i = 0; i < numThreads; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < callsPerThread; j++) {
+                        metrics.recordValue("select name from users where id = " + j, j % 10, false, 1, 0);
+                    }
+                    latch.countDown();
+                });
+            }
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        }
+        List<StatementMetricsView> views = views(metrics);
+        assertThat(views).hasSize(1);
+        assertThat(views.get(0).calls()).isEqualTo((long) numThreads * callsPerThread);
+    }
+}
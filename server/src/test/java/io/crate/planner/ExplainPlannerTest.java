@@ -200,7 +200,7 @@ public class ExplainPlannerTest extends CrateDummyClusterServiceUnitTest {
         var printedPlan = ExplainPlan.printLogicalPlan((LogicalPlan) plan.subPlan(), e.getPlannerContext(clusterService.state()), plan.showCosts());
         assertThat(printedPlan).isEqualTo(
             "HashAggregate[count(x)] (rows=1)\n" +
-            "  └ HashJoin[(x = x)] (rows=0)\n" +
+            "  └ HashJoin[(x = x)] (rows=50)\n" +
             "    ├ Collect[doc.a | [x] | true] (rows=100)\n" +
             "    └ Collect[doc.b | [x] | true] (rows=100)"
         );
@@ -208,7 +208,7 @@ public class ExplainPlannerTest extends CrateDummyClusterServiceUnitTest {
         printedPlan = ExplainPlan.printLogicalPlan((LogicalPlan) plan.subPlan(), e.getPlannerContext(clusterService.state()), plan.showCosts());
         assertThat(printedPlan).isEqualTo(
             "HashAggregate[count(x)] (rows=1)\n" +
-            "  └ HashJoin[(x = x)] (rows=0)\n" +
+            "  └ HashJoin[(x = x)] (rows=50)\n" +
             "    ├ Collect[doc.a | [x] | true] (rows=100)\n" +
             "    └ Collect[doc.b | [x] | true] (rows=100)"
         );
@@ -981,6 +981,37 @@ public class SelectPlannerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(collect.nodeIds()).hasSize(2);
     }
 
+    @Test
+    public void test_window_function_source_is_collected_sorted_by_window_ordering() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService, 2, RandomizedTest.getRandom(), List.of())
+            .addTable(TableDefinitions.USER_TABLE_DEFINITION)
+            .build();
+
+        Merge localMerge = e.plan("select sum(ints) OVER (partition by awesome order by id) from users");
+        Merge distMerge = (Merge) localMerge.subPlan();
+        assertThat(distMerge.mergePhase().orderByPositions()).isNotNull();
+        assertThat(distMerge.mergePhase().projections().get(0)).isExactlyInstanceOf(WindowAggProjection.class);
+        WindowAggProjection windowAgg = (WindowAggProjection) distMerge.mergePhase().projections().get(0);
+        assertThat(windowAgg.sortedInput()).isTrue();
+        Collect collect = (Collect) distMerge.subPlan();
+        assertThat(((RoutedCollectPhase) collect.collectPhase()).orderBy()).isNotNull();
+    }
+
+    @Test
+    public void test_window_function_source_is_not_collected_sorted_by_unsortable_partition_key() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService, 2, RandomizedTest.getRandom(), List.of())
+            .addTable("create table tbl (x text storage with (columnstore = false), y int, z int)")
+            .build();
+
+        Merge localMerge = e.plan("select sum(z) OVER (partition by x order by y) from tbl");
+        Merge distMerge = (Merge) localMerge.subPlan();
+        assertThat(distMerge.mergePhase().orderByPositions()).isNull();
+        WindowAggProjection windowAgg = (WindowAggProjection) distMerge.mergePhase().projections().get(0);
+        assertThat(windowAgg.sortedInput()).isFalse();
+        Collect collect = (Collect) distMerge.subPlan();
+        assertThat(((RoutedCollectPhase) collect.collectPhase()).orderBy()).isNull();
+    }
+
     @Test
     public void testSeqNoAndPrimaryTermFilteringRequirePrimaryKey() throws Exception {
         SQLExecutor e = SQLExecutor.builder(clusterService, 2, RandomizedTest.getRandom(), List.of())
@@ -73,7 +73,9 @@ public class ResetSettingsPlanTest extends ESTestCase {
             .put("stats.operations_log_size", (String) null)
             .put("stats.operations_log_expiration", (String) null)
             .put("stats.service.interval", (String) null)
+            .put("stats.statement_metrics_size", (String) null)
             .put("stats.service.max_bytes_per_sec", (String) null)
+            .put("stats.service.change_threshold", (String) null)
             .build();
 
         assertThat(buildSettingsFrom(settings, symbolEvaluator(Row.EMPTY)), is(expected));
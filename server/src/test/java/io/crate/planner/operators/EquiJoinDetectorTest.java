@@ -79,17 +79,31 @@ public class EquiJoinDetectorTest extends CrateDummyClusterServiceUnitTest {
     }
 
     @Test
-    public void testNotPossibleIfNotAnInnerJoin() {
+    public void testNotPossibleIfCrossJoin() {
         assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.CROSS, null), is(false));
+    }
 
+    @Test
+    public void test_possible_on_outer_joins() {
+        Symbol joinCondition = sqlExpressions.asSymbol("t1.x = t2.y");
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.LEFT, joinCondition), is(true));
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.RIGHT, joinCondition), is(true));
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.FULL, joinCondition), is(true));
+    }
+
+    @Test
+    public void test_not_possible_on_semi_and_anti_joins() {
         Symbol joinCondition = sqlExpressions.asSymbol("t1.x = t2.y");
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.LEFT, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.RIGHT, joinCondition), is(false));
-        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.FULL, joinCondition), is(false));
         assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.ANTI, joinCondition), is(false));
         assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.SEMI, joinCondition), is(false));
     }
 
+    @Test
+    public void test_not_possible_on_eq_with_both_sides_referring_to_the_same_relation() {
+        Symbol joinCondition = sqlExpressions.asSymbol("t1.x = t1.i");
+        assertThat(EquiJoinDetector.isHashJoinPossible(JoinType.LEFT, joinCondition), is(false));
+    }
+
     @Test
     public void testNotPossibleOnEqWithoutRelationFieldsOnBothSides() {
         Symbol joinCondition = sqlExpressions.asSymbol("t1.x = 4");
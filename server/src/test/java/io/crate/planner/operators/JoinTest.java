@@ -150,11 +150,11 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         rowCountByTable.put(TEST_DOC_LOCATIONS_TABLE_IDENT, new Stats(0, 0, Map.of()));
         e.updateTableStats(rowCountByTable);
 
-        LogicalPlan operator = buildLogicalPlan(mss);
-        assertThat(operator).isExactlyInstanceOf(NestedLoopJoin.class);
-
         PlannerContext context = e.getPlannerContext(clusterService.state());
         context.transactionContext().sessionSettings().setHashJoinEnabled(false);
+        LogicalPlan operator = buildLogicalPlan(mss, context);
+        assertThat(operator).isExactlyInstanceOf(NestedLoopJoin.class);
+
         Join nl = plan(mss, context);
         assertThat(tableName(nl.left())).isEqualTo("users");
         assertThat(tableName(nl.right())).isEqualTo("locations");
@@ -229,7 +229,9 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         rowCountByTable.put(rightName, new Stats(10_000, 0, Map.of()));
         e.updateTableStats(rowCountByTable);
 
-        Join nl = plan(mss);
+        PlannerContext context = e.getPlannerContext(clusterService.state());
+        context.transactionContext().sessionSettings().setHashJoinEnabled(false);
+        Join nl = plan(mss, context);
         assertThat(tableName(nl.left())).isEqualTo(leftName.name());
         assertThat(nl.joinPhase().joinType()).isEqualTo(JoinType.LEFT);
 
@@ -237,7 +239,7 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         rowCountByTable.put(rightName, new Stats(10, 0, Map.of()));
         e.updateTableStats(rowCountByTable);
 
-        nl = plan(mss);
+        nl = plan(mss, context);
         assertThat(tableName(nl.left())).isEqualTo(rightName.name());
         assertThat(nl.joinPhase().joinType()).isEqualTo(JoinType.RIGHT);  // ensure that also the join type inverted
     }
@@ -361,7 +363,7 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
     public void testMixedHashJoinNestedLoop() {
         QueriedSelectRelation mss = e.analyze("select * " +
                                               "from t1 inner join t2 on t1.a = t2.b " +
-                                              "left join t3 on t3.c = t2.b");
+                                              "left join t3 on t3.c > t2.b");
 
         LogicalPlan operator = buildLogicalPlan(mss);
         assertThat(operator).isExactlyInstanceOf(NestedLoopJoin.class);
@@ -690,7 +692,7 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         assertThat(logicalPlan).isEqualTo(
             """
             Eval[time, sensor_id, battery_level]
-              └ NestedLoopJoin[LEFT | ((time = time) AND (sensor_id = sensor_id))]
+              └ HashJoin[LEFT | ((time = time) AND (sensor_id = sensor_id))]
                 ├ NestedLoopJoin[CROSS]
                 │  ├ Rename[time] AS time_series
                 │  │  └ TableFunction[generate_series | [generate_series] | true]
@@ -24,6 +24,7 @@ package io.crate.planner.optimizer.costs;
 import static io.crate.testing.Asserts.assertThat;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -261,16 +262,17 @@ public class PlanStatsTest extends CrateDummyClusterServiceUnitTest {
         var memo = new Memo(nestedLoopJoin);
         PlanStats planStats = new PlanStats(nodeContext, txnCtx, tableStats, memo);
         var result = planStats.get(nestedLoopJoin);
-        // lhs is the larger table which 9 entries, so the join will at max emit 9 entries
-        assertThat(result.numDocs()).isEqualTo(9L);
-        assertThat(result.sizeInBytes()).isEqualTo(288L);
+        // the join condition is always true, so every row of lhs is joined with every row of rhs
+        assertThat(result.numDocs()).isEqualTo(18L);
+        assertThat(result.sizeInBytes()).isEqualTo(576L);
 
         var joinCondition = e.asSymbol("x = y");
         nestedLoopJoin = new NestedLoopJoin(
             lhs, rhs, JoinType.INNER, joinCondition, false, false, false, false);
         result = planStats.get(nestedLoopJoin);
-        assertThat(result.numDocs()).isEqualTo(1L);
-        assertThat(result.sizeInBytes()).isEqualTo(32L);
+        // both rows of b have y = 1 and match the single row of a with x = 1
+        assertThat(result.numDocs()).isEqualTo(2L);
+        assertThat(result.sizeInBytes()).isEqualTo(64L);
 
         nestedLoopJoin = new NestedLoopJoin(
             lhs, rhs, JoinType.CROSS, x, false, false, false, false);
@@ -313,4 +315,49 @@ public class PlanStatsTest extends CrateDummyClusterServiceUnitTest {
         Stats stats = planStats.get(filter);
         assertThat(stats.numDocs()).isEqualTo(2);
     }
+
+    @Test
+    public void test_equi_join_estimate_uses_column_stats_of_both_sides() throws Exception {
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .addTable("create table a (x int)")
+            .addTable("create table b (y int)")
+            .build();
+
+        DocTableInfo aDoc = e.resolveTableInfo("a");
+        DocTableInfo bDoc = e.resolveTableInfo("b");
+
+        var x = e.asSymbol("x");
+        var y = e.asSymbol("y");
+
+        var lhs = new Collect(new DocTableRelation(aDoc), List.of(x), WhereClause.MATCH_ALL);
+        var rhs = new Collect(new DocTableRelation(bDoc), List.of(y), WhereClause.MATCH_ALL);
+        List<Integer> xValues = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            xValues.add(i);
+        }
+        List<Integer> yValues = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            yValues.add(i);
+        }
+        ColumnStats<Integer> xStats = ColumnStats.fromSortedValues(xValues, DataTypes.INTEGER, 0, 1000);
+        ColumnStats<Integer> yStats = ColumnStats.fromSortedValues(yValues, DataTypes.INTEGER, 0, 100);
+
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(
+            Map.of(
+                aDoc.ident(), new Stats(1000L, 1000 * DataTypes.INTEGER.fixedSize(), Map.of(new ColumnIdent("x"), xStats)),
+                bDoc.ident(), new Stats(100L, 100 * DataTypes.INTEGER.fixedSize(), Map.of(new ColumnIdent("y"), yStats))
+            )
+        );
+        PlanStats planStats = new PlanStats(nodeContext, txnCtx, tableStats);
+
+        // Every value of b.y matches exactly one row of a.x
+        var hashJoin = new HashJoin(lhs, rhs, e.asSymbol("x = y"));
+        assertThat(planStats.get(hashJoin).numDocs()).isBetween(90L, 110L);
+
+        // A left join returns at least every row of the left side
+        var leftJoin = new NestedLoopJoin(
+            lhs, rhs, JoinType.LEFT, e.asSymbol("x = y"), false, false, false, false);
+        assertThat(planStats.get(leftJoin).numDocs()).isEqualTo(1000L);
+    }
 }
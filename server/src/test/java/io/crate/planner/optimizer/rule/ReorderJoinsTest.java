@@ -0,0 +1,149 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.planner.optimizer.rule;
+
+import static io.crate.testing.Asserts.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.JoinPlan;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.optimizer.costs.PlanStats;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.sql.tree.JoinType;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+
+public class ReorderJoinsTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+    private DocTableInfo fDoc;
+    private DocTableInfo aDoc;
+    private DocTableInfo bDoc;
+    private DocTableInfo cDoc;
+    private Collect f;
+    private Collect a;
+    private Collect b;
+    private Collect c;
+
+    @Before
+    public void prepare() throws Exception {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table f (fa int, fb int, fc int)")
+            .addTable("create table a (ax int)")
+            .addTable("create table b (bx int)")
+            .addTable("create table c (cx int)")
+            .build();
+        fDoc = e.resolveTableInfo("f");
+        aDoc = e.resolveTableInfo("a");
+        bDoc = e.resolveTableInfo("b");
+        cDoc = e.resolveTableInfo("c");
+        f = new Collect(
+            new DocTableRelation(fDoc),
+            List.of(e.asSymbol("fa"), e.asSymbol("fb"), e.asSymbol("fc")),
+            WhereClause.MATCH_ALL
+        );
+        a = new Collect(new DocTableRelation(aDoc), List.of(e.asSymbol("ax")), WhereClause.MATCH_ALL);
+        b = new Collect(new DocTableRelation(bDoc), List.of(e.asSymbol("bx")), WhereClause.MATCH_ALL);
+        c = new Collect(new DocTableRelation(cDoc), List.of(e.asSymbol("cx")), WhereClause.MATCH_ALL);
+    }
+
+    private JoinPlan starJoin(JoinType dimensionJoinType) {
+        var af = new JoinPlan(a, f, JoinType.INNER, e.asSymbol("ax = fa"));
+        var afb = new JoinPlan(af, b, dimensionJoinType, e.asSymbol("fb = bx"));
+        return new JoinPlan(afb, c, JoinType.INNER, e.asSymbol("fc = cx"));
+    }
+
+    private PlanStats planStats(boolean withStats) {
+        TableStats tableStats = new TableStats();
+        if (withStats) {
+            tableStats.updateTableStats(Map.of(
+                fDoc.ident(), new Stats(1_000_000, 12_000_000, Map.of()),
+                aDoc.ident(), new Stats(10, 40, Map.of()),
+                bDoc.ident(), new Stats(1_000, 4_000, Map.of()),
+                cDoc.ident(), new Stats(100, 400, Map.of())
+            ));
+        }
+        return new PlanStats(e.nodeCtx, CoordinatorTxnCtx.systemTransactionContext(), tableStats);
+    }
+
+    private LogicalPlan apply(JoinPlan join, PlanStats planStats) {
+        return new ReorderJoins().apply(
+            join,
+            Captures.empty(),
+            planStats,
+            CoordinatorTxnCtx.systemTransactionContext(),
+            e.nodeCtx,
+            Function.identity()
+        );
+    }
+
+    @Test
+    public void test_star_join_is_reordered_to_join_the_smaller_dimension_first() {
+        JoinPlan join = starJoin(JoinType.INNER);
+        assertThat(join).hasOperators(
+            "Join[INNER | (fc = cx)]",
+            "  ├ Join[INNER | (fb = bx)]",
+            "  │  ├ Join[INNER | (ax = fa)]",
+            "  │  │  ├ Collect[doc.a | [ax] | true]",
+            "  │  │  └ Collect[doc.f | [fa, fb, fc] | true]",
+            "  │  └ Collect[doc.b | [bx] | true]",
+            "  └ Collect[doc.c | [cx] | true]"
+        );
+
+        LogicalPlan reordered = apply(join, planStats(true));
+        assertThat(reordered).hasOperators(
+            "Eval[ax, fa, fb, fc, bx, cx]",
+            "  └ Join[INNER | (fb = bx)]",
+            "    ├ Join[INNER | (fc = cx)]",
+            "    │  ├ Join[INNER | (ax = fa)]",
+            "    │  │  ├ Collect[doc.a | [ax] | true]",
+            "    │  │  └ Collect[doc.f | [fa, fb, fc] | true]",
+            "    │  └ Collect[doc.c | [cx] | true]",
+            "    └ Collect[doc.b | [bx] | true]"
+        );
+    }
+
+    @Test
+    public void test_join_order_is_kept_without_stats() {
+        assertThat(apply(starJoin(JoinType.INNER), planStats(false))).isNull();
+    }
+
+    @Test
+    public void test_join_order_is_kept_if_the_tree_contains_outer_joins() {
+        assertThat(apply(starJoin(JoinType.LEFT), planStats(true))).isNull();
+    }
+}
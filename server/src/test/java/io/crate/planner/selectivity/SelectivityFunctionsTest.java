@@ -212,4 +212,23 @@ public class SelectivityFunctionsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(estimate(stats, expressions.asSymbol("x >= 5"))).isEqualTo(9);
         assertThat(estimate(stats, expressions.asSymbol("x > null"))).isEqualTo(0);
     }
+
+    @Test
+    public void test_range_operators_use_histogram_if_values_are_not_in_mcv() throws Exception {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        ColumnStats<Integer> xStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        assertThat(xStats.mostCommonValues().isEmpty())
+            .as("Test case depends on values not being in the most common values")
+            .isTrue();
+        Map<ColumnIdent, ColumnStats<?>> columnStats = Map.of(new ColumnIdent("x"), xStats);
+        Stats stats = new Stats(20_000, DataTypes.INTEGER.fixedSize(), columnStats);
+
+        assertThat(estimate(stats, expressions.asSymbol("x < 5000"))).isBetween(4900L, 5100L);
+        assertThat(estimate(stats, expressions.asSymbol("x >= 15000"))).isBetween(4900L, 5100L);
+        assertThat(estimate(stats, expressions.asSymbol("x < 0"))).isEqualTo(0L);
+        assertThat(estimate(stats, expressions.asSymbol("x > 30000"))).isEqualTo(0L);
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.protocols.postgres;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Test;
+
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class DataRowEncoderTest extends ESTestCase {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final List<PGType<?>> columnTypes = List.of(PGTypes.get(DataTypes.INTEGER), PGTypes.get(DataTypes.STRING));
+
+    @After
+    public void releaseChannel() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void test_rows_are_written_into_a_single_buffer() throws Exception {
+        DataRowEncoder encoder = new DataRowEncoder(channel, columnTypes, null);
+        encoder.write(new RowN($(10, "foo")));
+        encoder.write(new RowN($(20, null)));
+        assertThat(channel.outboundMessages()).isEmpty();
+
+        encoder.writePending();
+        channel.flush();
+        assertThat(channel.outboundMessages()).hasSize(1);
+        ByteBuf buffer = channel.readOutbound();
+        try {
+            assertThat((char) buffer.readByte()).isEqualTo('D');
+            // 4 (length) + 2 (numColumns) + 4 + 2 ("10") + 4 + 3 ("foo")
+            assertThat(buffer.readInt()).isEqualTo(19);
+            buffer.skipBytes(15);
+
+            assertThat((char) buffer.readByte()).isEqualTo('D');
+            // 4 (length) + 2 (numColumns) + 4 + 2 ("20") + 4 (null)
+            assertThat(buffer.readInt()).isEqualTo(16);
+            buffer.skipBytes(12);
+            assertThat(buffer.isReadable()).isFalse();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void test_buffer_is_flushed_once_it_exceeds_the_threshold() throws Exception {
+        DataRowEncoder encoder = new DataRowEncoder(channel, columnTypes, null, 50);
+        encoder.write(new RowN($(10, "foo")));
+        encoder.write(new RowN($(20, "bar")));
+        assertThat(channel.outboundMessages()).isEmpty();
+
+        encoder.write(new RowN($(30, "baz")));
+        assertThat(channel.outboundMessages()).hasSize(1);
+        ByteBuf buffer = channel.readOutbound();
+        assertThat(buffer.readableBytes()).isEqualTo(3 * 20);
+        buffer.release();
+
+        encoder.writePending();
+        channel.flush();
+        assertThat(channel.outboundMessages()).isEmpty();
+    }
+
+    @Test
+    public void test_failing_row_is_not_written() throws Exception {
+        DataRowEncoder encoder = new DataRowEncoder(channel, columnTypes, null);
+        encoder.write(new RowN($(10, "foo")));
+        Row failingRow = new Row() {
+
+            @Override
+            public int numColumns() {
+                return 2;
+            }
+
+            @Override
+            public Object get(int index) {
+                if (index == 1) {
+                    throw new IllegalArgumentException("Dummy");
+                }
+                return 20;
+            }
+        };
+        assertThatThrownBy(() -> encoder.write(failingRow))
+            .isExactlyInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Dummy");
+
+        encoder.writePending();
+        channel.flush();
+        ByteBuf buffer = channel.readOutbound();
+        assertThat(buffer.readableBytes()).isEqualTo(20);
+        buffer.release();
+    }
+}
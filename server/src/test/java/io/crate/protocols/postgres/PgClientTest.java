@@ -56,6 +56,7 @@ import io.crate.action.sql.Session;
 import io.crate.action.sql.Sessions;
 import io.crate.auth.AlwaysOKAuthentication;
 import io.crate.auth.Authentication;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.netty.NettyBootstrap;
 import io.crate.protocols.ssl.SslContextProvider;
@@ -137,7 +138,8 @@ public class PgClientTest extends CrateDummyClusterServiceUnitTest {
             nettyBootstrap,
             serverTransport,
             pageCacheRecycler,
-            sslContextProvider
+            sslContextProvider,
+            new StdinRegistry(Runnable::run)
         );
         toClose.add(postgresNetty);
         postgresNetty.start();
@@ -49,6 +49,7 @@ import org.junit.Test;
 
 import io.crate.action.sql.Sessions;
 import io.crate.auth.AlwaysOKAuthentication;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
 import io.crate.netty.NettyBootstrap;
 import io.crate.protocols.ssl.SslContextProvider;
@@ -112,7 +113,8 @@ public class PostgresNettyPublishPortTest extends ESTestCase {
             nettyBootstrap,
             mock(Netty4Transport.class),
             PageCacheRecycler.NON_RECYCLING_INSTANCE,
-            mock(SslContextProvider.class));
+            mock(SslContextProvider.class),
+            new StdinRegistry(Runnable::run));
         try {
             psql.doStart();
         } finally {
@@ -137,7 +139,8 @@ public class PostgresNettyPublishPortTest extends ESTestCase {
             nettyBootstrap,
             mock(Netty4Transport.class),
             PageCacheRecycler.NON_RECYCLING_INSTANCE,
-            mock(SslContextProvider.class));
+            mock(SslContextProvider.class),
+            new StdinRegistry(Runnable::run));
         try {
             psql.doStart();
             fail("Should have failed due to custom hostname");
@@ -166,7 +169,8 @@ public class PostgresNettyPublishPortTest extends ESTestCase {
             nettyBootstrap,
             mock(Netty4Transport.class),
             PageCacheRecycler.NON_RECYCLING_INSTANCE,
-            mock(SslContextProvider.class));
+            mock(SslContextProvider.class),
+            new StdinRegistry(Runnable::run));
         try {
             psql.doStart();
             fail("Should have failed due to custom hostname");
@@ -196,7 +200,8 @@ public class PostgresNettyPublishPortTest extends ESTestCase {
             nettyBootstrap,
             mock(Netty4Transport.class),
             PageCacheRecycler.NON_RECYCLING_INSTANCE,
-            mock(SslContextProvider.class));
+            mock(SslContextProvider.class),
+            new StdinRegistry(Runnable::run));
         try {
             psql.doStart();
             fail("Should have failed due to custom hostname");
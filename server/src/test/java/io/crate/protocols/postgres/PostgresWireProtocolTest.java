@@ -66,6 +66,7 @@ import io.crate.auth.AccessControl;
 import io.crate.auth.AlwaysOKAuthentication;
 import io.crate.auth.AuthenticationMethod;
 import io.crate.exceptions.JobKilledException;
+import io.crate.execution.engine.collect.files.StdinRegistry;
 import io.crate.execution.jobs.kill.KillJobsNodeRequest;
 import io.crate.metadata.settings.CoordinatorSessionSettings;
 import io.crate.metadata.settings.session.SessionSettingRegistry;
@@ -125,7 +126,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of()),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -170,7 +172,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null);
+                null,
+                new StdinRegistry(Runnable::run));
         AtomicBoolean flushed = new AtomicBoolean(false);
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler) {
             @Override
@@ -214,7 +217,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null);
+                null,
+                new StdinRegistry(Runnable::run));
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf buffer = Unpooled.buffer();
@@ -241,7 +245,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null);
+                null,
+                new StdinRegistry(Runnable::run));
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         {
@@ -301,7 +306,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null);
+                null,
+                new StdinRegistry(Runnable::run));
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         {
@@ -365,7 +371,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null);
+                null,
+                new StdinRegistry(Runnable::run));
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         {
@@ -423,7 +430,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of()),
-                () -> null);
+                () -> null,
+                new StdinRegistry(Runnable::run));
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -465,7 +473,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 } catch (Exception e) {
                     return null;
                 }
-            }
+            },
+            new StdinRegistry(Runnable::run)
         );
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
@@ -493,7 +502,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
             sessionSettings -> AccessControl.DISABLED,
             chPipeline -> {},
             new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-            null
+            null,
+            new StdinRegistry(Runnable::run)
         );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -545,7 +555,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                         return "password";
                     }
                 },
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -585,7 +596,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -641,7 +653,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionSettings -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         sendStartupMessage(channel);
@@ -662,7 +675,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 context -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         PostgresWireProtocol pg2 =
             new PostgresWireProtocol(
@@ -671,7 +685,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 context -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
 
         channel = new EmbeddedChannel(pg1.decoder, pg1.handler);
@@ -735,7 +750,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sessionCtx -> AccessControl.DISABLED,
                 chPipeline -> {},
                 new AlwaysOKAuthentication(() -> List.of(User.CRATE_USER)),
-                null
+                null,
+                new StdinRegistry(Runnable::run)
             );
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
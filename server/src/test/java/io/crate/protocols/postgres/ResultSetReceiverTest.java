@@ -24,6 +24,7 @@ package io.crate.protocols.postgres;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 
@@ -35,6 +36,7 @@ import io.crate.data.Row1;
 import io.crate.protocols.postgres.DelayableWriteChannel.DelayedWrites;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.types.DataTypes;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 
 public class ResultSetReceiverTest {
@@ -42,6 +44,7 @@ public class ResultSetReceiverTest {
     @Test
     public void testChannelIsPeriodicallyFlushedToAvoidConsumingTooMuchMemory() {
         Channel channel = mock(Channel.class, Answers.RETURNS_DEEP_STUBS);
+        when(channel.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
         DelayableWriteChannel delayableWriteChannel = new DelayableWriteChannel(channel);
         DelayedWrites delayWrites = delayableWriteChannel.delayWrites();
         ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
@@ -54,7 +57,9 @@ public class ResultSetReceiverTest {
             null
         );
         Row1 row1 = new Row1(1);
-        for (int i = 0; i < 1500; i++) {
+        // A DataRow with a single integer of one digit has 12 bytes
+        int numRows = DataRowEncoder.FLUSH_THRESHOLD_BYTES / 12 + 500;
+        for (int i = 0; i < numRows; i++) {
             resultSetReceiver.setNextRow(row1);
         }
         verify(channel, times(1)).flush();
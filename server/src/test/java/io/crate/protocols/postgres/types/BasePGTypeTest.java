@@ -24,6 +24,8 @@ package io.crate.protocols.postgres.types;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.nio.charset.StandardCharsets;
+
 import org.elasticsearch.test.ESTestCase;
 
 import io.crate.protocols.postgres.FormatCodes;
@@ -56,6 +58,24 @@ public abstract class BasePGTypeTest<T> extends ESTestCase {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    void assertTextWritten(Object value, String expectedText) {
+        byte[] expectedBytes = expectedText.getBytes(StandardCharsets.UTF_8);
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgType.writeAsText(buffer, value);
+            assertThat(bytesWritten, is(PGType.INT32_BYTE_SIZE + expectedBytes.length));
+            assertThat(buffer.readInt(), is(expectedBytes.length));
+
+            byte[] bytes = new byte[expectedBytes.length];
+            buffer.readBytes(bytes);
+            assertThat(bytes, is(expectedBytes));
+            assertThat(buffer.isReadable(), is(false));
+        } finally {
+            buffer.release();
+        }
+    }
+
     void assertBytesReadBinary(byte[] value, T expectedValue) {
         assertBytesReadBinary(value, expectedValue, pgType.typeLen());
     }
@@ -46,4 +46,13 @@ public class BigIntTypeTest extends BasePGTypeTest<Long> {
         byte[] bytesToRead = String.valueOf(Long.MAX_VALUE).getBytes(StandardCharsets.UTF_8);
         assertBytesReadText(bytesToRead, Long.MAX_VALUE, bytesToRead.length);
     }
+
+    @Test
+    public void test_write_value_as_text() throws Exception {
+        for (long value : new long[] { 0L, 7L, -7L, 10L, -10L, 99L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 }) {
+            assertTextWritten(value, Long.toString(value));
+        }
+        long value = randomLong();
+        assertTextWritten(value, Long.toString(value));
+    }
 }
@@ -46,4 +46,11 @@ public class DoubleTypeTest extends BasePGTypeTest<Double> {
         byte[] bytesToRead = String.valueOf(Double.MAX_VALUE).getBytes(StandardCharsets.UTF_8);
         assertBytesReadText(bytesToRead, Double.MAX_VALUE, bytesToRead.length);
     }
+
+    @Test
+    public void test_write_value_as_text() throws Exception {
+        assertTextWritten(1.5d, "1.5");
+        assertTextWritten(Double.NaN, "NaN");
+        assertTextWritten(Double.NEGATIVE_INFINITY, "-Infinity");
+    }
 }
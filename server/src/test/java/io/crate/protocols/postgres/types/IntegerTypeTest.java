@@ -46,4 +46,11 @@ public class IntegerTypeTest extends BasePGTypeTest<Integer> {
         byte[] bytesToRead = String.valueOf(Integer.MAX_VALUE).getBytes(StandardCharsets.UTF_8);
         assertBytesReadText(bytesToRead, Integer.MAX_VALUE, bytesToRead.length);
     }
+
+    @Test
+    public void test_write_value_as_text() throws Exception {
+        for (int value : new int[] { 0, 1, -1, 1000, Integer.MAX_VALUE, Integer.MIN_VALUE }) {
+            assertTextWritten(value, Integer.toString(value));
+        }
+    }
 }
@@ -46,4 +46,9 @@ public class RealTypeTest extends BasePGTypeTest<Float> {
         byte[] bytesToRead = String.valueOf(Float.MAX_VALUE).getBytes(StandardCharsets.UTF_8);
         assertBytesReadText(bytesToRead, Float.MAX_VALUE, bytesToRead.length);
     }
+
+    @Test
+    public void test_write_value_as_text() throws Exception {
+        assertTextWritten(1.5f, "1.5");
+    }
 }
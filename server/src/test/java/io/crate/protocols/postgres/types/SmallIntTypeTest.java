@@ -46,4 +46,10 @@ public class SmallIntTypeTest extends BasePGTypeTest<Short> {
         byte[] bytesToRead = String.valueOf(Short.MAX_VALUE).getBytes(StandardCharsets.UTF_8);
         assertBytesReadText(bytesToRead, Short.MAX_VALUE, bytesToRead.length);
     }
+
+    @Test
+    public void test_write_value_as_text() throws Exception {
+        assertTextWritten(Short.MIN_VALUE, "-32768");
+        assertTextWritten((short) 42, "42");
+    }
 }
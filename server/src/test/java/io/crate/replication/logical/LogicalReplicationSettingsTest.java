@@ -22,6 +22,7 @@
 package io.crate.replication.logical;
 
 import static io.crate.replication.logical.LogicalReplicationSettings.REPLICATION_CHANGE_BATCH_SIZE;
+import static io.crate.replication.logical.LogicalReplicationSettings.REPLICATION_MAX_CONCURRENT_READS;
 import static io.crate.replication.logical.LogicalReplicationSettings.REPLICATION_READ_POLL_DURATION;
 import static io.crate.replication.logical.LogicalReplicationSettings.REPLICATION_RECOVERY_CHUNK_SIZE;
 import static io.crate.replication.logical.LogicalReplicationSettings.REPLICATION_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS;
@@ -48,6 +49,7 @@ public class LogicalReplicationSettingsTest extends CrateDummyClusterServiceUnit
             .metadata(Metadata.builder().transientSettings(
                 Settings.builder()
                     .put(REPLICATION_CHANGE_BATCH_SIZE.getKey(), 20)
+                    .put(REPLICATION_MAX_CONCURRENT_READS.getKey(), 4)
                     .put(REPLICATION_READ_POLL_DURATION.getKey(), "1s")
                     .put(REPLICATION_RECOVERY_CHUNK_SIZE.getKey(), "10MB")
                     .put(REPLICATION_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS.getKey(), 3)
@@ -56,6 +58,7 @@ public class LogicalReplicationSettingsTest extends CrateDummyClusterServiceUnit
             .build();
         ClusterServiceUtils.setState(clusterService, newState);
         assertThat(replicationSettings.batchSize(), is(20));
+        assertThat(replicationSettings.maxConcurrentReads(), is(4));
         assertThat(replicationSettings.pollDelay().millis(), is(1000L));
         assertThat(replicationSettings.recoveryChunkSize(), is(new ByteSizeValue(10, ByteSizeUnit.MB)));
         assertThat(replicationSettings.maxConcurrentFileChunks(), is(3));
@@ -24,12 +24,17 @@ package io.crate.statistics;
 
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import io.crate.metadata.ColumnIdent;
+import io.crate.types.DataTypes;
+
 public class StatsTest extends ESTestCase {
 
     @Test
@@ -37,4 +42,67 @@ public class StatsTest extends ESTestCase {
         Stats stats = new Stats(0L, 200L, Map.of());
         assertThat(stats.averageSizePerRowInBytes(), Matchers.is(0L));
     }
+
+    private static Stats partitionStats(List<Integer> sortedValues) {
+        ColumnStats<Integer> columnStats = ColumnStats.fromSortedValues(
+            sortedValues,
+            DataTypes.INTEGER,
+            0,
+            sortedValues.size()
+        );
+        return new Stats(
+            sortedValues.size(),
+            sortedValues.size() * DataTypes.INTEGER.fixedSize(),
+            Map.of(new ColumnIdent("x"), columnStats)
+        );
+    }
+
+    @Test
+    public void test_merge_of_partitions_with_distinct_values_sums_up_distinct_values() throws Exception {
+        List<Integer> values1 = new ArrayList<>();
+        List<Integer> values2 = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            values1.add(i);
+            values2.add(i + 1000);
+        }
+        Stats merged = Stats.merge(List.of(partitionStats(values1), partitionStats(values2)));
+
+        assertThat(merged.numDocs(), Matchers.is(2000L));
+        assertThat(merged.sizeInBytes(), Matchers.is(2000L * DataTypes.INTEGER.fixedSize()));
+        ColumnStats<?> x = merged.getColumnStats(new ColumnIdent("x"));
+        assertThat(x.approxDistinct(), Matchers.is(2000.0));
+        assertThat(x.nullFraction(), Matchers.is(0.0));
+        assertThat(x.mostCommonValues().isEmpty(), Matchers.is(true));
+        List<?> histogram = x.histogram();
+        assertThat(histogram.size(), Matchers.lessThanOrEqualTo(MostCommonValues.MCV_TARGET));
+        assertThat(histogram.get(0), Matchers.is(1));
+        assertThat((Integer) histogram.get(histogram.size() - 1), Matchers.greaterThan(1900));
+        // both partitions have the same number of rows, so the median must be close to the boundary
+        assertThat((Integer) histogram.get(histogram.size() / 2), Matchers.allOf(
+            Matchers.greaterThan(900),
+            Matchers.lessThan(1100)
+        ));
+    }
+
+    @Test
+    public void test_merge_of_partitions_sharing_values_keeps_distinct_values_and_combines_mcvs() throws Exception {
+        List<Integer> values1 = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 100; j++) {
+                values1.add(i);
+            }
+        }
+        List<Integer> values2 = new ArrayList<>();
+        for (int j = 0; j < 3000; j++) {
+            values2.add(0);
+        }
+        Stats merged = Stats.merge(List.of(partitionStats(values1), partitionStats(values2)));
+
+        assertThat(merged.numDocs(), Matchers.is(4000L));
+        ColumnStats<?> x = merged.getColumnStats(new ColumnIdent("x"));
+        assertThat(x.approxDistinct(), Matchers.is(10.0));
+        MostCommonValues mcv = x.mostCommonValues();
+        assertThat(mcv.value(0), Matchers.is(0));
+        assertThat(mcv.frequency(0), Matchers.closeTo(3100.0 / 4000.0, 0.001));
+    }
 }
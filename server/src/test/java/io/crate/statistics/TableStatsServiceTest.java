@@ -21,6 +21,8 @@
 
 package io.crate.statistics;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -32,8 +34,6 @@ import org.mockito.Answers;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
-import io.crate.action.sql.Session;
-import io.crate.action.sql.Sessions;
 import io.crate.common.unit.TimeValue;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 
@@ -46,7 +46,7 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.builder().put(TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING.getKey(), 0).build(),
             THREAD_POOL,
             clusterService,
-            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS));
+            Mockito.mock(TransportAnalyzeAction.class, Answers.RETURNS_MOCKS));
 
         Assert.assertThat(statsService.refreshInterval,
                           Matchers.is(TimeValue.timeValueMinutes(0)));
@@ -57,7 +57,7 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            Mockito.mock(Sessions.class, Answers.RETURNS_MOCKS));
+            Mockito.mock(TransportAnalyzeAction.class, Answers.RETURNS_MOCKS));
 
         Assert.assertThat(statsService.refreshInterval,
                           Matchers.is(TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING.getDefault(Settings.EMPTY)));
@@ -91,19 +91,40 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
 
     @Test
     public void testStatsQueriesCorrectly() {
-        Sessions sqlOperations = Mockito.mock(Sessions.class);
-        Session session = Mockito.mock(Session.class);
-        Mockito.when(sqlOperations.newSystemSession()).thenReturn(session);
+        TransportAnalyzeAction analyzeAction = Mockito.mock(TransportAnalyzeAction.class);
+        Mockito.when(analyzeAction.fetchChangedSamplesThenGenerateAndPublishStats(ArgumentMatchers.anyDouble()))
+            .thenReturn(new CompletableFuture<>());
 
         TableStatsService statsService = new TableStatsService(
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            sqlOperations
+            analyzeAction
         );
         statsService.run();
 
-        Mockito.verify(session, Mockito.times(1)).quickExec(ArgumentMatchers.eq(TableStatsService.STMT), ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(analyzeAction, Mockito.times(1)).fetchChangedSamplesThenGenerateAndPublishStats(
+            TableStatsService.STATS_SERVICE_CHANGE_THRESHOLD_SETTING.getDefault(Settings.EMPTY));
+    }
+
+    @Test
+    public void test_change_threshold_setting_is_applied_to_next_refresh() {
+        TransportAnalyzeAction analyzeAction = Mockito.mock(TransportAnalyzeAction.class);
+        Mockito.when(analyzeAction.fetchChangedSamplesThenGenerateAndPublishStats(ArgumentMatchers.anyDouble()))
+            .thenReturn(new CompletableFuture<>());
+        TableStatsService statsService = new TableStatsService(
+            Settings.EMPTY,
+            THREAD_POOL,
+            clusterService,
+            analyzeAction
+        );
+
+        clusterService.getClusterSettings().applySettings(Settings.builder()
+            .put(TableStatsService.STATS_SERVICE_CHANGE_THRESHOLD_SETTING.getKey(), 0.5).build());
+        Assert.assertThat(statsService.changeThreshold, Matchers.is(0.5));
+
+        statsService.run();
+        Mockito.verify(analyzeAction, Mockito.times(1)).fetchChangedSamplesThenGenerateAndPublishStats(0.5);
     }
 
     @Test
@@ -111,18 +132,17 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
         final ClusterService clusterService = Mockito.mock(ClusterService.class);
         Mockito.when(clusterService.localNode()).thenReturn(null);
         Mockito.when(clusterService.getClusterSettings()).thenReturn(this.clusterService.getClusterSettings());
-        Sessions sqlOperations = Mockito.mock(Sessions.class);
-        Session session = Mockito.mock(Session.class);
-        Mockito.when(sqlOperations.newSession(ArgumentMatchers.anyString(), ArgumentMatchers.any())).thenReturn(session);
+        TransportAnalyzeAction analyzeAction = Mockito.mock(TransportAnalyzeAction.class);
 
         TableStatsService statsService = new TableStatsService(
             Settings.EMPTY,
             THREAD_POOL,
             clusterService,
-            sqlOperations
+            analyzeAction
         );
 
         statsService.run();
-        Mockito.verify(session, Mockito.times(0)).sync();
+        Mockito.verify(analyzeAction, Mockito.times(0)).fetchChangedSamplesThenGenerateAndPublishStats(
+            ArgumentMatchers.anyDouble());
     }
 }
@@ -27,6 +27,9 @@ import static org.junit.Assert.assertThat;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Test;
 
@@ -66,4 +69,48 @@ public class TransportAnalyzeActionTest extends ESTestCase {
         var stats = TransportAnalyzeAction.createTableStats(samples, references);
         assertThat(stats.numDocs, is(2L));
     }
+
+    @Test
+    public void test_index_is_resampled_once_changes_exceed_threshold() {
+        IndexChanges sampled = new IndexChanges("uuid", 1000, 1000);
+
+        assertThat(new IndexChanges("uuid", 1000, 1000).exceedsThreshold(sampled, 0.1), is(false));
+        assertThat(new IndexChanges("uuid", 1100, 1100).exceedsThreshold(sampled, 0.1), is(false));
+        assertThat(new IndexChanges("uuid", 1200, 1200).exceedsThreshold(sampled, 0.1), is(true));
+        // updates don't change the number of documents, but increase the sequence numbers
+        assertThat(new IndexChanges("uuid", 1000, 1200).exceedsThreshold(sampled, 0.1), is(true));
+        assertThat(new IndexChanges("uuid", 800, 1000).exceedsThreshold(sampled, 0.1), is(true));
+        assertThat(new IndexChanges("recreated", 1000, 1000).exceedsThreshold(sampled, 0.1), is(true));
+        assertThat(new IndexChanges("uuid", 1200, 1200).exceedsThreshold(sampled, 0.5), is(false));
+    }
+
+    @Test
+    public void test_partitions_are_sampled_proportional_to_their_number_of_rows() {
+        assertThat(TransportAnalyzeAction.numSamples(null, 1000), is(30_000));
+        assertThat(TransportAnalyzeAction.numSamples(new IndexChanges("uuid", 1000, 1000), 1000), is(30_000));
+        assertThat(TransportAnalyzeAction.numSamples(new IndexChanges("uuid", 500, 500), 1000), is(15_000));
+        assertThat(TransportAnalyzeAction.numSamples(new IndexChanges("uuid", 1, 1), 1_000_000), is(1000));
+    }
+
+    @Test
+    public void test_fetch_sample_request_only_sends_indices_to_nodes_supporting_them() throws Exception {
+        var request = new FetchSampleRequest(
+            new RelationName(Schemas.DOC_SCHEMA_NAME, "dummy"),
+            List.of(),
+            100,
+            List.of("p1")
+        );
+        try (var out = new BytesStreamOutput()) {
+            request.writeTo(out);
+            StreamInput in = out.bytes().streamInput();
+            assertThat(new FetchSampleRequest(in).indices(), is(List.of("p1")));
+        }
+        try (var out = new BytesStreamOutput()) {
+            out.setVersion(Version.V_5_5_0);
+            request.writeTo(out);
+            StreamInput in = out.bytes().streamInput();
+            in.setVersion(Version.V_5_5_0);
+            assertThat(new FetchSampleRequest(in).indices(), is(List.of()));
+        }
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Licensed to Crate.io GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package org.elasticsearch.common.xcontent.compact;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParser.Token;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class CompactXContentTest extends ESTestCase {
+
+    private static XContentParser parser(byte[] bytes) throws IOException {
+        return CompactXContent.COMPACT_XCONTENT.createParser(
+            NamedXContentRegistry.EMPTY,
+            DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+            bytes
+        );
+    }
+
+    private static Map<String, Object> parseJson(String json) throws IOException {
+        try (XContentParser parser = JsonXContent.JSON_XCONTENT.createParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json)) {
+            return parser.mapOrdered();
+        }
+    }
+
+    private static byte[] toCompact(String json) throws IOException {
+        try (XContentParser parser = JsonXContent.JSON_XCONTENT.createParser(
+                NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json)) {
+            XContentBuilder builder = CompactXContent.contentBuilder();
+            builder.copyCurrentStructure(parser);
+            return BytesReference.toBytes(BytesReference.bytes(builder));
+        }
+    }
+
+    @Test
+    public void test_roundtrip_from_json_results_in_same_values() throws Exception {
+        String json = """
+            {
+                "1": 10,
+                "2": "foo",
+                "name": "Arthur",
+                "long": 9223372036854775807,
+                "double": 1.5,
+                "negative": -42,
+                "bool": true,
+                "null": null,
+                "obj": {"x": [1, 2, {"y": "z"}], "empty": {}},
+                "arr": [],
+                "unicode": "äöü 😀"
+            }
+            """;
+        byte[] compact = toCompact(json);
+        assertThat(CompactXContent.isCompact(compact, 0, compact.length)).isTrue();
+
+        try (XContentParser parser = parser(compact)) {
+            assertThat(parser.mapOrdered()).isEqualTo(parseJson(json));
+        }
+    }
+
+    @Test
+    public void test_values_are_exposed_like_the_json_parser_exposes_them() throws Exception {
+        XContentBuilder builder = CompactXContent.contentBuilder()
+            .startObject()
+                .field("f", 1.1f)
+                .field("i", 7)
+                .field("l", 1L << 40)
+                .field("bin", new byte[] { 1, 2, 3 })
+            .endObject();
+        byte[] compact = BytesReference.toBytes(BytesReference.bytes(builder));
+        XContentBuilder jsonBuilder = JsonXContent.builder();
+        try (XContentParser parser = parser(compact)) {
+            jsonBuilder.copyCurrentStructure(parser);
+        }
+        String json = Strings.toString(jsonBuilder);
+        assertThat(json).isEqualTo(
+            "{\"f\":1.1,\"i\":7,\"l\":1099511627776,\"bin\":\"AQID\"}");
+
+        try (XContentParser parser = parser(compact)) {
+            assertThat(parser.map()).isEqualTo(parseJson(json));
+        }
+        try (XContentParser parser = parser(compact)) {
+            parser.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(Token.FIELD_NAME);
+            assertThat(parser.nextToken()).isEqualTo(Token.VALUE_NUMBER);
+            assertThat(parser.numberType()).isEqualTo(XContentParser.NumberType.DOUBLE);
+            assertThat(parser.floatValue()).isEqualTo(1.1f);
+            assertThat(parser.doubleValue()).isEqualTo(1.1d);
+            parser.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(Token.VALUE_NUMBER);
+            assertThat(parser.numberType()).isEqualTo(XContentParser.NumberType.INT);
+            parser.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(Token.VALUE_NUMBER);
+            assertThat(parser.numberType()).isEqualTo(XContentParser.NumberType.LONG);
+            parser.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(Token.VALUE_STRING);
+            assertThat(parser.binaryValue()).containsExactly(1, 2, 3);
+        }
+    }
+
+    @Test
+    public void test_skip_children_jumps_to_end_of_container() throws Exception {
+        byte[] compact = toCompact("""
+            {"a": {"b": [1, {"c": 2}], "d": "e"}, "f": [[1], [2]], "g": 3}
+            """);
+        try (XContentParser parser = parser(compact)) {
+            assertThat(parser.nextToken()).isEqualTo(Token.START_OBJECT);
+            assertThat(parser.nextToken()).isEqualTo(Token.FIELD_NAME);
+            assertThat(parser.nextToken()).isEqualTo(Token.START_OBJECT);
+            assertThat(parser.currentName()).isEqualTo("a");
+            parser.skipChildren();
+            assertThat(parser.currentToken()).isEqualTo(Token.END_OBJECT);
+            assertThat(parser.currentName()).isEqualTo("a");
+
+            assertThat(parser.nextToken()).isEqualTo(Token.FIELD_NAME);
+            assertThat(parser.currentName()).isEqualTo("f");
+            assertThat(parser.nextToken()).isEqualTo(Token.START_ARRAY);
+            parser.skipChildren();
+            assertThat(parser.currentToken()).isEqualTo(Token.END_ARRAY);
+
+            assertThat(parser.nextToken()).isEqualTo(Token.FIELD_NAME);
+            assertThat(parser.currentName()).isEqualTo("g");
+            assertThat(parser.nextToken()).isEqualTo(Token.VALUE_NUMBER);
+            assertThat(parser.intValue()).isEqualTo(3);
+            assertThat(parser.nextToken()).isEqualTo(Token.END_OBJECT);
+            assertThat(parser.nextToken()).isNull();
+        }
+    }
+
+    @Test
+    public void test_numeric_keys_are_stored_without_key_strings() throws Exception {
+        Map<String, Object> withOids = new LinkedHashMap<>();
+        Map<String, Object> withNames = new LinkedHashMap<>();
+        for (int i = 1; i <= 20; i++) {
+            withOids.put(Integer.toString(i), i);
+            withNames.put("column_" + i, i);
+        }
+        byte[] oids = BytesReference.toBytes(BytesReference.bytes(CompactXContent.contentBuilder().map(withOids)));
+        byte[] names = BytesReference.toBytes(BytesReference.bytes(CompactXContent.contentBuilder().map(withNames)));
+        assertThat(oids.length).isLessThan(names.length);
+        try (XContentParser parser = parser(oids)) {
+            assertThat(parser.mapOrdered()).isEqualTo(withOids);
+        }
+        // "01" isn't the canonical representation of 1 and must be kept as is
+        byte[] leadingZero = BytesReference.toBytes(
+            BytesReference.bytes(CompactXContent.contentBuilder().map(Map.of("01", List.of(1)))));
+        try (XContentParser parser = parser(leadingZero)) {
+            assertThat(parser.map()).isEqualTo(Map.of("01", List.of(1)));
+        }
+    }
+
+    @Test
+    public void test_content_type_is_detected_by_header() throws Exception {
+        byte[] compact = toCompact("{\"x\": 1}");
+        assertThat(XContentType.COMPACT.xContent()).isSameAs(CompactXContent.COMPACT_XCONTENT);
+        assertThat(CompactXContent.isCompact(compact, 0, compact.length)).isTrue();
+        byte[] json = "{\"x\": 1}".getBytes();
+        assertThat(CompactXContent.isCompact(json, 0, json.length)).isFalse();
+        assertThatThrownBy(() -> parser(json))
+            .hasMessage("Content is not in the compact format");
+    }
+
+    @Test
+    public void test_unclosed_object_fails_on_close() throws Exception {
+        XContentBuilder builder = CompactXContent.contentBuilder().startObject();
+        assertThatThrownBy(builder::close)
+            .isExactlyInstanceOf(IllegalStateException.class)
+            .hasRootCauseMessage("Unclosed object or array found");
+    }
+}
@@ -101,6 +101,7 @@ import org.mockito.Answers;
 
 import io.crate.Constants;
 import io.crate.action.sql.Cursors;
+import io.crate.action.sql.PlanCache;
 import io.crate.action.sql.Session;
 import io.crate.action.sql.Sessions;
 import io.crate.analyze.AnalyzedCreateBlobTable;
@@ -434,7 +435,15 @@ public class SQLExecutor {
                 random,
                 fulltextAnalyzerResolver,
                 udfService,
-                tableStats
+                tableStats,
+                new PlanCache(
+                    clusterService.getSettings(),
+                    clusterService,
+                    schemas,
+                    sessionSettingRegistry,
+                    userManager,
+                    tableStats
+                )
             );
         }
 
@@ -793,7 +802,8 @@ public class SQLExecutor {
                         Random random,
                         FulltextAnalyzerResolver fulltextAnalyzerResolver,
                         UserDefinedFunctionService udfService,
-                        TableStats tableStats) {
+                        TableStats tableStats,
+                        PlanCache planCache) {
         this.jobsLogsEnabled = false;
         this.jobsLogs = new JobsLogs(() -> SQLExecutor.this.jobsLogsEnabled);
         this.dependencyMock = mock(DependencyCarrier.class, Answers.RETURNS_MOCKS);
@@ -807,8 +817,8 @@ public class SQLExecutor {
             jobsLogs,
             clusterService.getSettings(),
             clusterService,
-            tableStats
-
+            tableStats,
+            planCache
         );
         this.analyzer = analyzer;
         this.planner = planner;
@@ -92,6 +92,7 @@ import org.elasticsearch.common.xcontent.XContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentParser.Token;
+import org.elasticsearch.common.xcontent.compact.CompactXContent;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.common.xcontent.smile.SmileXContent;
 import org.elasticsearch.common.xcontent.yaml.YamlXContent;
@@ -860,6 +861,7 @@ public abstract class ESTestCase extends CrateLuceneTestCase {
             case JSON -> JsonXContent.builder();
             case SMILE -> SmileXContent.contentBuilder();
             case YAML -> YamlXContent.contentBuilder();
+            case COMPACT -> CompactXContent.contentBuilder();
         };
         if (prettyPrint) {
             xContentBuilder.prettyPrint();